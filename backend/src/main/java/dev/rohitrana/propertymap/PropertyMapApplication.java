@@ -2,8 +2,10 @@ package dev.rohitrana.propertymap;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PropertyMapApplication {
     public static void main(String[] args) {
         SpringApplication.run(PropertyMapApplication.class, args);
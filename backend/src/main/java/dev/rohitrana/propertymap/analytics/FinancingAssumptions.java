@@ -0,0 +1,37 @@
+package dev.rohitrana.propertymap.analytics;
+
+import lombok.Data;
+
+/**
+ * Purchase and holding assumptions applied to every property of an analysis.
+ * Defaults match the property financials screen. Rates are percentages.
+ */
+@Data
+public class FinancingAssumptions {
+    private double downPaymentPercent = 20;
+    private double interestRate = 6.5;
+    private int loanTermYears = 25;
+    private double closingCostPercent = 2;
+
+    private int holdingYears = 5;
+    private double rentGrowth = 3;
+    private double expenseGrowth = 2;
+    // Used for properties without their own appreciation rate
+    private double appreciationRate = 3;
+    private double sellingCostPercent = 5;
+
+    public void validate() {
+        if (downPaymentPercent < 0 || downPaymentPercent > 100) {
+            throw new IllegalArgumentException("downPaymentPercent must be between 0 and 100");
+        }
+        if (interestRate < 0 || loanTermYears <= 0) {
+            throw new IllegalArgumentException("interestRate cannot be negative and loanTermYears must be positive");
+        }
+        if (holdingYears < 1 || holdingYears > 50) {
+            throw new IllegalArgumentException("holdingYears must be between 1 and 50");
+        }
+        if (downPaymentPercent + closingCostPercent <= 0) {
+            throw new IllegalArgumentException("The initial investment cannot be zero");
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package dev.rohitrana.propertymap.analytics;
+
+import dev.rohitrana.propertymap.dto.MetricSummary;
+import dev.rohitrana.propertymap.dto.SimulationResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo simulation of the returns of a set of properties bought together and held for the
+ * holding period, financed per {@link FinancingAssumptions}. All properties follow the same market
+ * path in a scenario, so their rents, expenses and debt service are summed up front and a
+ * scenario only walks the years, once for the cash flows and once per distinct appreciation rate
+ * for the sale value, whatever the number of properties.
+ * <p>
+ * Scenarios run in parallel in fixed blocks, each with its own generator split from the seed in
+ * block order, so a seed gives the same results on any number of cores. A block reuses one set of
+ * arrays for all its scenarios.
+ */
+public class MonteCarloSimulator {
+    private static final int BLOCK_SIZE = 1024;
+
+    private final FinancingAssumptions assumptions;
+    private final SimulationAssumptions simulation;
+
+    public MonteCarloSimulator(FinancingAssumptions assumptions, SimulationAssumptions simulation) {
+        this.assumptions = assumptions;
+        this.simulation = simulation;
+    }
+
+    public SimulationResult simulate(PropertyColumns columns) {
+        PortfolioMetrics.Constants c = new PortfolioMetrics.Constants(assumptions);
+        long seed = simulation.getSeed() != null ? simulation.getSeed() : new SplittableRandom().nextLong();
+
+        // The portfolio as one investment: totals of the complete rows, prices by appreciation rate
+        long analyzed = 0;
+        double price = 0;
+        double annualRent = 0;
+        double expenses = 0;
+        Map<Double, Double> priceByAppreciation = new TreeMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (!columns.isComplete(i)) {
+                continue;
+            }
+            analyzed++;
+            double propertyPrice = columns.listPriceCents(i) / 100.0;
+            price += propertyPrice;
+            annualRent += columns.monthlyRentCents(i) * 12 / 100.0;
+            expenses += columns.yearlyExpensesCents(i) / 100.0;
+            double appreciation = Double.isNaN(columns.appreciationRate(i))
+                    ? c.appreciationRate : columns.appreciationRate(i) / 100;
+            priceByAppreciation.merge(appreciation, propertyPrice, Double::sum);
+        }
+
+        Map<String, MetricSummary> metrics = new LinkedHashMap<>();
+        Double probabilityOfLoss = null;
+        if (analyzed > 0) {
+            Portfolio portfolio = new Portfolio(price, annualRent, expenses, priceByAppreciation);
+            int scenarios = simulation.getScenarios();
+            double[] irr = new double[scenarios];
+            double[] cashOnCash = new double[scenarios];
+            double[] totalReturn = new double[scenarios];
+
+            int blocks = (scenarios + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            SplittableRandom root = new SplittableRandom(seed);
+            SplittableRandom[] generators = new SplittableRandom[blocks];
+            for (int block = 0; block < blocks; block++) {
+                generators[block] = root.split();
+            }
+            IntStream.range(0, blocks).parallel().forEach(block -> {
+                Workspace workspace = new Workspace(c.holdingYears);
+                int end = Math.min(scenarios, (block + 1) * BLOCK_SIZE);
+                for (int s = block * BLOCK_SIZE; s < end; s++) {
+                    runScenario(generators[block], portfolio, c, workspace);
+                    irr[s] = workspace.irr;
+                    cashOnCash[s] = workspace.cashOnCash;
+                    totalReturn[s] = workspace.totalReturn;
+                }
+            });
+
+            long losses = 0;
+            for (double value : totalReturn) {
+                if (value < 0) {
+                    losses++;
+                }
+            }
+            probabilityOfLoss = (double) losses / scenarios;
+            metrics.put("irr", PortfolioAnalyzer.summarize(irr));
+            metrics.put("cashOnCash", PortfolioAnalyzer.summarize(cashOnCash));
+            metrics.put("totalReturn", PortfolioAnalyzer.summarize(totalReturn));
+        }
+
+        SimulationResult result = new SimulationResult();
+        result.setPropertyCount(columns.size());
+        result.setAnalyzedCount(analyzed);
+        result.setSeed(seed);
+        result.setAssumptions(assumptions);
+        result.setSimulation(simulation);
+        result.setMetrics(metrics);
+        result.setProbabilityOfLoss(probabilityOfLoss);
+        return result;
+    }
+
+    // One market path: the same steps as PortfolioMetrics, with the yearly rates drawn
+    private void runScenario(SplittableRandom random, Portfolio p, PortfolioMetrics.Constants c, Workspace w) {
+        double rentVolatility = simulation.getRentGrowthVolatility() / 100;
+        double appreciationVolatility = simulation.getAppreciationVolatility() / 100;
+        double expenseVolatility = simulation.getExpenseGrowthVolatility() / 100;
+        double vacancyMean = simulation.getVacancyRate() / 100;
+        double vacancyVolatility = simulation.getVacancyVolatility() / 100;
+        double correlation = simulation.getRentAppreciationCorrelation();
+        double independent = Math.sqrt(1 - correlation * correlation);
+
+        double loan = p.price * c.loanRatio;
+        double debtService = loan * c.annualPaymentFactor;
+        double equity = p.price * c.equityRatio;
+
+        double[] flows = w.flows;
+        flows[0] = -equity;
+        double rent = p.annualRent;
+        double cost = p.expenses;
+        double cashFlowSum = 0;
+        for (int year = 1; year <= c.holdingYears; year++) {
+            double rentShock = random.nextGaussian();
+            double appreciationShock = correlation * rentShock + independent * random.nextGaussian();
+            double vacancy = Math.min(1, Math.max(0, vacancyMean + vacancyVolatility * random.nextGaussian()));
+            w.appreciationShocks[year - 1] = appreciationVolatility * appreciationShock;
+
+            flows[year] = rent * (1 - vacancy) - cost - (year <= c.loanTermYears ? debtService : 0);
+            cashFlowSum += flows[year];
+            rent *= Math.max(0, 1 + c.rentGrowth + rentVolatility * rentShock);
+            cost *= Math.max(0, 1 + c.expenseGrowth + expenseVolatility * random.nextGaussian());
+        }
+
+        double saleValue = 0;
+        for (int r = 0; r < p.rates.length; r++) {
+            double value = p.prices[r];
+            for (int year = 0; year < c.holdingYears; year++) {
+                // A price can fall to nothing but not below
+                value *= Math.max(0, 1 + p.rates[r] + w.appreciationShocks[year]);
+            }
+            saleValue += value;
+        }
+        double saleProceeds = saleValue * (1 - c.sellingCost) - loan * c.remainingBalanceFactor;
+        flows[c.holdingYears] += saleProceeds;
+
+        w.cashOnCash = cashFlowSum / c.holdingYears / equity * 100;
+        w.totalReturn = (cashFlowSum + saleProceeds - equity) / equity * 100;
+        w.irr = PortfolioMetrics.internalRateOfReturn(flows) * 100;
+    }
+
+    private static class Portfolio {
+        final double price;
+        final double annualRent;
+        final double expenses;
+        // Distinct appreciation rates and the total price appreciating at each
+        final double[] rates;
+        final double[] prices;
+
+        Portfolio(double price, double annualRent, double expenses, Map<Double, Double> priceByAppreciation) {
+            this.price = price;
+            this.annualRent = annualRent;
+            this.expenses = expenses;
+            rates = new double[priceByAppreciation.size()];
+            prices = new double[priceByAppreciation.size()];
+            int r = 0;
+            for (Map.Entry<Double, Double> entry : priceByAppreciation.entrySet()) {
+                rates[r] = entry.getKey();
+                prices[r++] = entry.getValue();
+            }
+        }
+    }
+
+    // Per block scratch space and the outputs of the last scenario
+    private static class Workspace {
+        final double[] flows;
+        final double[] appreciationShocks;
+        double irr;
+        double cashOnCash;
+        double totalReturn;
+
+        Workspace(int holdingYears) {
+            flows = new double[holdingYears + 1];
+            appreciationShocks = new double[holdingYears];
+        }
+    }
+}
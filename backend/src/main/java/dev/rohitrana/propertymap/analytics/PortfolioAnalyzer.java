@@ -0,0 +1,150 @@
+package dev.rohitrana.propertymap.analytics;
+
+import dev.rohitrana.propertymap.dto.GroupSummary;
+import dev.rohitrana.propertymap.dto.MetricSummary;
+import dev.rohitrana.propertymap.dto.PortfolioAnalytics;
+import dev.rohitrana.propertymap.dto.PropertyMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Turns the per-property metric columns into the aggregates returned by the analytics endpoint.
+ */
+public class PortfolioAnalyzer {
+    // Sorting for percentiles switches to a parallel sort above this many values
+    private static final int PARALLEL_SORT_THRESHOLD = 8192;
+
+    private final FinancingAssumptions assumptions;
+
+    public PortfolioAnalyzer(FinancingAssumptions assumptions) {
+        this.assumptions = assumptions;
+    }
+
+    public PortfolioAnalytics analyze(PropertyColumns columns, PortfolioMetrics metrics, boolean includeProperties) {
+        PortfolioAnalytics analytics = new PortfolioAnalytics();
+        analytics.setPropertyCount(columns.size());
+        analytics.setAssumptions(assumptions);
+
+        long analyzed = 0;
+        long totalPriceCents = 0;
+        long totalNoiCents = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            if (metrics.isAnalyzed(i)) {
+                analyzed++;
+                totalPriceCents += columns.listPriceCents(i);
+                totalNoiCents += columns.monthlyRentCents(i) * 12 - columns.yearlyExpensesCents(i);
+            }
+        }
+        analytics.setAnalyzedCount(analyzed);
+        analytics.setTotalListPrice(totalPriceCents / 100.0);
+        analytics.setTotalNoi(totalNoiCents / 100.0);
+        analytics.setPortfolioCapRate(totalPriceCents > 0 ? totalNoiCents * 100.0 / totalPriceCents : null);
+
+        Map<String, MetricSummary> summaries = new LinkedHashMap<>();
+        summaries.put("noi", summarize(metrics.noiColumn()));
+        summaries.put("capRate", summarize(metrics.capRateColumn()));
+        summaries.put("grossYield", summarize(metrics.grossYieldColumn()));
+        summaries.put("cashOnCash", summarize(metrics.cashOnCashColumn()));
+        summaries.put("totalReturn", summarize(metrics.totalReturnColumn()));
+        summaries.put("irr", summarize(metrics.irrColumn()));
+        analytics.setMetrics(summaries);
+
+        analytics.setByCity(groupBy(columns, metrics, columns::city));
+        analytics.setByZipCode(groupBy(columns, metrics, columns::zipCode));
+
+        if (includeProperties) {
+            List<PropertyMetrics> rows = new ArrayList<>((int) analyzed);
+            for (int i = 0; i < columns.size(); i++) {
+                if (metrics.isAnalyzed(i)) {
+                    rows.add(new PropertyMetrics(columns.id(i), metrics.noi(i), metrics.capRate(i),
+                            metrics.grossYield(i), metrics.cashOnCash(i), metrics.totalReturn(i),
+                            Double.isNaN(metrics.irr(i)) ? null : metrics.irr(i)));
+                }
+            }
+            analytics.setProperties(rows);
+        }
+        return analytics;
+    }
+
+    static MetricSummary summarize(double[] column) {
+        double[] values = Arrays.stream(column).filter(value -> !Double.isNaN(value)).toArray();
+        if (values.length == 0) {
+            return new MetricSummary(0, null, null, null, null, null, null, null, null);
+        }
+        if (values.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(values);
+        } else {
+            Arrays.sort(values);
+        }
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return new MetricSummary(values.length, sum / values.length, values[0],
+                percentile(values, 0.10), percentile(values, 0.25), percentile(values, 0.50),
+                percentile(values, 0.75), percentile(values, 0.90), values[values.length - 1]);
+    }
+
+    // Linear interpolation between the closest ranks
+    private static double percentile(double[] sorted, double fraction) {
+        double rank = fraction * (sorted.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (rank - lower);
+    }
+
+    private static List<GroupSummary> groupBy(PropertyColumns columns, PortfolioMetrics metrics,
+                                              IntFunction<String> keyOf) {
+        Map<String, GroupTotals> groups = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String key = keyOf.apply(i);
+            if (key != null && metrics.isAnalyzed(i)) {
+                groups.computeIfAbsent(key, k -> new GroupTotals()).add(i, columns, metrics);
+            }
+        }
+        List<GroupSummary> result = new ArrayList<>(groups.size());
+        groups.forEach((key, totals) -> result.add(totals.toSummary(key)));
+        result.sort(Comparator.comparingLong(GroupSummary::getCount).reversed()
+                .thenComparing(GroupSummary::getKey));
+        return result;
+    }
+
+    private static class GroupTotals {
+        private long count;
+        private long listPriceCents;
+        private double noi;
+        private double capRate;
+        private double grossYield;
+        private double cashOnCash;
+        private double totalReturn;
+        private double irr;
+        private long irrCount;
+
+        void add(int i, PropertyColumns columns, PortfolioMetrics metrics) {
+            count++;
+            listPriceCents += columns.listPriceCents(i);
+            noi += metrics.noi(i);
+            capRate += metrics.capRate(i);
+            grossYield += metrics.grossYield(i);
+            cashOnCash += metrics.cashOnCash(i);
+            totalReturn += metrics.totalReturn(i);
+            if (!Double.isNaN(metrics.irr(i))) {
+                irr += metrics.irr(i);
+                irrCount++;
+            }
+        }
+
+        GroupSummary toSummary(String key) {
+            return new GroupSummary(key, count, listPriceCents / 100.0, noi / count, capRate / count,
+                    grossYield / count, cashOnCash / count, totalReturn / count,
+                    irrCount > 0 ? irr / irrCount : null);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package dev.rohitrana.propertymap.analytics;
+
+import java.util.stream.IntStream;
+
+/**
+ * Investment metrics of every property of a {@link PropertyColumns}, one column per metric.
+ * Rows are computed independently and in parallel; the financing constants shared by all rows
+ * (mortgage payment and balance factors) are computed once up front.
+ * Rows that cannot be analyzed hold NaN in every column.
+ */
+public class PortfolioMetrics {
+    // Below this many rows the parallel split costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final int IRR_ITERATIONS = 100;
+
+    private final int size;
+    private final double[] noi;
+    private final double[] capRate;
+    private final double[] grossYield;
+    private final double[] cashOnCash;
+    private final double[] totalReturn;
+    private final double[] irr;
+
+    private PortfolioMetrics(int size) {
+        this.size = size;
+        noi = new double[size];
+        capRate = new double[size];
+        grossYield = new double[size];
+        cashOnCash = new double[size];
+        totalReturn = new double[size];
+        irr = new double[size];
+    }
+
+    public static PortfolioMetrics compute(PropertyColumns columns, FinancingAssumptions assumptions) {
+        PortfolioMetrics metrics = new PortfolioMetrics(columns.size());
+        Constants constants = new Constants(assumptions);
+        IntStream rows = IntStream.range(0, columns.size());
+        if (columns.size() >= PARALLEL_THRESHOLD) {
+            rows = rows.parallel();
+        }
+        rows.forEach(i -> metrics.computeRow(i, columns, constants));
+        return metrics;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isAnalyzed(int i) {
+        return !Double.isNaN(noi[i]);
+    }
+
+    // Dollars per year
+    public double noi(int i) {
+        return noi[i];
+    }
+
+    // The remaining metrics are percentages
+    public double capRate(int i) {
+        return capRate[i];
+    }
+
+    public double grossYield(int i) {
+        return grossYield[i];
+    }
+
+    public double cashOnCash(int i) {
+        return cashOnCash[i];
+    }
+
+    public double totalReturn(int i) {
+        return totalReturn[i];
+    }
+
+    public double irr(int i) {
+        return irr[i];
+    }
+
+    double[] noiColumn() {
+        return noi;
+    }
+
+    double[] capRateColumn() {
+        return capRate;
+    }
+
+    double[] grossYieldColumn() {
+        return grossYield;
+    }
+
+    double[] cashOnCashColumn() {
+        return cashOnCash;
+    }
+
+    double[] totalReturnColumn() {
+        return totalReturn;
+    }
+
+    double[] irrColumn() {
+        return irr;
+    }
+
+    private void computeRow(int i, PropertyColumns columns, Constants c) {
+        if (!columns.isComplete(i)) {
+            noi[i] = capRate[i] = grossYield[i] = cashOnCash[i] = totalReturn[i] = irr[i] = Double.NaN;
+            return;
+        }
+        long priceCents = columns.listPriceCents(i);
+        long annualRentCents = columns.monthlyRentCents(i) * 12;
+        long noiCents = annualRentCents - columns.yearlyExpensesCents(i);
+
+        double price = priceCents / 100.0;
+        double annualRent = annualRentCents / 100.0;
+        double expenses = columns.yearlyExpensesCents(i) / 100.0;
+
+        noi[i] = noiCents / 100.0;
+        capRate[i] = noiCents * 100.0 / priceCents;
+        grossYield[i] = annualRentCents * 100.0 / priceCents;
+
+        double loan = price * c.loanRatio;
+        double debtService = loan * c.annualPaymentFactor;
+        double equity = price * c.equityRatio;
+        cashOnCash[i] = (noi[i] - debtService) / equity * 100;
+
+        double appreciation = Double.isNaN(columns.appreciationRate(i))
+                ? c.appreciationRate : columns.appreciationRate(i) / 100;
+        double[] flows = new double[c.holdingYears + 1];
+        flows[0] = -equity;
+        double rent = annualRent;
+        double cost = expenses;
+        double cashFlowSum = 0;
+        for (int year = 1; year <= c.holdingYears; year++) {
+            flows[year] = rent - cost - (year <= c.loanTermYears ? debtService : 0);
+            cashFlowSum += flows[year];
+            rent *= 1 + c.rentGrowth;
+            cost *= 1 + c.expenseGrowth;
+        }
+        double saleValue = price * Math.pow(1 + appreciation, c.holdingYears);
+        double saleProceeds = saleValue * (1 - c.sellingCost) - loan * c.remainingBalanceFactor;
+        flows[c.holdingYears] += saleProceeds;
+
+        totalReturn[i] = (cashFlowSum + saleProceeds - equity) / equity * 100;
+        irr[i] = internalRateOfReturn(flows) * 100;
+    }
+
+    // Bisection on the NPV, which decreases with the rate for an investment followed by returns.
+    // Outside the bracket the rate is clamped, so a scenario that loses more than the equity
+    // reports -100% instead of dropping out of the distribution.
+    static double internalRateOfReturn(double[] flows) {
+        double low = -0.99;
+        double high = 10;
+        double npvLow = npv(flows, low);
+        if (npvLow < 0) {
+            return -1;
+        }
+        if (npv(flows, high) > 0) {
+            return high;
+        }
+        for (int iteration = 0; iteration < IRR_ITERATIONS && high - low > 1e-9; iteration++) {
+            double middle = (low + high) / 2;
+            double npvMiddle = npv(flows, middle);
+            if (npvMiddle * npvLow > 0) {
+                low = middle;
+                npvLow = npvMiddle;
+            } else {
+                high = middle;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    private static double npv(double[] flows, double rate) {
+        double npv = 0;
+        double discount = 1;
+        for (double flow : flows) {
+            npv += flow / discount;
+            discount *= 1 + rate;
+        }
+        return npv;
+    }
+
+    static class Constants {
+        final double loanRatio;
+        final double equityRatio;
+        final double annualPaymentFactor;
+        final double remainingBalanceFactor;
+        final int holdingYears;
+        final int loanTermYears;
+        final double rentGrowth;
+        final double expenseGrowth;
+        final double appreciationRate;
+        final double sellingCost;
+
+        Constants(FinancingAssumptions assumptions) {
+            loanRatio = 1 - assumptions.getDownPaymentPercent() / 100;
+            equityRatio = (assumptions.getDownPaymentPercent() + assumptions.getClosingCostPercent()) / 100;
+            holdingYears = assumptions.getHoldingYears();
+            loanTermYears = assumptions.getLoanTermYears();
+            rentGrowth = assumptions.getRentGrowth() / 100;
+            expenseGrowth = assumptions.getExpenseGrowth() / 100;
+            appreciationRate = assumptions.getAppreciationRate() / 100;
+            sellingCost = assumptions.getSellingCostPercent() / 100;
+
+            // Standard amortizing mortgage, monthly payments
+            double monthlyRate = assumptions.getInterestRate() / 100 / 12;
+            int months = assumptions.getLoanTermYears() * 12;
+            int monthsHeld = Math.min(months, holdingYears * 12);
+            if (monthlyRate == 0) {
+                annualPaymentFactor = 12.0 / months;
+                remainingBalanceFactor = 1 - (double) monthsHeld / months;
+            } else {
+                double growth = Math.pow(1 + monthlyRate, months);
+                annualPaymentFactor = 12 * monthlyRate * growth / (growth - 1);
+                remainingBalanceFactor = (growth - Math.pow(1 + monthlyRate, monthsHeld)) / (growth - 1);
+            }
+        }
+    }
+}
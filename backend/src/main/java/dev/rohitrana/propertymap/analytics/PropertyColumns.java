@@ -0,0 +1,93 @@
+package dev.rohitrana.propertymap.analytics;
+
+import dev.rohitrana.propertymap.model.Property;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * The monetary fields of a set of properties as primitive columns.
+ * Amounts are held in cents so sums and differences stay exact; rates are doubles.
+ * A missing amount is {@link #MISSING}.
+ */
+public class PropertyColumns {
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private final int size;
+    private final long[] ids;
+    private final String[] cities;
+    private final String[] zipCodes;
+    private final long[] listPriceCents;
+    private final long[] monthlyRentCents;
+    private final long[] yearlyExpensesCents;
+    // NaN when the property has no appreciation rate of its own
+    private final double[] appreciationRates;
+
+    public PropertyColumns(List<Property> properties) {
+        size = properties.size();
+        ids = new long[size];
+        cities = new String[size];
+        zipCodes = new String[size];
+        listPriceCents = new long[size];
+        monthlyRentCents = new long[size];
+        yearlyExpensesCents = new long[size];
+        appreciationRates = new double[size];
+        for (int i = 0; i < size; i++) {
+            Property property = properties.get(i);
+            ids[i] = property.getId() != null ? property.getId() : 0;
+            cities[i] = property.getCity();
+            zipCodes[i] = property.getZipCode();
+            listPriceCents[i] = toCents(property.getListPrice());
+            monthlyRentCents[i] = toCents(property.getMonthlyRent());
+            yearlyExpensesCents[i] = toCents(property.getYearlyExpenses());
+            appreciationRates[i] = property.getAppreciationRate() != null
+                    ? property.getAppreciationRate().doubleValue() : Double.NaN;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int i) {
+        return ids[i];
+    }
+
+    public String city(int i) {
+        return cities[i];
+    }
+
+    public String zipCode(int i) {
+        return zipCodes[i];
+    }
+
+    public long listPriceCents(int i) {
+        return listPriceCents[i];
+    }
+
+    public long monthlyRentCents(int i) {
+        return monthlyRentCents[i];
+    }
+
+    public long yearlyExpensesCents(int i) {
+        return yearlyExpensesCents[i];
+    }
+
+    public double appreciationRate(int i) {
+        return appreciationRates[i];
+    }
+
+    // Rows with a positive price, a rent and expenses can be analyzed
+    public boolean isComplete(int i) {
+        return listPriceCents[i] != MISSING && listPriceCents[i] > 0
+                && monthlyRentCents[i] != MISSING && yearlyExpensesCents[i] != MISSING;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return MISSING;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
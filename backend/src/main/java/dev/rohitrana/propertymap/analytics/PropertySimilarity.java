@@ -0,0 +1,57 @@
+package dev.rohitrana.propertymap.analytics;
+
+import dev.rohitrana.propertymap.model.Property;
+
+/**
+ * How alike two properties are for comparable-sales purposes, from 0 (nothing in common) to 1.
+ * Each attribute scores by how far apart the two values are relative to a tolerance, and the
+ * scores are weighted. Attributes missing on either side are left out and the remaining weights
+ * rescaled, so a subject with only bedrooms given ranks by bedrooms alone.
+ */
+public final class PropertySimilarity {
+    private static final double BEDROOMS_WEIGHT = 0.30;
+    private static final double BATHROOMS_WEIGHT = 0.20;
+    private static final double SQUARE_FEET_WEIGHT = 0.35;
+    private static final double YEAR_BUILT_WEIGHT = 0.15;
+
+    // Differences at which an attribute stops contributing
+    private static final double BEDROOMS_TOLERANCE = 3;
+    private static final double BATHROOMS_TOLERANCE = 3;
+    private static final double SQUARE_FEET_RELATIVE_TOLERANCE = 0.5;
+    private static final double YEAR_BUILT_TOLERANCE = 40;
+
+    private PropertySimilarity() {
+    }
+
+    public static boolean hasAttributes(Property subject) {
+        return subject.getBedrooms() != null || subject.getBathrooms() != null
+                || subject.getSquareFeet() != null || subject.getYearBuilt() != null;
+    }
+
+    public static double score(Property subject, Property candidate) {
+        double weighted = 0;
+        double weights = 0;
+        if (subject.getBedrooms() != null && candidate.getBedrooms() != null) {
+            weighted += BEDROOMS_WEIGHT * closeness(subject.getBedrooms() - candidate.getBedrooms(), BEDROOMS_TOLERANCE);
+            weights += BEDROOMS_WEIGHT;
+        }
+        if (subject.getBathrooms() != null && candidate.getBathrooms() != null) {
+            weighted += BATHROOMS_WEIGHT * closeness(subject.getBathrooms() - candidate.getBathrooms(), BATHROOMS_TOLERANCE);
+            weights += BATHROOMS_WEIGHT;
+        }
+        if (subject.getSquareFeet() != null && candidate.getSquareFeet() != null && subject.getSquareFeet() > 0) {
+            double relative = (double) (subject.getSquareFeet() - candidate.getSquareFeet()) / subject.getSquareFeet();
+            weighted += SQUARE_FEET_WEIGHT * closeness(relative, SQUARE_FEET_RELATIVE_TOLERANCE);
+            weights += SQUARE_FEET_WEIGHT;
+        }
+        if (subject.getYearBuilt() != null && candidate.getYearBuilt() != null) {
+            weighted += YEAR_BUILT_WEIGHT * closeness(subject.getYearBuilt() - candidate.getYearBuilt(), YEAR_BUILT_TOLERANCE);
+            weights += YEAR_BUILT_WEIGHT;
+        }
+        return weights > 0 ? weighted / weights : 0;
+    }
+
+    private static double closeness(double difference, double tolerance) {
+        return Math.max(0, 1 - Math.abs(difference) / tolerance);
+    }
+}
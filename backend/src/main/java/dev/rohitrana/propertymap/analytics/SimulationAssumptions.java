@@ -0,0 +1,42 @@
+package dev.rohitrana.propertymap.analytics;
+
+import lombok.Data;
+
+/**
+ * How the market may deviate from the financing assumptions in a Monte Carlo simulation.
+ * Every scenario draws, for each holding year, a rent growth, appreciation and expense growth
+ * around the assumed rates and a vacancy rate, with these standard deviations. Rates and
+ * standard deviations are percentage points.
+ */
+@Data
+public class SimulationAssumptions {
+    public static final int MAX_SCENARIOS = 200_000;
+
+    private int scenarios = 10_000;
+    // Same seed, same results; a random one when not given
+    private Long seed;
+
+    private double rentGrowthVolatility = 2;
+    private double appreciationVolatility = 5;
+    private double expenseGrowthVolatility = 1.5;
+    private double vacancyRate = 5;
+    private double vacancyVolatility = 3;
+    // Rents and prices tend to rise and fall together
+    private double rentAppreciationCorrelation = 0.5;
+
+    public void validate() {
+        if (scenarios < 1 || scenarios > MAX_SCENARIOS) {
+            throw new IllegalArgumentException("scenarios must be between 1 and " + MAX_SCENARIOS);
+        }
+        if (rentGrowthVolatility < 0 || appreciationVolatility < 0 || expenseGrowthVolatility < 0
+                || vacancyVolatility < 0) {
+            throw new IllegalArgumentException("Volatilities cannot be negative");
+        }
+        if (vacancyRate < 0 || vacancyRate > 100) {
+            throw new IllegalArgumentException("vacancyRate must be between 0 and 100");
+        }
+        if (rentAppreciationCorrelation < -1 || rentAppreciationCorrelation > 1) {
+            throw new IllegalArgumentException("rentAppreciationCorrelation must be between -1 and 1");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package dev.rohitrana.propertymap.cache;
+
+import lombok.Value;
+
+@Value
+public class CacheStatistics {
+    String name;
+    long size;
+    long hitCount;
+    long missCount;
+    double hitRate;
+    long evictionCount;
+    double averageLoadMillis;
+}
@@ -0,0 +1,69 @@
+package dev.rohitrana.propertymap.cache;
+
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.filter.LocationScoreFilter;
+import dev.rohitrana.propertymap.model.LocationScore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Caches location score lookups by id and filter results by filter.
+ * A change evicts the id and only the filter results the old or new row matches, e.g. raising a
+ * score from 6 to 7 evicts the results for minimums up to 7 and keeps those for 8 and above.
+ */
+@Component
+public class LocationScoreQueryCache {
+    private final ReadThroughCache<Long, Optional<LocationScore>> byId;
+    private final ReadThroughCache<LocationScoreFilter, List<LocationScore>> byFilter;
+
+    @Autowired
+    public LocationScoreQueryCache(@Value("${propertymap.cache.max-rows:100000}") long maxRows,
+                                   @Value("${propertymap.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.byId = new ReadThroughCache<>("locationScores.byId", maxRows, Duration.ofSeconds(ttlSeconds));
+        this.byFilter = new ReadThroughCache<>("locationScores.byFilter", maxRows, Duration.ofSeconds(ttlSeconds));
+    }
+
+    public ReadThroughCache<Long, Optional<LocationScore>> byId() {
+        return byId;
+    }
+
+    public ReadThroughCache<LocationScoreFilter, List<LocationScore>> byFilter() {
+        return byFilter;
+    }
+
+    public List<CacheStatistics> statistics() {
+        return List.of(byId.statistics(), byFilter.statistics());
+    }
+
+    @EventListener
+    public void onLocationScoreChanged(LocationScoreChangedEvent event) {
+        Long id = event.getId();
+        LocationScore previous = event.getPrevious();
+        if (previous == null) {
+            Optional<LocationScore> cached = byId.getIfPresent(id);
+            previous = cached != null ? cached.orElse(null) : null;
+        }
+        LocationScore current = event.getCurrent();
+        byId.invalidate(id);
+
+        LocationScore knownPrevious = previous;
+        byFilter.invalidateIf((filter, rows) -> {
+            if (matches(filter, knownPrevious) || matches(filter, current)) {
+                return true;
+            }
+            // Without the old state, fall back to finding results that contain the row
+            return knownPrevious == null && rows.stream().anyMatch(row -> Objects.equals(row.getId(), id));
+        });
+    }
+
+    private static boolean matches(LocationScoreFilter filter, LocationScore locationScore) {
+        return locationScore != null && filter.toEntityFilter().toPredicate().test(locationScore);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.rohitrana.propertymap.cache;
+
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Caches property lookups by id and filter results by filter.
+ * A change evicts the id and only the filter results the old or new row matches, e.g. saving a
+ * property in Toronto leaves cached results for other cities and zip codes in place.
+ */
+@Component
+public class PropertyQueryCache {
+    private final ReadThroughCache<Long, Optional<Property>> byId;
+    private final ReadThroughCache<PropertyFilter, List<Property>> byFilter;
+
+    @Autowired
+    public PropertyQueryCache(@Value("${propertymap.cache.max-rows:100000}") long maxRows,
+                              @Value("${propertymap.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.byId = new ReadThroughCache<>("properties.byId", maxRows, Duration.ofSeconds(ttlSeconds));
+        this.byFilter = new ReadThroughCache<>("properties.byFilter", maxRows, Duration.ofSeconds(ttlSeconds));
+    }
+
+    public ReadThroughCache<Long, Optional<Property>> byId() {
+        return byId;
+    }
+
+    public ReadThroughCache<PropertyFilter, List<Property>> byFilter() {
+        return byFilter;
+    }
+
+    public List<CacheStatistics> statistics() {
+        return List.of(byId.statistics(), byFilter.statistics());
+    }
+
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        Long id = event.getId();
+        Property previous = event.getPrevious();
+        if (previous == null) {
+            Optional<Property> cached = byId.getIfPresent(id);
+            previous = cached != null ? cached.orElse(null) : null;
+        }
+        Property current = event.getCurrent();
+        byId.invalidate(id);
+
+        Property knownPrevious = previous;
+        byFilter.invalidateIf((filter, rows) -> {
+            if (matches(filter, knownPrevious) || matches(filter, current)) {
+                return true;
+            }
+            // Without the old state, fall back to finding results that contain the row
+            return knownPrevious == null && rows.stream().anyMatch(row -> Objects.equals(row.getId(), id));
+        });
+    }
+
+    private static boolean matches(PropertyFilter filter, Property property) {
+        return property != null && filter.toEntityFilter().toPredicate().test(property);
+    }
+}
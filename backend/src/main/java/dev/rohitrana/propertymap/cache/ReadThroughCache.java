@@ -0,0 +1,87 @@
+package dev.rohitrana.propertymap.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring read-through cache. Entries are weighed by the number of rows they hold,
+ * so one large result counts as much as many single lookups.
+ * Invalidation is targeted: by key, or by a condition over key and cached value.
+ */
+public class ReadThroughCache<K, V> {
+    private final String name;
+    private final Cache<K, V> cache;
+    // Bumped by every conditional invalidation, which cannot see the loads still in flight
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ReadThroughCache(String name, long maxRows, Duration ttl) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((K key, V value) -> value instanceof Collection<?> rows ? Math.max(1, rows.size()) : 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the cached value, loading it on a miss. A load racing with an invalidation is not
+     * stored: invalidating a key waits for the in-flight load of that key, and a load that
+     * overlapped a conditional invalidation is returned to its caller only, since it may have
+     * read the state from before the change.
+     */
+    public V get(K key, Function<K, V> loader) {
+        while (true) {
+            AtomicReference<V> loadedHere = new AtomicReference<>();
+            AtomicBoolean loaded = new AtomicBoolean();
+            V value = cache.get(key, missing -> {
+                long before = invalidations.get();
+                V result = loader.apply(missing);
+                loadedHere.set(result);
+                loaded.set(true);
+                return invalidations.get() == before ? result : null;
+            });
+            // Without a value it was our own discarded load, or another caller's we have to repeat
+            if (value != null || loaded.get()) {
+                return value != null ? value : loadedHere.get();
+            }
+        }
+    }
+
+    // Peeks without counting a hit or miss, for invalidation bookkeeping
+    public V getIfPresent(K key) {
+        return cache.asMap().get(key);
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateIf(BiPredicate<K, V> condition) {
+        invalidations.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> condition.test(entry.getKey(), entry.getValue()));
+    }
+
+    public Cache<K, V> getNativeCache() {
+        return cache;
+    }
+
+    public CacheStatistics statistics() {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), stats.averageLoadPenalty() / 1_000_000.0);
+    }
+}
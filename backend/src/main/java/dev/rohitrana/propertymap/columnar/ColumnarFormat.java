@@ -0,0 +1,54 @@
+package dev.rohitrana.propertymap.columnar;
+
+import org.springframework.http.MediaType;
+
+/**
+ * A compact, column-oriented binary encoding of entity lists, negotiated with
+ * {@code Accept: application/vnd.propertymap.columnar}.
+ *
+ * <p>All integers are unsigned LEB128 varints; signed values are zigzag encoded first. Strings
+ * are a varint byte length followed by UTF-8. A message is:
+ * <pre>
+ * "PMC" version(byte) rowCount(varint) columnCount(varint) column*
+ * column = name(string) type(byte) type-specific header and values
+ * </pre>
+ * Nullable columns start with a presence bitmap of ceil(rowCount / 8) bytes (bit i of byte
+ * i / 8, least significant first, set when row i has a value) followed by the present values only:
+ * <ul>
+ *     <li>ID: zigzag delta from the previous row's id, never null, no bitmap</li>
+ *     <li>INT: zigzag value</li>
+ *     <li>DECIMAL: scale(byte) in the header, zigzag unscaled value at that scale</li>
+ *     <li>DOUBLE: 8 byte big-endian IEEE 754</li>
+ *     <li>COORDINATE: scale(byte) in the header, zigzag delta of the fixed-point value from the
+ *     previous present one</li>
+ *     <li>DICTIONARY: no bitmap; entry count(varint) and entries(string) in the header, then per
+ *     row a varint of 0 for null or the entry index plus one</li>
+ *     <li>STRING: no bitmap; per row a varint of 0 for null or the byte length plus one, then the bytes</li>
+ *     <li>TIMESTAMP: zigzag delta of microseconds since 1970-01-01T00:00 (local time, no zone)
+ *     from the previous present one</li>
+ * </ul>
+ */
+public final class ColumnarFormat {
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.propertymap.columnar";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    static final byte[] MAGIC = {'P', 'M', 'C'};
+    static final byte VERSION = 1;
+
+    static final byte ID = 1;
+    static final byte INT = 2;
+    static final byte DECIMAL = 3;
+    static final byte DOUBLE = 4;
+    static final byte COORDINATE = 5;
+    static final byte DICTIONARY = 6;
+    static final byte STRING = 7;
+    static final byte TIMESTAMP = 8;
+
+    // 1e-7 degrees is about 1 cm
+    static final int COORDINATE_SCALE = 7;
+    // Unscaled decimals must stay exact as JavaScript numbers
+    static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+
+    private ColumnarFormat() {
+    }
+}
@@ -0,0 +1,89 @@
+package dev.rohitrana.propertymap.columnar;
+
+import dev.rohitrana.propertymap.metrics.SerializationMetrics;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes entity list responses in the {@link ColumnarFormat} when the client asks for it.
+ * Only lists of entities with a schema are written, anything else stays with the JSON converter.
+ */
+public class ColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<?>> {
+    private final Map<Class<?>, ColumnarSchema<?>> schemas = Map.of(
+            Property.class, ColumnarSchemas.PROPERTIES,
+            LocationScore.class, ColumnarSchemas.LOCATION_SCORES);
+
+    private final SerializationMetrics metrics;
+
+    public ColumnarHttpMessageConverter(SerializationMetrics metrics) {
+        super(ColumnarFormat.MEDIA_TYPE);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    // The element type is needed to pick the schema
+    @Override
+    public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return type != null && supports(clazz) && canWrite(mediaType) && schemaFor(type) != null;
+    }
+
+    // Content negotiation asks by class only, after canWrite with the full type has passed
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(List<?> rows, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        ColumnarSchema<Object> schema = (ColumnarSchema<Object>) schemaFor(type);
+        metrics.time("columnar", rows, () -> schema.write(rows, outputMessage.getBody()));
+    }
+
+    @Override
+    public List<?> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar request bodies are not supported", inputMessage);
+    }
+
+    @Nullable
+    private ColumnarSchema<?> schemaFor(@Nullable Type type) {
+        Class<?> element = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+        return element != null ? schemas.get(element) : null;
+    }
+}
@@ -0,0 +1,64 @@
+package dev.rohitrana.propertymap.columnar;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader of the primitives of the columnar format from a buffer, e.g. a memory-mapped file.
+ * Reading past the end throws {@link java.nio.BufferUnderflowException}.
+ */
+class ColumnarInput {
+    private final ByteBuffer buffer;
+
+    ColumnarInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() {
+        return buffer.get() & 0xFF;
+    }
+
+    byte[] readBytes(int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    int readLength() {
+        long value = readVarint();
+        if (value < 0 || value > buffer.remaining() + 1L) {
+            throw new IllegalArgumentException("Length out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    long readZigZag() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    double readDouble() {
+        // Big-endian like the writer, whatever the buffer's order
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | readByte();
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    String readString() {
+        return new String(readBytes(readLength()), StandardCharsets.UTF_8);
+    }
+}
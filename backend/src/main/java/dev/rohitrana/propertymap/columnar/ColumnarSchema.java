@@ -0,0 +1,462 @@
+package dev.rohitrana.propertymap.columnar;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The columns an entity is encoded with in the {@link ColumnarFormat}, in order, each with its getter.
+ * Text columns are dictionary encoded when their values repeat enough, and decimal columns
+ * use the smallest scale that keeps every value exact. Columns given a setter are also read back.
+ */
+public class ColumnarSchema<T> {
+    // Rows looked at before a mostly distinct text column stops building its dictionary
+    private static final int DICTIONARY_SAMPLE = 1024;
+
+    private final List<Column<T>> columns = new ArrayList<>();
+
+    public ColumnarSchema<T> id(String name, Function<T, Long> getter) {
+        return id(name, getter, null);
+    }
+
+    public ColumnarSchema<T> id(String name, Function<T, Long> getter, BiConsumer<T, Long> setter) {
+        add(name, Long.class, setter, (rows, out) -> {
+            writeHeader(out, name, ColumnarFormat.ID);
+            long previous = 0;
+            for (T row : rows) {
+                long id = getter.apply(row);
+                out.writeZigZag(id - previous);
+                previous = id;
+            }
+        });
+        return this;
+    }
+
+    public ColumnarSchema<T> integer(String name, Function<T, Integer> getter) {
+        return integer(name, getter, null);
+    }
+
+    public ColumnarSchema<T> integer(String name, Function<T, Integer> getter, BiConsumer<T, Integer> setter) {
+        add(name, Integer.class, setter, (rows, out) -> {
+            writeHeader(out, name, ColumnarFormat.INT);
+            List<Integer> values = collect(rows, getter);
+            writePresence(out, values);
+            for (Integer value : values) {
+                if (value != null) {
+                    out.writeZigZag(value);
+                }
+            }
+        });
+        return this;
+    }
+
+    public ColumnarSchema<T> longInteger(String name, Function<T, Long> getter, BiConsumer<T, Long> setter) {
+        add(name, Long.class, setter, (rows, out) -> {
+            writeHeader(out, name, ColumnarFormat.INT);
+            List<Long> values = collect(rows, getter);
+            writePresence(out, values);
+            for (Long value : values) {
+                if (value != null) {
+                    out.writeZigZag(value);
+                }
+            }
+        });
+        return this;
+    }
+
+    public ColumnarSchema<T> decimal(String name, Function<T, BigDecimal> getter) {
+        return decimal(name, getter, null);
+    }
+
+    public ColumnarSchema<T> decimal(String name, Function<T, BigDecimal> getter, BiConsumer<T, BigDecimal> setter) {
+        add(name, BigDecimal.class, setter, (rows, out) -> writeDecimal(out, name, collect(rows, getter)));
+        return this;
+    }
+
+    public ColumnarSchema<T> real(String name, Function<T, Double> getter) {
+        return real(name, getter, null);
+    }
+
+    public ColumnarSchema<T> real(String name, Function<T, Double> getter, BiConsumer<T, Double> setter) {
+        add(name, Double.class, setter, (rows, out) -> {
+            writeHeader(out, name, ColumnarFormat.DOUBLE);
+            writeDoubles(out, collect(rows, getter));
+        });
+        return this;
+    }
+
+    public ColumnarSchema<T> coordinate(String name, Function<T, Double> getter) {
+        return coordinate(name, getter, null);
+    }
+
+    // Rounded to the coordinate scale, use real for exact values
+    public ColumnarSchema<T> coordinate(String name, Function<T, Double> getter, BiConsumer<T, Double> setter) {
+        add(name, Double.class, setter, (rows, out) -> {
+            writeHeader(out, name, ColumnarFormat.COORDINATE);
+            out.writeByte(ColumnarFormat.COORDINATE_SCALE);
+            List<Double> values = collect(rows, getter);
+            writePresence(out, values);
+            double factor = Math.pow(10, ColumnarFormat.COORDINATE_SCALE);
+            long previous = 0;
+            for (Double value : values) {
+                if (value != null) {
+                    long fixed = Math.round(value * factor);
+                    out.writeZigZag(fixed - previous);
+                    previous = fixed;
+                }
+            }
+        });
+        return this;
+    }
+
+    public ColumnarSchema<T> text(String name, Function<T, String> getter) {
+        return text(name, getter, null);
+    }
+
+    public ColumnarSchema<T> text(String name, Function<T, String> getter, BiConsumer<T, String> setter) {
+        add(name, String.class, setter, (rows, out) -> writeText(out, name, collect(rows, getter)));
+        return this;
+    }
+
+    public ColumnarSchema<T> timestamp(String name, Function<T, LocalDateTime> getter) {
+        return timestamp(name, getter, null);
+    }
+
+    public ColumnarSchema<T> timestamp(String name, Function<T, LocalDateTime> getter,
+                                       BiConsumer<T, LocalDateTime> setter) {
+        add(name, LocalDateTime.class, setter, (rows, out) -> {
+            writeHeader(out, name, ColumnarFormat.TIMESTAMP);
+            List<LocalDateTime> values = collect(rows, getter);
+            writePresence(out, values);
+            long previous = 0;
+            for (LocalDateTime value : values) {
+                if (value != null) {
+                    long micros = value.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + value.getNano() / 1000;
+                    out.writeZigZag(micros - previous);
+                    previous = micros;
+                }
+            }
+        });
+        return this;
+    }
+
+    public void write(List<? extends T> rows, OutputStream stream) throws IOException {
+        ColumnarOutput out = new ColumnarOutput(stream);
+        out.writeBytes(ColumnarFormat.MAGIC);
+        out.writeByte(ColumnarFormat.VERSION);
+        out.writeVarint(rows.size());
+        out.writeVarint(columns.size());
+        for (Column<T> column : columns) {
+            column.writer().write(rows, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Decodes a message written with this schema, or any schema with the same column names, into
+     * new rows. Columns without a setter are skipped and columns the schema does not know are ignored.
+     *
+     * @throws IllegalArgumentException if the message is malformed or lacks a column that has a setter
+     */
+    public List<T> read(ByteBuffer buffer, Supplier<T> factory) {
+        ColumnarInput in = new ColumnarInput(buffer);
+        byte[] magic = in.readBytes(ColumnarFormat.MAGIC.length);
+        if (!Arrays.equals(magic, ColumnarFormat.MAGIC) || in.readByte() != ColumnarFormat.VERSION) {
+            throw new IllegalArgumentException("Not a columnar message of version " + ColumnarFormat.VERSION);
+        }
+        int rowCount = in.readLength();
+        int columnCount = in.readLength();
+        List<T> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(factory.get());
+        }
+
+        Map<String, Column<T>> settable = new HashMap<>();
+        for (Column<T> column : columns) {
+            if (column.setter() != null) {
+                settable.put(column.name(), column);
+            }
+        }
+        for (int c = 0; c < columnCount; c++) {
+            String name = in.readString();
+            Object[] values = readValues(in, (byte) in.readByte(), rowCount);
+            Column<T> column = settable.remove(name);
+            if (column == null) {
+                continue;
+            }
+            for (int i = 0; i < rowCount; i++) {
+                column.setter().accept(rows.get(i), convert(name, values[i], column.type()));
+            }
+        }
+        if (!settable.isEmpty()) {
+            throw new IllegalArgumentException("Missing columns: " + String.join(", ", settable.keySet()));
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> void add(String name, Class<V> type, BiConsumer<T, V> setter, ColumnWriter<T> writer) {
+        columns.add(new Column<>(name, type, (BiConsumer<T, Object>) setter, writer));
+    }
+
+    private static Object convert(String name, Object value, Class<?> type) {
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+        if (type == Integer.class && value instanceof Long l) {
+            return Math.toIntExact(l);
+        }
+        // Decimals too precise for a fixed-point column were written as doubles
+        if (type == BigDecimal.class && value instanceof Double d) {
+            return BigDecimal.valueOf(d);
+        }
+        throw new IllegalArgumentException("Column " + name + " holds " + value.getClass().getSimpleName()
+                + " values, expected " + type.getSimpleName());
+    }
+
+    private static Object[] readValues(ColumnarInput in, byte type, int rowCount) {
+        Object[] values = new Object[rowCount];
+        switch (type) {
+            case ColumnarFormat.ID -> {
+                long previous = 0;
+                for (int i = 0; i < rowCount; i++) {
+                    previous += in.readZigZag();
+                    values[i] = previous;
+                }
+            }
+            case ColumnarFormat.INT -> {
+                boolean[] present = readPresence(in, rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    values[i] = present[i] ? in.readZigZag() : null;
+                }
+            }
+            case ColumnarFormat.DECIMAL -> {
+                int scale = in.readByte();
+                boolean[] present = readPresence(in, rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    values[i] = present[i] ? BigDecimal.valueOf(in.readZigZag(), scale) : null;
+                }
+            }
+            case ColumnarFormat.DOUBLE -> {
+                boolean[] present = readPresence(in, rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    values[i] = present[i] ? in.readDouble() : null;
+                }
+            }
+            case ColumnarFormat.COORDINATE -> {
+                double factor = Math.pow(10, in.readByte());
+                boolean[] present = readPresence(in, rowCount);
+                long previous = 0;
+                for (int i = 0; i < rowCount; i++) {
+                    if (present[i]) {
+                        previous += in.readZigZag();
+                        values[i] = previous / factor;
+                    }
+                }
+            }
+            case ColumnarFormat.DICTIONARY -> {
+                String[] entries = new String[in.readLength()];
+                for (int e = 0; e < entries.length; e++) {
+                    entries[e] = in.readString();
+                }
+                for (int i = 0; i < rowCount; i++) {
+                    int code = in.readLength();
+                    if (code > entries.length) {
+                        throw new IllegalArgumentException("Dictionary code out of range: " + code);
+                    }
+                    values[i] = code == 0 ? null : entries[code - 1];
+                }
+            }
+            case ColumnarFormat.STRING -> {
+                for (int i = 0; i < rowCount; i++) {
+                    int length = in.readLength();
+                    values[i] = length == 0 ? null : new String(in.readBytes(length - 1), StandardCharsets.UTF_8);
+                }
+            }
+            case ColumnarFormat.TIMESTAMP -> {
+                boolean[] present = readPresence(in, rowCount);
+                long previous = 0;
+                for (int i = 0; i < rowCount; i++) {
+                    if (present[i]) {
+                        previous += in.readZigZag();
+                        values[i] = LocalDateTime.ofEpochSecond(Math.floorDiv(previous, 1_000_000),
+                                (int) Math.floorMod(previous, 1_000_000) * 1000, ZoneOffset.UTC);
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown column type: " + type);
+        }
+        return values;
+    }
+
+    private static boolean[] readPresence(ColumnarInput in, int rowCount) {
+        boolean[] present = new boolean[rowCount];
+        int bits = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if ((i & 7) == 0) {
+                bits = in.readByte();
+            }
+            present[i] = (bits & (1 << (i & 7))) != 0;
+        }
+        return present;
+    }
+
+    private static <T, V> List<V> collect(List<? extends T> rows, Function<T, V> getter) {
+        List<V> values = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            values.add(getter.apply(row));
+        }
+        return values;
+    }
+
+    private static void writeHeader(ColumnarOutput out, String name, byte type) throws IOException {
+        out.writeString(name);
+        out.writeByte(type);
+    }
+
+    private static void writePresence(ColumnarOutput out, List<?> values) throws IOException {
+        int bits = 0;
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) != null) {
+                bits |= 1 << (i & 7);
+            }
+            if ((i & 7) == 7) {
+                out.writeByte(bits);
+                bits = 0;
+            }
+        }
+        if ((values.size() & 7) != 0) {
+            out.writeByte(bits);
+        }
+    }
+
+    private static void writeDoubles(ColumnarOutput out, List<? extends Number> values) throws IOException {
+        writePresence(out, values);
+        for (Number value : values) {
+            if (value != null) {
+                out.writeDouble(value.doubleValue());
+            }
+        }
+    }
+
+    private static void writeDecimal(ColumnarOutput out, String name, List<BigDecimal> values) throws IOException {
+        int scale = 0;
+        for (BigDecimal value : values) {
+            if (value != null) {
+                scale = Math.max(scale, value.scale());
+            }
+        }
+
+        long[] unscaled = new long[values.size()];
+        boolean exact = scale <= 18;
+        for (int i = 0; i < values.size() && exact; i++) {
+            BigDecimal value = values.get(i);
+            if (value != null) {
+                try {
+                    unscaled[i] = value.setScale(scale).unscaledValue().longValueExact();
+                    exact = Math.abs(unscaled[i]) <= ColumnarFormat.MAX_SAFE_INTEGER;
+                } catch (ArithmeticException e) {
+                    exact = false;
+                }
+            }
+        }
+        if (!exact) {
+            // Too precise for a fixed-point column, fall back to doubles like the JSON output
+            writeHeader(out, name, ColumnarFormat.DOUBLE);
+            writeDoubles(out, values);
+            return;
+        }
+
+        // Drop trailing zeros shared by every value, stored prices usually end in .00
+        while (scale > 0 && allDivisibleByTen(values, unscaled)) {
+            for (int i = 0; i < unscaled.length; i++) {
+                unscaled[i] /= 10;
+            }
+            scale--;
+        }
+
+        writeHeader(out, name, ColumnarFormat.DECIMAL);
+        out.writeByte(scale);
+        writePresence(out, values);
+        for (int i = 0; i < unscaled.length; i++) {
+            if (values.get(i) != null) {
+                out.writeZigZag(unscaled[i]);
+            }
+        }
+    }
+
+    private static boolean allDivisibleByTen(List<BigDecimal> values, long[] unscaled) {
+        for (int i = 0; i < unscaled.length; i++) {
+            if (values.get(i) != null && unscaled[i] % 10 != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeText(ColumnarOutput out, String name, List<String> values) throws IOException {
+        // A dictionary only pays off when values repeat, give up once half the rows seen are distinct
+        int limit = values.size() / 2;
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        int[] rowCodes = new int[values.size()];
+        for (int i = 0; i < values.size() && entries.size() <= limit; i++) {
+            if (i >= DICTIONARY_SAMPLE && entries.size() * 2 > i) {
+                limit = -1;
+                break;
+            }
+            String value = values.get(i);
+            if (value != null) {
+                Integer code = codes.get(value);
+                if (code == null) {
+                    entries.add(value);
+                    code = entries.size();
+                    codes.put(value, code);
+                }
+                rowCodes[i] = code;
+            }
+        }
+
+        if (limit >= 0 && entries.size() <= limit) {
+            writeHeader(out, name, ColumnarFormat.DICTIONARY);
+            out.writeVarint(entries.size());
+            for (String entry : entries) {
+                out.writeString(entry);
+            }
+            for (int code : rowCodes) {
+                out.writeVarint(code);
+            }
+            return;
+        }
+
+        writeHeader(out, name, ColumnarFormat.STRING);
+        for (String value : values) {
+            if (value == null) {
+                out.writeVarint(0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeVarint(bytes.length + 1L);
+                out.writeBytes(bytes);
+            }
+        }
+    }
+
+    private record Column<T>(String name, Class<?> type, BiConsumer<T, Object> setter, ColumnWriter<T> writer) {
+    }
+
+    private interface ColumnWriter<T> {
+        void write(List<? extends T> rows, ColumnarOutput out) throws IOException;
+    }
+}
@@ -0,0 +1,56 @@
+package dev.rohitrana.propertymap.columnar;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+
+/**
+ * Columnar encodings of the entities, with the same field names as their JSON.
+ */
+public final class ColumnarSchemas {
+    public static final ColumnarSchema<Property> PROPERTIES = new ColumnarSchema<Property>()
+            .id("id", Property::getId)
+            .text("address", Property::getAddress)
+            .text("city", Property::getCity)
+            .text("state", Property::getState)
+            .text("zipCode", Property::getZipCode)
+            .integer("bedrooms", Property::getBedrooms)
+            .integer("bathrooms", Property::getBathrooms)
+            .integer("squareFeet", Property::getSquareFeet)
+            .integer("yearBuilt", Property::getYearBuilt)
+            .decimal("listPrice", Property::getListPrice)
+            .text("status", Property::getStatus)
+            .coordinate("latitude", Property::getLatitude)
+            .coordinate("longitude", Property::getLongitude)
+            .decimal("capRate", Property::getCapRate)
+            .decimal("appreciationRate", Property::getAppreciationRate)
+            .decimal("cashOnCashReturn", Property::getCashOnCashReturn)
+            .decimal("monthlyRent", Property::getMonthlyRent)
+            .decimal("yearlyExpenses", Property::getYearlyExpenses)
+            .text("imageUrl", Property::getImageUrl)
+            .text("description", Property::getDescription)
+            .timestamp("createdAt", Property::getCreatedAt)
+            .timestamp("updatedAt", Property::getUpdatedAt);
+
+    public static final ColumnarSchema<LocationScore> LOCATION_SCORES = new ColumnarSchema<LocationScore>()
+            .id("id", LocationScore::getId)
+            .coordinate("latitude", LocationScore::getLatitude)
+            .coordinate("longitude", LocationScore::getLongitude)
+            .text("address", LocationScore::getAddress)
+            .integer("overallScore", LocationScore::getOverallScore)
+            .integer("performanceScore", LocationScore::getPerformanceScore)
+            .integer("riskScore", LocationScore::getRiskScore)
+            .integer("demandScore", LocationScore::getDemandScore)
+            .integer("supplyScore", LocationScore::getSupplyScore)
+            .real("capRate", LocationScore::getCapRate)
+            .real("appreciation", LocationScore::getAppreciation)
+            .real("irr", LocationScore::getIrr)
+            .real("fiveYearTotalReturn", LocationScore::getFiveYearTotalReturn)
+            .real("averageHousePrice", LocationScore::getAverageHousePrice)
+            .real("propertyTax", LocationScore::getPropertyTax)
+            .real("neighborhoodChange", LocationScore::getNeighborhoodChange)
+            .timestamp("createdAt", LocationScore::getCreatedAt)
+            .timestamp("updatedAt", LocationScore::getUpdatedAt);
+
+    private ColumnarSchemas() {
+    }
+}
@@ -0,0 +1,41 @@
+package dev.rohitrana.propertymap.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Request and query concurrency. With spring.threads.virtual.enabled=true (Java 21 and later)
+ * Tomcat and the application task executor run on virtual threads, so blocking JDBC calls no
+ * longer tie up a platform thread each; the connection bulkhead then keeps them from
+ * overrunning the database.
+ */
+@Configuration
+@Slf4j
+public class ConcurrencyConfig {
+
+    @Bean
+    public static BeanPostProcessor databaseBulkhead(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource
+                        || !environment.getProperty("propertymap.database.bulkhead.enabled", Boolean.class, true)) {
+                    return bean;
+                }
+                // One permit per pooled connection by default, so waiting happens here with a short timeout
+                int maxConcurrent = environment.getProperty("propertymap.database.bulkhead.max-concurrent", Integer.class,
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                long maxWaitMillis = environment.getProperty("propertymap.database.bulkhead.max-wait-ms", Long.class, 2000L);
+                log.info("Database bulkhead on {}: {} concurrent connections, {} ms max wait, {} threads",
+                        beanName, maxConcurrent, maxWaitMillis, Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform");
+                return new BulkheadDataSource(dataSource, maxConcurrent, maxWaitMillis);
+            }
+        };
+    }
+}
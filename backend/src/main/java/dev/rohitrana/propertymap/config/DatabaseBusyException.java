@@ -0,0 +1,12 @@
+package dev.rohitrana.propertymap.config;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Thrown when no database connection permit became free within the bulkhead's wait time.
+ */
+public class DatabaseBusyException extends SQLTransientConnectionException {
+    public DatabaseBusyException(String message) {
+        super(message);
+    }
+}
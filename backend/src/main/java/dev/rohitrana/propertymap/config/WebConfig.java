@@ -1,29 +1,71 @@
 package dev.rohitrana.propertymap.config;
 
+import dev.rohitrana.propertymap.columnar.ColumnarHttpMessageConverter;
+import dev.rohitrana.propertymap.metrics.SerializationMetrics;
+import dev.rohitrana.propertymap.metrics.TimedJsonHttpMessageConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebMvc
 public class WebConfig implements WebMvcConfigurer{
+    private final AsyncTaskExecutor taskExecutor;
+    private final long asyncTimeoutMillis;
+    private final SerializationMetrics serializationMetrics;
+
+    public WebConfig(@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor taskExecutor,
+                     @Value("${propertymap.async.timeout-ms:30000}") long asyncTimeoutMillis,
+                     MeterRegistry meterRegistry) {
+        this.taskExecutor = taskExecutor;
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+        this.serializationMetrics = new SerializationMetrics(meterRegistry);
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:3000")
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Next-Cursor", "X-Feed-Version", "ETag")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
 
+    // @EnableWebMvc turns off Boot's MVC setup, so async handlers (streams, futures) need the executor here
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(taskExecutor);
+        configurer.setDefaultTimeout(asyncTimeoutMillis);
+    }
+
+    // Binary is added after the JSON converter so JSON stays the default, and is only sent when asked for
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> converter.getClass() == MappingJackson2HttpMessageConverter.class
+                ? new TimedJsonHttpMessageConverter(((MappingJackson2HttpMessageConverter) converter).getObjectMapper(),
+                        serializationMetrics)
+                : converter);
+        converters.add(new ColumnarHttpMessageConverter(serializationMetrics));
+    }
+
     @Bean
     public CorsFilter corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -34,6 +76,9 @@ public class WebConfig implements WebMvcConfigurer{
         config.addAllowedOrigin("http://localhost:3000");
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        config.addExposedHeader("X-Next-Cursor");
+        config.addExposedHeader("X-Feed-Version");
+        config.addExposedHeader("ETag");
         source.registerCorsConfiguration("/**", config);
 
         return new CorsFilter(source);
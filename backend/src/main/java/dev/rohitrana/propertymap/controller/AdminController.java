@@ -0,0 +1,49 @@
+package dev.rohitrana.propertymap.controller;
+
+import dev.rohitrana.propertymap.cache.CacheStatistics;
+import dev.rohitrana.propertymap.cache.LocationScoreQueryCache;
+import dev.rohitrana.propertymap.cache.PropertyQueryCache;
+import dev.rohitrana.propertymap.index.IndexConsistencyChecker;
+import dev.rohitrana.propertymap.index.IndexConsistencyReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AdminController {
+    private final IndexConsistencyChecker indexConsistencyChecker;
+    private final PropertyQueryCache propertyQueryCache;
+    private final LocationScoreQueryCache locationScoreQueryCache;
+
+    @Autowired
+    public AdminController(IndexConsistencyChecker indexConsistencyChecker, PropertyQueryCache propertyQueryCache,
+                           LocationScoreQueryCache locationScoreQueryCache) {
+        this.indexConsistencyChecker = indexConsistencyChecker;
+        this.propertyQueryCache = propertyQueryCache;
+        this.locationScoreQueryCache = locationScoreQueryCache;
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<List<CacheStatistics>> getCacheStatistics() {
+        List<CacheStatistics> statistics = new ArrayList<>(propertyQueryCache.statistics());
+        statistics.addAll(locationScoreQueryCache.statistics());
+        return new ResponseEntity<>(statistics, HttpStatus.OK);
+    }
+
+    @GetMapping("/index/consistency")
+    public ResponseEntity<List<IndexConsistencyReport>> checkIndexConsistency() {
+        List<IndexConsistencyReport> reports = indexConsistencyChecker.checkAll(false);
+        return new ResponseEntity<>(reports, HttpStatus.OK);
+    }
+
+    @PostMapping("/index/repair")
+    public ResponseEntity<List<IndexConsistencyReport>> repairIndexes() {
+        List<IndexConsistencyReport> reports = indexConsistencyChecker.checkAll(true);
+        return new ResponseEntity<>(reports, HttpStatus.OK);
+    }
+}
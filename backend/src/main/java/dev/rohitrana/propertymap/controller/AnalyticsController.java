@@ -0,0 +1,70 @@
+package dev.rohitrana.propertymap.controller;
+
+import dev.rohitrana.propertymap.analytics.FinancingAssumptions;
+import dev.rohitrana.propertymap.analytics.SimulationAssumptions;
+import dev.rohitrana.propertymap.dto.PortfolioAnalytics;
+import dev.rohitrana.propertymap.dto.PropertyStats;
+import dev.rohitrana.propertymap.dto.SimulationResult;
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AnalyticsController {
+    private final AnalyticsService analyticsService;
+
+    @Autowired
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    // Accepts the property filter parameters, optional ids and any financing assumption to override
+    @GetMapping("/portfolio")
+    public ResponseEntity<PortfolioAnalytics> analyzePortfolio(
+            PropertyFilter filter,
+            FinancingAssumptions assumptions,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(defaultValue = "false") boolean includeProperties,
+            @RequestParam(defaultValue = "false") boolean verify) {
+        try {
+            PortfolioAnalytics analytics = analyticsService.analyzePortfolio(filter, ids, assumptions,
+                    includeProperties, verify);
+            return new ResponseEntity<>(analytics, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Same selection and financing parameters as /portfolio, plus the simulation parameters
+    // (scenarios, seed, volatilities, vacancyRate, rentAppreciationCorrelation)
+    @GetMapping("/simulation")
+    public ResponseEntity<SimulationResult> simulate(
+            PropertyFilter filter,
+            FinancingAssumptions assumptions,
+            SimulationAssumptions simulation,
+            @RequestParam(required = false) List<Long> ids) {
+        try {
+            return new ResponseEntity<>(analyticsService.simulate(filter, ids, assumptions, simulation), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Pre-aggregated, so the cost depends on the number of groups rather than properties
+    @GetMapping("/stats")
+    public ResponseEntity<PropertyStats> getStats(
+            @RequestParam(defaultValue = "city") String groupBy,
+            @RequestParam(defaultValue = "false") boolean histograms) {
+        try {
+            return new ResponseEntity<>(analyticsService.getStats(groupBy, histograms), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+}
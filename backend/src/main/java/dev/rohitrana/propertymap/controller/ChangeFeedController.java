@@ -0,0 +1,113 @@
+package dev.rohitrana.propertymap.controller;
+
+import dev.rohitrana.propertymap.dto.GeoBounds;
+import dev.rohitrana.propertymap.feed.ChangeFeed;
+import dev.rohitrana.propertymap.feed.EntityChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incremental updates instead of re-polling the lists. Subscribe with an EventSource; each
+ * "change" event carries its version as the event id, so a reconnect resumes from Last-Event-ID.
+ * A "reset" event means changes were missed and the client should reload before continuing.
+ */
+@RestController
+@RequestMapping("/api/changes")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ChangeFeedController {
+    static final String VERSION_HEADER = "X-Feed-Version";
+    private static final Set<String> ALL_ENTITIES = Set.of(EntityChange.PROPERTY, EntityChange.LOCATION_SCORE);
+
+    private final ChangeFeed changeFeed;
+
+    @Autowired
+    public ChangeFeedController(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(
+            @RequestParam(required = false) Double southLat,
+            @RequestParam(required = false) Double northLat,
+            @RequestParam(required = false) Double westLng,
+            @RequestParam(required = false) Double eastLng,
+            @RequestParam(required = false) String entities,
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        GeoBounds bounds;
+        Set<String> selected;
+        try {
+            bounds = bounds(southLat, northLat, westLng, eastLng);
+            selected = entities(entities);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            // The browser's reconnect header wins over the cursor in the original URL
+            SseEmitter emitter = changeFeed.subscribe(bounds, selected, lastEventId != null ? lastEventId : since);
+            return new ResponseEntity<>(emitter, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // Polling fallback; 410 when the changes after the cursor are no longer retained
+    @GetMapping
+    public ResponseEntity<List<EntityChange>> getChanges(
+            @RequestParam long since,
+            @RequestParam(required = false) Double southLat,
+            @RequestParam(required = false) Double northLat,
+            @RequestParam(required = false) Double westLng,
+            @RequestParam(required = false) Double eastLng,
+            @RequestParam(required = false) String entities) {
+        GeoBounds bounds;
+        Set<String> selected;
+        try {
+            bounds = bounds(southLat, northLat, westLng, eastLng);
+            selected = entities(entities);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(VERSION_HEADER, String.valueOf(changeFeed.currentVersion()));
+        return changeFeed.since(since, bounds, selected)
+                .map(changes -> new ResponseEntity<>(changes, headers, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(headers, HttpStatus.GONE));
+    }
+
+    // No bounds means everywhere, but it is all four or none
+    private static GeoBounds bounds(Double southLat, Double northLat, Double westLng, Double eastLng) {
+        if (southLat == null && northLat == null && westLng == null && eastLng == null) {
+            return null;
+        }
+        if (southLat == null || northLat == null || westLng == null || eastLng == null) {
+            throw new IllegalArgumentException("Bounds need southLat, northLat, westLng and eastLng");
+        }
+        return new GeoBounds(southLat, northLat, westLng, eastLng);
+    }
+
+    private static Set<String> entities(String entities) {
+        if (entities == null || entities.isBlank()) {
+            return ALL_ENTITIES;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String entity : entities.split(",")) {
+            if (!ALL_ENTITIES.contains(entity.trim())) {
+                throw new IllegalArgumentException("Unknown entity: " + entity);
+            }
+            selected.add(entity.trim());
+        }
+        return selected;
+    }
+}
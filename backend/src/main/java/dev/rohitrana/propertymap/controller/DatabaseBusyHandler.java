@@ -0,0 +1,32 @@
+package dev.rohitrana.propertymap.controller;
+
+import dev.rohitrana.propertymap.config.DatabaseBusyException;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers requests rejected by the database bulkhead with 503 and a retry hint, instead of a 500.
+ * The rejection arrives wrapped in whichever Spring data access or transaction exception the
+ * connection was requested from.
+ */
+@RestControllerAdvice
+public class DatabaseBusyHandler {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // Anything else is rethrown and handled as before
+    @ExceptionHandler({DataAccessException.class, TransactionException.class})
+    public ResponseEntity<Void> handleDatabaseBusy(NestedRuntimeException e) {
+        if (!e.contains(DatabaseBusyException.class)) {
+            throw e;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return new ResponseEntity<>(headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
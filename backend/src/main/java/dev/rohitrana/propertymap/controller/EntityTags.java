@@ -0,0 +1,47 @@
+package dev.rohitrana.propertymap.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Entity versions as HTTP entity tags. A single entity is returned with its version in the ETag
+ * header; sending that value back in If-Match makes an update conditional on the entity not
+ * having changed in the meantime, otherwise it is answered with 412.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static <T> ResponseEntity<T> tagged(T body, Long version, HttpStatus status) {
+        HttpHeaders headers = new HttpHeaders();
+        if (version != null) {
+            headers.setETag("\"" + version + "\"");
+        }
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+    /**
+     * The version an If-Match header asks for; null when there is no header or it is "*".
+     * Only a single strong tag is supported; If-Match compares strongly, so a weak tag never matches
+     * and is rejected.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new IllegalArgumentException("Weak entity tag in If-Match header: " + ifMatch);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+}
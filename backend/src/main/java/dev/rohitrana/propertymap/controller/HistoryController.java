@@ -0,0 +1,92 @@
+package dev.rohitrana.propertymap.controller;
+
+import dev.rohitrana.propertymap.dto.EntityHistory;
+import dev.rohitrana.propertymap.dto.HistoryStats;
+import dev.rohitrana.propertymap.feed.EntityChange;
+import dev.rohitrana.propertymap.service.HistoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/history")
+@CrossOrigin(origins = "http://localhost:3000")
+public class HistoryController {
+    private final HistoryService historyService;
+
+    @Autowired
+    public HistoryController(HistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    // e.g. ?field=listPrice&groupBy=zipCode&interval=month&percentiles=0.5 for the median price of every property
+    // at the end of each month by zip code, or &basis=changes for the median of the prices set during each month;
+    // from/to are months (yyyy-MM), the last five years by default
+    @GetMapping("/properties/stats")
+    public ResponseEntity<HistoryStats> getPropertyStats(
+            @RequestParam String field,
+            @RequestParam(defaultValue = "values") String basis,
+            @RequestParam(defaultValue = "all") String groupBy,
+            @RequestParam(required = false) List<String> keys,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "month") String interval,
+            @RequestParam(defaultValue = "0.5") List<Double> percentiles) {
+        return getStats(EntityChange.PROPERTY, field, basis, groupBy, keys, from, to, interval, percentiles);
+    }
+
+    @GetMapping("/location-scores/stats")
+    public ResponseEntity<HistoryStats> getLocationScoreStats(
+            @RequestParam String field,
+            @RequestParam(defaultValue = "values") String basis,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "month") String interval,
+            @RequestParam(defaultValue = "0.5") List<Double> percentiles) {
+        return getStats(EntityChange.LOCATION_SCORE, field, basis, "all", null, from, to, interval, percentiles);
+    }
+
+    @GetMapping("/properties/{id}")
+    public ResponseEntity<EntityHistory> getPropertyHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return getEntityHistory(EntityChange.PROPERTY, id, fields, from, to);
+    }
+
+    @GetMapping("/location-scores/{id}")
+    public ResponseEntity<EntityHistory> getLocationScoreHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return getEntityHistory(EntityChange.LOCATION_SCORE, id, fields, from, to);
+    }
+
+    private ResponseEntity<HistoryStats> getStats(String entity, String field, String basis, String groupBy,
+                                                  List<String> keys, String from, String to, String interval,
+                                                  List<Double> percentiles) {
+        try {
+            HistoryStats stats = historyService.getStats(entity, field, basis, groupBy,
+                    keys == null ? List.of() : keys, from, to, interval, percentiles);
+            return new ResponseEntity<>(stats, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private ResponseEntity<EntityHistory> getEntityHistory(String entity, Long id, List<String> fields, String from,
+                                                           String to) {
+        try {
+            EntityHistory history = historyService.getEntityHistory(entity, id, fields == null ? List.of() : fields,
+                    from, to);
+            return new ResponseEntity<>(history, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.rohitrana.propertymap.controller;
+
+import dev.rohitrana.propertymap.importer.ImportFormat;
+import dev.rohitrana.propertymap.importer.ImportJob;
+import dev.rohitrana.propertymap.importer.ImportTarget;
+import dev.rohitrana.propertymap.importer.LocationScoreImportTarget;
+import dev.rohitrana.propertymap.importer.PropertyImportTarget;
+import dev.rohitrana.propertymap.service.BulkImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/import")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ImportController {
+    private final BulkImportService bulkImportService;
+    private final PropertyImportTarget propertyImportTarget;
+    private final LocationScoreImportTarget locationScoreImportTarget;
+
+    @Autowired
+    public ImportController(BulkImportService bulkImportService, PropertyImportTarget propertyImportTarget,
+                            LocationScoreImportTarget locationScoreImportTarget) {
+        this.bulkImportService = bulkImportService;
+        this.propertyImportTarget = propertyImportTarget;
+        this.locationScoreImportTarget = locationScoreImportTarget;
+    }
+
+    @PostMapping(value = "/properties", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportJob> importProperties(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                      InputStream body) throws IOException {
+        return submit(propertyImportTarget, contentType, body);
+    }
+
+    @PostMapping(value = "/location-scores", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportJob> importLocationScores(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                          InputStream body) throws IOException {
+        return submit(locationScoreImportTarget, contentType, body);
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ImportJob>> getJobs() {
+        return new ResponseEntity<>(bulkImportService.getJobs(), HttpStatus.OK);
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ImportJob> getJob(@PathVariable String id) {
+        Optional<ImportJob> job = bulkImportService.getJob(id);
+        return job.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    private <T> ResponseEntity<ImportJob> submit(ImportTarget<T> target, MediaType contentType,
+                                                 InputStream body) throws IOException {
+        ImportJob job = bulkImportService.submit(target, ImportFormat.fromContentType(contentType), body);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LOCATION, "/api/import/jobs/" + job.getId());
+        return new ResponseEntity<>(job, headers, HttpStatus.ACCEPTED);
+    }
+}
@@ -0,0 +1,41 @@
+package dev.rohitrana.propertymap.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (cursor) pagination on id. The cursor for the next page is returned in the
+ * X-Next-Cursor header and is passed back as afterId; no header means the last page was reached.
+ */
+final class KeysetPages {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    private KeysetPages() {
+    }
+
+    static boolean isRequested(Long afterId, Integer limit) {
+        return afterId != null || limit != null;
+    }
+
+    static int limit(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> rows, int limit, Function<T, Long> idOf) {
+        HttpHeaders headers = new HttpHeaders();
+        if (rows.size() == limit) {
+            headers.add(NEXT_CURSOR_HEADER, String.valueOf(idOf.apply(rows.get(rows.size() - 1))));
+        }
+        return new ResponseEntity<>(rows, headers, HttpStatus.OK);
+    }
+}
@@ -1,35 +1,83 @@
 package dev.rohitrana.propertymap.controller;
 
+import dev.rohitrana.propertymap.dto.RescoreResult;
+import dev.rohitrana.propertymap.dto.ScoredLocation;
+import dev.rohitrana.propertymap.filter.LocationScoreFilter;
+import dev.rohitrana.propertymap.heatmap.HeatmapMetric;
+import dev.rohitrana.propertymap.heatmap.HeatmapTile;
+import dev.rohitrana.propertymap.heatmap.TileCoordinates;
 import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.projection.FieldSelection;
+import dev.rohitrana.propertymap.projection.LocationScoreFields;
+import dev.rohitrana.propertymap.scoring.ScoreWeights;
+import dev.rohitrana.propertymap.scoring.ScoringProfiles;
+import dev.rohitrana.propertymap.service.HeatmapTileService;
 import dev.rohitrana.propertymap.service.LocationScoreService;
+import dev.rohitrana.propertymap.service.ScoringService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/location-scores")
 @CrossOrigin(origins = "http://localhost:3000")
 public class LocationScoreController {
     private final LocationScoreService locationScoreService;
+    private final HeatmapTileService heatmapTileService;
+    private final ScoringService scoringService;
+    private final ScoringProfiles scoringProfiles;
 
     @Autowired
-    public LocationScoreController(LocationScoreService locationScoreService) {
+    public LocationScoreController(LocationScoreService locationScoreService, HeatmapTileService heatmapTileService,
+                                   ScoringService scoringService, ScoringProfiles scoringProfiles) {
         this.locationScoreService = locationScoreService;
+        this.heatmapTileService = heatmapTileService;
+        this.scoringService = scoringService;
+        this.scoringProfiles = scoringProfiles;
     }
 
     @GetMapping
-    public ResponseEntity<List<LocationScore>> getAllLocationScores() {
+    public ResponseEntity<List<LocationScore>> getAllLocationScores(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        if (KeysetPages.isRequested(afterId, limit)) {
+            int pageSize = KeysetPages.limit(limit);
+            List<LocationScore> page = locationScoreService.getLocationScoresPage(new LocationScoreFilter(), afterId, pageSize);
+            return KeysetPages.page(page, pageSize, LocationScore::getId);
+        }
+
         List<LocationScore> locationScores = locationScoreService.getAllLocationScores();
         return new ResponseEntity<>(locationScores, HttpStatus.OK);
     }
 
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllLocationScoreFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        return filterLocationScoreFields(new LocationScoreFilter(), fields, afterId, limit);
+    }
+
+    @GetMapping(produces = NdjsonResponses.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllLocationScores() {
+        return NdjsonResponses.<LocationScore>stream(consumer ->
+                locationScoreService.streamLocationScores(new LocationScoreFilter(), consumer));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<LocationScore> getLocationScoreById(@PathVariable Long id) {
         Optional<LocationScore> locationScore = locationScoreService.getLocationScoreById(id);
-        return locationScore.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+        return locationScore.map(value -> EntityTags.tagged(value, value.getVersion(), HttpStatus.OK))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
@@ -42,21 +90,39 @@ public class LocationScoreController {
         return new ResponseEntity<>(savedLocationScore, HttpStatus.CREATED);
     }
 
+    // The overall score is recalculated from the components; with If-Match the update only
+    // happens if the score still has that ETag, otherwise 412
     @PutMapping("/{id}")
-    public ResponseEntity<LocationScore> updateLocationScore(@PathVariable Long id, @RequestBody LocationScore locationScore) {
-        Optional<LocationScore> existingLocationScore = locationScoreService.getLocationScoreById(id);
-
-        if (existingLocationScore.isPresent()) {
-            locationScore.setId(id);
-
-            // Recalculate the overall score based on updated metrics
-            locationScore.setOverallScore(locationScoreService.calculateOverallScore(locationScore));
+    public ResponseEntity<LocationScore> updateLocationScore(
+            @PathVariable Long id,
+            @RequestBody LocationScore locationScore,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Optional<LocationScore> updatedLocationScore;
+        try {
+            updatedLocationScore = locationScoreService.replaceLocationScore(id, locationScore,
+                    EntityTags.expectedVersion(ifMatch));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return updatedLocationScore.map(value -> EntityTags.tagged(value, value.getVersion(), HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
 
-            LocationScore updatedLocationScore = locationScoreService.saveLocationScore(locationScore);
-            return new ResponseEntity<>(updatedLocationScore, HttpStatus.OK);
-        } else {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    // Updates only the fields in the body
+    @PatchMapping("/{id}")
+    public ResponseEntity<LocationScore> patchLocationScore(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> fields,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Optional<LocationScore> updatedLocationScore;
+        try {
+            updatedLocationScore = locationScoreService.updateLocationScore(id,
+                    locationScoreService.toLocationScoreChanges(fields), EntityTags.expectedVersion(ifMatch));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        return updatedLocationScore.map(value -> EntityTags.tagged(value, value.getVersion(), HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @DeleteMapping("/{id}")
@@ -73,40 +139,155 @@ public class LocationScoreController {
             @RequestParam(required = false) Integer minDemandScore,
             @RequestParam(required = false) Integer minSupplyScore,
             @RequestParam(required = false) Double minCapRate,
-            @RequestParam(required = false) Double minAppreciation) {
-
-        List<LocationScore> locationScores;
-
-        // Apply filters based on provided parameters
-        if (minOverallScore != null) {
-            locationScores = locationScoreService.getLocationScoresByMinOverallScore(minOverallScore);
-        } else if (minPerformanceScore != null) {
-            locationScores = locationScoreService.getLocationScoresByMinPerformanceScore(minPerformanceScore);
-        } else if (minRiskScore != null) {
-            locationScores = locationScoreService.getLocationScoresByMinRiskScore(minRiskScore);
-        } else if (minDemandScore != null) {
-            locationScores = locationScoreService.getLocationScoresByMinDemandScore(minDemandScore);
-        } else if (minSupplyScore != null) {
-            locationScores = locationScoreService.getLocationScoresByMinSupplyScore(minSupplyScore);
-        } else if (minCapRate != null) {
-            locationScores = locationScoreService.getLocationScoresByMinCapRate(minCapRate);
-        } else if (minAppreciation != null) {
-            locationScores = locationScoreService.getLocationScoresByMinAppreciation(minAppreciation);
-        } else {
-            locationScores = locationScoreService.getAllLocationScores();
+            @RequestParam(required = false) Double minAppreciation,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+
+        // Combine all provided parameters into a single query
+        LocationScoreFilter filter = new LocationScoreFilter(minOverallScore, minPerformanceScore, minRiskScore,
+                minDemandScore, minSupplyScore, minCapRate, minAppreciation);
+
+        if (KeysetPages.isRequested(afterId, limit)) {
+            int pageSize = KeysetPages.limit(limit);
+            List<LocationScore> page = locationScoreService.getLocationScoresPage(filter, afterId, pageSize);
+            return KeysetPages.page(page, pageSize, LocationScore::getId);
         }
 
+        List<LocationScore> locationScores = locationScoreService.filterLocationScores(filter);
         return new ResponseEntity<>(locationScores, HttpStatus.OK);
     }
 
+    // Only the requested columns are read and returned, e.g. fields=point or fields=capRate,irr
+    @GetMapping(value = "/filter", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> filterLocationScoreFields(
+            LocationScoreFilter filter,
+            @RequestParam String fields,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        FieldSelection<LocationScore> selection;
+        try {
+            selection = LocationScoreFields.FIELDS.select(fields);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        if (KeysetPages.isRequested(afterId, limit)) {
+            int pageSize = KeysetPages.limit(limit);
+            List<Map<String, Object>> page = locationScoreService.getLocationScoreFieldsPage(filter, afterId, pageSize, selection);
+            return KeysetPages.page(page, pageSize, FieldSelection::idOf);
+        }
+
+        List<Map<String, Object>> rows = locationScoreService.filterLocationScoreFields(filter, selection);
+        return new ResponseEntity<>(rows, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/filter", produces = NdjsonResponses.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamFilteredLocationScores(LocationScoreFilter filter) {
+        return NdjsonResponses.<LocationScore>stream(consumer -> locationScoreService.streamLocationScores(filter, consumer));
+    }
+
+    // Async so the request thread is free while the database answers a cold index
     @GetMapping("/bounds")
-    public ResponseEntity<List<LocationScore>> getLocationScoresInBounds(
+    public CompletableFuture<ResponseEntity<List<LocationScore>>> getLocationScoresInBounds(
             @RequestParam Double southLat,
             @RequestParam Double northLat,
             @RequestParam Double westLng,
             @RequestParam Double eastLng) {
 
-        List<LocationScore> locationScores = locationScoreService.getLocationScoresInBounds(southLat, northLat, westLng, eastLng);
-        return new ResponseEntity<>(locationScores, HttpStatus.OK);
+        return locationScoreService.getLocationScoresInBoundsAsync(southLat, northLat, westLng, eastLng)
+                .thenApply(locationScores -> new ResponseEntity<>(locationScores, HttpStatus.OK));
+    }
+
+    @GetMapping(value = "/bounds", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getLocationScoreFieldsInBounds(
+            @RequestParam Double southLat,
+            @RequestParam Double northLat,
+            @RequestParam Double westLng,
+            @RequestParam Double eastLng,
+            @RequestParam String fields) {
+        FieldSelection<LocationScore> selection;
+        try {
+            selection = LocationScoreFields.FIELDS.select(fields);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<Map<String, Object>> rows = locationScoreService.getLocationScoreFieldsInBounds(southLat, northLat, westLng, eastLng, selection);
+        return new ResponseEntity<>(rows, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/tiles/{metric}/{z}/{x}/{y}", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getHeatmapTile(
+            @PathVariable String metric,
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y,
+            WebRequest request) {
+
+        HeatmapMetric heatmapMetric = HeatmapMetric.fromPath(metric);
+        if (heatmapMetric == null || !TileCoordinates.isValid(z, x, y)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        HeatmapTile tile = heatmapTileService.getTile(heatmapMetric, new TileCoordinates(z, x, y));
+        // Clients always revalidate, an unchanged tile costs a 304 without a body
+        if (request.checkNotModified(tile.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(tile.getEtag())
+                .body(tile.getPng());
+    }
+
+    @GetMapping("/scoring-profiles")
+    public ResponseEntity<Map<String, ScoreWeights>> getScoringProfiles() {
+        return new ResponseEntity<>(scoringProfiles.getAvailableProfiles(), HttpStatus.OK);
+    }
+
+    // What-if scores for a named profile or ad-hoc weights, computed in memory
+    @GetMapping("/scores")
+    public ResponseEntity<List<ScoredLocation>> getScores(
+            @RequestParam(required = false) String profile,
+            @RequestParam(required = false) Double performanceWeight,
+            @RequestParam(required = false) Double riskWeight,
+            @RequestParam(required = false) Double demandWeight,
+            @RequestParam(required = false) Double supplyWeight,
+            @RequestParam(required = false) Double southLat,
+            @RequestParam(required = false) Double northLat,
+            @RequestParam(required = false) Double westLng,
+            @RequestParam(required = false) Double eastLng,
+            @RequestParam(required = false) Integer minScore) {
+
+        ScoreWeights weights;
+        try {
+            if (performanceWeight != null || riskWeight != null || demandWeight != null || supplyWeight != null) {
+                // Omitted components do not count
+                weights = new ScoreWeights(orZero(performanceWeight), orZero(riskWeight),
+                        orZero(demandWeight), orZero(supplyWeight));
+            } else {
+                weights = scoringProfiles.getWeights(profile != null ? profile : scoringProfiles.getActiveProfile());
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<ScoredLocation> scores = scoringService.scoreLocations(weights, southLat, northLat, westLng, eastLng, minScore);
+        return new ResponseEntity<>(scores, HttpStatus.OK);
+    }
+
+    @PostMapping("/rescore")
+    public ResponseEntity<RescoreResult> rescore(@RequestParam(defaultValue = ScoringProfiles.DEFAULT_PROFILE) String profile) {
+        try {
+            return new ResponseEntity<>(scoringService.rescore(profile), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0;
     }
 }
@@ -1,35 +1,89 @@
 package dev.rohitrana.propertymap.controller;
 
+import dev.rohitrana.propertymap.dto.NearbyProperty;
+import dev.rohitrana.propertymap.dto.PropertyCluster;
+import dev.rohitrana.propertymap.dto.PropertyWithScore;
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.index.PropertyScoreJoin;
 import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.projection.FieldSelection;
+import dev.rohitrana.propertymap.projection.PropertyFields;
+import dev.rohitrana.propertymap.service.PropertyScoreService;
 import dev.rohitrana.propertymap.service.PropertyService;
+import dev.rohitrana.propertymap.service.PropertyWriteBehind;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/properties")
 @CrossOrigin(origins = "http://localhost:3000")
 public class PropertyController {
     private final PropertyService propertyService;
+    private final PropertyScoreService propertyScoreService;
+    private final PropertyWriteBehind propertyWriteBehind;
 
     @Autowired
-    public PropertyController(PropertyService propertyService) {
+    public PropertyController(PropertyService propertyService, PropertyScoreService propertyScoreService,
+                              PropertyWriteBehind propertyWriteBehind) {
         this.propertyService = propertyService;
+        this.propertyScoreService = propertyScoreService;
+        this.propertyWriteBehind = propertyWriteBehind;
     }
 
     @GetMapping
-    public ResponseEntity<List<Property>> getAllProperties() {
+    public ResponseEntity<List<Property>> getAllProperties(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        if (KeysetPages.isRequested(afterId, limit)) {
+            int pageSize = KeysetPages.limit(limit);
+            List<Property> page = propertyService.getPropertiesPage(new PropertyFilter(), afterId, pageSize);
+            return KeysetPages.page(page, pageSize, Property::getId);
+        }
+
         List<Property> properties = propertyService.getAllProperties();
         return new ResponseEntity<>(properties, HttpStatus.OK);
     }
 
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllPropertyFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        return filterPropertyFields(new PropertyFilter(), fields, afterId, limit);
+    }
+
+    @GetMapping(produces = NdjsonResponses.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllProperties() {
+        return NdjsonResponses.<Property>stream(consumer -> propertyService.streamProperties(new PropertyFilter(), consumer));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Property> getPropertyById(@PathVariable Long id) {
         Optional<Property> property = propertyService.getPropertyById(id);
+        return property.map(value -> EntityTags.tagged(value, value.getVersion(), HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // scores=nearest attaches the nearest location score's metrics, scores=interpolated a blend of the nearest few
+    @GetMapping(value = "/{id}", params = "scores")
+    public ResponseEntity<PropertyWithScore> getPropertyWithScoreById(@PathVariable Long id, @RequestParam String scores) {
+        PropertyScoreJoin.Mode mode;
+        try {
+            mode = PropertyScoreJoin.Mode.parse(scores);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<PropertyWithScore> property = propertyScoreService.getPropertyById(id, mode);
         return property.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
@@ -40,17 +94,55 @@ public class PropertyController {
         return new ResponseEntity<>(savedProperty, HttpStatus.CREATED);
     }
 
+    // With If-Match the update only happens if the property still has that ETag, otherwise 412
     @PutMapping("/{id}")
-    public ResponseEntity<Property> updateProperty(@PathVariable Long id, @RequestBody Property property) {
-        Optional<Property> existingProperty = propertyService.getPropertyById(id);
-
-        if (existingProperty.isPresent()) {
-            property.setId(id);
-            Property updatedProperty = propertyService.saveProperty(property);
-            return new ResponseEntity<>(updatedProperty, HttpStatus.OK);
-        } else {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    public ResponseEntity<Property> updateProperty(
+            @PathVariable Long id,
+            @RequestBody Property property,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Optional<Property> updatedProperty;
+        try {
+            updatedProperty = propertyService.replaceProperty(id, property, EntityTags.expectedVersion(ifMatch));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return updatedProperty.map(value -> EntityTags.tagged(value, value.getVersion(), HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Updates only the fields in the body. deferred=true queues the changes and answers 202 right away;
+     * queued changes to the same property are merged and written together, once per interval.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Property> patchProperty(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> fields,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestParam(defaultValue = "false") boolean deferred) {
+        Long expectedVersion;
+        Map<String, Object> changes;
+        try {
+            expectedVersion = EntityTags.expectedVersion(ifMatch);
+            changes = propertyService.toPropertyChanges(fields);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        if (deferred) {
+            // A queued write cannot be conditional
+            if (expectedVersion != null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            if (propertyService.getPropertyById(id).isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            propertyWriteBehind.enqueue(id, changes);
+            return new ResponseEntity<>(HttpStatus.ACCEPTED);
         }
+        return propertyService.updateProperty(id, changes, expectedVersion)
+                .map(value -> EntityTags.tagged(value, value.getVersion(), HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @DeleteMapping("/{id}")
@@ -71,44 +163,184 @@ public class PropertyController {
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String zipCode,
             @RequestParam(required = false) Integer minYearBuilt,
-            @RequestParam(required = false) BigDecimal minCapRate) {
-
-        List<Property> properties;
-
-        // Apply filters based on provided parameters
-        if (city != null) {
-            properties = propertyService.getPropertiesByCity(city);
-        } else if (status != null) {
-            properties = propertyService.getPropertiesByStatus(status);
-        } else if (minBedrooms != null) {
-            properties = propertyService.getPropertiesByMinBedrooms(minBedrooms);
-        } else if (minBathrooms != null) {
-            properties = propertyService.getPropertiesByMinBathrooms(minBathrooms);
-        } else if (minSqFt != null && maxSqFt != null) {
-            properties = propertyService.getPropertiesBySquareFeetRange(minSqFt, maxSqFt);
-        } else if (minPrice != null && maxPrice != null) {
-            properties = propertyService.getPropertiesByPriceRange(minPrice, maxPrice);
-        } else if (zipCode != null) {
-            properties = propertyService.getPropertiesByZipCode(zipCode);
-        } else if (minYearBuilt != null) {
-            properties = propertyService.getPropertiesByMinYearBuilt(minYearBuilt);
-        } else if (minCapRate != null) {
-            properties = propertyService.getPropertiesByMinCapRate(minCapRate);
-        } else {
-            properties = propertyService.getAllProperties();
+            @RequestParam(required = false) BigDecimal minCapRate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+
+        // Combine all provided parameters into a single query
+        PropertyFilter filter = new PropertyFilter(city, status, minBedrooms, minBathrooms, minSqFt, maxSqFt,
+                minPrice, maxPrice, zipCode, minYearBuilt, minCapRate);
+
+        if (KeysetPages.isRequested(afterId, limit)) {
+            int pageSize = KeysetPages.limit(limit);
+            List<Property> page = propertyService.getPropertiesPage(filter, afterId, pageSize);
+            return KeysetPages.page(page, pageSize, Property::getId);
+        }
+
+        List<Property> properties = propertyService.filterProperties(filter);
+        return new ResponseEntity<>(properties, HttpStatus.OK);
+    }
+
+    // Only the requested columns are read and returned, e.g. fields=marker or fields=city,listPrice
+    @GetMapping(value = "/filter", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> filterPropertyFields(
+            PropertyFilter filter,
+            @RequestParam String fields,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        FieldSelection<Property> selection;
+        try {
+            selection = PropertyFields.FIELDS.select(fields);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        if (KeysetPages.isRequested(afterId, limit)) {
+            int pageSize = KeysetPages.limit(limit);
+            List<Map<String, Object>> page = propertyService.getPropertyFieldsPage(filter, afterId, pageSize, selection);
+            return KeysetPages.page(page, pageSize, FieldSelection::idOf);
+        }
+
+        List<Map<String, Object>> rows = propertyService.filterPropertyFields(filter, selection);
+        return new ResponseEntity<>(rows, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/filter", params = "scores")
+    public ResponseEntity<List<PropertyWithScore>> filterPropertiesWithScores(
+            PropertyFilter filter,
+            @RequestParam String scores) {
+        PropertyScoreJoin.Mode mode;
+        try {
+            mode = PropertyScoreJoin.Mode.parse(scores);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
+        List<PropertyWithScore> properties = propertyScoreService.filterProperties(filter, mode);
         return new ResponseEntity<>(properties, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/filter", produces = NdjsonResponses.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamFilteredProperties(PropertyFilter filter) {
+        return NdjsonResponses.<Property>stream(consumer -> propertyService.streamProperties(filter, consumer));
+    }
+
+    // Async so the request thread is free while the database answers a cold index
     @GetMapping("/bounds")
-    public ResponseEntity<List<Property>> getPropertiesInBounds(
+    public CompletableFuture<ResponseEntity<List<Property>>> getPropertiesInBounds(
             @RequestParam Double southLat,
             @RequestParam Double northLat,
             @RequestParam Double westLng,
             @RequestParam Double eastLng) {
 
-        List<Property> properties = propertyService.getPropertiesInBounds(southLat, northLat, westLng, eastLng);
-        return new ResponseEntity<>(properties, HttpStatus.OK);
+        return propertyService.getPropertiesInBoundsAsync(southLat, northLat, westLng, eastLng)
+                .thenApply(properties -> new ResponseEntity<>(properties, HttpStatus.OK));
+    }
+
+    @GetMapping(value = "/bounds", params = "scores")
+    public CompletableFuture<ResponseEntity<List<PropertyWithScore>>> getPropertiesWithScoresInBounds(
+            @RequestParam Double southLat,
+            @RequestParam Double northLat,
+            @RequestParam Double westLng,
+            @RequestParam Double eastLng,
+            @RequestParam String scores) {
+        PropertyScoreJoin.Mode mode;
+        try {
+            mode = PropertyScoreJoin.Mode.parse(scores);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return propertyScoreService.getPropertiesInBoundsAsync(southLat, northLat, westLng, eastLng, mode)
+                .thenApply(properties -> new ResponseEntity<>(properties, HttpStatus.OK));
+    }
+
+    @GetMapping(value = "/bounds", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getPropertyFieldsInBounds(
+            @RequestParam Double southLat,
+            @RequestParam Double northLat,
+            @RequestParam Double westLng,
+            @RequestParam Double eastLng,
+            @RequestParam String fields) {
+        FieldSelection<Property> selection;
+        try {
+            selection = PropertyFields.FIELDS.select(fields);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<Map<String, Object>> rows = propertyService.getPropertyFieldsInBounds(southLat, northLat, westLng, eastLng, selection);
+        return new ResponseEntity<>(rows, HttpStatus.OK);
+    }
+
+    // The properties closest to a point, nearest first; filter criteria (city, status, ...) narrow the candidates
+    @GetMapping("/nearest")
+    public ResponseEntity<List<NearbyProperty>> getNearestProperties(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "20") Integer limit,
+            @RequestParam(required = false) Double maxDistanceKm,
+            PropertyFilter filter) {
+        try {
+            List<NearbyProperty> nearest = propertyService.findNearestProperties(latitude, longitude, limit,
+                    maxDistanceKm, filter);
+            return new ResponseEntity<>(nearest, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Properties within a radius; giving bedrooms, bathrooms, squareFeet or yearBuilt ranks them by similarity
+    @GetMapping("/radius")
+    public ResponseEntity<List<NearbyProperty>> getPropertiesWithinRadius(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam Double radiusKm,
+            @RequestParam(defaultValue = "1000") Integer limit,
+            @RequestParam(required = false) Integer bedrooms,
+            @RequestParam(required = false) Integer bathrooms,
+            @RequestParam(required = false) Integer squareFeet,
+            @RequestParam(required = false) Integer yearBuilt,
+            PropertyFilter filter) {
+        Property subject = new Property();
+        subject.setBedrooms(bedrooms);
+        subject.setBathrooms(bathrooms);
+        subject.setSquareFeet(squareFeet);
+        subject.setYearBuilt(yearBuilt);
+        try {
+            List<NearbyProperty> nearby = propertyService.findPropertiesWithinRadius(latitude, longitude, radiusKm,
+                    limit, subject, filter);
+            return new ResponseEntity<>(nearby, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Comparables of a property, most similar first, e.g. /api/properties/42/comps?radiusKm=1&status=Sold
+    @GetMapping("/{id}/comps")
+    public ResponseEntity<List<NearbyProperty>> getComparableProperties(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "1") Double radiusKm,
+            @RequestParam(defaultValue = "20") Integer limit,
+            PropertyFilter filter) {
+        try {
+            Optional<List<NearbyProperty>> comps = propertyService.findComparableProperties(id, radiusKm, limit, filter);
+            return comps.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/clusters")
+    public ResponseEntity<List<PropertyCluster>> getPropertyClusters(
+            @RequestParam Double southLat,
+            @RequestParam Double northLat,
+            @RequestParam Double westLng,
+            @RequestParam Double eastLng,
+            @RequestParam Integer zoom) {
+
+        List<PropertyCluster> clusters = propertyService.getPropertyClusters(southLat, northLat, westLng, eastLng, zoom);
+        return new ResponseEntity<>(clusters, HttpStatus.OK);
     }
 }
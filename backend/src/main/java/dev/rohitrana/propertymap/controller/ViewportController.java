@@ -0,0 +1,53 @@
+package dev.rohitrana.propertymap.controller;
+
+import dev.rohitrana.propertymap.dto.GeoBounds;
+import dev.rohitrana.propertymap.dto.Viewport;
+import dev.rohitrana.propertymap.filter.LocationScoreFilter;
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.service.ViewportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/viewport")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ViewportController {
+    private final ViewportService viewportService;
+
+    @Autowired
+    public ViewportController(ViewportService viewportService) {
+        this.viewportService = viewportService;
+    }
+
+    // Property and location score filter parameters are the same as on their /filter endpoints;
+    // minCapRate applies to both. The prev* bounds switch to delta mode.
+    @GetMapping
+    public CompletableFuture<ResponseEntity<Viewport>> getViewport(
+            @RequestParam Double southLat,
+            @RequestParam Double northLat,
+            @RequestParam Double westLng,
+            @RequestParam Double eastLng,
+            @RequestParam(required = false) Double prevSouthLat,
+            @RequestParam(required = false) Double prevNorthLat,
+            @RequestParam(required = false) Double prevWestLng,
+            @RequestParam(required = false) Double prevEastLng,
+            PropertyFilter propertyFilter,
+            LocationScoreFilter locationScoreFilter) {
+
+        GeoBounds previous = null;
+        if (prevSouthLat != null || prevNorthLat != null || prevWestLng != null || prevEastLng != null) {
+            if (prevSouthLat == null || prevNorthLat == null || prevWestLng == null || prevEastLng == null) {
+                return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+            }
+            previous = new GeoBounds(prevSouthLat, prevNorthLat, prevWestLng, prevEastLng);
+        }
+
+        GeoBounds bounds = new GeoBounds(southLat, northLat, westLng, eastLng);
+        return viewportService.getViewport(bounds, previous, propertyFilter, locationScoreFilter)
+                .thenApply(viewport -> new ResponseEntity<>(viewport, HttpStatus.OK));
+    }
+}
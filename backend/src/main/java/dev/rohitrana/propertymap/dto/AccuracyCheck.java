@@ -0,0 +1,21 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Comparison of the bulk cap rates with the per-property BigDecimal calculation,
+ * which rounds the ratio to four decimals (0.01 percentage points).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccuracyCheck {
+    private long compared;
+    private double maxAbsoluteError;
+    private double meanAbsoluteError;
+    private double tolerance;
+    // Properties whose difference exceeds the tolerance
+    private long mismatches;
+}
@@ -0,0 +1,20 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The recorded values of one property or location score, per field and oldest first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityHistory {
+    private String entity;
+    private Long id;
+    private Map<String, List<HistoryValue>> fields;
+}
@@ -0,0 +1,46 @@
+package dev.rohitrana.propertymap.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A latitude/longitude rectangle, edges included.
+ */
+public record GeoBounds(double southLat, double northLat, double westLng, double eastLng) {
+
+    public boolean contains(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= southLat && latitude <= northLat && longitude >= westLng && longitude <= eastLng;
+    }
+
+    public boolean intersects(GeoBounds other) {
+        return southLat <= other.northLat && northLat >= other.southLat
+                && westLng <= other.eastLng && eastLng >= other.westLng;
+    }
+
+    /**
+     * Up to four rectangles covering the part of these bounds outside the other ones: full-width
+     * strips above and below, and strips left and right between them. Shared edges are covered twice.
+     */
+    public List<GeoBounds> minus(GeoBounds other) {
+        if (!intersects(other)) {
+            return List.of(this);
+        }
+        List<GeoBounds> parts = new ArrayList<>(4);
+        if (northLat > other.northLat) {
+            parts.add(new GeoBounds(other.northLat, northLat, westLng, eastLng));
+        }
+        if (southLat < other.southLat) {
+            parts.add(new GeoBounds(southLat, other.southLat, westLng, eastLng));
+        }
+        double middleSouth = Math.max(southLat, other.southLat);
+        double middleNorth = Math.min(northLat, other.northLat);
+        if (westLng < other.westLng) {
+            parts.add(new GeoBounds(middleSouth, middleNorth, westLng, other.westLng));
+        }
+        if (eastLng > other.eastLng) {
+            parts.add(new GeoBounds(middleSouth, middleNorth, other.eastLng, eastLng));
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,20 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Rolled up metrics of the properties sharing a city, zip code, status or grid cell.
+ * Metrics are keyed by name: listPrice, capRate, monthlyRent, pricePerSqFt.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupStats {
+    private String key;
+    private long count;
+    private Map<String, MetricStats> metrics;
+}
@@ -0,0 +1,23 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Average investment metrics of the analyzed properties sharing a city or zip code.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupSummary {
+    private String key;
+    private long count;
+    private double totalListPrice;
+    private double averageNoi;
+    private double averageCapRate;
+    private double averageGrossYield;
+    private double averageCashOnCash;
+    private double averageTotalReturn;
+    private Double averageIrr;
+}
@@ -0,0 +1,17 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of values in [from, to); a null bound means the bucket is open on that side.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistogramBucket {
+    private Double from;
+    private Double to;
+    private long count;
+}
@@ -0,0 +1,26 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * The values of a field in one month, quarter or year (period is its first month, e.g. "2024-04"):
+ * those of every entity at its end, or those recorded by the changes during it. Numeric fields
+ * have the statistics and the requested percentiles, such as "p50"; categories have the number
+ * of entities in, or changes to, each.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPeriod {
+    private String period;
+    private long count;
+    private Double average;
+    private Double min;
+    private Double max;
+    private Map<String, Double> percentiles;
+    private Map<String, Long> categories;
+}
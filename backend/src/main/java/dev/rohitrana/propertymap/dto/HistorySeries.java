@@ -0,0 +1,19 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The periods of one group (a zip code, a city, or null for everything), oldest first.
+ * Periods without recorded values are left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistorySeries {
+    private String key;
+    private List<HistoryPeriod> periods;
+}
@@ -0,0 +1,23 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Trend of one history field per group and period, computed from the monthly summaries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryStats {
+    private String entity;
+    private String field;
+    // values (at the end of each period) or changes (set during it)
+    private String basis;
+    private String groupBy;
+    private String interval;
+    private List<HistorySeries> series;
+}
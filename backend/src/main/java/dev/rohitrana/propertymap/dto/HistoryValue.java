@@ -0,0 +1,18 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A value a field was set to, to the second; null when it was cleared.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryValue {
+    private LocalDateTime recordedAt;
+    private Object value;
+}
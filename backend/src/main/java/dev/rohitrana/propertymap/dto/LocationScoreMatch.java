@@ -0,0 +1,22 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Location score metrics attached to a property. Either those of the nearest location score
+ * (locationScoreId set, one source), or an inverse-distance weighted blend of the nearest few
+ * (no id, several sources). distanceKm is the distance to the closest source.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationScoreMatch {
+    private Long locationScoreId;
+    private int sources;
+    private double distanceKm;
+    private Double overallScore;
+    private Double riskScore;
+    private Double irr;
+}
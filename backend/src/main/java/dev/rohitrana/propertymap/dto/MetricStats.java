@@ -0,0 +1,23 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Count/sum/average/min/max of one metric over a group of properties.
+ * The histogram is only filled in when it was asked for.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricStats {
+    private long count;
+    private double sum;
+    private Double average;
+    private Double min;
+    private Double max;
+    private List<HistogramBucket> histogram;
+}
@@ -0,0 +1,23 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Distribution of one investment metric over the analyzed properties.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricSummary {
+    private long count;
+    private Double mean;
+    private Double min;
+    private Double p10;
+    private Double p25;
+    private Double median;
+    private Double p75;
+    private Double p90;
+    private Double max;
+}
@@ -0,0 +1,19 @@
+package dev.rohitrana.propertymap.dto;
+
+import dev.rohitrana.propertymap.model.Property;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A property found around a point, with its distance and, when ranked against a subject,
+ * its similarity to it (0 to 1).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyProperty {
+    private Property property;
+    private double distanceKm;
+    private Double similarity;
+}
@@ -0,0 +1,36 @@
+package dev.rohitrana.propertymap.dto;
+
+import dev.rohitrana.propertymap.analytics.FinancingAssumptions;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Portfolio-wide investment analytics. Properties without a price, rent or expenses
+ * are counted but not analyzed.
+ */
+@Data
+@NoArgsConstructor
+public class PortfolioAnalytics {
+    private long propertyCount;
+    private long analyzedCount;
+    private FinancingAssumptions assumptions;
+
+    private double totalListPrice;
+    private double totalNoi;
+    // Total NOI over total price, i.e. weighted by price rather than a plain average
+    private Double portfolioCapRate;
+
+    // Keyed by metric name: noi, capRate, grossYield, cashOnCash, totalReturn, irr
+    private Map<String, MetricSummary> metrics;
+    private List<GroupSummary> byCity;
+    private List<GroupSummary> byZipCode;
+
+    // Only when requested
+    private List<PropertyMetrics> properties;
+    private AccuracyCheck accuracy;
+
+    private long elapsedMillis;
+}
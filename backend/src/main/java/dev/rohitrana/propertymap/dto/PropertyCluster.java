@@ -0,0 +1,30 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aggregate of the properties falling into one grid cell at a given zoom level.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyCluster {
+    private long count;
+
+    // Centroid of the member coordinates
+    private double latitude;
+    private double longitude;
+
+    // Set when the cluster holds a single property, so the client can render it as a marker
+    private Long propertyId;
+
+    private Double minListPrice;
+    private Double avgListPrice;
+    private Double maxListPrice;
+
+    private Double minCapRate;
+    private Double avgCapRate;
+    private Double maxCapRate;
+}
@@ -0,0 +1,21 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Investment metrics of a single property under the requested assumptions. Rates are percentages.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyMetrics {
+    private long id;
+    private double noi;
+    private double capRate;
+    private double grossYield;
+    private double cashOnCash;
+    private double totalReturn;
+    private Double irr;
+}
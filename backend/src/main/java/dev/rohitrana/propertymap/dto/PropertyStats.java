@@ -0,0 +1,19 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Rollups of all properties and of each group along one dimension, largest group first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyStats {
+    private String groupBy;
+    private GroupStats overall;
+    private List<GroupStats> groups;
+}
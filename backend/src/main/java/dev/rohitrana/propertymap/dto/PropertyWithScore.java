@@ -0,0 +1,20 @@
+package dev.rohitrana.propertymap.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import dev.rohitrana.propertymap.model.Property;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A property with the location score metrics around it. Serialized as the property's own fields
+ * plus locationScore, which is null when no location score is close enough.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyWithScore {
+    @JsonUnwrapped
+    private Property property;
+    private LocationScoreMatch locationScore;
+}
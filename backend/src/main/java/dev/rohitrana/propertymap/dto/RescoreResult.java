@@ -0,0 +1,25 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of re-scoring the location_scores table with a weight profile.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RescoreResult {
+    private String profile;
+    private long scanned;
+    private long updated;
+
+    // Rows missing a score component, left untouched
+    private long skipped;
+
+    // Rows modified by another request between the read and the write, left to that request's score
+    private long conflicts;
+
+    private long elapsedMillis;
+}
@@ -0,0 +1,19 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Overall score of a location under a requested weight profile, next to the stored one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoredLocation {
+    private long id;
+    private Double latitude;
+    private Double longitude;
+    private Integer overallScore;
+    private int score;
+}
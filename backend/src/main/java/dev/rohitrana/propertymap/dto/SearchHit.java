@@ -0,0 +1,24 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A property or location score matching a search, with enough of it to show a suggestion
+ * and put it on the map.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    // "property" or "locationScore"
+    private String type;
+    private Long id;
+    private double score;
+    private String address;
+    private String city;
+    private String zipCode;
+    private Double latitude;
+    private Double longitude;
+}
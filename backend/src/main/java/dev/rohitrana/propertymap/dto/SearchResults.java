@@ -0,0 +1,18 @@
+package dev.rohitrana.propertymap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of search hits, best match first, and the number of matches in all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResults {
+    private long total;
+    private List<SearchHit> hits;
+}
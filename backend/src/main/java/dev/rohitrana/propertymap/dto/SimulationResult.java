@@ -0,0 +1,31 @@
+package dev.rohitrana.propertymap.dto;
+
+import dev.rohitrana.propertymap.analytics.FinancingAssumptions;
+import dev.rohitrana.propertymap.analytics.SimulationAssumptions;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Distribution of the returns of a set of properties over simulated market scenarios.
+ * Properties without a price, rent or expenses are counted but left out.
+ */
+@Data
+@NoArgsConstructor
+public class SimulationResult {
+    private long propertyCount;
+    private long analyzedCount;
+    // Passing it back reproduces the same scenarios
+    private long seed;
+    private FinancingAssumptions assumptions;
+    private SimulationAssumptions simulation;
+
+    // Keyed by metric name: irr, cashOnCash (average over the holding years), totalReturn (over the
+    // holding period, the five-year total return by default); percentages, one value per scenario
+    private Map<String, MetricSummary> metrics;
+    // Share of the scenarios ending with less than was invested
+    private Double probabilityOfLoss;
+
+    private long elapsedMillis;
+}
@@ -0,0 +1,23 @@
+package dev.rohitrana.propertymap.dto;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Everything the map shows for one viewport.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Viewport {
+    private List<Property> properties;
+    private List<LocationScore> locationScores;
+
+    // Only rows outside the previous bounds are included, the client keeps the ones it already has
+    private boolean delta;
+}
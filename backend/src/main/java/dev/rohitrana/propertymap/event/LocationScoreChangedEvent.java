@@ -0,0 +1,27 @@
+package dev.rohitrana.propertymap.event;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+import lombok.Value;
+
+/**
+ * Published by LocationScoreService after a location score has been written to the database.
+ */
+@Value
+public class LocationScoreChangedEvent {
+    public enum Type { SAVED, DELETED }
+
+    Type type;
+    Long id;
+    // State before the change, if it was known in memory (null for inserts)
+    LocationScore previous;
+    // State after the change (null for deletes)
+    LocationScore current;
+
+    public static LocationScoreChangedEvent saved(LocationScore previous, LocationScore current) {
+        return new LocationScoreChangedEvent(Type.SAVED, current.getId(), previous, current);
+    }
+
+    public static LocationScoreChangedEvent deleted(Long id, LocationScore previous) {
+        return new LocationScoreChangedEvent(Type.DELETED, id, previous, null);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.rohitrana.propertymap.event;
+
+import dev.rohitrana.propertymap.model.Property;
+import lombok.Value;
+
+/**
+ * Published by PropertyService after a property has been written to the database.
+ * In-memory structures that mirror the properties table listen for this event
+ * instead of being called directly from the service.
+ */
+@Value
+public class PropertyChangedEvent {
+    public enum Type { SAVED, DELETED }
+
+    Type type;
+    Long id;
+    // State before the change, if it was known in memory (null for inserts)
+    Property previous;
+    // State after the change (null for deletes)
+    Property current;
+
+    public static PropertyChangedEvent saved(Property previous, Property current) {
+        return new PropertyChangedEvent(Type.SAVED, current.getId(), previous, current);
+    }
+
+    public static PropertyChangedEvent deleted(Long id, Property previous) {
+        return new PropertyChangedEvent(Type.DELETED, id, previous, null);
+    }
+}
@@ -0,0 +1,245 @@
+package dev.rohitrana.propertymap.feed;
+
+import dev.rohitrana.propertymap.dto.GeoBounds;
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Versioned log of property and location score changes, fed by the change events, with
+ * Server-Sent Event subscriptions filtered by entity and bounding box.
+ * Versions are one sequence across both entities and start from the clock, so they keep
+ * increasing across restarts and a client needs a single cursor. The most recent changes are
+ * kept in a ring buffer for replay when a client reconnects with its last version; older
+ * cursors get a reset event. A single dispatcher thread queues the changes per subscription,
+ * so saving never waits for a slow client, and each queue is sent from a pool of senders, so
+ * one stalled client never holds up the others (see {@link ChangeSubscription}).
+ */
+@Component
+@Slf4j
+public class ChangeFeed {
+    private final EntityChange[] buffer;
+    private final int maxSubscribers;
+    private final int maxPending;
+    private final long emitterTimeoutMillis;
+    private final long firstVersion = System.currentTimeMillis() * 1000;
+    private long nextVersion = firstVersion;
+
+    private final List<ChangeSubscription> subscriptions = new ArrayList<>();
+    private final ScheduledExecutorService dispatcher;
+    // Threads only live while a subscription has events to send; a stalled client holds one until its write times out
+    private final ExecutorService senders;
+
+    @Autowired
+    public ChangeFeed(@Value("${propertymap.changes.capacity:10000}") int capacity,
+                      @Value("${propertymap.changes.max-subscribers:1000}") int maxSubscribers,
+                      @Value("${propertymap.changes.max-pending:1000}") int maxPending,
+                      @Value("${propertymap.changes.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                      @Value("${propertymap.changes.keep-alive-seconds:25}") long keepAliveSeconds) {
+        this.buffer = new EntityChange[capacity];
+        this.maxSubscribers = maxSubscribers;
+        this.maxPending = maxPending;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.dispatcher = executor;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleAtFixedRate(this::keepAlive, keepAliveSeconds, keepAliveSeconds, TimeUnit.SECONDS);
+    }
+
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        Property previous = event.getPrevious();
+        Property current = event.getCurrent();
+        append(EntityChange.PROPERTY, event.getType().name(), event.getId(), current,
+                previous != null ? previous.getLatitude() : null, previous != null ? previous.getLongitude() : null,
+                current != null ? current.getLatitude() : null, current != null ? current.getLongitude() : null,
+                previous != null);
+    }
+
+    @EventListener
+    public void onLocationScoreChanged(LocationScoreChangedEvent event) {
+        LocationScore previous = event.getPrevious();
+        LocationScore current = event.getCurrent();
+        append(EntityChange.LOCATION_SCORE, event.getType().name(), event.getId(), current,
+                previous != null ? previous.getLatitude() : null, previous != null ? previous.getLongitude() : null,
+                current != null ? current.getLatitude() : null, current != null ? current.getLongitude() : null,
+                previous != null);
+    }
+
+    public synchronized long currentVersion() {
+        return nextVersion - 1;
+    }
+
+    /**
+     * Changes to the given entities within the bounds (if given) after the version, oldest first,
+     * or empty if some changes after it are no longer retained.
+     */
+    public Optional<List<EntityChange>> since(long version, GeoBounds bounds, Set<String> entities) {
+        return since(version).map(changes -> changes.stream()
+                .filter(change -> change.matches(bounds, entities))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Opens a stream of the changes to the given entities, within the bounds if given.
+     * With a cursor the retained changes after it are replayed first.
+     *
+     * @throws IllegalStateException if the subscriber limit has been reached
+     */
+    public SseEmitter subscribe(GeoBounds bounds, Set<String> entities, Long since) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        synchronized (subscriptions) {
+            if (subscriptions.size() >= maxSubscribers) {
+                throw new IllegalStateException("Too many change feed subscribers");
+            }
+        }
+        dispatcher.execute(() -> open(emitter, bounds, entities, since));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        synchronized (subscriptions) {
+            subscriptions.forEach(subscription -> subscription.getEmitter().complete());
+            subscriptions.clear();
+        }
+    }
+
+    private synchronized Optional<List<EntityChange>> since(long version) {
+        if (version == nextVersion - 1) {
+            return Optional.of(List.of());
+        }
+        long oldest = Math.max(firstVersion, nextVersion - buffer.length);
+        if (version < oldest - 1 || version >= nextVersion) {
+            return Optional.empty();
+        }
+        List<EntityChange> changes = new ArrayList<>((int) (nextVersion - 1 - version));
+        for (long v = version + 1; v < nextVersion; v++) {
+            changes.add(buffer[(int) (v % buffer.length)]);
+        }
+        return Optional.of(changes);
+    }
+
+    private void append(String entity, String type, Long id, Object data, Double previousLatitude,
+                        Double previousLongitude, Double latitude, Double longitude, boolean previousKnown) {
+        EntityChange change;
+        synchronized (this) {
+            change = new EntityChange(nextVersion, entity, type, id, data, previousLatitude, previousLongitude,
+                    latitude, longitude, previousKnown);
+            buffer[(int) (nextVersion % buffer.length)] = change;
+            nextVersion++;
+        }
+        dispatcher.execute(() -> dispatch(change));
+    }
+
+    // Runs on the dispatcher, so a change appended meanwhile is queued after the replay.
+    // A replay longer than a subscription may queue would only fall behind again, it gets a reset.
+    private void open(SseEmitter emitter, GeoBounds bounds, Set<String> entities, Long since) {
+        long start = since != null ? since : currentVersion();
+        ChangeSubscription subscription = new ChangeSubscription(emitter, bounds, entities, start, maxPending);
+        Runnable remove = () -> {
+            synchronized (subscriptions) {
+                subscriptions.remove(subscription);
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        Optional<List<EntityChange>> replay = since(start, bounds, entities)
+                .filter(changes -> changes.size() <= maxPending);
+        boolean send = false;
+        if (replay.isPresent()) {
+            for (EntityChange change : replay.get()) {
+                send |= subscription.offer(change);
+            }
+        } else {
+            send = subscription.offerReset(currentVersion());
+        }
+        synchronized (subscriptions) {
+            subscriptions.add(subscription);
+        }
+        if (send) {
+            send(subscription);
+        }
+    }
+
+    private void dispatch(EntityChange change) {
+        for (ChangeSubscription subscription : snapshot()) {
+            if (subscription.offer(change)) {
+                send(subscription);
+            }
+        }
+    }
+
+    private void keepAlive() {
+        for (ChangeSubscription subscription : snapshot()) {
+            if (subscription.offerKeepAlive()) {
+                send(subscription);
+            }
+        }
+    }
+
+    private void send(ChangeSubscription subscription) {
+        try {
+            senders.execute(() -> {
+                try {
+                    subscription.sendPending();
+                } catch (IOException | IllegalStateException e) {
+                    drop(subscription, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private List<ChangeSubscription> snapshot() {
+        synchronized (subscriptions) {
+            return new ArrayList<>(subscriptions);
+        }
+    }
+
+    // The client went away, the emitter's callbacks take it off the list
+    private void drop(ChangeSubscription subscription, Exception e) {
+        log.debug("Dropping change feed subscriber: {}", e.getMessage());
+        subscription.getEmitter().completeWithError(e);
+        synchronized (subscriptions) {
+            subscriptions.remove(subscription);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package dev.rohitrana.propertymap.feed;
+
+import dev.rohitrana.propertymap.dto.GeoBounds;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * An open SSE stream with its filters and the events queued for it. Events are queued by the
+ * feed's dispatcher thread and sent by one sender at a time, so a slow client only holds up
+ * its own queue. A client that falls more than maxPending changes behind gets a reset instead
+ * of the queued changes and the stream is completed, so it reconnects from the reset's version.
+ */
+class ChangeSubscription {
+    private static final Object KEEP_ALIVE = new Object();
+
+    // Reset event, optionally completing the stream after it
+    private record Reset(long version, boolean complete) {
+    }
+
+    private final SseEmitter emitter;
+    private final GeoBounds bounds;
+    private final Set<String> entities;
+    private final int maxPending;
+    private final Deque<Object> pending = new ArrayDeque<>();
+    // Set while a sender owns the queue
+    private boolean sending;
+    // Set once the reset that completes the stream is queued, later changes are not
+    private boolean closing;
+    // Only touched by the sender
+    private long lastVersion;
+
+    ChangeSubscription(SseEmitter emitter, GeoBounds bounds, Set<String> entities, long lastVersion,
+                       int maxPending) {
+        this.emitter = emitter;
+        this.bounds = bounds;
+        this.entities = entities;
+        this.lastVersion = lastVersion;
+        this.maxPending = maxPending;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Queues a change if it matches the filters.
+     *
+     * @return true if the caller has to start a sender
+     */
+    synchronized boolean offer(EntityChange change) {
+        if (closing || !change.matches(bounds, entities)) {
+            return false;
+        }
+        if (pending.size() >= maxPending) {
+            pending.clear();
+            pending.add(new Reset(change.getVersion(), true));
+            closing = true;
+        } else {
+            pending.add(change);
+        }
+        return claim();
+    }
+
+    // The cursor is older than the retained history, the client has to reload and continue from here
+    synchronized boolean offerReset(long currentVersion) {
+        pending.clear();
+        pending.add(new Reset(currentVersion, false));
+        return claim();
+    }
+
+    // Only while idle, a stream that is sending needs no keep-alive
+    synchronized boolean offerKeepAlive() {
+        if (sending || closing) {
+            return false;
+        }
+        pending.add(KEEP_ALIVE);
+        return claim();
+    }
+
+    /**
+     * Sends the queued events until the queue is empty; run by the sender that offer returned true for.
+     */
+    void sendPending() throws IOException {
+        Object event;
+        while ((event = next()) != null) {
+            if (event instanceof EntityChange change) {
+                send(change);
+            } else if (event instanceof Reset reset) {
+                sendReset(reset.version());
+                if (reset.complete()) {
+                    emitter.complete();
+                    return;
+                }
+            } else {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+        }
+    }
+
+    private synchronized boolean claim() {
+        if (sending) {
+            return false;
+        }
+        sending = true;
+        return true;
+    }
+
+    private synchronized Object next() {
+        Object event = pending.poll();
+        if (event == null) {
+            sending = false;
+        }
+        return event;
+    }
+
+    // Replayed changes can be dispatched again live, each version goes out once
+    private void send(EntityChange change) throws IOException {
+        if (change.getVersion() <= lastVersion) {
+            return;
+        }
+        lastVersion = change.getVersion();
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(change.getVersion()))
+                .name("change")
+                .data(change, MediaType.APPLICATION_JSON));
+    }
+
+    private void sendReset(long version) throws IOException {
+        lastVersion = version;
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(version))
+                .name("reset")
+                .data(version));
+    }
+}
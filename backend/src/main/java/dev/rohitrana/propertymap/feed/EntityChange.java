@@ -0,0 +1,44 @@
+package dev.rohitrana.propertymap.feed;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import dev.rohitrana.propertymap.dto.GeoBounds;
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * One entry of the change feed. Saves carry the new state, deletes only the id.
+ */
+@Value
+public class EntityChange {
+    public static final String PROPERTY = "property";
+    public static final String LOCATION_SCORE = "locationScore";
+
+    long version;
+    String entity;
+    String type;
+    Long id;
+    Object data;
+
+    // Where the row was before and is after the change, for bounding box subscriptions
+    @JsonIgnore
+    Double previousLatitude;
+    @JsonIgnore
+    Double previousLongitude;
+    @JsonIgnore
+    Double latitude;
+    @JsonIgnore
+    Double longitude;
+    // A change whose old position is unknown may have left any box
+    @JsonIgnore
+    boolean previousKnown;
+
+    // Moves out of the bounds match too, so the client can drop the row
+    boolean matches(GeoBounds bounds, Set<String> entities) {
+        if (!entities.contains(entity)) {
+            return false;
+        }
+        return bounds == null || bounds.contains(latitude, longitude)
+                || (previousKnown ? bounds.contains(previousLatitude, previousLongitude) : latitude == null);
+    }
+}
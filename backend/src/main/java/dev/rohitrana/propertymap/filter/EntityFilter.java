@@ -0,0 +1,134 @@
+package dev.rohitrana.propertymap.filter;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Conjunction of attribute conditions that can be pushed down to the database as a single
+ * {@link Specification} or evaluated in memory as a {@link Predicate}.
+ * Conditions with a null value are ignored, so optional request parameters can be added as-is.
+ * Conditions are applied most selective first, which lets the in-memory predicate short-circuit
+ * early and keeps the generated WHERE clause in the same order.
+ */
+public class EntityFilter<T> {
+    private enum Operator { EQUAL, AT_LEAST, AT_MOST, GREATER_THAN }
+
+    private final List<Condition<T, ?>> conditions = new ArrayList<>();
+
+    /**
+     * @param selectivity estimated fraction of rows that pass the condition (0..1, lower is more selective)
+     */
+    public <V extends Comparable<? super V>> EntityFilter<T> equal(String attribute, Function<T, V> getter,
+                                                                    V value, double selectivity) {
+        return add(attribute, getter, Operator.EQUAL, value, selectivity);
+    }
+
+    public <V extends Comparable<? super V>> EntityFilter<T> atLeast(String attribute, Function<T, V> getter,
+                                                                      V value, double selectivity) {
+        return add(attribute, getter, Operator.AT_LEAST, value, selectivity);
+    }
+
+    public <V extends Comparable<? super V>> EntityFilter<T> atMost(String attribute, Function<T, V> getter,
+                                                                     V value, double selectivity) {
+        return add(attribute, getter, Operator.AT_MOST, value, selectivity);
+    }
+
+    public <V extends Comparable<? super V>> EntityFilter<T> greaterThan(String attribute, Function<T, V> getter,
+                                                                          V value, double selectivity) {
+        return add(attribute, getter, Operator.GREATER_THAN, value, selectivity);
+    }
+
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    public Specification<T> toSpecification() {
+        List<Condition<T, ?>> ordered = ordered();
+        return (root, query, cb) -> cb.and(ordered.stream()
+                .map(condition -> condition.toPredicate(root, cb))
+                .toArray(jakarta.persistence.criteria.Predicate[]::new));
+    }
+
+    public Predicate<T> toPredicate() {
+        List<Condition<T, ?>> ordered = ordered();
+        return entity -> {
+            for (Condition<T, ?> condition : ordered) {
+                if (!condition.test(entity)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private List<Condition<T, ?>> ordered() {
+        List<Condition<T, ?>> ordered = new ArrayList<>(conditions);
+        ordered.sort(Comparator.comparingDouble(condition -> condition.selectivity));
+        return ordered;
+    }
+
+    private <V extends Comparable<? super V>> EntityFilter<T> add(String attribute, Function<T, V> getter,
+                                                                   Operator operator, V value, double selectivity) {
+        if (value != null) {
+            conditions.add(new Condition<>(attribute, getter, operator, value, selectivity));
+        }
+        return this;
+    }
+
+    private static class Condition<T, V extends Comparable<? super V>> {
+        private final String attribute;
+        private final Function<T, V> getter;
+        private final Operator operator;
+        private final V value;
+        private final double selectivity;
+
+        Condition(String attribute, Function<T, V> getter, Operator operator, V value, double selectivity) {
+            this.attribute = attribute;
+            this.getter = getter;
+            this.operator = operator;
+            this.value = value;
+            this.selectivity = selectivity;
+        }
+
+        jakarta.persistence.criteria.Predicate toPredicate(Root<T> root, CriteriaBuilder cb) {
+            Expression<V> path = root.get(attribute);
+            switch (operator) {
+                case EQUAL:
+                    return cb.equal(path, value);
+                case AT_LEAST:
+                    return cb.greaterThanOrEqualTo(path, value);
+                case GREATER_THAN:
+                    return cb.greaterThan(path, value);
+                default:
+                    return cb.lessThanOrEqualTo(path, value);
+            }
+        }
+
+        // Same semantics as SQL: a null attribute never matches
+        boolean test(T entity) {
+            V actual = getter.apply(entity);
+            if (actual == null) {
+                return false;
+            }
+            int comparison = actual.compareTo(value);
+            switch (operator) {
+                case EQUAL:
+                    return comparison == 0;
+                case AT_LEAST:
+                    return comparison >= 0;
+                case GREATER_THAN:
+                    return comparison > 0;
+                default:
+                    return comparison <= 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package dev.rohitrana.propertymap.filter;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional criteria accepted by the location score filter endpoint. All provided criteria are combined.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationScoreFilter {
+    // Scores are on a 0-10 scale, a minimum of s keeps roughly (10 - s) / 10 of the rows
+    private static final double MAX_SCORE = 10.0;
+    private static final double RATE_SELECTIVITY = 0.5;
+
+    private Integer minOverallScore;
+    private Integer minPerformanceScore;
+    private Integer minRiskScore;
+    private Integer minDemandScore;
+    private Integer minSupplyScore;
+    private Double minCapRate;
+    private Double minAppreciation;
+
+    public EntityFilter<LocationScore> toEntityFilter() {
+        return new EntityFilter<LocationScore>()
+                .atLeast("overallScore", LocationScore::getOverallScore, minOverallScore, scoreSelectivity(minOverallScore))
+                .atLeast("performanceScore", LocationScore::getPerformanceScore, minPerformanceScore,
+                        scoreSelectivity(minPerformanceScore))
+                .atLeast("riskScore", LocationScore::getRiskScore, minRiskScore, scoreSelectivity(minRiskScore))
+                .atLeast("demandScore", LocationScore::getDemandScore, minDemandScore, scoreSelectivity(minDemandScore))
+                .atLeast("supplyScore", LocationScore::getSupplyScore, minSupplyScore, scoreSelectivity(minSupplyScore))
+                .atLeast("capRate", LocationScore::getCapRate, minCapRate, RATE_SELECTIVITY)
+                .atLeast("appreciation", LocationScore::getAppreciation, minAppreciation, RATE_SELECTIVITY);
+    }
+
+    private static double scoreSelectivity(Integer minScore) {
+        if (minScore == null) {
+            return 1.0;
+        }
+        return Math.max(0.0, Math.min(1.0, (MAX_SCORE - minScore) / MAX_SCORE));
+    }
+}
@@ -0,0 +1,49 @@
+package dev.rohitrana.propertymap.filter;
+
+import dev.rohitrana.propertymap.model.Property;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * Optional criteria accepted by the property filter endpoint. All provided criteria are combined.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyFilter {
+    // Rough share of listings passing each kind of condition, used to order the conditions
+    private static final double ZIP_CODE_SELECTIVITY = 0.01;
+    private static final double CITY_SELECTIVITY = 0.1;
+    private static final double STATUS_SELECTIVITY = 0.35;
+    private static final double RANGE_SELECTIVITY = 0.5;
+    private static final double MINIMUM_SELECTIVITY = 0.6;
+
+    private String city;
+    private String status;
+    private Integer minBedrooms;
+    private Integer minBathrooms;
+    private Integer minSqFt;
+    private Integer maxSqFt;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private String zipCode;
+    private Integer minYearBuilt;
+    private BigDecimal minCapRate;
+
+    public EntityFilter<Property> toEntityFilter() {
+        return new EntityFilter<Property>()
+                .equal("zipCode", Property::getZipCode, zipCode, ZIP_CODE_SELECTIVITY)
+                .equal("city", Property::getCity, city, CITY_SELECTIVITY)
+                .equal("status", Property::getStatus, status, STATUS_SELECTIVITY)
+                .atLeast("listPrice", Property::getListPrice, minPrice, RANGE_SELECTIVITY)
+                .atMost("listPrice", Property::getListPrice, maxPrice, RANGE_SELECTIVITY)
+                .atLeast("squareFeet", Property::getSquareFeet, minSqFt, RANGE_SELECTIVITY)
+                .atMost("squareFeet", Property::getSquareFeet, maxSqFt, RANGE_SELECTIVITY)
+                .atLeast("capRate", Property::getCapRate, minCapRate, RANGE_SELECTIVITY)
+                .atLeast("bedrooms", Property::getBedrooms, minBedrooms, MINIMUM_SELECTIVITY)
+                .atLeast("bathrooms", Property::getBathrooms, minBathrooms, MINIMUM_SELECTIVITY)
+                .atLeast("yearBuilt", Property::getYearBuilt, minYearBuilt, MINIMUM_SELECTIVITY);
+    }
+}
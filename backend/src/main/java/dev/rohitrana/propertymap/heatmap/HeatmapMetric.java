@@ -0,0 +1,62 @@
+package dev.rohitrana.propertymap.heatmap;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+
+import java.util.function.Function;
+
+/**
+ * LocationScore fields that can be rendered as heatmap tiles, with the value range mapped onto
+ * the colour ramp. Ranges are fixed so that a single changed score never recolours unrelated tiles.
+ */
+public enum HeatmapMetric {
+    OVERALL_SCORE("overallScore", 0, 10, score -> toDouble(score.getOverallScore())),
+    PERFORMANCE_SCORE("performanceScore", 0, 10, score -> toDouble(score.getPerformanceScore())),
+    RISK_SCORE("riskScore", 0, 10, score -> toDouble(score.getRiskScore())),
+    DEMAND_SCORE("demandScore", 0, 10, score -> toDouble(score.getDemandScore())),
+    SUPPLY_SCORE("supplyScore", 0, 10, score -> toDouble(score.getSupplyScore())),
+    CAP_RATE("capRate", 0, 6, LocationScore::getCapRate),
+    APPRECIATION("appreciation", 0, 8, LocationScore::getAppreciation),
+    IRR("irr", 0, 12, LocationScore::getIrr),
+    FIVE_YEAR_TOTAL_RETURN("fiveYearTotalReturn", 0, 60, LocationScore::getFiveYearTotalReturn),
+    AVERAGE_HOUSE_PRICE("averageHousePrice", 0, 2_000_000, LocationScore::getAverageHousePrice),
+    PROPERTY_TAX("propertyTax", 0, 2, LocationScore::getPropertyTax),
+    NEIGHBORHOOD_CHANGE("neighborhoodChange", 0, 5, LocationScore::getNeighborhoodChange);
+
+    private final String path;
+    private final double min;
+    private final double max;
+    private final Function<LocationScore, Double> getter;
+
+    HeatmapMetric(String path, double min, double max, Function<LocationScore, Double> getter) {
+        this.path = path;
+        this.min = min;
+        this.max = max;
+        this.getter = getter;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Double valueOf(LocationScore score) {
+        return getter.apply(score);
+    }
+
+    // Position of the value on the colour ramp, clamped to 0..1
+    public double normalize(double value) {
+        return Math.max(0, Math.min(1, (value - min) / (max - min)));
+    }
+
+    public static HeatmapMetric fromPath(String path) {
+        for (HeatmapMetric metric : values()) {
+            if (metric.path.equals(path)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+
+    private static Double toDouble(Integer value) {
+        return value == null ? null : value.doubleValue();
+    }
+}
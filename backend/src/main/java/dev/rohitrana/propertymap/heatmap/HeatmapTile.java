@@ -0,0 +1,12 @@
+package dev.rohitrana.propertymap.heatmap;
+
+import lombok.Value;
+
+/**
+ * A rendered PNG tile and the entity tag clients use to revalidate it.
+ */
+@Value
+public class HeatmapTile {
+    byte[] png;
+    String etag;
+}
@@ -0,0 +1,171 @@
+package dev.rohitrana.propertymap.heatmap;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rasterizes location scores into a 256px PNG tile.
+ * The metric is sampled on a coarse grid with inverse distance weighting over every score within
+ * the influence radius, then scaled up with bilinear filtering. Opacity fades with the distance to
+ * the nearest score, so areas without data stay transparent.
+ * Each score is added only to the samples within its radius, so rendering is linear in the scores
+ * even at low zoom, where one tile covers most of them.
+ */
+public class HeatmapTileRenderer {
+    private static final int TILE_SIZE = 256;
+    private static final int MAX_ALPHA = 190;
+    private static final double KM_PER_DEGREE_LAT = 110.574;
+    private static final double KM_PER_DEGREE_LNG = 111.320;
+
+    private final int resolution;
+    private final double radiusKm;
+
+    public HeatmapTileRenderer(int resolution, double radiusKm) {
+        this.resolution = resolution;
+        this.radiusKm = radiusKm;
+    }
+
+    /**
+     * Bounds (south, north, west, east) of the scores that can influence a tile.
+     */
+    public double[] influenceBounds(TileCoordinates tile) {
+        double latMargin = radiusKm / KM_PER_DEGREE_LAT;
+        double maxAbsLat = Math.min(85, Math.max(Math.abs(tile.south()), Math.abs(tile.north())));
+        double lngMargin = radiusKm / (KM_PER_DEGREE_LNG * Math.cos(Math.toRadians(maxAbsLat)));
+        return new double[] {
+                tile.south() - latMargin, tile.north() + latMargin,
+                tile.west() - lngMargin, tile.east() + lngMargin
+        };
+    }
+
+    public boolean isInfluencedBy(TileCoordinates tile, double latitude, double longitude) {
+        double[] bounds = influenceBounds(tile);
+        return latitude >= bounds[0] && latitude <= bounds[1] && longitude >= bounds[2] && longitude <= bounds[3];
+    }
+
+    public byte[] render(TileCoordinates tile, HeatmapMetric metric, List<LocationScore> scores) {
+        double step = 1.0 / resolution;
+        double[] sampleLats = new double[resolution];
+        double[] kmPerDegreeLng = new double[resolution];
+        double[] sampleLngs = new double[resolution];
+        for (int p = 0; p < resolution; p++) {
+            sampleLats[p] = tile.latitudeAt(tile.getY() + (p + 0.5) * step);
+            kmPerDegreeLng[p] = KM_PER_DEGREE_LNG * Math.cos(Math.toRadians(sampleLats[p]));
+            sampleLngs[p] = tile.longitudeAt(tile.getX() + (p + 0.5) * step);
+        }
+
+        // Per sample, row by row
+        double[] weightSums = new double[resolution * resolution];
+        double[] weightedValues = new double[resolution * resolution];
+        double[] nearestSquared = new double[resolution * resolution];
+        Arrays.fill(nearestSquared, Double.MAX_VALUE);
+        double radiusSquared = radiusKm * radiusKm;
+        double latMargin = radiusKm / KM_PER_DEGREE_LAT;
+        for (LocationScore score : scores) {
+            Double value = metric.valueOf(score);
+            if (value == null || score.getLatitude() == null || score.getLongitude() == null) {
+                continue;
+            }
+            double lat = score.getLatitude();
+            double lng = score.getLongitude();
+            // Rows grow southwards
+            int firstRow = Math.max(0, firstRowSouthOf(sampleLats, lat + latMargin) - 1);
+            int lastRow = Math.min(resolution - 1, firstRowSouthOf(sampleLats, lat - latMargin));
+            for (int py = firstRow; py <= lastRow; py++) {
+                double lngMargin = radiusKm / kmPerDegreeLng[py];
+                int firstColumn = sampleIndex(tile.columnAt(lng - lngMargin) - tile.getX(), true);
+                int lastColumn = sampleIndex(tile.columnAt(lng + lngMargin) - tile.getX(), false);
+                double dy = (lat - sampleLats[py]) * KM_PER_DEGREE_LAT;
+                for (int px = firstColumn; px <= lastColumn; px++) {
+                    double dx = (lng - sampleLngs[px]) * kmPerDegreeLng[py];
+                    double distanceSquared = dx * dx + dy * dy;
+                    if (distanceSquared < radiusSquared) {
+                        int sample = py * resolution + px;
+                        double weight = 1.0 / (distanceSquared + 1e-6);
+                        weightSums[sample] += weight;
+                        weightedValues[sample] += weight * value;
+                        nearestSquared[sample] = Math.min(nearestSquared[sample], distanceSquared);
+                    }
+                }
+            }
+        }
+
+        BufferedImage samples = new BufferedImage(resolution, resolution, BufferedImage.TYPE_INT_ARGB);
+        for (int py = 0; py < resolution; py++) {
+            for (int px = 0; px < resolution; px++) {
+                int sample = py * resolution + px;
+                if (weightSums[sample] > 0) {
+                    int alpha = (int) (MAX_ALPHA * (1 - nearestSquared[sample] / radiusSquared));
+                    samples.setRGB(px, py, (alpha << 24)
+                            | colorOf(metric.normalize(weightedValues[sample] / weightSums[sample])));
+                }
+            }
+        }
+
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(samples, 0, 0, TILE_SIZE, TILE_SIZE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Binary search of the first row south of a latitude, resolution if there is none
+    private static int firstRowSouthOf(double[] sampleLats, double latitude) {
+        int low = 0;
+        int high = sampleLats.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sampleLats[middle] < latitude) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    // The first or last sample whose centre is on the far side of a fractional tile offset, within the
+    // tile, with one sample to spare for rounding; the distance check decides
+    private int sampleIndex(double offset, boolean first) {
+        double position = offset * resolution - 0.5;
+        double index = first ? Math.ceil(position) - 1 : Math.floor(position) + 1;
+        return (int) Math.max(first ? 0 : -1, Math.min(first ? resolution : resolution - 1, index));
+    }
+
+    // Same ramp as the client-side heat layer: blue up to 0.4, yellow at 0.65, red at 1
+    private static int colorOf(double t) {
+        if (t <= 0.4) {
+            return rgb(0, 0, 255);
+        }
+        if (t <= 0.65) {
+            double f = (t - 0.4) / 0.25;
+            return rgb(255 * f, 255 * f, 255 * (1 - f));
+        }
+        double f = (t - 0.65) / 0.35;
+        return rgb(255, 255 * (1 - f), 0);
+    }
+
+    private static int rgb(double r, double g, double b) {
+        return ((int) r << 16) | ((int) g << 8) | (int) b;
+    }
+}
@@ -0,0 +1,55 @@
+package dev.rohitrana.propertymap.heatmap;
+
+import lombok.Value;
+
+/**
+ * Web Mercator (slippy map) tile address, as used by Leaflet tile layers.
+ */
+@Value
+public class TileCoordinates {
+    public static final int MAX_ZOOM = 22;
+
+    int z;
+    int x;
+    int y;
+
+    public static boolean isValid(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) {
+            return false;
+        }
+        int tiles = 1 << z;
+        return x >= 0 && x < tiles && y >= 0 && y < tiles;
+    }
+
+    public double west() {
+        return longitudeAt(x);
+    }
+
+    public double east() {
+        return longitudeAt(x + 1);
+    }
+
+    public double north() {
+        return latitudeAt(y);
+    }
+
+    public double south() {
+        return latitudeAt(y + 1);
+    }
+
+    // Longitude of a fractional tile column at this zoom
+    public double longitudeAt(double column) {
+        return column / (1 << z) * 360.0 - 180.0;
+    }
+
+    // Latitude of a fractional tile row at this zoom
+    public double latitudeAt(double row) {
+        double n = Math.PI - 2.0 * Math.PI * row / (1 << z);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    // Fractional tile column of a longitude at this zoom, the inverse of longitudeAt
+    public double columnAt(double longitude) {
+        return (longitude + 180.0) / 360.0 * (1 << z);
+    }
+}
@@ -0,0 +1,21 @@
+package dev.rohitrana.propertymap.history;
+
+import java.time.LocalDateTime;
+
+/**
+ * One recorded value of a field. Numbers are scaled to longs (see {@link HistoryField}), categories
+ * kept as text; both are null when the field was cleared. The zip code and city are those of the
+ * property at the time, for the summaries; they are not stored with the value.
+ */
+public record HistoryChange(HistoryField field, long entityId, LocalDateTime recordedAt, Long scaled,
+                            String category, String zipCode, String city) {
+
+    public boolean isNull() {
+        return scaled == null && category == null;
+    }
+
+    // The value as the API returns it: a number, the category, or null
+    public Object value() {
+        return field.isCategory() || scaled == null ? category : (Object) field.fromScaled(scaled);
+    }
+}
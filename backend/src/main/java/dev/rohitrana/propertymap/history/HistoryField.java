@@ -0,0 +1,112 @@
+package dev.rohitrana.propertymap.history;
+
+import dev.rohitrana.propertymap.feed.EntityChange;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The fields whose changes are kept in the history. Numbers are stored as longs with a fixed
+ * number of decimals (prices in cents, rates in hundredths of a basis point), categories such
+ * as the status as text.
+ */
+public enum HistoryField {
+    LIST_PRICE(EntityChange.PROPERTY, "listPrice", 2, property(Property::getListPrice)),
+    STATUS(EntityChange.PROPERTY, "status", -1, property(Property::getStatus)),
+    CAP_RATE(EntityChange.PROPERTY, "capRate", 4, property(Property::getCapRate)),
+    APPRECIATION_RATE(EntityChange.PROPERTY, "appreciationRate", 4, property(Property::getAppreciationRate)),
+    SCORE_CAP_RATE(EntityChange.LOCATION_SCORE, "capRate", 4, locationScore(LocationScore::getCapRate)),
+    APPRECIATION(EntityChange.LOCATION_SCORE, "appreciation", 4, locationScore(LocationScore::getAppreciation)),
+    OVERALL_SCORE(EntityChange.LOCATION_SCORE, "overallScore", 0, locationScore(LocationScore::getOverallScore)),
+    PERFORMANCE_SCORE(EntityChange.LOCATION_SCORE, "performanceScore", 0,
+            locationScore(LocationScore::getPerformanceScore)),
+    RISK_SCORE(EntityChange.LOCATION_SCORE, "riskScore", 0, locationScore(LocationScore::getRiskScore)),
+    DEMAND_SCORE(EntityChange.LOCATION_SCORE, "demandScore", 0, locationScore(LocationScore::getDemandScore)),
+    SUPPLY_SCORE(EntityChange.LOCATION_SCORE, "supplyScore", 0, locationScore(LocationScore::getSupplyScore));
+
+    private final String entity;
+    private final String key;
+    // Decimals kept, or -1 for a category
+    private final int scale;
+    private final Function<Object, Object> getter;
+
+    HistoryField(String entity, String key, int scale, Function<Object, Object> getter) {
+        this.entity = entity;
+        this.key = key;
+        this.scale = scale;
+        this.getter = getter;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isCategory() {
+        return scale < 0;
+    }
+
+    public static List<HistoryField> of(String entity) {
+        List<HistoryField> fields = new ArrayList<>();
+        for (HistoryField field : values()) {
+            if (field.entity.equals(entity)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    public static HistoryField parse(String entity, String key) {
+        for (HistoryField field : values()) {
+            if (field.entity.equals(entity) && field.key.equalsIgnoreCase(key)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("No history is kept of " + entity + " field " + key);
+    }
+
+    Object get(Object entity) {
+        return getter.apply(entity);
+    }
+
+    // Whether the field has another value in current than in previous, ignoring trailing zeros and the like
+    boolean changed(Object previous, Object current) {
+        Object before = get(previous);
+        Object after = get(current);
+        if (isCategory() || before == null || after == null) {
+            return !Objects.equals(before, after);
+        }
+        return toScaled(before) != toScaled(after);
+    }
+
+    long toScaled(Object value) {
+        BigDecimal decimal = value instanceof BigDecimal number ? number : new BigDecimal(value.toString());
+        return decimal.movePointRight(scale).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public double fromScaled(long value) {
+        return BigDecimal.valueOf(value, scale).doubleValue();
+    }
+
+    // An estimate rounded to the precision the values are kept at, e.g. whole numbers for scores
+    public double round(double value) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private static Function<Object, Object> property(Function<Property, Object> getter) {
+        return entity -> getter.apply((Property) entity);
+    }
+
+    private static Function<Object, Object> locationScore(Function<LocationScore, Object> getter) {
+        return entity -> getter.apply((LocationScore) entity);
+    }
+}
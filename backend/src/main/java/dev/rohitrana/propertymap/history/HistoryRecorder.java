@@ -0,0 +1,328 @@
+package dev.rohitrana.propertymap.history;
+
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.feed.EntityChange;
+import dev.rohitrana.propertymap.index.EntitySpatialIndex;
+import dev.rohitrana.propertymap.index.LocationScoreSpatialIndex;
+import dev.rohitrana.propertymap.index.PropertySpatialIndex;
+import dev.rohitrana.propertymap.model.HistorySegment;
+import dev.rohitrana.propertymap.model.HistorySummary;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.repository.HistoryStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Records the tracked fields of saved properties and location scores (see {@link HistoryField})
+ * whenever they change, from the change events. Changes are buffered and written on every flush
+ * as one segment per field and month, together with the updated monthly summaries; compaction
+ * later merges the segments of a month so a month of a field is read as one row. When the buffer
+ * fills up between flushes, e.g. during an import, the thread that fills it flushes right away, so
+ * writers are slowed down to the pace of the history writes instead of losing values.
+ * <p>
+ * A listing whose price never changes has no changes to summarize, so the value every entity
+ * has is summarized as well: the current month's value summaries are replaced from the in-memory
+ * indexes periodically, and the last replacement before the month ends is that month's state.
+ */
+@Component
+@Slf4j
+public class HistoryRecorder {
+    public static final String GROUP_ALL = "all";
+    public static final String GROUP_ZIP_CODE = "zipCode";
+    public static final String GROUP_CITY = "city";
+    public static final String BASIS_CHANGES = "changes";
+    public static final String BASIS_VALUES = "values";
+
+    private record Partition(HistoryField field, LocalDate periodStart) {
+    }
+
+    private final HistoryStore historyStore;
+    private final PropertySpatialIndex propertySpatialIndex;
+    private final LocationScoreSpatialIndex locationScoreSpatialIndex;
+    private final int maxPending;
+    private final int compactionThreshold;
+
+    // Flushes and compactions write one at a time
+    private final Object writeLock = new Object();
+    private List<HistoryChange> pending = new ArrayList<>();
+
+    @Autowired
+    public HistoryRecorder(HistoryStore historyStore,
+                           PropertySpatialIndex propertySpatialIndex,
+                           LocationScoreSpatialIndex locationScoreSpatialIndex,
+                           @Value("${propertymap.history.max-pending:100000}") int maxPending,
+                           @Value("${propertymap.history.compaction-threshold:16}") int compactionThreshold) {
+        this.historyStore = historyStore;
+        this.propertySpatialIndex = propertySpatialIndex;
+        this.locationScoreSpatialIndex = locationScoreSpatialIndex;
+        this.maxPending = maxPending;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (event.getType() == PropertyChangedEvent.Type.SAVED) {
+            record(EntityChange.PROPERTY, event.getId(), event.getPrevious(), event.getCurrent(),
+                    event.getCurrent().getZipCode(), event.getCurrent().getCity());
+        }
+    }
+
+    @EventListener
+    public void onLocationScoreChanged(LocationScoreChangedEvent event) {
+        if (event.getType() == LocationScoreChangedEvent.Type.SAVED) {
+            record(EntityChange.LOCATION_SCORE, event.getId(), event.getPrevious(), event.getCurrent(), null, null);
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${propertymap.history.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        synchronized (writeLock) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() {
+        List<HistoryChange> changes;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            changes = pending;
+            pending = new ArrayList<>();
+        }
+
+        Map<Partition, List<HistoryChange>> partitions = new LinkedHashMap<>();
+        for (HistoryChange change : changes) {
+            partitions.computeIfAbsent(new Partition(change.field(), periodOf(change.recordedAt())),
+                    key -> new ArrayList<>()).add(change);
+        }
+        List<HistorySegment> segments = new ArrayList<>(partitions.size());
+        List<HistorySummary> summaries = new ArrayList<>();
+        partitions.forEach((partition, values) -> {
+            segments.add(toSegment(partition.field(), partition.periodStart(), values));
+            summaries.addAll(summarize(partition.field(), partition.periodStart(), BASIS_CHANGES, values));
+        });
+
+        try {
+            historyStore.append(segments, summaries);
+        } catch (TransientDataAccessException e) {
+            // Retried with the next flush, ahead of anything recorded since
+            synchronized (this) {
+                changes.addAll(pending);
+                pending = changes;
+            }
+            log.warn("Writing {} history values failed, retrying: {}", changes.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Writing {} history values failed, values dropped: {}", changes.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the value summaries of the current month with the values the indexed entities have now.
+     */
+    @Scheduled(fixedDelayString = "${propertymap.history.values-interval-ms:3600000}",
+            initialDelayString = "${propertymap.history.values-initial-delay-ms:60000}")
+    public void summarizeValues() {
+        LocalDate period = periodOf(LocalDateTime.now());
+        synchronized (writeLock) {
+            summarizeValues(EntityChange.PROPERTY, propertySpatialIndex, period, Property::getId,
+                    Property::getZipCode, Property::getCity);
+            summarizeValues(EntityChange.LOCATION_SCORE, locationScoreSpatialIndex, period, LocationScore::getId,
+                    score -> null, score -> null);
+        }
+    }
+
+    private <T> void summarizeValues(String entity, EntitySpatialIndex<T> index, LocalDate period,
+                                     Function<T, Long> idOf, Function<T, String> zipCodeOf,
+                                     Function<T, String> cityOf) {
+        if (!index.isLoaded()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<T> entities = index.values();
+        List<HistorySummary> summaries = new ArrayList<>();
+        for (HistoryField field : HistoryField.of(entity)) {
+            List<HistoryChange> values = new ArrayList<>(entities.size());
+            for (T current : entities) {
+                Object value = field.get(current);
+                if (value != null) {
+                    values.add(toChange(field, idOf.apply(current), now, value, zipCodeOf.apply(current),
+                            cityOf.apply(current)));
+                }
+            }
+            summaries.addAll(summarize(field, period, BASIS_VALUES, values));
+        }
+        try {
+            historyStore.replaceSummaries(entity, BASIS_VALUES, period, summaries);
+        } catch (RuntimeException e) {
+            log.warn("Summarizing the current {} values failed: {}", entity, e.getMessage());
+        }
+    }
+
+    /**
+     * Merges the segments of each month that has more than one: past months as soon as they have
+     * two, the current month once the flushes have added the threshold.
+     */
+    @Scheduled(fixedDelayString = "${propertymap.history.compaction-interval-ms:3600000}",
+            initialDelayString = "${propertymap.history.compaction-interval-ms:3600000}")
+    public void compact() {
+        LocalDate currentPeriod = periodOf(LocalDateTime.now());
+        synchronized (writeLock) {
+            for (HistoryStore.Partition partition : historyStore.findFragmentedPartitions()) {
+                if (partition.periodStart().isBefore(currentPeriod) || partition.segments() >= compactionThreshold) {
+                    try {
+                        compact(partition);
+                    } catch (RuntimeException e) {
+                        log.warn("Compacting the history of {} {} {} failed: {}", partition.entityType(),
+                                partition.field(), partition.periodStart(), e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void compact(HistoryStore.Partition partition) {
+        HistoryField field = HistoryField.parse(partition.entityType(), partition.field());
+        List<HistorySegment> segments = historyStore.findSegments(partition.entityType(), List.of(partition.field()),
+                partition.periodStart(), partition.periodStart(), null);
+        if (segments.size() < 2) {
+            return;
+        }
+        // In the order they were appended, which the stable sort in encode preserves per second
+        List<HistoryChange> values = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(segments.size());
+        long before = 0;
+        for (HistorySegment segment : segments) {
+            values.addAll(SegmentCodec.decode(field, partition.periodStart(), segment.getData(), null));
+            ids.add(segment.getId());
+            before += segment.getData().length;
+        }
+        HistorySegment merged = toSegment(field, partition.periodStart(), values);
+        historyStore.replaceSegments(ids, merged);
+        log.debug("Compacted {} history segments of {} {} {} ({} values, {} -> {} bytes)", ids.size(),
+                partition.entityType(), partition.field(), partition.periodStart(), values.size(), before,
+                merged.getData().length);
+    }
+
+    private void record(String entity, Long id, Object previous, Object current, String zipCode, String city) {
+        LocalDateTime now = LocalDateTime.now();
+        List<HistoryChange> changes = new ArrayList<>();
+        for (HistoryField field : HistoryField.of(entity)) {
+            // Without the previous state every value is recorded, as for an insert
+            if (previous == null ? field.get(current) == null : !field.changed(previous, current)) {
+                continue;
+            }
+            changes.add(toChange(field, id, now, field.get(current), zipCode, city));
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        boolean full;
+        synchronized (this) {
+            pending.addAll(changes);
+            full = pending.size() >= maxPending;
+        }
+        if (full) {
+            // Back pressure; if the write fails the values stay queued and the buffer outgrows its limit
+            flush();
+        }
+    }
+
+    private static HistoryChange toChange(HistoryField field, long id, LocalDateTime time, Object value,
+                                          String zipCode, String city) {
+        Long scaled = value == null || field.isCategory() ? null : field.toScaled(value);
+        String category = field.isCategory() ? (String) value : null;
+        return new HistoryChange(field, id, time, scaled, category, zipCode, city);
+    }
+
+    private static HistorySegment toSegment(HistoryField field, LocalDate periodStart, List<HistoryChange> values) {
+        long minId = values.stream().mapToLong(HistoryChange::entityId).min().orElse(0);
+        long maxId = values.stream().mapToLong(HistoryChange::entityId).max().orElse(0);
+        return new HistorySegment(null, field.getEntity(), field.getKey(), periodStart, values.size(), minId, maxId,
+                SegmentCodec.encode(field, periodStart, values), LocalDateTime.now());
+    }
+
+    // Summaries of the values for all entities, and per zip code and city for properties
+    private static List<HistorySummary> summarize(HistoryField field, LocalDate periodStart, String basis,
+                                                  List<HistoryChange> values) {
+        Map<List<String>, Accumulator> groups = new LinkedHashMap<>();
+        for (HistoryChange change : values) {
+            if (change.isNull()) {
+                continue;
+            }
+            String category = field.isCategory() ? change.category() : "";
+            groups.computeIfAbsent(List.of(GROUP_ALL, "", category), key -> new Accumulator()).add(field, change);
+            if (change.zipCode() != null) {
+                groups.computeIfAbsent(List.of(GROUP_ZIP_CODE, change.zipCode(), category),
+                        key -> new Accumulator()).add(field, change);
+            }
+            if (change.city() != null) {
+                groups.computeIfAbsent(List.of(GROUP_CITY, change.city(), category),
+                        key -> new Accumulator()).add(field, change);
+            }
+        }
+        List<HistorySummary> summaries = new ArrayList<>(groups.size());
+        groups.forEach((key, accumulator) -> summaries.add(accumulator.toSummary(field, periodStart, basis,
+                key.get(0), key.get(1), key.get(2))));
+        return summaries;
+    }
+
+    public static LocalDate periodOf(LocalDateTime time) {
+        return YearMonth.from(time).atDay(1);
+    }
+
+    private static class Accumulator {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private QuantileSketch sketch;
+
+        void add(HistoryField field, HistoryChange change) {
+            count++;
+            if (field.isCategory()) {
+                return;
+            }
+            double value = field.fromScaled(change.scaled());
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            if (sketch == null) {
+                sketch = new QuantileSketch();
+            }
+            sketch.add(value);
+        }
+
+        HistorySummary toSummary(HistoryField field, LocalDate periodStart, String basis, String groupBy,
+                                 String groupKey, String category) {
+            if (sketch == null) {
+                return new HistorySummary(null, field.getEntity(), field.getKey(), periodStart, basis, groupBy,
+                        groupKey, category, count, null, null, null, null, null);
+            }
+            return new HistorySummary(null, field.getEntity(), field.getKey(), periodStart, basis, groupBy,
+                    groupKey, category, count, sum, min, max, sketch.toBytes(), null);
+        }
+    }
+}
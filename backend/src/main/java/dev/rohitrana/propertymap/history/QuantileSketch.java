@@ -0,0 +1,127 @@
+package dev.rohitrana.propertymap.history;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile estimate with a 1% relative error. Values are counted in logarithmic
+ * buckets, each 2% wider than the previous, so a month of prices in a zip code takes a few
+ * hundred bytes whatever the number of values, and the months of a year or the zip codes of a
+ * city merge by adding up their buckets.
+ */
+public class QuantileSketch {
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // Smaller magnitudes count as zero
+    private static final double MIN_MAGNITUDE = 1e-9;
+
+    // Bucket index -> count; bucket i holds magnitudes in (GAMMA^(i-1), GAMMA^i]
+    private final TreeMap<Integer, Long> positive = new TreeMap<>();
+    private final TreeMap<Integer, Long> negative = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        if (Math.abs(value) < MIN_MAGNITUDE) {
+            zeroCount++;
+        } else if (value > 0) {
+            positive.merge(index(value), 1L, Long::sum);
+        } else {
+            negative.merge(index(-value), 1L, Long::sum);
+        }
+        count++;
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        other.positive.forEach((index, n) -> positive.merge(index, n, Long::sum));
+        other.negative.forEach((index, n) -> negative.merge(index, n, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param q between 0 and 1, e.g. 0.5 for the median
+     * @return the estimated value, or NaN without values
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = 0;
+        // Ascending: the largest negative magnitudes first
+        for (Map.Entry<Integer, Long> bucket : negative.descendingMap().entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank) {
+                return -valueOf(bucket.getKey());
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bucket : positive.entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank) {
+                return valueOf(bucket.getKey());
+            }
+        }
+        return valueOf(positive.lastKey());
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VarInts.writeUnsigned(out, zeroCount);
+        writeBuckets(out, positive);
+        writeBuckets(out, negative);
+        return out.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        QuantileSketch sketch = new QuantileSketch();
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        sketch.zeroCount = VarInts.readUnsigned(in);
+        sketch.count = sketch.zeroCount + readBuckets(in, sketch.positive) + readBuckets(in, sketch.negative);
+        return sketch;
+    }
+
+    private static int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    // The value in the middle of the bucket in relative terms, at most 1% off anything in it
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private static void writeBuckets(ByteArrayOutputStream out, TreeMap<Integer, Long> buckets) {
+        VarInts.writeUnsigned(out, buckets.size());
+        int previous = 0;
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            VarInts.writeSigned(out, bucket.getKey() - previous);
+            VarInts.writeUnsigned(out, bucket.getValue());
+            previous = bucket.getKey();
+        }
+    }
+
+    private static long readBuckets(ByteBuffer in, TreeMap<Integer, Long> buckets) {
+        long size = VarInts.readUnsigned(in);
+        long total = 0;
+        int index = 0;
+        for (long i = 0; i < size; i++) {
+            index += (int) VarInts.readSigned(in);
+            long n = VarInts.readUnsigned(in);
+            buckets.put(index, n);
+            total += n;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,148 @@
+package dev.rohitrana.propertymap.history;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of the values of one field recorded in one month.
+ * <pre>
+ * segment: format byte, dictionary (count, then length + UTF-8 per category), entity count, entities
+ * entity:  id delta from the previous entity, value count, byte length, values
+ * value:   seconds since the previous value (the month start for the first) shifted left by one,
+ *          the low bit set for a cleared field; then the change from the previous number (zigzag),
+ *          or the dictionary index of the category
+ * </pre>
+ * Everything is a varint, so a typical price change takes four or five bytes. The byte length
+ * lets a lookup of one entity skip the others without decoding them.
+ */
+public final class SegmentCodec {
+    private static final int FORMAT = 1;
+
+    private SegmentCodec() {
+    }
+
+    /**
+     * @param changes values of the field recorded in the month starting at periodStart, in any order
+     */
+    public static byte[] encode(HistoryField field, LocalDate periodStart, List<HistoryChange> changes) {
+        // Stable, so values recorded within the same second keep their order
+        List<HistoryChange> sorted = new ArrayList<>(changes);
+        sorted.sort(Comparator.comparingLong(HistoryChange::entityId).thenComparing(HistoryChange::recordedAt));
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> categories = new ArrayList<>();
+        if (field.isCategory()) {
+            for (HistoryChange change : sorted) {
+                if (change.category() != null && dictionary.putIfAbsent(change.category(), categories.size()) == null) {
+                    categories.add(change.category());
+                }
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(FORMAT);
+        VarInts.writeUnsigned(out, categories.size());
+        for (String category : categories) {
+            byte[] bytes = category.getBytes(StandardCharsets.UTF_8);
+            VarInts.writeUnsigned(out, bytes.length);
+            out.writeBytes(bytes);
+        }
+
+        List<int[]> blocks = new ArrayList<>();
+        for (int start = 0, end; start < sorted.size(); start = end) {
+            end = start + 1;
+            while (end < sorted.size() && sorted.get(end).entityId() == sorted.get(start).entityId()) {
+                end++;
+            }
+            blocks.add(new int[]{start, end});
+        }
+        VarInts.writeUnsigned(out, blocks.size());
+
+        LocalDateTime monthStart = periodStart.atStartOfDay();
+        long previousId = 0;
+        ByteArrayOutputStream values = new ByteArrayOutputStream();
+        for (int[] block : blocks) {
+            values.reset();
+            LocalDateTime previousTime = monthStart;
+            long previousValue = 0;
+            for (HistoryChange change : sorted.subList(block[0], block[1])) {
+                long seconds = Duration.between(previousTime, change.recordedAt()).getSeconds();
+                previousTime = previousTime.plusSeconds(seconds);
+                VarInts.writeUnsigned(values, seconds << 1 | (change.isNull() ? 1 : 0));
+                if (change.isNull()) {
+                    continue;
+                }
+                if (field.isCategory()) {
+                    VarInts.writeUnsigned(values, dictionary.get(change.category()));
+                } else {
+                    VarInts.writeSigned(values, change.scaled() - previousValue);
+                    previousValue = change.scaled();
+                }
+            }
+            long id = sorted.get(block[0]).entityId();
+            VarInts.writeUnsigned(out, id - previousId);
+            VarInts.writeUnsigned(out, block[1] - block[0]);
+            VarInts.writeUnsigned(out, values.size());
+            out.writeBytes(values.toByteArray());
+            previousId = id;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param entityId the only entity to decode, or null for all
+     * @return the values by entity id and then time, without zip code and city
+     */
+    public static List<HistoryChange> decode(HistoryField field, LocalDate periodStart, byte[] data, Long entityId) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        int format = in.get();
+        if (format != FORMAT) {
+            throw new IllegalStateException("Unknown history segment format " + format);
+        }
+        String[] categories = new String[(int) VarInts.readUnsigned(in)];
+        for (int i = 0; i < categories.length; i++) {
+            byte[] bytes = new byte[(int) VarInts.readUnsigned(in)];
+            in.get(bytes);
+            categories[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        List<HistoryChange> changes = new ArrayList<>();
+        LocalDateTime monthStart = periodStart.atStartOfDay();
+        long entities = VarInts.readUnsigned(in);
+        long id = 0;
+        for (long e = 0; e < entities; e++) {
+            id += VarInts.readUnsigned(in);
+            long count = VarInts.readUnsigned(in);
+            int length = (int) VarInts.readUnsigned(in);
+            if (entityId != null && entityId != id) {
+                in.position(in.position() + length);
+                continue;
+            }
+            LocalDateTime time = monthStart;
+            long value = 0;
+            for (long i = 0; i < count; i++) {
+                long header = VarInts.readUnsigned(in);
+                time = time.plusSeconds(header >>> 1);
+                if ((header & 1) != 0) {
+                    changes.add(new HistoryChange(field, id, time, null, null, null, null));
+                } else if (field.isCategory()) {
+                    String category = categories[(int) VarInts.readUnsigned(in)];
+                    changes.add(new HistoryChange(field, id, time, null, category, null, null));
+                } else {
+                    value += VarInts.readSigned(in);
+                    changes.add(new HistoryChange(field, id, time, value, null, null, null));
+                }
+            }
+        }
+        return changes;
+    }
+}
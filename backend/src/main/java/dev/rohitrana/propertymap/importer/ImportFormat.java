@@ -0,0 +1,20 @@
+package dev.rohitrana.propertymap.importer;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+    CSV, NDJSON;
+
+    public static ImportFormat fromContentType(MediaType contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        if (contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+            return CSV;
+        }
+        if (contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package dev.rohitrana.propertymap.importer;
+
+import lombok.Getter;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one bulk import. Counters are updated by the import thread and read by status requests.
+ */
+@Getter
+public class ImportJob {
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final String id = UUID.randomUUID().toString();
+    private final String target;
+    private final ImportFormat format;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile State state = State.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String failureReason;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+
+    public ImportJob(String target, ImportFormat format) {
+        this.target = target;
+        this.format = format;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsImported() {
+        return rowsImported.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    // Only the first errors are kept, rowsRejected has the full count
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public double getRowsPerSecond() {
+        if (startedAt == null) {
+            return 0;
+        }
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return rowsRead.get() * 1000.0 / millis;
+    }
+
+    public void start() {
+        startedAt = LocalDateTime.now();
+        state = State.RUNNING;
+    }
+
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        state = State.COMPLETED;
+    }
+
+    public void fail(String reason) {
+        failureReason = reason;
+        finishedAt = LocalDateTime.now();
+        state = State.FAILED;
+    }
+
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    public void rowsImported(int count) {
+        rowsImported.addAndGet(count);
+    }
+
+    public void reject(long line, String message) {
+        rowsRejected.incrementAndGet();
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    @Value
+    public static class RowError {
+        long line;
+        String message;
+    }
+}
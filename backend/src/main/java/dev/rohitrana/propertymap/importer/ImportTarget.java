@@ -0,0 +1,28 @@
+package dev.rohitrana.propertymap.importer;
+
+import java.util.List;
+
+/**
+ * Table-specific part of a bulk import: validation, derived fields and the insert statement.
+ */
+public interface ImportTarget<T> {
+    String getName();
+
+    Class<T> getEntityType();
+
+    // Messages describing why the row cannot be imported, empty if it is valid
+    List<String> validate(T entity);
+
+    // Fills in derived fields (cap rate, overall score...) and timestamps before the insert
+    void prepare(T entity);
+
+    String getInsertSql();
+
+    // Values bound to the insert statement, in column order
+    Object[] getInsertValues(T entity);
+
+    void setId(T entity, Long id);
+
+    // Lets the in-memory indexes and caches pick up an imported row
+    void publishInserted(T entity);
+}
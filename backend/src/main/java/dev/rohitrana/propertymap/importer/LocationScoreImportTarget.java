@@ -0,0 +1,101 @@
+package dev.rohitrana.propertymap.importer;
+
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.service.LocationScoreService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class LocationScoreImportTarget implements ImportTarget<LocationScore> {
+    private static final String INSERT_SQL = "INSERT INTO location_scores (" +
+            "latitude, longitude, address, overall_score, performance_score, risk_score, " +
+            "demand_score, supply_score, cap_rate, appreciation, irr, five_year_total_return, " +
+            "average_house_price, property_tax, neighborhood_change, version, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final LocationScoreService locationScoreService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public LocationScoreImportTarget(LocationScoreService locationScoreService,
+                                     ApplicationEventPublisher eventPublisher) {
+        this.locationScoreService = locationScoreService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return "location-scores";
+    }
+
+    @Override
+    public Class<LocationScore> getEntityType() {
+        return LocationScore.class;
+    }
+
+    @Override
+    public List<String> validate(LocationScore score) {
+        List<String> errors = new ArrayList<>();
+        if (score.getLatitude() == null || score.getLatitude() < -90 || score.getLatitude() > 90) {
+            errors.add("latitude must be between -90 and 90");
+        }
+        if (score.getLongitude() == null || score.getLongitude() < -180 || score.getLongitude() > 180) {
+            errors.add("longitude must be between -180 and 180");
+        }
+        checkScore(errors, "performanceScore", score.getPerformanceScore());
+        checkScore(errors, "riskScore", score.getRiskScore());
+        checkScore(errors, "demandScore", score.getDemandScore());
+        checkScore(errors, "supplyScore", score.getSupplyScore());
+        return errors;
+    }
+
+    @Override
+    public void prepare(LocationScore score) {
+        score.setId(null);
+        score.setOverallScore(locationScoreService.calculateOverallScore(score));
+        score.setVersion(0L);
+        // Same precision as the database column, so the indexed copy matches the stored row
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        score.setCreatedAt(now);
+        score.setUpdatedAt(now);
+    }
+
+    @Override
+    public String getInsertSql() {
+        return INSERT_SQL;
+    }
+
+    @Override
+    public Object[] getInsertValues(LocationScore s) {
+        return new Object[] {
+                s.getLatitude(), s.getLongitude(), s.getAddress(), s.getOverallScore(), s.getPerformanceScore(),
+                s.getRiskScore(), s.getDemandScore(), s.getSupplyScore(), s.getCapRate(), s.getAppreciation(),
+                s.getIrr(), s.getFiveYearTotalReturn(), s.getAverageHousePrice(), s.getPropertyTax(),
+                s.getNeighborhoodChange(), s.getVersion(), s.getCreatedAt(), s.getUpdatedAt()
+        };
+    }
+
+    @Override
+    public void setId(LocationScore score, Long id) {
+        score.setId(id);
+    }
+
+    @Override
+    public void publishInserted(LocationScore score) {
+        eventPublisher.publishEvent(LocationScoreChangedEvent.saved(null, score));
+    }
+
+    // The overall score is derived from the four components, so they are all required
+    private static void checkScore(List<String> errors, String name, Integer value) {
+        if (value == null || value < 0 || value > 10) {
+            errors.add(name + " must be between 0 and 10");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package dev.rohitrana.propertymap.importer;
+
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.service.PropertyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class PropertyImportTarget implements ImportTarget<Property> {
+    private static final String INSERT_SQL = "INSERT INTO properties (" +
+            "address, city, state, zip_code, bedrooms, bathrooms, square_feet, year_built, " +
+            "list_price, status, latitude, longitude, cap_rate, appreciation_rate, " +
+            "cash_on_cash_return, monthly_rent, yearly_expenses, image_url, description, " +
+            "version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final PropertyService propertyService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public PropertyImportTarget(PropertyService propertyService, ApplicationEventPublisher eventPublisher) {
+        this.propertyService = propertyService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return "properties";
+    }
+
+    @Override
+    public Class<Property> getEntityType() {
+        return Property.class;
+    }
+
+    @Override
+    public List<String> validate(Property property) {
+        List<String> errors = new ArrayList<>();
+        if (isBlank(property.getAddress())) {
+            errors.add("address is required");
+        }
+        if (isBlank(property.getCity())) {
+            errors.add("city is required");
+        }
+        if (property.getLatitude() == null || property.getLatitude() < -90 || property.getLatitude() > 90) {
+            errors.add("latitude must be between -90 and 90");
+        }
+        if (property.getLongitude() == null || property.getLongitude() < -180 || property.getLongitude() > 180) {
+            errors.add("longitude must be between -180 and 180");
+        }
+        if (property.getListPrice() != null && property.getListPrice().signum() <= 0) {
+            errors.add("listPrice must be positive");
+        }
+        if (isNegative(property.getBedrooms()) || isNegative(property.getBathrooms())
+                || isNegative(property.getSquareFeet())) {
+            errors.add("bedrooms, bathrooms and squareFeet cannot be negative");
+        }
+        return errors;
+    }
+
+    @Override
+    public void prepare(Property property) {
+        property.setId(null);
+        if (property.getMonthlyRent() != null && property.getYearlyExpenses() != null
+                && property.getListPrice() != null) {
+            property.setCapRate(propertyService.calculateCapRate(property));
+        }
+        property.setVersion(0L);
+        // Same precision as the database column, so the indexed copy matches the stored row
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        property.setCreatedAt(now);
+        property.setUpdatedAt(now);
+    }
+
+    @Override
+    public String getInsertSql() {
+        return INSERT_SQL;
+    }
+
+    @Override
+    public Object[] getInsertValues(Property p) {
+        return new Object[] {
+                p.getAddress(), p.getCity(), p.getState(), p.getZipCode(), p.getBedrooms(), p.getBathrooms(),
+                p.getSquareFeet(), p.getYearBuilt(), p.getListPrice(), p.getStatus(), p.getLatitude(),
+                p.getLongitude(), p.getCapRate(), p.getAppreciationRate(), p.getCashOnCashReturn(),
+                p.getMonthlyRent(), p.getYearlyExpenses(), p.getImageUrl(), p.getDescription(),
+                p.getVersion(), p.getCreatedAt(), p.getUpdatedAt()
+        };
+    }
+
+    @Override
+    public void setId(Property property, Long id) {
+        property.setId(id);
+    }
+
+    @Override
+    public void publishInserted(Property property) {
+        eventPublisher.publishEvent(PropertyChangedEvent.saved(null, property));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean isNegative(Integer value) {
+        return value != null && value < 0;
+    }
+}
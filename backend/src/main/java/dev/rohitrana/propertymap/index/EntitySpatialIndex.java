@@ -0,0 +1,204 @@
+package dev.rohitrana.propertymap.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory copy of a table with coordinates, answering bounds queries from a {@link SpatialGridIndex}.
+ * Loaded once at startup and kept in sync through the change events published by the services.
+ * Until the warm load has finished, callers are expected to fall back to the database.
+ */
+@Slf4j
+public abstract class EntitySpatialIndex<T> implements ApplicationRunner {
+    private static final int MAX_REPORTED_IDS = 50;
+
+    private final String name;
+    private final JpaRepository<T, Long> repository;
+    private final boolean warmLoad;
+    private final Function<T, Long> idOf;
+    private final Function<T, Double> latitudeOf;
+    private final Function<T, Double> longitudeOf;
+    private final Function<T, LocalDateTime> updatedAtOf;
+    protected final SpatialGridIndex<T> grid;
+
+    private volatile boolean loaded;
+
+    protected EntitySpatialIndex(String name, JpaRepository<T, Long> repository, double cellSize, boolean warmLoad,
+                                 Function<T, Long> idOf, Function<T, Double> latitudeOf,
+                                 Function<T, Double> longitudeOf, Function<T, LocalDateTime> updatedAtOf) {
+        this.name = name;
+        this.repository = repository;
+        this.warmLoad = warmLoad;
+        this.idOf = idOf;
+        this.latitudeOf = latitudeOf;
+        this.longitudeOf = longitudeOf;
+        this.updatedAtOf = updatedAtOf;
+        this.grid = new SpatialGridIndex<>(cellSize, idOf, latitudeOf, longitudeOf);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Unless already restored from a snapshot
+        if (warmLoad && !loaded) {
+            load();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return grid.size();
+    }
+
+    /**
+     * Loads the whole table into memory. Retries if a write raced with the read.
+     */
+    public void load() {
+        long start = System.nanoTime();
+        while (true) {
+            long modCount = grid.modCount();
+            List<T> rows = repository.findAll();
+            if (grid.replaceAll(rows, modCount)) {
+                loaded = true;
+                log.info("Loaded {} rows into the {} index in {} ms", rows.size(), name,
+                        (System.nanoTime() - start) / 1_000_000);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Loads rows read elsewhere, e.g. a snapshot brought up to date with the database.
+     *
+     * @return false if the index was written to since modCount was read, the rows may be missing that write
+     */
+    public boolean load(List<T> rows, long modCount) {
+        if (!grid.replaceAll(rows, modCount)) {
+            return false;
+        }
+        loaded = true;
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Changes whenever the index content was replaced wholesale (warm load or repair).
+     * Structures derived from the index rebuild when they see a new generation.
+     */
+    public long generation() {
+        return grid.generation();
+    }
+
+    // Changes on every write, for snapshots that need to know when they are out of date
+    public long modCount() {
+        return grid.modCount();
+    }
+
+    public List<T> values() {
+        return grid.values();
+    }
+
+    public Optional<T> get(Long id) {
+        return grid.get(id);
+    }
+
+    public List<T> findInBounds(double southLat, double northLat, double westLng, double eastLng) {
+        return grid.findInBounds(southLat, northLat, westLng, eastLng);
+    }
+
+    public List<Neighbour<T>> findNearest(double lat, double lng, int limit, double maxDistanceKm, Predicate<T> filter) {
+        return grid.findNearest(lat, lng, limit, maxDistanceKm, filter);
+    }
+
+    protected void put(T entity) {
+        grid.put(entity);
+    }
+
+    protected Optional<T> remove(Long id) {
+        return grid.remove(id);
+    }
+
+    /**
+     * Compares the index with the database and, if {@code repair} is set and they differ,
+     * reloads the index from the database.
+     */
+    public IndexConsistencyReport checkConsistency(boolean repair) {
+        long modCount = grid.modCount();
+        List<T> rows = repository.findAll();
+
+        Map<Long, T> indexed = new HashMap<>();
+        for (T entity : grid.values()) {
+            indexed.put(idOf.apply(entity), entity);
+        }
+        long indexCount = indexed.size();
+
+        // Id lists are capped, the counts are not
+        List<Long> missing = new ArrayList<>();
+        List<Long> stale = new ArrayList<>();
+        long missingCount = 0;
+        long staleCount = 0;
+        for (T row : rows) {
+            T copy = indexed.remove(idOf.apply(row));
+            if (copy == null) {
+                addCapped(missing, idOf.apply(row));
+                missingCount++;
+            } else if (!sameState(row, copy)) {
+                addCapped(stale, idOf.apply(row));
+                staleCount++;
+            }
+        }
+        List<Long> orphaned = new ArrayList<>();
+        indexed.keySet().forEach(id -> addCapped(orphaned, id));
+        long orphanedCount = indexed.size();
+
+        boolean consistent = missingCount == 0 && staleCount == 0 && orphanedCount == 0;
+        boolean repaired = false;
+        if (!consistent && repair) {
+            // Only replace if nothing was written while we were comparing, otherwise the
+            // difference may just be that write and the next check will tell
+            repaired = grid.replaceAll(rows, modCount);
+            loaded = loaded || repaired;
+        }
+        if (!consistent) {
+            log.warn("{} index is out of sync with the database: {} missing, {} orphaned, {} stale (repaired: {})",
+                    name, missingCount, orphanedCount, staleCount, repaired);
+        }
+        return new IndexConsistencyReport(name, rows.size(), indexCount, missingCount, missing,
+                orphanedCount, orphaned, staleCount, stale, repaired);
+    }
+
+    private boolean sameState(T row, T copy) {
+        return Objects.equals(latitudeOf.apply(row), latitudeOf.apply(copy))
+                && Objects.equals(longitudeOf.apply(row), longitudeOf.apply(copy))
+                && Objects.equals(truncate(updatedAtOf.apply(row)), truncate(updatedAtOf.apply(copy)));
+    }
+
+    // The database keeps microseconds at most, the in-memory copy may carry nanoseconds
+    private static LocalDateTime truncate(LocalDateTime time) {
+        return time == null ? null : time.truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static void addCapped(List<Long> ids, Long id) {
+        if (ids.size() < MAX_REPORTED_IDS) {
+            ids.add(id);
+        }
+    }
+}
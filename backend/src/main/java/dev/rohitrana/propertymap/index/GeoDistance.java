@@ -0,0 +1,37 @@
+package dev.rohitrana.propertymap.index;
+
+import dev.rohitrana.propertymap.dto.GeoBounds;
+
+/**
+ * Great-circle distances on a spherical earth, in kilometres.
+ */
+public final class GeoDistance {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    private GeoDistance() {
+    }
+
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinLng = Math.sin(Math.toRadians(lng2 - lng1) / 2);
+        double h = sinLat * sinLat + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    /**
+     * Smallest latitude/longitude rectangle containing every point within the radius.
+     * Near the poles the rectangle spans all longitudes.
+     */
+    public static GeoBounds boundsAround(double lat, double lng, double radiusKm) {
+        double latMargin = radiusKm / KM_PER_DEGREE;
+        double south = Math.max(-90, lat - latMargin);
+        double north = Math.min(90, lat + latMargin);
+        double maxAbsLat = Math.max(Math.abs(south), Math.abs(north));
+        if (maxAbsLat >= 90) {
+            return new GeoBounds(south, north, -180, 180);
+        }
+        double lngMargin = Math.min(180, latMargin / Math.cos(Math.toRadians(maxAbsLat)));
+        return new GeoBounds(south, north, Math.max(-180, lng - lngMargin), Math.min(180, lng + lngMargin));
+    }
+}
@@ -0,0 +1,37 @@
+package dev.rohitrana.propertymap.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Periodically compares the in-memory indexes with the database and reloads any that drifted,
+ * e.g. after rows were changed directly in Postgres.
+ */
+@Component
+public class IndexConsistencyChecker {
+    private final PropertySpatialIndex propertySpatialIndex;
+    private final LocationScoreSpatialIndex locationScoreSpatialIndex;
+
+    @Autowired
+    public IndexConsistencyChecker(PropertySpatialIndex propertySpatialIndex,
+                                   LocationScoreSpatialIndex locationScoreSpatialIndex) {
+        this.propertySpatialIndex = propertySpatialIndex;
+        this.locationScoreSpatialIndex = locationScoreSpatialIndex;
+    }
+
+    public List<IndexConsistencyReport> checkAll(boolean repair) {
+        return List.of(propertySpatialIndex.checkConsistency(repair),
+                locationScoreSpatialIndex.checkConsistency(repair));
+    }
+
+    @Scheduled(initialDelayString = "${propertymap.index.consistency-check-interval-ms:900000}",
+            fixedDelayString = "${propertymap.index.consistency-check-interval-ms:900000}")
+    public void scheduledCheck() {
+        if (propertySpatialIndex.isLoaded() && locationScoreSpatialIndex.isLoaded()) {
+            checkAll(true);
+        }
+    }
+}
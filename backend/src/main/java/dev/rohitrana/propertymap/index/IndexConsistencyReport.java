@@ -0,0 +1,30 @@
+package dev.rohitrana.propertymap.index;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Result of comparing an in-memory index with the rows currently in the database.
+ * Id lists are capped, so large differences only report a sample; the counts are exact.
+ */
+@Value
+public class IndexConsistencyReport {
+    String index;
+    long databaseCount;
+    long indexCount;
+    // Rows present in the database but not in the index
+    long missingCount;
+    List<Long> missingIds;
+    // Rows present in the index but deleted from the database
+    long orphanedCount;
+    List<Long> orphanedIds;
+    // Rows whose indexed copy differs from the database (coordinates or last update)
+    long staleCount;
+    List<Long> staleIds;
+    boolean repaired;
+
+    public boolean isConsistent() {
+        return missingCount == 0 && orphanedCount == 0 && staleCount == 0;
+    }
+}
@@ -0,0 +1,35 @@
+package dev.rohitrana.propertymap.index;
+
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.repository.LocationScoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LocationScoreSpatialIndex extends EntitySpatialIndex<LocationScore> {
+
+    @Autowired
+    public LocationScoreSpatialIndex(LocationScoreRepository locationScoreRepository,
+                                     @Value("${propertymap.index.cell-size-degrees:0.01}") double cellSize,
+                                     @Value("${propertymap.index.warm-load:true}") boolean warmLoad) {
+        super("location-scores", locationScoreRepository, cellSize, warmLoad,
+                LocationScore::getId, LocationScore::getLatitude, LocationScore::getLongitude,
+                LocationScore::getUpdatedAt);
+    }
+
+    // Runs before any other listener so they all see the updated index
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onLocationScoreChanged(LocationScoreChangedEvent event) {
+        if (event.getType() == LocationScoreChangedEvent.Type.DELETED) {
+            remove(event.getId());
+        } else {
+            put(event.getCurrent());
+        }
+    }
+}
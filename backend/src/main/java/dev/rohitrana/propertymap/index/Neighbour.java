@@ -0,0 +1,7 @@
+package dev.rohitrana.propertymap.index;
+
+/**
+ * An entity found by a nearest-neighbour or radius search, with its distance from the search point.
+ */
+public record Neighbour<T>(T entity, double distanceKm) {
+}
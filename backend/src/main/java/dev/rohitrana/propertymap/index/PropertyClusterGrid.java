@@ -0,0 +1,254 @@
+package dev.rohitrana.propertymap.index;
+
+import dev.rohitrana.propertymap.dto.PropertyCluster;
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical grid of pre-aggregated property clusters, one level per map zoom level.
+ * At zoom z a cell is a quarter of a 256px web map tile wide, i.e. 360 / (2^z * 4) degrees.
+ * Every level is updated incrementally from property change events, removals included, so a
+ * cluster request only walks the cells overlapping the viewport at the requested level.
+ */
+@Component
+public class PropertyClusterGrid {
+    private static final int CELLS_PER_TILE = 4;
+    private static final long COLUMNS_PER_ROW = 1L << 32;
+
+    private final PropertySpatialIndex propertySpatialIndex;
+    private final int maxZoom;
+    private final List<Map<Long, Cell>> levels = new ArrayList<>();
+    // Last state applied to the cells, so re-applying a change is idempotent
+    private final Map<Long, Property> members = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long builtGeneration = -1;
+
+    @Autowired
+    public PropertyClusterGrid(PropertySpatialIndex propertySpatialIndex,
+                               @Value("${propertymap.clusters.max-zoom:14}") int maxZoom) {
+        this.propertySpatialIndex = propertySpatialIndex;
+        this.maxZoom = maxZoom;
+        for (int zoom = 0; zoom <= maxZoom; zoom++) {
+            levels.add(new HashMap<>());
+        }
+    }
+
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (builtGeneration != propertySpatialIndex.generation()) {
+                // Not built from the current index yet, the next query rebuilds from scratch
+                return;
+            }
+            Property old = members.remove(event.getId());
+            if (old != null) {
+                removeFromCells(old);
+            }
+            if (event.getType() == PropertyChangedEvent.Type.SAVED && hasCoordinates(event.getCurrent())) {
+                members.put(event.getId(), event.getCurrent());
+                addToCells(event.getCurrent());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isAvailable() {
+        return propertySpatialIndex.isLoaded();
+    }
+
+    public List<PropertyCluster> findClusters(double southLat, double northLat, double westLng, double eastLng, int zoom) {
+        int level = Math.max(0, Math.min(zoom, maxZoom));
+        ensureBuilt();
+
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<Long, Cell>> matching = cellsInBounds(level, southLat, northLat, westLng, eastLng);
+            List<PropertyCluster> clusters = new ArrayList<>(matching.size());
+            for (Map.Entry<Long, Cell> entry : matching) {
+                clusters.add(entry.getValue().toCluster());
+            }
+            return clusters;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aggregates an arbitrary list of properties at the given zoom, without touching the grid.
+     * Used while the index is still warming up.
+     */
+    public List<PropertyCluster> aggregate(List<Property> properties, int zoom) {
+        int level = Math.max(0, Math.min(zoom, maxZoom));
+        Map<Long, Cell> cells = new HashMap<>();
+        for (Property property : properties) {
+            if (hasCoordinates(property)) {
+                cells.computeIfAbsent(cellKey(level, property.getLatitude(), property.getLongitude()),
+                        key -> new Cell()).add(property);
+            }
+        }
+        List<PropertyCluster> clusters = new ArrayList<>(cells.size());
+        cells.values().forEach(cell -> clusters.add(cell.toCluster()));
+        return clusters;
+    }
+
+    private void ensureBuilt() {
+        long generation = propertySpatialIndex.generation();
+        lock.readLock().lock();
+        try {
+            if (builtGeneration == generation) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            generation = propertySpatialIndex.generation();
+            if (builtGeneration == generation) {
+                return;
+            }
+            members.clear();
+            levels.forEach(Map::clear);
+            for (Property property : propertySpatialIndex.values()) {
+                if (hasCoordinates(property)) {
+                    members.put(property.getId(), property);
+                    addToCells(property);
+                }
+            }
+            builtGeneration = generation;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Map.Entry<Long, Cell>> cellsInBounds(int level, double southLat, double northLat,
+                                                      double westLng, double eastLng) {
+        List<Map.Entry<Long, Cell>> result = new ArrayList<>();
+        if (southLat > northLat || westLng > eastLng) {
+            return result;
+        }
+        Map<Long, Cell> cells = levels.get(level);
+        double cellSize = cellSize(level);
+        long minRow = index(southLat, 90, cellSize);
+        long maxRow = index(northLat, 90, cellSize);
+        long minCol = index(westLng, 180, cellSize);
+        long maxCol = index(eastLng, 180, cellSize);
+
+        double coveredCells = (double) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (coveredCells > cells.size()) {
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                long row = entry.getKey() / COLUMNS_PER_ROW;
+                long col = entry.getKey() % COLUMNS_PER_ROW;
+                if (row >= minRow && row <= maxRow && col >= minCol && col <= maxCol) {
+                    result.add(entry);
+                }
+            }
+        } else {
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long col = minCol; col <= maxCol; col++) {
+                    Cell cell = cells.get(row * COLUMNS_PER_ROW + col);
+                    if (cell != null) {
+                        result.add(Map.entry(row * COLUMNS_PER_ROW + col, cell));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void addToCells(Property property) {
+        for (int level = 0; level <= maxZoom; level++) {
+            levels.get(level).computeIfAbsent(cellKey(level, property.getLatitude(), property.getLongitude()),
+                    key -> new Cell()).add(property);
+        }
+    }
+
+    private void removeFromCells(Property property) {
+        for (int level = 0; level <= maxZoom; level++) {
+            long key = cellKey(level, property.getLatitude(), property.getLongitude());
+            Cell cell = levels.get(level).get(key);
+            if (cell != null) {
+                cell.remove(property);
+                if (cell.count == 0) {
+                    levels.get(level).remove(key);
+                }
+            }
+        }
+    }
+
+    private static boolean hasCoordinates(Property property) {
+        return property.getLatitude() != null && property.getLongitude() != null;
+    }
+
+    private static double cellSize(int level) {
+        return 360.0 / ((1L << level) * CELLS_PER_TILE);
+    }
+
+    private static long cellKey(int level, double lat, double lng) {
+        double cellSize = cellSize(level);
+        return index(lat, 90, cellSize) * COLUMNS_PER_ROW + index(lng, 180, cellSize);
+    }
+
+    private static long index(double value, double offset, double cellSize) {
+        double clamped = Math.max(-offset, Math.min(offset, value));
+        return (long) Math.floor((clamped + offset) / cellSize);
+    }
+
+    private static class Cell {
+        private long count;
+        private double latitudeSum;
+        private double longitudeSum;
+        private long idSum;
+        private final SortedRunningStats listPrice = new SortedRunningStats();
+        private final SortedRunningStats capRate = new SortedRunningStats();
+
+        void add(Property property) {
+            count++;
+            latitudeSum += property.getLatitude();
+            longitudeSum += property.getLongitude();
+            idSum += property.getId();
+            if (property.getListPrice() != null) {
+                listPrice.add(property.getListPrice().doubleValue());
+            }
+            if (property.getCapRate() != null) {
+                capRate.add(property.getCapRate().doubleValue());
+            }
+        }
+
+        void remove(Property property) {
+            count--;
+            latitudeSum -= property.getLatitude();
+            longitudeSum -= property.getLongitude();
+            idSum -= property.getId();
+            if (property.getListPrice() != null) {
+                listPrice.remove(property.getListPrice().doubleValue());
+            }
+            if (property.getCapRate() != null) {
+                capRate.remove(property.getCapRate().doubleValue());
+            }
+        }
+
+        PropertyCluster toCluster() {
+            return new PropertyCluster(count, latitudeSum / count, longitudeSum / count,
+                    // With a single member the id sum is that member's id
+                    count == 1 ? idSum : null,
+                    listPrice.getMin(), listPrice.getAverage(), listPrice.getMax(),
+                    capRate.getMin(), capRate.getAverage(), capRate.getMax());
+        }
+    }
+}
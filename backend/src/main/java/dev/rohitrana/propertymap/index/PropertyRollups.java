@@ -0,0 +1,318 @@
+package dev.rohitrana.propertymap.index;
+
+import dev.rohitrana.propertymap.dto.GroupStats;
+import dev.rohitrana.propertymap.dto.HistogramBucket;
+import dev.rohitrana.propertymap.dto.MetricStats;
+import dev.rohitrana.propertymap.dto.PropertyStats;
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Pre-aggregated property metrics per city, zip code, status and grid cell, plus one rollup over all.
+ * Every group keeps count/sum/min/max and a fixed-bucket histogram per metric and is updated
+ * incrementally from property change events, removals included, so reading the stats only walks
+ * the groups.
+ */
+@Component
+public class PropertyRollups {
+
+    public enum Dimension {
+        CITY("city"), ZIP_CODE("zipCode"), STATUS("status"), CELL("cell");
+
+        private final String key;
+
+        Dimension(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public static Dimension parse(String value) {
+            for (Dimension dimension : values()) {
+                if (dimension.key.equalsIgnoreCase(value) || dimension.name().equalsIgnoreCase(value)) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("Unknown stats dimension: " + value);
+        }
+    }
+
+    // Histogram buckets are [previous edge, edge), with an open bucket on either end
+    private enum Metric {
+        LIST_PRICE("listPrice", property -> toDouble(property.getListPrice()),
+                100_000, 200_000, 300_000, 400_000, 500_000, 750_000, 1_000_000, 1_500_000, 2_000_000),
+        CAP_RATE("capRate", property -> toDouble(property.getCapRate()),
+                0, 2, 4, 6, 8, 10, 12, 15),
+        MONTHLY_RENT("monthlyRent", property -> toDouble(property.getMonthlyRent()),
+                500, 1000, 1500, 2000, 2500, 3000, 4000, 5000),
+        PRICE_PER_SQ_FT("pricePerSqFt", PropertyRollups::pricePerSqFt,
+                100, 150, 200, 250, 300, 400, 500, 750, 1000);
+
+        private final String key;
+        private final Function<Property, Double> getter;
+        private final double[] edges;
+
+        Metric(String key, Function<Property, Double> getter, double... edges) {
+            this.key = key;
+            this.getter = getter;
+            this.edges = edges;
+        }
+
+        int bucket(double value) {
+            int bucket = 0;
+            while (bucket < edges.length && value >= edges[bucket]) {
+                bucket++;
+            }
+            return bucket;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    private final PropertySpatialIndex propertySpatialIndex;
+    private final double cellSize;
+    private final Group overall = new Group();
+    private final Map<Dimension, Map<String, Group>> groups = new EnumMap<>(Dimension.class);
+    // Last state applied to the groups, so re-applying a change is idempotent
+    private final Map<Long, Property> members = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long builtGeneration = -1;
+
+    @Autowired
+    public PropertyRollups(PropertySpatialIndex propertySpatialIndex,
+                           @Value("${propertymap.stats.cell-size-degrees:0.05}") double cellSize) {
+        this.propertySpatialIndex = propertySpatialIndex;
+        this.cellSize = cellSize;
+        for (Dimension dimension : Dimension.values()) {
+            groups.put(dimension, new HashMap<>());
+        }
+    }
+
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (builtGeneration != propertySpatialIndex.generation()) {
+                // Not built from the current index yet, the next query rebuilds from scratch
+                return;
+            }
+            Property old = members.remove(event.getId());
+            if (old != null) {
+                removeFromGroups(old);
+            }
+            if (event.getType() == PropertyChangedEvent.Type.SAVED) {
+                members.put(event.getId(), event.getCurrent());
+                addToGroups(event.getCurrent());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isAvailable() {
+        return propertySpatialIndex.isLoaded();
+    }
+
+    public PropertyStats getStats(Dimension dimension, boolean histograms) {
+        ensureBuilt();
+        Map<String, Group> byKey = groups.get(dimension);
+        lock.readLock().lock();
+        try {
+            return toStats(dimension, overall, byKey, histograms);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aggregates an arbitrary list of properties along one dimension, without touching the rollups.
+     * Used while the index is still warming up.
+     */
+    public PropertyStats aggregate(List<Property> properties, Dimension dimension, boolean histograms) {
+        Group all = new Group();
+        Map<String, Group> byKey = new HashMap<>();
+        for (Property property : properties) {
+            all.add(property);
+            if (hasKey(dimension, property)) {
+                byKey.computeIfAbsent(keyOf(dimension, property), key -> new Group()).add(property);
+            }
+        }
+        return toStats(dimension, all, byKey, histograms);
+    }
+
+    private void ensureBuilt() {
+        long generation = propertySpatialIndex.generation();
+        lock.readLock().lock();
+        try {
+            if (builtGeneration == generation) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            generation = propertySpatialIndex.generation();
+            if (builtGeneration == generation) {
+                return;
+            }
+            members.clear();
+            overall.reset();
+            groups.values().forEach(Map::clear);
+            for (Property property : propertySpatialIndex.values()) {
+                members.put(property.getId(), property);
+                addToGroups(property);
+            }
+            builtGeneration = generation;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addToGroups(Property property) {
+        overall.add(property);
+        for (Dimension dimension : Dimension.values()) {
+            if (hasKey(dimension, property)) {
+                groups.get(dimension).computeIfAbsent(keyOf(dimension, property), key -> new Group()).add(property);
+            }
+        }
+    }
+
+    private void removeFromGroups(Property property) {
+        overall.remove(property);
+        for (Dimension dimension : Dimension.values()) {
+            if (!hasKey(dimension, property)) {
+                continue;
+            }
+            String key = keyOf(dimension, property);
+            Map<String, Group> byKey = groups.get(dimension);
+            Group group = byKey.get(key);
+            if (group != null) {
+                group.remove(property);
+                if (group.count == 0) {
+                    byKey.remove(key);
+                }
+            }
+        }
+    }
+
+    private static PropertyStats toStats(Dimension dimension, Group overall, Map<String, Group> byKey,
+                                         boolean histograms) {
+        List<GroupStats> result = new ArrayList<>(byKey.size());
+        byKey.forEach((key, group) -> result.add(group.toStats(key, histograms)));
+        result.sort(Comparator.comparingLong(GroupStats::getCount).reversed()
+                .thenComparing(GroupStats::getKey, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return new PropertyStats(dimension.getKey(), overall.toStats(null, histograms), result);
+    }
+
+    // Properties without a city, zip code or status share the null group; without coordinates they have no cell
+    private static boolean hasKey(Dimension dimension, Property property) {
+        return dimension != Dimension.CELL || (property.getLatitude() != null && property.getLongitude() != null);
+    }
+
+    // Cells are keyed by their south-west corner
+    private String keyOf(Dimension dimension, Property property) {
+        return switch (dimension) {
+            case CITY -> property.getCity();
+            case ZIP_CODE -> property.getZipCode();
+            case STATUS -> property.getStatus();
+            case CELL -> String.format(Locale.ROOT, "%.4f,%.4f",
+                    Math.floor(property.getLatitude() / cellSize) * cellSize,
+                    Math.floor(property.getLongitude() / cellSize) * cellSize);
+        };
+    }
+
+    private static Double pricePerSqFt(Property property) {
+        if (property.getListPrice() == null || property.getSquareFeet() == null || property.getSquareFeet() <= 0) {
+            return null;
+        }
+        return property.getListPrice().doubleValue() / property.getSquareFeet();
+    }
+
+    private static Double toDouble(Number value) {
+        return value == null ? null : value.doubleValue();
+    }
+
+    private static class Group {
+        private long count;
+        private final SortedRunningStats[] stats = new SortedRunningStats[METRICS.length];
+        private final long[][] buckets = new long[METRICS.length][];
+
+        Group() {
+            for (Metric metric : METRICS) {
+                stats[metric.ordinal()] = new SortedRunningStats();
+                buckets[metric.ordinal()] = new long[metric.edges.length + 1];
+            }
+        }
+
+        void add(Property property) {
+            count++;
+            for (Metric metric : METRICS) {
+                Double value = metric.getter.apply(property);
+                if (value != null) {
+                    stats[metric.ordinal()].add(value);
+                    buckets[metric.ordinal()][metric.bucket(value)]++;
+                }
+            }
+        }
+
+        void remove(Property property) {
+            count--;
+            for (Metric metric : METRICS) {
+                Double value = metric.getter.apply(property);
+                if (value != null) {
+                    stats[metric.ordinal()].remove(value);
+                    buckets[metric.ordinal()][metric.bucket(value)]--;
+                }
+            }
+        }
+
+        void reset() {
+            count = 0;
+            for (Metric metric : METRICS) {
+                stats[metric.ordinal()].reset();
+                buckets[metric.ordinal()] = new long[metric.edges.length + 1];
+            }
+        }
+
+        GroupStats toStats(String key, boolean histograms) {
+            Map<String, MetricStats> metrics = new LinkedHashMap<>();
+            for (Metric metric : METRICS) {
+                SortedRunningStats values = stats[metric.ordinal()];
+                metrics.put(metric.key, new MetricStats(values.getCount(), values.getSum(), values.getAverage(),
+                        values.getMin(), values.getMax(), histograms ? histogram(metric) : null));
+            }
+            return new GroupStats(key, count, metrics);
+        }
+
+        private List<HistogramBucket> histogram(Metric metric) {
+            long[] counts = buckets[metric.ordinal()];
+            List<HistogramBucket> histogram = new ArrayList<>(counts.length);
+            for (int i = 0; i < counts.length; i++) {
+                histogram.add(new HistogramBucket(i == 0 ? null : metric.edges[i - 1],
+                        i < metric.edges.length ? metric.edges[i] : null, counts[i]));
+            }
+            return histogram;
+        }
+    }
+}
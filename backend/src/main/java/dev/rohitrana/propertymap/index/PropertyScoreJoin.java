@@ -0,0 +1,290 @@
+package dev.rohitrana.propertymap.index;
+
+import dev.rohitrana.propertymap.dto.LocationScoreMatch;
+import dev.rohitrana.propertymap.dto.PropertyWithScore;
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Joins properties to the location scores around them by coordinates, through the spatial indexes.
+ * The nearest location score of every indexed property is materialized and kept up to date from
+ * change events: a property change re-matches that property, a location score change re-matches
+ * the properties matched to it and those that are now closer to it than to their match.
+ * Interpolated metrics are computed per request from the few nearest location scores.
+ */
+@Component
+public class PropertyScoreJoin {
+    // Closer than this a source counts as being at the property, and interpolation would divide by ~0
+    private static final double SAME_PLACE_KM = 0.001;
+
+    public enum Mode {
+        NEAREST, INTERPOLATED;
+
+        public static Mode parse(String value) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("Unknown score join mode: " + value);
+        }
+    }
+
+    // Location scores around a point, closest first
+    @FunctionalInterface
+    public interface ScoreLookup {
+        List<Neighbour<LocationScore>> findNearest(double lat, double lng, int limit, double maxDistanceKm);
+    }
+
+    private final PropertySpatialIndex propertySpatialIndex;
+    private final LocationScoreSpatialIndex locationScoreSpatialIndex;
+    private final double maxDistanceKm;
+    private final int interpolationSources;
+
+    // Nearest match per property id, and the property ids matched to each location score id
+    private final Map<Long, Match> nearest = new HashMap<>();
+    private final Map<Long, Set<Long>> matchedProperties = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long builtPropertyGeneration = -1;
+    private long builtScoreGeneration = -1;
+
+    @Autowired
+    public PropertyScoreJoin(PropertySpatialIndex propertySpatialIndex,
+                             LocationScoreSpatialIndex locationScoreSpatialIndex,
+                             @Value("${propertymap.join.max-distance-km:5}") double maxDistanceKm,
+                             @Value("${propertymap.join.interpolation-sources:4}") int interpolationSources) {
+        this.propertySpatialIndex = propertySpatialIndex;
+        this.locationScoreSpatialIndex = locationScoreSpatialIndex;
+        this.maxDistanceKm = maxDistanceKm;
+        this.interpolationSources = interpolationSources;
+    }
+
+    public boolean isAvailable() {
+        return propertySpatialIndex.isLoaded() && locationScoreSpatialIndex.isLoaded();
+    }
+
+    public double getMaxDistanceKm() {
+        return maxDistanceKm;
+    }
+
+    /**
+     * Joins through the indexes, nearest matches from the materialization. Properties whose
+     * coordinates differ from the indexed copy are matched on the spot.
+     */
+    public List<PropertyWithScore> join(List<Property> properties, Mode mode) {
+        ScoreLookup indexed = (lat, lng, limit, maxKm) ->
+                locationScoreSpatialIndex.findNearest(lat, lng, limit, maxKm, score -> true);
+        if (mode == Mode.INTERPOLATED) {
+            return join(properties, mode, indexed);
+        }
+        ensureBuilt();
+        List<PropertyWithScore> result = new ArrayList<>(properties.size());
+        lock.readLock().lock();
+        try {
+            for (Property property : properties) {
+                Match match = hasCoordinates(property) ? nearest.get(property.getId()) : null;
+                if (match != null && match.latitude() == property.getLatitude() && match.longitude() == property.getLongitude()) {
+                    result.add(new PropertyWithScore(property, toNearest(match.score(), match.distanceKm())));
+                } else {
+                    result.add(new PropertyWithScore(property, match(property, mode, indexed)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // Joins against any source of location scores, e.g. a temporary grid while the indexes are cold
+    public List<PropertyWithScore> join(List<Property> properties, Mode mode, ScoreLookup lookup) {
+        List<PropertyWithScore> result = new ArrayList<>(properties.size());
+        for (Property property : properties) {
+            result.add(new PropertyWithScore(property, match(property, mode, lookup)));
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!isBuilt()) {
+                // Not built from the current indexes yet, the next join rebuilds from scratch
+                return;
+            }
+            rematch(event.getId(), event.getType() == PropertyChangedEvent.Type.SAVED ? event.getCurrent() : null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onLocationScoreChanged(LocationScoreChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!isBuilt()) {
+                return;
+            }
+            Set<Long> matched = matchedProperties.remove(event.getId());
+            if (matched != null) {
+                for (Long propertyId : matched) {
+                    rematch(propertyId, propertySpatialIndex.get(propertyId).orElse(null));
+                }
+            }
+            LocationScore current = event.getCurrent();
+            if (event.getType() == LocationScoreChangedEvent.Type.SAVED
+                    && current.getLatitude() != null && current.getLongitude() != null) {
+                for (Neighbour<Property> neighbour : propertySpatialIndex.findNearest(current.getLatitude(),
+                        current.getLongitude(), Integer.MAX_VALUE, maxDistanceKm, property -> true)) {
+                    Property property = neighbour.entity();
+                    Match match = nearest.get(property.getId());
+                    if (match == null || match.score() == null || neighbour.distanceKm() < match.distanceKm()) {
+                        put(property.getId(), new Match(property.getLatitude(), property.getLongitude(),
+                                current, neighbour.distanceKm()));
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private LocationScoreMatch match(Property property, Mode mode, ScoreLookup lookup) {
+        if (!hasCoordinates(property)) {
+            return null;
+        }
+        int sources = mode == Mode.INTERPOLATED ? interpolationSources : 1;
+        List<Neighbour<LocationScore>> around = lookup.findNearest(property.getLatitude(), property.getLongitude(),
+                sources, maxDistanceKm);
+        if (around.isEmpty()) {
+            return null;
+        }
+        Neighbour<LocationScore> closest = around.get(0);
+        if (around.size() == 1 || closest.distanceKm() < SAME_PLACE_KM) {
+            return toNearest(closest.entity(), closest.distanceKm());
+        }
+        return interpolate(around);
+    }
+
+    // Inverse distance squared weighting, per metric over the sources that have it
+    private static LocationScoreMatch interpolate(List<Neighbour<LocationScore>> around) {
+        double[] sums = new double[3];
+        double[] weights = new double[3];
+        for (Neighbour<LocationScore> neighbour : around) {
+            double weight = 1 / (neighbour.distanceKm() * neighbour.distanceKm());
+            LocationScore score = neighbour.entity();
+            Double[] values = {toDouble(score.getOverallScore()), toDouble(score.getRiskScore()), score.getIrr()};
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    sums[i] += weight * values[i];
+                    weights[i] += weight;
+                }
+            }
+        }
+        return new LocationScoreMatch(null, around.size(), around.get(0).distanceKm(),
+                weights[0] > 0 ? sums[0] / weights[0] : null,
+                weights[1] > 0 ? sums[1] / weights[1] : null,
+                weights[2] > 0 ? sums[2] / weights[2] : null);
+    }
+
+    private static LocationScoreMatch toNearest(LocationScore score, double distanceKm) {
+        if (score == null) {
+            return null;
+        }
+        return new LocationScoreMatch(score.getId(), 1, distanceKm, toDouble(score.getOverallScore()),
+                toDouble(score.getRiskScore()), score.getIrr());
+    }
+
+    private void ensureBuilt() {
+        lock.readLock().lock();
+        try {
+            if (isBuilt()) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            long propertyGeneration = propertySpatialIndex.generation();
+            long scoreGeneration = locationScoreSpatialIndex.generation();
+            if (builtPropertyGeneration == propertyGeneration && builtScoreGeneration == scoreGeneration) {
+                return;
+            }
+            nearest.clear();
+            matchedProperties.clear();
+            for (Property property : propertySpatialIndex.values()) {
+                rematch(property.getId(), property);
+            }
+            builtPropertyGeneration = propertyGeneration;
+            builtScoreGeneration = scoreGeneration;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isBuilt() {
+        return builtPropertyGeneration == propertySpatialIndex.generation()
+                && builtScoreGeneration == locationScoreSpatialIndex.generation();
+    }
+
+    // Properties without coordinates are left out, properties without a score in range get an empty match
+    private void rematch(Long propertyId, Property property) {
+        remove(propertyId);
+        if (!hasCoordinates(property)) {
+            return;
+        }
+        List<Neighbour<LocationScore>> closest = locationScoreSpatialIndex.findNearest(property.getLatitude(),
+                property.getLongitude(), 1, maxDistanceKm, score -> true);
+        put(propertyId, closest.isEmpty()
+                ? new Match(property.getLatitude(), property.getLongitude(), null, Double.POSITIVE_INFINITY)
+                : new Match(property.getLatitude(), property.getLongitude(), closest.get(0).entity(),
+                        closest.get(0).distanceKm()));
+    }
+
+    private void put(Long propertyId, Match match) {
+        remove(propertyId);
+        nearest.put(propertyId, match);
+        if (match.score() != null) {
+            matchedProperties.computeIfAbsent(match.score().getId(), id -> new HashSet<>()).add(propertyId);
+        }
+    }
+
+    private void remove(Long propertyId) {
+        Match old = nearest.remove(propertyId);
+        if (old != null && old.score() != null) {
+            Set<Long> matched = matchedProperties.get(old.score().getId());
+            if (matched != null && matched.remove(propertyId) && matched.isEmpty()) {
+                matchedProperties.remove(old.score().getId());
+            }
+        }
+    }
+
+    private static boolean hasCoordinates(Property property) {
+        return property != null && property.getLatitude() != null && property.getLongitude() != null;
+    }
+
+    private static Double toDouble(Integer value) {
+        return value == null ? null : value.doubleValue();
+    }
+
+    private record Match(double latitude, double longitude, LocationScore score, double distanceKm) {
+    }
+}
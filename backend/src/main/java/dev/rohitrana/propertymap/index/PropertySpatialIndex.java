@@ -0,0 +1,34 @@
+package dev.rohitrana.propertymap.index;
+
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.repository.PropertyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PropertySpatialIndex extends EntitySpatialIndex<Property> {
+
+    @Autowired
+    public PropertySpatialIndex(PropertyRepository propertyRepository,
+                                @Value("${propertymap.index.cell-size-degrees:0.01}") double cellSize,
+                                @Value("${propertymap.index.warm-load:true}") boolean warmLoad) {
+        super("properties", propertyRepository, cellSize, warmLoad,
+                Property::getId, Property::getLatitude, Property::getLongitude, Property::getUpdatedAt);
+    }
+
+    // Runs before any other listener so they all see the updated index
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (event.getType() == PropertyChangedEvent.Type.DELETED) {
+            remove(event.getId());
+        } else {
+            put(event.getCurrent());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.rohitrana.propertymap.index;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Count/sum/min/max over a changing set of values. The count of every distinct value is kept in
+ * order, so removing the minimum or maximum is O(log n) and never needs the members to be re-added.
+ */
+public class SortedRunningStats {
+    private final TreeMap<Double, Integer> counts = new TreeMap<>();
+    private long count;
+    private double sum;
+
+    public void add(double value) {
+        count++;
+        sum += value;
+        counts.merge(value, 1, Integer::sum);
+    }
+
+    public void remove(double value) {
+        Integer previous = counts.get(value);
+        if (previous == null) {
+            return;
+        }
+        if (previous == 1) {
+            counts.remove(value);
+        } else {
+            counts.put(value, previous - 1);
+        }
+        count--;
+        // Recomputed at zero so rounding errors of the running sum do not linger
+        sum = count == 0 ? 0 : sum - value;
+    }
+
+    public void reset() {
+        counts.clear();
+        count = 0;
+        sum = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public Double getMin() {
+        Map.Entry<Double, Integer> first = counts.firstEntry();
+        return first == null ? null : first.getKey();
+    }
+
+    public Double getMax() {
+        Map.Entry<Double, Integer> last = counts.lastEntry();
+        return last == null ? null : last.getKey();
+    }
+
+    public Double getAverage() {
+        return count == 0 ? null : sum / count;
+    }
+}
@@ -0,0 +1,330 @@
+package dev.rohitrana.propertymap.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Uniform lat/lng grid over entities keyed by id.
+ * Every entity is kept in the id map; entities with coordinates are also bucketed
+ * into a cell so that rectangle queries only touch the cells overlapping the bounds.
+ */
+public class SpatialGridIndex<T> {
+    private static final long COLUMNS_PER_ROW = 1L << 32;
+
+    private final double cellSize;
+    private final Function<T, Long> idOf;
+    private final Function<T, Double> latitudeOf;
+    private final Function<T, Double> longitudeOf;
+
+    private final Map<Long, T> entries = new HashMap<>();
+    private final Map<Long, List<T>> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Incremented on every mutation so bulk reloads can detect concurrent writes
+    private long modCount;
+    // Incremented on every bulk reload so derived structures know to rebuild
+    private long generation;
+
+    public SpatialGridIndex(double cellSize, Function<T, Long> idOf,
+                            Function<T, Double> latitudeOf, Function<T, Double> longitudeOf) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive");
+        }
+        this.cellSize = cellSize;
+        this.idOf = idOf;
+        this.latitudeOf = latitudeOf;
+        this.longitudeOf = longitudeOf;
+    }
+
+    public void put(T entity) {
+        Long id = idOf.apply(entity);
+        if (id == null) {
+            throw new IllegalArgumentException("Cannot index an entity without an id");
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            entries.put(id, entity);
+            Long cell = cellOf(entity);
+            if (cell != null) {
+                cells.computeIfAbsent(cell, key -> new ArrayList<>()).add(entity);
+            }
+            modCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<T> remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            T removed = removeInternal(id);
+            modCount++;
+            return Optional.ofNullable(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<T> get(Long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(entries.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long modCount() {
+        lock.readLock().lock();
+        try {
+            return modCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long generation() {
+        lock.readLock().lock();
+        try {
+            return generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> values() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(entries.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content of the index, unless it was modified after
+     * {@code expectedModCount} was read (in which case the snapshot may be stale).
+     *
+     * @return true if the content was replaced
+     */
+    public boolean replaceAll(Collection<T> snapshot, long expectedModCount) {
+        lock.writeLock().lock();
+        try {
+            if (modCount != expectedModCount) {
+                return false;
+            }
+            entries.clear();
+            cells.clear();
+            for (T entity : snapshot) {
+                Long id = idOf.apply(entity);
+                entries.put(id, entity);
+                Long cell = cellOf(entity);
+                if (cell != null) {
+                    cells.computeIfAbsent(cell, key -> new ArrayList<>()).add(entity);
+                }
+            }
+            modCount++;
+            generation++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Same semantics as the JPQL {@code BETWEEN} bounds queries: both ends inclusive,
+     * entities without coordinates never match.
+     */
+    public List<T> findInBounds(double southLat, double northLat, double westLng, double eastLng) {
+        List<T> result = new ArrayList<>();
+        if (southLat > northLat || westLng > eastLng) {
+            return result;
+        }
+
+        long minRow = row(southLat);
+        long maxRow = row(northLat);
+        long minCol = column(westLng);
+        long maxCol = column(eastLng);
+
+        lock.readLock().lock();
+        try {
+            double coveredCells = (double) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+            if (coveredCells > cells.size()) {
+                // Viewport is larger than the populated area, walk the occupied cells instead
+                for (Map.Entry<Long, List<T>> cell : cells.entrySet()) {
+                    long cellRow = cell.getKey() / COLUMNS_PER_ROW;
+                    long cellCol = cell.getKey() % COLUMNS_PER_ROW;
+                    if (cellRow >= minRow && cellRow <= maxRow && cellCol >= minCol && cellCol <= maxCol) {
+                        collectInBounds(cell.getValue(), southLat, northLat, westLng, eastLng, result);
+                    }
+                }
+            } else {
+                for (long r = minRow; r <= maxRow; r++) {
+                    for (long c = minCol; c <= maxCol; c++) {
+                        List<T> bucket = cells.get(r * COLUMNS_PER_ROW + c);
+                        if (bucket != null) {
+                            collectInBounds(bucket, southLat, northLat, westLng, eastLng, result);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code limit} entities within {@code maxDistanceKm} of the point that pass the filter,
+     * closest first. Cells are visited in rings of growing distance around the point's cell, and
+     * the search stops as soon as no cell further out can hold anything closer than the current
+     * k-th result. When the next ring has more cells than are occupied, the remaining occupied
+     * cells are scanned directly instead.
+     */
+    public List<Neighbour<T>> findNearest(double lat, double lng, int limit, double maxDistanceKm, Predicate<T> filter) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Neighbour<T>> nearest = new PriorityQueue<>(Math.min(limit, 1024),
+                Comparator.comparingDouble((Neighbour<T> neighbour) -> neighbour.distanceKm()).reversed());
+        long centerRow = row(lat);
+        long centerCol = column(lng);
+
+        lock.readLock().lock();
+        try {
+            int visited = 0;
+            for (long ring = 0; visited < cells.size(); ring++) {
+                double reachKm = ringDistanceKm(lat, lng, ring);
+                if (reachKm > maxDistanceKm || (nearest.size() == limit && reachKm > nearest.peek().distanceKm())) {
+                    break;
+                }
+                if (ring > 0 && 8 * ring > cells.size() - visited) {
+                    for (Map.Entry<Long, List<T>> cell : cells.entrySet()) {
+                        long rowOffset = Math.abs(cell.getKey() / COLUMNS_PER_ROW - centerRow);
+                        long colOffset = Math.abs(cell.getKey() % COLUMNS_PER_ROW - centerCol);
+                        if (Math.max(rowOffset, colOffset) >= ring) {
+                            collectNearest(cell.getValue(), lat, lng, limit, maxDistanceKm, filter, nearest);
+                        }
+                    }
+                    break;
+                }
+                for (long r = centerRow - ring; r <= centerRow + ring; r++) {
+                    // Inner rows of the ring only have their two edge cells
+                    long step = r == centerRow - ring || r == centerRow + ring ? 1 : Math.max(1, 2 * ring);
+                    for (long c = centerCol - ring; c <= centerCol + ring; c += step) {
+                        List<T> bucket = r < 0 || c < 0 ? null : cells.get(r * COLUMNS_PER_ROW + c);
+                        if (bucket != null) {
+                            visited++;
+                            collectNearest(bucket, lat, lng, limit, maxDistanceKm, filter, nearest);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Neighbour<T>> result = new ArrayList<>(nearest);
+        result.sort(Comparator.comparingDouble(Neighbour::distanceKm));
+        return result;
+    }
+
+    private void collectNearest(List<T> bucket, double lat, double lng, int limit, double maxDistanceKm,
+                                Predicate<T> filter, PriorityQueue<Neighbour<T>> nearest) {
+        for (T entity : bucket) {
+            double distance = GeoDistance.haversineKm(lat, lng, latitudeOf.apply(entity), longitudeOf.apply(entity));
+            if (distance > maxDistanceKm || (nearest.size() == limit && distance >= nearest.peek().distanceKm())
+                    || !filter.test(entity)) {
+                continue;
+            }
+            if (nearest.size() == limit) {
+                nearest.poll();
+            }
+            nearest.add(new Neighbour<>(entity, distance));
+        }
+    }
+
+    /**
+     * Lower bound of the distance from the point to anything in the cells at least {@code ring}
+     * cells away from its own. Such a cell is that far off in latitude, or in longitude while
+     * within that many rows, where the meridians are furthest apart at the row closest to a pole.
+     */
+    private double ringDistanceKm(double lat, double lng, long ring) {
+        if (ring == 0) {
+            return 0;
+        }
+        double rowFraction = (clamp(lat, -90, 90) + 90) / cellSize - row(lat);
+        double colFraction = (clamp(lng, -180, 180) + 180) / cellSize - column(lng);
+        double latGap = (ring - 1 + Math.min(rowFraction, 1 - rowFraction)) * cellSize;
+        double lngGap = (ring - 1 + Math.min(colFraction, 1 - colFraction)) * cellSize;
+        double poleward = Math.min(90, Math.abs(lat) + (ring + 1) * cellSize);
+        return Math.min(latGap * GeoDistance.KM_PER_DEGREE, GeoDistance.haversineKm(poleward, 0, poleward, lngGap));
+    }
+
+    private void collectInBounds(List<T> bucket, double southLat, double northLat,
+                                 double westLng, double eastLng, List<T> result) {
+        for (T entity : bucket) {
+            double lat = latitudeOf.apply(entity);
+            double lng = longitudeOf.apply(entity);
+            if (lat >= southLat && lat <= northLat && lng >= westLng && lng <= eastLng) {
+                result.add(entity);
+            }
+        }
+    }
+
+    private T removeInternal(Long id) {
+        T existing = entries.remove(id);
+        if (existing != null) {
+            Long cell = cellOf(existing);
+            if (cell != null) {
+                List<T> bucket = cells.get(cell);
+                // Entities use value equality, match on identity instead
+                if (bucket != null && bucket.removeIf(entity -> entity == existing) && bucket.isEmpty()) {
+                    cells.remove(cell);
+                }
+            }
+        }
+        return existing;
+    }
+
+    private Long cellOf(T entity) {
+        Double lat = latitudeOf.apply(entity);
+        Double lng = longitudeOf.apply(entity);
+        if (lat == null || lng == null) {
+            return null;
+        }
+        return row(lat) * COLUMNS_PER_ROW + column(lng);
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor((clamp(lat, -90, 90) + 90) / cellSize);
+    }
+
+    private long column(double lng) {
+        return (long) Math.floor((clamp(lng, -180, 180) + 180) / cellSize);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
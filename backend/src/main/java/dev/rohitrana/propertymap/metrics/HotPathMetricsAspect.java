@@ -0,0 +1,169 @@
+package dev.rohitrana.propertymap.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public service method and every repository query, and records how many rows
+ * each query returned. Asynchronous service methods are timed until their future completes.
+ * HTTP handlers are covered by Boot's http.server.requests timer, tagged by URI pattern.
+ * The meters of each method are looked up in the registry once and kept, since building them
+ * on every call would cost a registry lookup per call.
+ */
+@Aspect
+@Component
+public class HotPathMetricsAspect {
+    public static final String SERVICE_TIMER = "propertymap.service";
+    public static final String QUERY_TIMER = "propertymap.repository.query";
+    public static final String QUERY_ROWS = "propertymap.repository.rows";
+
+    private static final String APPLICATION_PACKAGE = "dev.rohitrana.propertymap";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, String> names = new ConcurrentHashMap<>();
+    private final Map<MethodKey, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    // The method of the proxied class, since one repository interface method has several targets
+    private record MethodKey(Class<?> type, Method method) {
+    }
+
+    private final class MethodMeters {
+        private final String timerName;
+        private final String ownerTag;
+        private final String owner;
+        private final String method;
+        private final Timer success;
+        private final Map<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+        private volatile DistributionSummary rows;
+
+        private MethodMeters(String timerName, String ownerTag, String owner, String method) {
+            this.timerName = timerName;
+            this.ownerTag = ownerTag;
+            this.owner = owner;
+            this.method = method;
+            this.success = timer("none");
+        }
+
+        private void record(Throwable error, long start) {
+            Timer timer = error == null ? success
+                    : failures.computeIfAbsent(error.getClass(), type -> timer(type.getSimpleName()));
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        // Registered on the first result that is a set of rows, so counts and existence checks get none
+        private void recordRows(long count) {
+            DistributionSummary summary = rows;
+            if (summary == null) {
+                summary = DistributionSummary.builder(QUERY_ROWS)
+                        .baseUnit("rows")
+                        .tag(ownerTag, owner)
+                        .tag("method", method)
+                        .register(registry);
+                rows = summary;
+            }
+            summary.record(count);
+        }
+
+        private Timer timer(String exception) {
+            return Timer.builder(timerName)
+                    .tag(ownerTag, owner)
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .register(registry);
+        }
+    }
+
+    @Autowired
+    public HotPathMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(dev.rohitrana.propertymap.service..*) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMeters method = metersOf(joinPoint, SERVICE_TIMER, "service");
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            method.record(e, start);
+            throw e;
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            return stage.whenComplete((value, e) -> method.record(e, start));
+        }
+        method.record(null, start);
+        return result;
+    }
+
+    // Spring Data repositories are proxies, the query executors are plain classes in the repository package
+    @Around("target(org.springframework.data.repository.Repository) || within(dev.rohitrana.propertymap.repository..*)")
+    public Object timeQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMeters method = metersOf(joinPoint, QUERY_TIMER, "repository");
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            method.record(e, start);
+            throw e;
+        }
+        method.record(null, start);
+
+        long rows = rowsOf(result);
+        if (rows >= 0) {
+            method.recordRows(rows);
+        }
+        return result;
+    }
+
+    private MethodMeters metersOf(ProceedingJoinPoint joinPoint, String timerName, String ownerTag) {
+        Object target = joinPoint.getTarget();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return meters.computeIfAbsent(new MethodKey(target.getClass(), method),
+                key -> new MethodMeters(timerName, ownerTag, nameOf(target), method.getName()));
+    }
+
+    // Negative when the result is not a set of rows, e.g. a count or an existence check
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection<?> rows) {
+            return rows.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> row) {
+            return row.isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+
+    // Repository proxies are named after the application interface they implement
+    private String nameOf(Object target) {
+        return names.computeIfAbsent(target.getClass(), type -> {
+            for (Class<?> candidate : ClassUtils.getAllInterfacesForClass(type)) {
+                if (candidate.getName().startsWith(APPLICATION_PACKAGE)) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return ClassUtils.getUserClass(type).getSimpleName();
+        });
+    }
+}
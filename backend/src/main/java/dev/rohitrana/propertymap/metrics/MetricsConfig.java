@@ -0,0 +1,100 @@
+package dev.rohitrana.propertymap.metrics;
+
+import dev.rohitrana.propertymap.cache.LocationScoreQueryCache;
+import dev.rohitrana.propertymap.cache.PropertyQueryCache;
+import dev.rohitrana.propertymap.cache.ReadThroughCache;
+import dev.rohitrana.propertymap.config.BulkheadDataSource;
+import dev.rohitrana.propertymap.history.HistoryRecorder;
+import dev.rohitrana.propertymap.service.PropertyWriteBehind;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Meters that are not tied to a single call: query cache hit ratios, the connection bulkhead,
+ * the write-behind queue, and the sampled slow-query log on the data source.
+ */
+@Configuration
+@Slf4j
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder queryCacheMetrics(PropertyQueryCache propertyQueryCache,
+                                         LocationScoreQueryCache locationScoreQueryCache) {
+        return registry -> {
+            for (ReadThroughCache<?, ?> cache : List.of(propertyQueryCache.byId(), propertyQueryCache.byFilter(),
+                    locationScoreQueryCache.byId(), locationScoreQueryCache.byFilter())) {
+                CaffeineCacheMetrics.monitor(registry, cache.getNativeCache(), cache.getName());
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder bulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            BulkheadDataSource bulkhead = unwrapBulkhead(dataSource);
+            if (bulkhead == null) {
+                return;
+            }
+            Gauge.builder("propertymap.database.bulkhead.active", bulkhead, BulkheadDataSource::getActive)
+                    .description("Connections currently held through the bulkhead")
+                    .register(registry);
+            Gauge.builder("propertymap.database.bulkhead.waiting", bulkhead, BulkheadDataSource::getWaiting)
+                    .description("Callers waiting for a bulkhead permit")
+                    .register(registry);
+            Gauge.builder("propertymap.database.bulkhead.max", bulkhead, BulkheadDataSource::getMaxConcurrent)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder writeBehindMetrics(PropertyWriteBehind propertyWriteBehind) {
+        return registry -> Gauge.builder("propertymap.write-behind.pending", propertyWriteBehind,
+                        PropertyWriteBehind::pendingCount)
+                .description("Properties with queued changes not yet written")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder historyMetrics(HistoryRecorder historyRecorder) {
+        return registry -> Gauge.builder("propertymap.history.pending", historyRecorder,
+                        HistoryRecorder::pendingCount)
+                .description("Recorded history values not yet written")
+                .register(registry);
+    }
+
+    @Bean
+    public static BeanPostProcessor slowQueryLog(Environment environment, ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                double sampleRate = environment.getProperty("propertymap.metrics.slow-query.sample-rate", Double.class, 0.01);
+                if (!(bean instanceof DataSource dataSource) || bean instanceof SlowQueryDataSource || sampleRate <= 0) {
+                    return bean;
+                }
+                long thresholdMillis = environment.getProperty("propertymap.metrics.slow-query.threshold-ms", Long.class, 200L);
+                log.info("Slow query log on {}: statements over {} ms, {}% sampled", beanName, thresholdMillis, sampleRate * 100);
+                return new SlowQueryDataSource(dataSource, sampleRate, thresholdMillis, registry::getObject);
+            }
+        };
+    }
+
+    private static BulkheadDataSource unwrapBulkhead(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(BulkheadDataSource.class) ? dataSource.unwrap(BulkheadDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package dev.rohitrana.propertymap.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times response body writing per format and payload type. Lists are tagged by their element
+ * type, e.g. a list of properties as "Property", so the tag stays bounded by the model classes.
+ */
+public class SerializationMetrics {
+    public static final String TIMER = "propertymap.serialization";
+
+    private final MeterRegistry registry;
+
+    public SerializationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void time(String format, Object body, BodyWriter writer) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writer.write();
+        } finally {
+            Timer.builder(TIMER)
+                    .tag("format", format)
+                    .tag("type", typeOf(body))
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String typeOf(Object body) {
+        if (body instanceof Collection<?> rows) {
+            return rows.isEmpty() ? "empty" : rows.iterator().next().getClass().getSimpleName();
+        }
+        return body == null ? "null" : body.getClass().getSimpleName();
+    }
+
+    @FunctionalInterface
+    public interface BodyWriter {
+        void write() throws IOException;
+    }
+}
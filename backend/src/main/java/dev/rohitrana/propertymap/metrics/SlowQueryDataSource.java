@@ -0,0 +1,130 @@
+package dev.rohitrana.propertymap.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Logs slow statements with their bind parameters, for a random sample of statements only.
+ * Unsampled statements are handed out untouched, so the cost outside the sample is one random
+ * number per statement. Replaces show-sql and BasicBinder TRACE logging, which paid for
+ * formatting every statement and every parameter on every request.
+ */
+@Slf4j
+public class SlowQueryDataSource extends DelegatingDataSource {
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final double sampleRate;
+    private final long thresholdNanos;
+    private final Supplier<MeterRegistry> registry;
+
+    public SlowQueryDataSource(DataSource target, double sampleRate, long thresholdMillis,
+                               Supplier<MeterRegistry> registry) {
+        super(target);
+        this.sampleRate = sampleRate;
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return sampling(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return sampling(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection sampling(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            Object result = invoke(connection, method, args);
+                            if (result instanceof Statement statement && isSampled()) {
+                                String sql = result instanceof PreparedStatement ? (String) args[0] : null;
+                                return timed(statement, sql);
+                            }
+                            return result;
+                    }
+                });
+    }
+
+    private boolean isSampled() {
+        return sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    // Collects the bind parameters of a sampled statement and times its executions
+    private Statement timed(Statement statement, String preparedSql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    if (name.equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : args[1]);
+                    }
+                    if (!name.startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        long elapsed = System.nanoTime() - start;
+                        if (elapsed >= thresholdNanos) {
+                            report(sql, parameters, elapsed);
+                        }
+                    }
+                });
+    }
+
+    private void report(String sql, Map<Integer, Object> parameters, long elapsedNanos) {
+        StringBuilder bound = new StringBuilder();
+        parameters.forEach((index, value) -> {
+            String text = String.valueOf(value);
+            bound.append(bound.isEmpty() ? "" : ", ").append(index).append('=')
+                    .append(text.length() > MAX_PARAMETER_LENGTH ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : text);
+        });
+        log.warn("Slow query ({} ms): {} [{}]", elapsedNanos / 1_000_000, sql, bound);
+        Counter.builder("propertymap.repository.slow").register(registry.get()).increment();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
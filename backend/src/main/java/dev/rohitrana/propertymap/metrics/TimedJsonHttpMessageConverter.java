@@ -0,0 +1,26 @@
+package dev.rohitrana.propertymap.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * The JSON converter, with the time spent writing each response body recorded.
+ */
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    private final SerializationMetrics metrics;
+
+    public TimedJsonHttpMessageConverter(ObjectMapper objectMapper, SerializationMetrics metrics) {
+        super(objectMapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        metrics.time("json", object, () -> super.writeInternal(object, type, outputMessage));
+    }
+}
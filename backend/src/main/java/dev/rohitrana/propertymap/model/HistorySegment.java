@@ -0,0 +1,44 @@
+package dev.rohitrana.propertymap.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.Length;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Encoded values of one history field recorded in one month (see SegmentCodec). Written once and
+ * never updated; the segments of a month are merged into one by compaction.
+ */
+@Entity
+@Table(name = "history_segments",
+        indexes = @Index(name = "idx_history_segments_partition", columnList = "entity_type, field, period_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistorySegment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String entityType;
+    @Column(nullable = false)
+    private String field;
+    // First day of the month
+    @Column(nullable = false)
+    private LocalDate periodStart;
+
+    private int pointCount;
+    // Range of the entity ids in the segment, so a lookup of one entity skips the others
+    private long minEntityId;
+    private long maxEntityId;
+
+    @Column(nullable = false, length = Length.LONG32)
+    private byte[] data;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,55 @@
+package dev.rohitrana.propertymap.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.Length;
+
+import java.time.LocalDate;
+
+/**
+ * Summary of the values of one history field in one month, over all entities (group "all",
+ * key "") or one zip code or city. The basis is either the values recorded by the changes in
+ * that month, or the value every entity had at the end of it. Numeric fields have
+ * count/sum/min/max and a quantile sketch; categories have one row per category with its count.
+ */
+@Entity
+@Table(name = "history_summaries", uniqueConstraints = @UniqueConstraint(name = "uk_history_summaries_group",
+        columnNames = {"entity_type", "field", "period_start", "basis", "group_by", "group_key", "category"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistorySummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String entityType;
+    @Column(nullable = false)
+    private String field;
+    @Column(nullable = false)
+    private LocalDate periodStart;
+    // HistoryRecorder.BASIS_CHANGES or BASIS_VALUES
+    @Column(nullable = false)
+    private String basis;
+    @Column(nullable = false)
+    private String groupBy;
+    @Column(nullable = false)
+    private String groupKey;
+    // Empty for numeric fields
+    @Column(nullable = false)
+    private String category;
+
+    private long valueCount;
+    private Double valueSum;
+    private Double minValue;
+    private Double maxValue;
+    @Column(length = Length.LONG32)
+    private byte[] sketch;
+
+    // Guards merges of concurrent flushes from several instances
+    @Version
+    private Long version;
+}
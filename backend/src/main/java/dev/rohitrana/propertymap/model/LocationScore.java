@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
 @Entity
@@ -38,6 +39,12 @@ public class LocationScore {
     // Risk metrics
     private Double neighborhoodChange;
 
+    // Bumped on every write; sent as the ETag and checked against If-Match
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -44,6 +45,12 @@ public class Property {
     private String imageUrl;
     private String description;
 
+    // Bumped on every write; sent as the ETag and checked against If-Match
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Timestamps
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
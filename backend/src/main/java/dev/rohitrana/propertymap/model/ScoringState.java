@@ -0,0 +1,28 @@
+package dev.rohitrana.propertymap.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The weight profile the stored overall scores of a table were last computed with, so a restart
+ * keeps scoring new saves the same way.
+ */
+@Entity
+@Table(name = "scoring_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoringState {
+    // The scored table, e.g. "location_scores"
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private String activeProfile;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,61 @@
+package dev.rohitrana.propertymap.projection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The fields of an entity that can be requested with a {@code fields=} parameter, each with its
+ * getter for projecting rows already in memory, plus named presets for common payloads.
+ */
+public class EntityFields<T> {
+    public static final String ID = "id";
+
+    private final Map<String, Function<T, ?>> getters = new LinkedHashMap<>();
+    private final Map<String, List<String>> presets = new LinkedHashMap<>();
+
+    public EntityFields<T> field(String name, Function<T, ?> getter) {
+        getters.put(name, getter);
+        return this;
+    }
+
+    public EntityFields<T> preset(String name, String... fields) {
+        presets.put(name, List.of(fields));
+        return this;
+    }
+
+    /**
+     * Parses a comma separated list of field and preset names.
+     * The id is always selected, first, since rows are identified and paged by it.
+     *
+     * @throws IllegalArgumentException if a name is neither a field nor a preset
+     */
+    public FieldSelection<T> select(String fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (presets.containsKey(trimmed)) {
+                selected.addAll(presets.get(trimmed));
+            } else if (getters.containsKey(trimmed)) {
+                selected.add(trimmed);
+            } else {
+                throw new IllegalArgumentException("Unknown field: " + trimmed + ", expected one of "
+                        + String.join(", ", getters.keySet()) + " or a preset: " + String.join(", ", presets.keySet()));
+            }
+        }
+
+        List<String> names = new ArrayList<>(selected);
+        List<Function<T, ?>> selectedGetters = new ArrayList<>(names.size());
+        names.forEach(field -> selectedGetters.add(getters.get(field)));
+        return new FieldSelection<>(Collections.unmodifiableList(names), selectedGetters);
+    }
+}
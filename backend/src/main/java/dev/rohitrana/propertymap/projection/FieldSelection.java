@@ -0,0 +1,46 @@
+package dev.rohitrana.propertymap.projection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A validated set of requested fields. Rows are projected to ordered maps, serialized as
+ * JSON objects holding only those fields.
+ */
+public class FieldSelection<T> {
+    private final List<String> fields;
+    private final List<Function<T, ?>> getters;
+
+    FieldSelection(List<String> fields, List<Function<T, ?>> getters) {
+        this.fields = fields;
+        this.getters = getters;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public Map<String, Object> project(T entity) {
+        Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+        for (int i = 0; i < fields.size(); i++) {
+            row.put(fields.get(i), getters.get(i).apply(entity));
+        }
+        return row;
+    }
+
+    public List<Map<String, Object>> project(List<T> entities) {
+        List<Map<String, Object>> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            rows.add(project(entity));
+        }
+        return rows;
+    }
+
+    // Id of a projected row, always present
+    public static Long idOf(Map<String, Object> row) {
+        return (Long) row.get(EntityFields.ID);
+    }
+}
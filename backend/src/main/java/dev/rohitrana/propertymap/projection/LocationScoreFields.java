@@ -0,0 +1,33 @@
+package dev.rohitrana.propertymap.projection;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+
+public final class LocationScoreFields {
+    // What a heat layer point needs
+    public static final String POINT = "point";
+
+    public static final EntityFields<LocationScore> FIELDS = new EntityFields<LocationScore>()
+            .field("id", LocationScore::getId)
+            .field("latitude", LocationScore::getLatitude)
+            .field("longitude", LocationScore::getLongitude)
+            .field("address", LocationScore::getAddress)
+            .field("overallScore", LocationScore::getOverallScore)
+            .field("performanceScore", LocationScore::getPerformanceScore)
+            .field("riskScore", LocationScore::getRiskScore)
+            .field("demandScore", LocationScore::getDemandScore)
+            .field("supplyScore", LocationScore::getSupplyScore)
+            .field("capRate", LocationScore::getCapRate)
+            .field("appreciation", LocationScore::getAppreciation)
+            .field("irr", LocationScore::getIrr)
+            .field("fiveYearTotalReturn", LocationScore::getFiveYearTotalReturn)
+            .field("averageHousePrice", LocationScore::getAverageHousePrice)
+            .field("propertyTax", LocationScore::getPropertyTax)
+            .field("neighborhoodChange", LocationScore::getNeighborhoodChange)
+            .field("version", LocationScore::getVersion)
+            .field("createdAt", LocationScore::getCreatedAt)
+            .field("updatedAt", LocationScore::getUpdatedAt)
+            .preset(POINT, "id", "latitude", "longitude", "overallScore");
+
+    private LocationScoreFields() {
+    }
+}
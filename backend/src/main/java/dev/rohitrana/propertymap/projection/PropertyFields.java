@@ -0,0 +1,37 @@
+package dev.rohitrana.propertymap.projection;
+
+import dev.rohitrana.propertymap.model.Property;
+
+public final class PropertyFields {
+    // What a map marker needs; the popup details can be fetched by id
+    public static final String MARKER = "marker";
+
+    public static final EntityFields<Property> FIELDS = new EntityFields<Property>()
+            .field("id", Property::getId)
+            .field("address", Property::getAddress)
+            .field("city", Property::getCity)
+            .field("state", Property::getState)
+            .field("zipCode", Property::getZipCode)
+            .field("bedrooms", Property::getBedrooms)
+            .field("bathrooms", Property::getBathrooms)
+            .field("squareFeet", Property::getSquareFeet)
+            .field("yearBuilt", Property::getYearBuilt)
+            .field("listPrice", Property::getListPrice)
+            .field("status", Property::getStatus)
+            .field("latitude", Property::getLatitude)
+            .field("longitude", Property::getLongitude)
+            .field("capRate", Property::getCapRate)
+            .field("appreciationRate", Property::getAppreciationRate)
+            .field("cashOnCashReturn", Property::getCashOnCashReturn)
+            .field("monthlyRent", Property::getMonthlyRent)
+            .field("yearlyExpenses", Property::getYearlyExpenses)
+            .field("imageUrl", Property::getImageUrl)
+            .field("description", Property::getDescription)
+            .field("version", Property::getVersion)
+            .field("createdAt", Property::getCreatedAt)
+            .field("updatedAt", Property::getUpdatedAt)
+            .preset(MARKER, "id", "latitude", "longitude", "listPrice", "capRate", "status");
+
+    private PropertyFields() {
+    }
+}
@@ -0,0 +1,42 @@
+package dev.rohitrana.propertymap.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Writes the given attributes of one row in a single UPDATE statement that also bumps the version,
+ * on the condition that the row still has the version the caller last saw. Nothing is loaded
+ * or tracked, so entity callbacks such as @PreUpdate do not run.
+ */
+@Repository
+public class ConditionalUpdateExecutor {
+    private final EntityManager entityManager;
+
+    @Autowired
+    public ConditionalUpdateExecutor(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param values new values keyed by attribute name
+     * @return whether the row was updated, false if it is gone or has another version
+     */
+    @Transactional
+    public <T> boolean update(Class<T> type, Long id, long expectedVersion, Map<String, Object> values) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+
+        values.forEach(update::set);
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        update.where(cb.equal(root.get("id"), id), cb.equal(root.get("version"), expectedVersion));
+        return entityManager.createQuery(update).executeUpdate() > 0;
+    }
+}
@@ -0,0 +1,171 @@
+package dev.rohitrana.propertymap.repository;
+
+import dev.rohitrana.propertymap.history.QuantileSketch;
+import dev.rohitrana.propertymap.model.HistorySegment;
+import dev.rohitrana.propertymap.model.HistorySummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage of the change history: append-only segments of encoded values, and the monthly
+ * summaries that range queries read instead of the values.
+ */
+@Repository
+public class HistoryStore {
+    private final EntityManager entityManager;
+
+    // A month of one field that has been appended to more than once
+    public record Partition(String entityType, String field, LocalDate periodStart, long segments) {
+    }
+
+    @Autowired
+    public HistoryStore(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Inserts the segments and adds the change summaries to those of the same month and group, in one
+     * transaction.
+     */
+    @Transactional
+    public void append(List<HistorySegment> segments, List<HistorySummary> summaries) {
+        segments.forEach(entityManager::persist);
+
+        // One query per month and grouping for the existing summaries
+        Map<List<Object>, List<HistorySummary>> byPartition = new LinkedHashMap<>();
+        for (HistorySummary summary : summaries) {
+            byPartition.computeIfAbsent(List.of(summary.getEntityType(), summary.getField(), summary.getPeriodStart(),
+                    summary.getBasis(), summary.getGroupBy()), key -> new ArrayList<>()).add(summary);
+        }
+        for (List<HistorySummary> additions : byPartition.values()) {
+            HistorySummary first = additions.get(0);
+            Map<List<String>, HistorySummary> existing = new HashMap<>();
+            for (HistorySummary summary : entityManager.createQuery(
+                            "SELECT s FROM HistorySummary s WHERE s.entityType = :entityType AND s.field = :field " +
+                                    "AND s.periodStart = :periodStart AND s.basis = :basis AND s.groupBy = :groupBy " +
+                                    "AND s.groupKey IN :keys",
+                            HistorySummary.class)
+                    .setParameter("entityType", first.getEntityType())
+                    .setParameter("field", first.getField())
+                    .setParameter("periodStart", first.getPeriodStart())
+                    .setParameter("basis", first.getBasis())
+                    .setParameter("groupBy", first.getGroupBy())
+                    .setParameter("keys", additions.stream().map(HistorySummary::getGroupKey).distinct().toList())
+                    .getResultList()) {
+                existing.put(List.of(summary.getGroupKey(), summary.getCategory()), summary);
+            }
+            for (HistorySummary addition : additions) {
+                HistorySummary summary = existing.get(List.of(addition.getGroupKey(), addition.getCategory()));
+                if (summary == null) {
+                    entityManager.persist(addition);
+                } else {
+                    merge(summary, addition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the summaries of one basis and month of an entity type's fields, in one transaction.
+     */
+    @Transactional
+    public void replaceSummaries(String entityType, String basis, LocalDate periodStart,
+                                 List<HistorySummary> summaries) {
+        entityManager.createQuery("DELETE FROM HistorySummary s WHERE s.entityType = :entityType " +
+                        "AND s.basis = :basis AND s.periodStart = :periodStart")
+                .setParameter("entityType", entityType)
+                .setParameter("basis", basis)
+                .setParameter("periodStart", periodStart)
+                .executeUpdate();
+        summaries.forEach(entityManager::persist);
+    }
+
+    @Transactional(readOnly = true)
+    public List<HistorySummary> findSummaries(String entityType, String field, String basis, String groupBy,
+                                              Collection<String> keys, LocalDate from, LocalDate to) {
+        String jpql = "SELECT s FROM HistorySummary s WHERE s.entityType = :entityType AND s.field = :field " +
+                "AND s.basis = :basis AND s.groupBy = :groupBy AND s.periodStart BETWEEN :from AND :to" +
+                (keys.isEmpty() ? "" : " AND s.groupKey IN :keys");
+        TypedQuery<HistorySummary> query = entityManager.createQuery(jpql, HistorySummary.class)
+                .setParameter("entityType", entityType)
+                .setParameter("field", field)
+                .setParameter("basis", basis)
+                .setParameter("groupBy", groupBy)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (!keys.isEmpty()) {
+            query.setParameter("keys", keys);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Segments of the fields in the months from..to, oldest first.
+     *
+     * @param entityId only the segments that may hold this entity, or null for all
+     */
+    @Transactional(readOnly = true)
+    public List<HistorySegment> findSegments(String entityType, Collection<String> fields, LocalDate from, LocalDate to,
+                                             Long entityId) {
+        String jpql = "SELECT s FROM HistorySegment s WHERE s.entityType = :entityType AND s.field IN :fields " +
+                "AND s.periodStart BETWEEN :from AND :to" +
+                (entityId == null ? "" : " AND s.minEntityId <= :entityId AND s.maxEntityId >= :entityId") +
+                " ORDER BY s.periodStart, s.id";
+        TypedQuery<HistorySegment> query = entityManager.createQuery(jpql, HistorySegment.class)
+                .setParameter("entityType", entityType)
+                .setParameter("fields", fields)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (entityId != null) {
+            query.setParameter("entityId", entityId);
+        }
+        return query.getResultList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Partition> findFragmentedPartitions() {
+        List<Partition> partitions = new ArrayList<>();
+        for (Object[] row : entityManager.createQuery(
+                        "SELECT s.entityType, s.field, s.periodStart, COUNT(s) FROM HistorySegment s " +
+                                "GROUP BY s.entityType, s.field, s.periodStart HAVING COUNT(s) > 1", Object[].class)
+                .getResultList()) {
+            partitions.add(new Partition((String) row[0], (String) row[1], (LocalDate) row[2], (Long) row[3]));
+        }
+        return partitions;
+    }
+
+    /**
+     * Replaces segments by one holding all their values. Segments appended meanwhile are left alone.
+     */
+    @Transactional
+    public void replaceSegments(Collection<Long> ids, HistorySegment merged) {
+        entityManager.createQuery("DELETE FROM HistorySegment s WHERE s.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.persist(merged);
+    }
+
+    private static void merge(HistorySummary summary, HistorySummary addition) {
+        summary.setValueCount(summary.getValueCount() + addition.getValueCount());
+        if (addition.getSketch() == null) {
+            return;
+        }
+        summary.setValueSum(summary.getValueSum() + addition.getValueSum());
+        summary.setMinValue(Math.min(summary.getMinValue(), addition.getMinValue()));
+        summary.setMaxValue(Math.max(summary.getMaxValue(), addition.getMaxValue()));
+        summary.setSketch(QuantileSketch.fromBytes(summary.getSketch())
+                .merge(QuantileSketch.fromBytes(addition.getSketch()))
+                .toBytes());
+    }
+}
@@ -2,12 +2,13 @@ package dev.rohitrana.propertymap.repository;
 
 import dev.rohitrana.propertymap.model.LocationScore;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface LocationScoreRepository extends JpaRepository<LocationScore, Long>{
+public interface LocationScoreRepository extends JpaRepository<LocationScore, Long>, JpaSpecificationExecutor<LocationScore> {
     List<LocationScore> findByOverallScoreGreaterThanEqual(Integer minScore);
 
     List<LocationScore> findByPerformanceScoreGreaterThanEqual(Integer minScore);
@@ -30,4 +31,8 @@ public interface LocationScoreRepository extends JpaRepository<LocationScore, Lo
     @Query("SELECT ls FROM LocationScore ls WHERE " +
             "ls.appreciation >= :minAppreciation")
     List<LocationScore> findByMinimumAppreciation(Double minAppreciation);
+
+    // Id and version of every row, enough to tell which rows of a snapshot are out of date
+    @Query("SELECT ls.id, ls.version FROM LocationScore ls")
+    List<Object[]> findAllVersions();
 }
@@ -2,13 +2,14 @@ package dev.rohitrana.propertymap.repository;
 
 import dev.rohitrana.propertymap.model.Property;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
-public interface  PropertyRepository extends JpaRepository<Property, Long>{
+public interface  PropertyRepository extends JpaRepository<Property, Long>, JpaSpecificationExecutor<Property> {
     List<Property> findByCity(String city);
 
     List<Property> findByStatus(String status);
@@ -33,4 +34,8 @@ public interface  PropertyRepository extends JpaRepository<Property, Long>{
     @Query("SELECT p FROM Property p WHERE " +
             "p.capRate >= :minCapRate")
     List<Property> findByMinimumCapRate(BigDecimal minCapRate);
+
+    // Id and version of every row, enough to tell which rows of a snapshot are out of date
+    @Query("SELECT p.id, p.version FROM Property p")
+    List<Object[]> findAllVersions();
 }
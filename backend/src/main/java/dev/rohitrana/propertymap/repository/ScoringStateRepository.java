@@ -0,0 +1,9 @@
+package dev.rohitrana.propertymap.repository;
+
+import dev.rohitrana.propertymap.model.ScoringState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ScoringStateRepository extends JpaRepository<ScoringState, String> {
+}
@@ -0,0 +1,57 @@
+package dev.rohitrana.propertymap.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Runs a Specification as a forward-only, server-side cursor and hands each row to a consumer,
+ * detaching it right away, so memory use stays flat no matter how many rows are exported.
+ */
+@Repository
+public class StreamingQueryExecutor {
+    private final EntityManager entityManager;
+    private final int fetchSize;
+
+    @Autowired
+    public StreamingQueryExecutor(EntityManager entityManager,
+                                  @Value("${propertymap.streaming.fetch-size:500}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
+    }
+
+    // Postgres only honours the fetch size inside a transaction
+    @Transactional(readOnly = true)
+    public <T> long stream(Class<T> type, Specification<T> specification, Consumer<T> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        if (specification != null) {
+            query.where(specification.toPredicate(root, query, cb));
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        long count = 0;
+        try (Stream<T> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            for (T row : (Iterable<T>) rows::iterator) {
+                consumer.accept(row);
+                entityManager.detach(row);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,165 @@
+package dev.rohitrana.propertymap.scoring;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Column-oriented copy of the score components, one primitive array per field, so that
+ * scoring every location for a profile is a tight loop over arrays instead of a walk over entities.
+ * Locations missing a component cannot be scored and get {@link #UNSCORED}.
+ */
+public class ScoreSnapshot {
+    public static final int UNSCORED = -1;
+
+    // Below this many rows a fork-join task scores its range directly
+    private static final int CHUNK_SIZE = 4096;
+
+    private int size;
+    private long[] ids;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int[] performance;
+    private int[] risk;
+    private int[] demand;
+    private int[] supply;
+    private int[] overall;
+
+    public ScoreSnapshot(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        ids = new long[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        performance = new int[capacity];
+        risk = new int[capacity];
+        demand = new int[capacity];
+        supply = new int[capacity];
+        overall = new int[capacity];
+    }
+
+    public static ScoreSnapshot of(Collection<LocationScore> scores) {
+        ScoreSnapshot snapshot = new ScoreSnapshot(scores.size());
+        for (LocationScore score : scores) {
+            snapshot.add(score.getId(), score.getLatitude(), score.getLongitude(), score.getPerformanceScore(),
+                    score.getRiskScore(), score.getDemandScore(), score.getSupplyScore(), score.getOverallScore());
+        }
+        return snapshot;
+    }
+
+    public void add(long id, Double latitude, Double longitude, Integer performanceScore, Integer riskScore,
+                    Integer demandScore, Integer supplyScore, Integer overallScore) {
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = id;
+        latitudes[size] = latitude != null ? latitude : Double.NaN;
+        longitudes[size] = longitude != null ? longitude : Double.NaN;
+        boolean complete = performanceScore != null && riskScore != null && demandScore != null && supplyScore != null;
+        performance[size] = complete ? performanceScore : UNSCORED;
+        risk[size] = complete ? riskScore : UNSCORED;
+        demand[size] = complete ? demandScore : UNSCORED;
+        supply[size] = complete ? supplyScore : UNSCORED;
+        overall[size] = overallScore != null ? overallScore : UNSCORED;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int i) {
+        return ids[i];
+    }
+
+    // NaN when the location has no coordinates
+    public double latitude(int i) {
+        return latitudes[i];
+    }
+
+    public double longitude(int i) {
+        return longitudes[i];
+    }
+
+    public int performance(int i) {
+        return performance[i];
+    }
+
+    public int risk(int i) {
+        return risk[i];
+    }
+
+    public int demand(int i) {
+        return demand[i];
+    }
+
+    public int supply(int i) {
+        return supply[i];
+    }
+
+    public int overall(int i) {
+        return overall[i];
+    }
+
+    public boolean isScorable(int i) {
+        return performance[i] != UNSCORED;
+    }
+
+    /**
+     * Scores every row with the given weights, splitting the arrays into chunks scored in parallel.
+     */
+    public int[] score(ScoreWeights weights, ForkJoinPool pool) {
+        int[] result = new int[size];
+        if (size <= CHUNK_SIZE) {
+            scoreRange(weights, result, 0, size);
+        } else {
+            pool.invoke(new ScoreTask(weights, result, 0, size));
+        }
+        return result;
+    }
+
+    private void scoreRange(ScoreWeights weights, int[] result, int from, int to) {
+        for (int i = from; i < to; i++) {
+            result[i] = performance[i] == UNSCORED ? UNSCORED
+                    : weights.score(performance[i], risk[i], demand[i], supply[i]);
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        performance = Arrays.copyOf(performance, capacity);
+        risk = Arrays.copyOf(risk, capacity);
+        demand = Arrays.copyOf(demand, capacity);
+        supply = Arrays.copyOf(supply, capacity);
+        overall = Arrays.copyOf(overall, capacity);
+    }
+
+    private class ScoreTask extends RecursiveAction {
+        private final ScoreWeights weights;
+        private final int[] result;
+        private final int from;
+        private final int to;
+
+        ScoreTask(ScoreWeights weights, int[] result, int from, int to) {
+            this.weights = weights;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                scoreRange(weights, result, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScoreTask(weights, result, from, middle), new ScoreTask(weights, result, middle, to));
+        }
+    }
+}
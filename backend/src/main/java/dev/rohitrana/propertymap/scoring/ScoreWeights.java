@@ -0,0 +1,34 @@
+package dev.rohitrana.propertymap.scoring;
+
+import lombok.Value;
+
+/**
+ * Relative weights of the four score components in the overall score.
+ */
+@Value
+public class ScoreWeights {
+    double performance;
+    double risk;
+    double demand;
+    double supply;
+
+    public ScoreWeights(double performance, double risk, double demand, double supply) {
+        if (performance < 0 || risk < 0 || demand < 0 || supply < 0) {
+            throw new IllegalArgumentException("Score weights cannot be negative");
+        }
+        if (performance + risk + demand + supply <= 0) {
+            throw new IllegalArgumentException("At least one score weight must be positive");
+        }
+        this.performance = performance;
+        this.risk = risk;
+        this.demand = demand;
+        this.supply = supply;
+    }
+
+    // Weighted average of the components, rounded to the nearest integer on the same 0-10 scale
+    public int score(int performanceScore, int riskScore, int demandScore, int supplyScore) {
+        double weightedSum = performanceScore * performance + riskScore * risk
+                + demandScore * demand + supplyScore * supply;
+        return (int) Math.round(weightedSum / (performance + risk + demand + supply));
+    }
+}
@@ -0,0 +1,62 @@
+package dev.rohitrana.propertymap.scoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Named weight profiles from {@code propertymap.scoring.profiles.<name>.*} and the one
+ * currently used to score saved location scores.
+ */
+@Component
+@ConfigurationProperties(prefix = "propertymap.scoring")
+public class ScoringProfiles {
+    public static final String DEFAULT_PROFILE = "default";
+
+    private final Map<String, ScoreWeights> profiles = new LinkedHashMap<>();
+    private volatile String activeProfile = DEFAULT_PROFILE;
+
+    public ScoringProfiles() {
+        // The historical 3/2/2/1 model, unless configured otherwise
+        profiles.put(DEFAULT_PROFILE, new ScoreWeights(3, 2, 2, 1));
+    }
+
+    // Bound from the configuration, merged into the built-in default
+    public Map<String, ScoreWeights> getProfiles() {
+        return profiles;
+    }
+
+    public Map<String, ScoreWeights> getAvailableProfiles() {
+        return Collections.unmodifiableMap(profiles);
+    }
+
+    public String getActiveProfile() {
+        return activeProfile;
+    }
+
+    public void setActiveProfile(String activeProfile) {
+        this.activeProfile = activeProfile;
+    }
+
+    // Switches the profile used for newly saved scores, only to a profile that exists
+    public ScoreWeights activate(String name) {
+        ScoreWeights weights = getWeights(name);
+        this.activeProfile = name;
+        return weights;
+    }
+
+    public ScoreWeights getActiveWeights() {
+        return getWeights(activeProfile);
+    }
+
+    public ScoreWeights getWeights(String name) {
+        ScoreWeights weights = profiles.get(name);
+        if (weights == null) {
+            throw new IllegalArgumentException("Unknown scoring profile: " + name);
+        }
+        return weights;
+    }
+}
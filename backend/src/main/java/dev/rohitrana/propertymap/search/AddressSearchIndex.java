@@ -0,0 +1,97 @@
+package dev.rohitrana.propertymap.search;
+
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.index.EntitySpatialIndex;
+import dev.rohitrana.propertymap.index.LocationScoreSpatialIndex;
+import dev.rohitrana.propertymap.index.PropertySpatialIndex;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Full-text indexes over the addresses of properties and location scores, for search as you type.
+ * Built from the spatial indexes and kept up to date from change events like the other derived
+ * structures, so a search never reads the database.
+ */
+@Component
+public class AddressSearchIndex {
+    public static final List<TextIndex.Field<Property>> PROPERTY_FIELDS = List.of(
+            new TextIndex.Field<>(Property::getAddress, 3),
+            new TextIndex.Field<>(Property::getCity, 2),
+            new TextIndex.Field<>(Property::getZipCode, 2),
+            new TextIndex.Field<>(Property::getDescription, 1, true));
+    public static final List<TextIndex.Field<LocationScore>> LOCATION_SCORE_FIELDS = List.of(
+            new TextIndex.Field<>(LocationScore::getAddress, 3));
+
+    private final Derived<Property> properties;
+    private final Derived<LocationScore> locationScores;
+
+    @Autowired
+    public AddressSearchIndex(PropertySpatialIndex propertySpatialIndex,
+                              LocationScoreSpatialIndex locationScoreSpatialIndex) {
+        this.properties = new Derived<>(propertySpatialIndex, Property::getId, PROPERTY_FIELDS);
+        this.locationScores = new Derived<>(locationScoreSpatialIndex, LocationScore::getId, LOCATION_SCORE_FIELDS);
+    }
+
+    public boolean isAvailable() {
+        return properties.spatialIndex.isLoaded() && locationScores.spatialIndex.isLoaded();
+    }
+
+    public TextIndex.Page<Property> searchProperties(String query, int offset, int limit) {
+        return properties.get().search(query, offset, limit);
+    }
+
+    public TextIndex.Page<LocationScore> searchLocationScores(String query, int offset, int limit) {
+        return locationScores.get().search(query, offset, limit);
+    }
+
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        properties.apply(event.getId(), event.getType() == PropertyChangedEvent.Type.SAVED ? event.getCurrent() : null);
+    }
+
+    @EventListener
+    public void onLocationScoreChanged(LocationScoreChangedEvent event) {
+        locationScores.apply(event.getId(),
+                event.getType() == LocationScoreChangedEvent.Type.SAVED ? event.getCurrent() : null);
+    }
+
+    // A text index following one spatial index, rebuilt whenever that index was reloaded
+    private static class Derived<T> {
+        private final EntitySpatialIndex<T> spatialIndex;
+        private final TextIndex<T> index;
+        private long builtGeneration = -1;
+
+        Derived(EntitySpatialIndex<T> spatialIndex, Function<T, Long> idOf, List<TextIndex.Field<T>> fields) {
+            this.spatialIndex = spatialIndex;
+            this.index = new TextIndex<>(idOf, fields);
+        }
+
+        synchronized TextIndex<T> get() {
+            long generation = spatialIndex.generation();
+            if (builtGeneration != generation) {
+                index.replaceAll(spatialIndex.values());
+                builtGeneration = generation;
+            }
+            return index;
+        }
+
+        synchronized void apply(Long id, T current) {
+            if (builtGeneration != spatialIndex.generation()) {
+                // Not built from the current index yet, the next search rebuilds from scratch
+                return;
+            }
+            if (current == null) {
+                index.remove(id);
+            } else {
+                index.put(current);
+            }
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package dev.rohitrana.propertymap.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over a few weighted text fields of entities keyed by id.
+ * Text is folded to lower case ASCII words. Every query word has to match: the last one as a
+ * prefix (the user is still typing it), and any word within one or two typos of an indexed word,
+ * found through the trigrams of the indexed words. Words are looked up in a sorted dictionary,
+ * so a query only touches the postings of the words it matches, and at most
+ * {@link #MAX_CANDIDATES} entities are collected, so short or common words stay cheap.
+ * Stop words of prose fields such as descriptions are not indexed.
+ */
+public class TextIndex<T> {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final double PREFIX_QUALITY = 0.8;
+    private static final double[] TYPO_QUALITY = {1.0, 0.6, 0.4};
+    // Bounds the work for short prefixes such as "a"; the most frequent completions are kept
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_PREFIX_SCAN = 5000;
+    private static final int TRIGRAMS_PER_TYPO = 4;
+    // Beyond this many matches the total is not exact and the best hits are among the first collected
+    public static final int MAX_CANDIDATES = 10_000;
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+            "from", "has", "in", "is", "it", "its", "of", "on", "or", "that", "the", "this", "to", "with");
+
+    // Prose fields skip stop words, which would otherwise be the largest postings of all
+    public record Field<T>(Function<T, String> getter, float weight, boolean prose) {
+        public Field(Function<T, String> getter, float weight) {
+            this(getter, weight, false);
+        }
+    }
+
+    public record Hit<T>(T entity, double score) {
+    }
+
+    public record Page<T>(long total, List<Hit<T>> hits) {
+    }
+
+    // An indexed word a query word matched, and how well
+    private record Variant(Map<Long, Float> postings, double quality) {
+    }
+
+    private final Function<T, Long> idOf;
+    private final List<Field<T>> fields;
+
+    private final Map<Long, T> entries = new HashMap<>();
+    // Word -> id -> weight of the best field the word occurs in
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // Trigram -> words containing it, for typo tolerant lookups
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TextIndex(Function<T, Long> idOf, List<Field<T>> fields) {
+        this.idOf = idOf;
+        this.fields = fields;
+    }
+
+    public void put(T entity) {
+        Long id = idOf.apply(entity);
+        if (id == null) {
+            throw new IllegalArgumentException("Cannot index an entity without an id");
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            putInternal(id, entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void replaceAll(Collection<T> entities) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+            trigrams.clear();
+            for (T entity : entities) {
+                putInternal(idOf.apply(entity), entity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entities matching every word of the query, best match first.
+     * The score adds up, per query word, the weight of the best field it matched times how
+     * closely it matched (exact, prefix, or one or two typos). Stop words are skipped unless they
+     * are the word being typed and match something. The total is capped at {@link #MAX_CANDIDATES}.
+     */
+    public Page<T> search(String query, int offset, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return new Page<>(0, List.of());
+        }
+        lock.readLock().lock();
+        try {
+            List<List<Variant>> variants = new ArrayList<>(words.size());
+            for (int i = 0; i < words.size(); i++) {
+                String word = words.get(i);
+                boolean last = i == words.size() - 1;
+                if (!last && STOP_WORDS.contains(word)) {
+                    continue;
+                }
+                List<Variant> matched = variantsOf(word, last);
+                if (matched.isEmpty()) {
+                    if (STOP_WORDS.contains(word)) {
+                        continue;
+                    }
+                    return new Page<>(0, List.of());
+                }
+                variants.add(matched);
+            }
+            if (variants.isEmpty()) {
+                return new Page<>(0, List.of());
+            }
+            // Start from the query word with the fewest candidates and probe the others
+            variants.sort(Comparator.comparingLong(TextIndex::candidateCount));
+
+            Map<Long, Double> scores = candidatesOf(variants.get(0));
+            for (List<Variant> others : variants.subList(1, variants.size())) {
+                scores.entrySet().removeIf(entry -> {
+                    double best = bestScore(others, entry.getKey());
+                    if (best == 0) {
+                        return true;
+                    }
+                    entry.setValue(entry.getValue() + best);
+                    return false;
+                });
+            }
+            return new Page<>(scores.size(), top(scores, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower case ASCII words of the text, accents removed and punctuation treated as a separator.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static <T> List<String> wordsOf(Field<T> field, T entity) {
+        List<String> words = tokenize(field.getter().apply(entity));
+        if (field.prose() && !words.isEmpty()) {
+            words.removeIf(STOP_WORDS::contains);
+        }
+        return words;
+    }
+
+    private void putInternal(Long id, T entity) {
+        entries.put(id, entity);
+        for (Field<T> field : fields) {
+            for (String word : wordsOf(field, entity)) {
+                Map<Long, Float> ids = postings.get(word);
+                if (ids == null) {
+                    ids = new HashMap<>();
+                    postings.put(word, ids);
+                    for (String trigram : trigramsOf(word)) {
+                        trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(word);
+                    }
+                }
+                ids.merge(id, field.weight(), Math::max);
+            }
+        }
+    }
+
+    private void removeInternal(Long id) {
+        T old = entries.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (Field<T> field : fields) {
+            for (String word : wordsOf(field, old)) {
+                Map<Long, Float> ids = postings.get(word);
+                if (ids != null && ids.remove(id) != null && ids.isEmpty()) {
+                    postings.remove(word);
+                    for (String trigram : trigramsOf(word)) {
+                        Set<String> words = trigrams.get(trigram);
+                        if (words != null && words.remove(word) && words.isEmpty()) {
+                            trigrams.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Variant> variantsOf(String word, boolean prefix) {
+        List<Variant> variants = new ArrayList<>();
+        Map<Long, Float> exact = postings.get(word);
+        if (exact != null) {
+            variants.add(new Variant(exact, 1.0));
+        }
+        if (prefix) {
+            variants.addAll(completionsOf(word));
+        }
+        int maxTypos = maxTypos(word);
+        if (maxTypos > 0) {
+            Set<String> candidates = wordsSharingTrigrams(word, maxTypos);
+            candidates.addAll(indexedSwapsOf(word));
+            for (String candidate : candidates) {
+                int distance = distance(word, candidate, maxTypos);
+                if (distance > 0 && distance <= maxTypos) {
+                    variants.add(new Variant(postings.get(candidate), TYPO_QUALITY[distance]));
+                }
+            }
+        }
+        return variants;
+    }
+
+    // Longer words starting with the prefix, the most frequent ones if there are many
+    private List<Variant> completionsOf(String prefix) {
+        PriorityQueue<Map<Long, Float>> mostFrequent = new PriorityQueue<>(Comparator.comparingInt(Map::size));
+        int scanned = 0;
+        for (Map.Entry<String, Map<Long, Float>> entry : postings.tailMap(prefix, false).entrySet()) {
+            if (!entry.getKey().startsWith(prefix) || scanned++ >= MAX_PREFIX_SCAN) {
+                break;
+            }
+            mostFrequent.add(entry.getValue());
+            if (mostFrequent.size() > MAX_PREFIX_EXPANSIONS) {
+                mostFrequent.poll();
+            }
+        }
+        List<Variant> completions = new ArrayList<>(mostFrequent.size());
+        for (Map<Long, Float> ids : mostFrequent) {
+            completions.add(new Variant(ids, PREFIX_QUALITY));
+        }
+        return completions;
+    }
+
+    /**
+     * A substitution, insertion or deletion changes at most three of the word's trigrams, and
+     * swapping two neighbouring letters four, so a close enough word shares the rest. Words too
+     * short to share any trigram after a swap are found by trying the swaps instead.
+     */
+    private Set<String> wordsSharingTrigrams(String word, int maxTypos) {
+        Set<String> wordTrigrams = new HashSet<>(trigramsOf(word));
+        int required = Math.max(1, wordTrigrams.size() - TRIGRAMS_PER_TYPO * maxTypos);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : wordTrigrams) {
+            Set<String> words = trigrams.get(trigram);
+            if (words != null) {
+                for (String candidate : words) {
+                    if (Math.abs(candidate.length() - word.length()) <= maxTypos) {
+                        shared.merge(candidate, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        Set<String> candidates = new HashSet<>();
+        shared.forEach((candidate, count) -> {
+            if (count >= required) {
+                candidates.add(candidate);
+            }
+        });
+        return candidates;
+    }
+
+    // Indexed words that are the word with two neighbouring letters swapped
+    private List<String> indexedSwapsOf(String word) {
+        List<String> swaps = new ArrayList<>();
+        char[] letters = word.toCharArray();
+        for (int i = 0; i + 1 < letters.length; i++) {
+            if (letters[i] == letters[i + 1]) {
+                continue;
+            }
+            swap(letters, i);
+            String swapped = new String(letters);
+            swap(letters, i);
+            if (postings.containsKey(swapped)) {
+                swaps.add(swapped);
+            }
+        }
+        return swaps;
+    }
+
+    private static void swap(char[] letters, int i) {
+        char first = letters[i];
+        letters[i] = letters[i + 1];
+        letters[i + 1] = first;
+    }
+
+    // The best matching variants first, so the cap keeps exact matches over prefixes and typos
+    private static Map<Long, Double> candidatesOf(List<Variant> variants) {
+        List<Variant> ordered = new ArrayList<>(variants);
+        ordered.sort(Comparator.comparingDouble(Variant::quality).reversed()
+                .thenComparingInt(variant -> variant.postings().size()));
+        Map<Long, Double> scores = new HashMap<>();
+        for (Variant variant : ordered) {
+            for (Map.Entry<Long, Float> posting : variant.postings().entrySet()) {
+                if (scores.size() >= MAX_CANDIDATES) {
+                    return scores;
+                }
+                scores.merge(posting.getKey(), posting.getValue() * variant.quality(), Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private static long candidateCount(List<Variant> variants) {
+        long count = 0;
+        for (Variant variant : variants) {
+            count += variant.postings().size();
+        }
+        return count;
+    }
+
+    private static double bestScore(List<Variant> variants, Long id) {
+        double best = 0;
+        for (Variant variant : variants) {
+            Float weight = variant.postings().get(id);
+            if (weight != null) {
+                best = Math.max(best, weight * variant.quality());
+            }
+        }
+        return best;
+    }
+
+    private List<Hit<T>> top(Map<Long, Double> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        Comparator<Map.Entry<Long, Double>> better = Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        // Min-heap of the best entries so far, the worst one on top
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(better.reversed());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.add(entry);
+            if (best.size() > wanted) {
+                best.poll();
+            }
+        }
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(best);
+        ranked.sort(better);
+        List<Hit<T>> hits = new ArrayList<>(Math.max(0, ranked.size() - offset));
+        for (Map.Entry<Long, Double> entry : ranked.subList(Math.min(offset, ranked.size()), ranked.size())) {
+            hits.add(new Hit<>(entries.get(entry.getKey()), entry.getValue()));
+        }
+        return hits;
+    }
+
+    // Numbers such as zip codes and house numbers are not misspelled, they are different numbers
+    private static int maxTypos(String word) {
+        if (word.length() < 4 || word.chars().allMatch(Character::isDigit)) {
+            return 0;
+        }
+        return word.length() < 8 ? 1 : 2;
+    }
+
+    // Trigrams of the word padded with boundary markers, so short words and word starts count too
+    private static List<String> trigramsOf(String word) {
+        String padded = "^" + word + "$";
+        List<String> result = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus swapping two neighbouring characters),
+     * or max + 1 as soon as it is known to exceed max.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,114 @@
+package dev.rohitrana.propertymap.service;
+
+import dev.rohitrana.propertymap.analytics.FinancingAssumptions;
+import dev.rohitrana.propertymap.analytics.MonteCarloSimulator;
+import dev.rohitrana.propertymap.analytics.PortfolioAnalyzer;
+import dev.rohitrana.propertymap.analytics.PortfolioMetrics;
+import dev.rohitrana.propertymap.analytics.PropertyColumns;
+import dev.rohitrana.propertymap.analytics.SimulationAssumptions;
+import dev.rohitrana.propertymap.dto.AccuracyCheck;
+import dev.rohitrana.propertymap.dto.PortfolioAnalytics;
+import dev.rohitrana.propertymap.dto.PropertyStats;
+import dev.rohitrana.propertymap.dto.SimulationResult;
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.index.PropertyRollups;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class AnalyticsService {
+    // calculateCapRate rounds the ratio to 4 decimals, so it may be off by half a hundredth of a point
+    private static final double CAP_RATE_TOLERANCE = 0.005 + 1e-9;
+
+    private final PropertyService propertyService;
+    private final PropertyRollups propertyRollups;
+
+    @Autowired
+    public AnalyticsService(PropertyService propertyService, PropertyRollups propertyRollups) {
+        this.propertyService = propertyService;
+        this.propertyRollups = propertyRollups;
+    }
+
+    /**
+     * Rolled up metrics of all properties grouped by city, zip code, status or grid cell.
+     */
+    public PropertyStats getStats(String groupBy, boolean histograms) {
+        PropertyRollups.Dimension dimension = PropertyRollups.Dimension.parse(groupBy);
+        if (propertyRollups.isAvailable()) {
+            return propertyRollups.getStats(dimension, histograms);
+        }
+        return propertyRollups.aggregate(propertyService.getAllProperties(), dimension, histograms);
+    }
+
+    /**
+     * Analyzes the properties matching the filter, restricted to the given ids when there are any.
+     */
+    public PortfolioAnalytics analyzePortfolio(PropertyFilter filter, List<Long> ids, FinancingAssumptions assumptions,
+                                               boolean includeProperties, boolean verify) {
+        assumptions.validate();
+        long start = System.nanoTime();
+
+        List<Property> properties = selectProperties(filter, ids);
+        PropertyColumns columns = new PropertyColumns(properties);
+        PortfolioMetrics metrics = PortfolioMetrics.compute(columns, assumptions);
+        PortfolioAnalytics analytics = new PortfolioAnalyzer(assumptions).analyze(columns, metrics, includeProperties);
+        if (verify) {
+            analytics.setAccuracy(checkCapRates(properties, metrics));
+        }
+        analytics.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return analytics;
+    }
+
+    /**
+     * Simulates the returns of the properties matching the filter (or of the given ids) bought
+     * together, over random market scenarios around the financing assumptions.
+     */
+    public SimulationResult simulate(PropertyFilter filter, List<Long> ids, FinancingAssumptions assumptions,
+                                     SimulationAssumptions simulation) {
+        assumptions.validate();
+        simulation.validate();
+        long start = System.nanoTime();
+
+        PropertyColumns columns = new PropertyColumns(selectProperties(filter, ids));
+        SimulationResult result = new MonteCarloSimulator(assumptions, simulation).simulate(columns);
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private List<Property> selectProperties(PropertyFilter filter, List<Long> ids) {
+        if (ids != null && !ids.isEmpty()) {
+            return propertyService.getPropertiesByIds(ids).stream()
+                    .filter(filter.toEntityFilter().toPredicate())
+                    .collect(Collectors.toList());
+        }
+        return propertyService.filterProperties(filter);
+    }
+
+    // Recomputes every cap rate through the per-property BigDecimal path and compares
+    private AccuracyCheck checkCapRates(List<Property> properties, PortfolioMetrics metrics) {
+        long compared = 0;
+        long mismatches = 0;
+        double maxError = 0;
+        double errorSum = 0;
+        for (int i = 0; i < properties.size(); i++) {
+            if (!metrics.isAnalyzed(i)) {
+                continue;
+            }
+            BigDecimal reference = propertyService.calculateCapRate(properties.get(i));
+            double error = Math.abs(reference.doubleValue() - metrics.capRate(i));
+            compared++;
+            errorSum += error;
+            maxError = Math.max(maxError, error);
+            if (error > CAP_RATE_TOLERANCE) {
+                mismatches++;
+            }
+        }
+        return new AccuracyCheck(compared, maxError, compared > 0 ? errorSum / compared : 0,
+                CAP_RATE_TOLERANCE, mismatches);
+    }
+}
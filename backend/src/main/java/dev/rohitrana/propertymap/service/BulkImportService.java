@@ -0,0 +1,321 @@
+package dev.rohitrana.propertymap.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.rohitrana.propertymap.importer.CsvReader;
+import dev.rohitrana.propertymap.importer.ImportFormat;
+import dev.rohitrana.propertymap.importer.ImportJob;
+import dev.rohitrana.propertymap.importer.ImportTarget;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads CSV or NDJSON files in the background.
+ * Rows are inserted with plain JDBC batches because IDENTITY ids stop Hibernate from batching,
+ * each batch in its own transaction. A failing batch is retried row by row so that one bad row
+ * only rejects itself. Every inserted row is published like a regular save so the in-memory
+ * indexes and caches stay in sync.
+ */
+@Service
+@Slf4j
+public class BulkImportService {
+    private static final int MAX_RETAINED_JOBS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_RETAINED_JOBS;
+        }
+    };
+
+    @Autowired
+    public BulkImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${propertymap.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Unknown columns are reported as row errors rather than silently dropped
+        this.objectMapper = objectMapper.copy().enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Spools the upload to a temporary file and queues the import, so the request returns immediately.
+     */
+    public <T> ImportJob submit(ImportTarget<T> target, ImportFormat format, InputStream body) throws IOException {
+        Path spool = Files.createTempFile("propertymap-import-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(target.getName(), format);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+        executor.submit(() -> run(job, target, spool));
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    public List<ImportJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> void run(ImportJob job, ImportTarget<T> target, Path spool) {
+        job.start();
+        log.info("Import {} of {} started", job.getId(), target.getName());
+        Batch<T> batch = new Batch<>();
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            if (job.getFormat() == ImportFormat.CSV) {
+                readCsv(reader, job, target, batch);
+            } else {
+                readNdjson(reader, job, target, batch);
+            }
+            flush(job, target, batch);
+            job.complete();
+            log.info("Import {} finished: {} imported, {} rejected, {} rows/s", job.getId(),
+                    job.getRowsImported(), job.getRowsRejected(), Math.round(job.getRowsPerSecond()));
+        } catch (Exception e) {
+            // Rows already committed stay imported, the job reports how far it got
+            log.warn("Import {} failed after {} rows", job.getId(), job.getRowsRead(), e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Could not delete import spool file {}", spool, e);
+            }
+        }
+    }
+
+    private <T> void readCsv(BufferedReader reader, ImportJob job, ImportTarget<T> target, Batch<T> batch)
+            throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        List<String> properties = new ArrayList<>(header.size());
+        for (String column : header) {
+            properties.add(toPropertyName(column));
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            job.rowRead();
+            long line = csv.getRecordLine();
+            if (record.size() != properties.size()) {
+                job.reject(line, "Expected " + properties.size() + " fields but found " + record.size());
+                continue;
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < record.size(); i++) {
+                // Empty cells are missing values, not empty strings
+                if (!record.get(i).isEmpty()) {
+                    values.put(properties.get(i), record.get(i));
+                }
+            }
+            T entity;
+            try {
+                entity = objectMapper.convertValue(withoutServerFields(values), target.getEntityType());
+            } catch (IllegalArgumentException e) {
+                job.reject(line, rootMessage(e));
+                continue;
+            }
+            accept(job, target, batch, line, entity);
+        }
+    }
+
+    private <T> void readNdjson(BufferedReader reader, ImportJob job, ImportTarget<T> target, Batch<T> batch)
+            throws IOException {
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            job.rowRead();
+            T entity;
+            try {
+                Map<String, Object> values = objectMapper.readValue(text, objectMapper.getTypeFactory()
+                        .constructMapType(LinkedHashMap.class, String.class, Object.class));
+                entity = objectMapper.convertValue(withoutServerFields(values), target.getEntityType());
+            } catch (IOException | IllegalArgumentException e) {
+                job.reject(line, rootMessage(e));
+                continue;
+            }
+            accept(job, target, batch, line, entity);
+        }
+    }
+
+    private <T> void accept(ImportJob job, ImportTarget<T> target, Batch<T> batch, long line, T entity) {
+        List<String> errors = target.validate(entity);
+        if (!errors.isEmpty()) {
+            job.reject(line, String.join("; ", errors));
+            return;
+        }
+        target.prepare(entity);
+        batch.add(line, entity);
+        if (batch.size() >= batchSize) {
+            flush(job, target, batch);
+        }
+    }
+
+    private <T> void flush(ImportJob job, ImportTarget<T> target, Batch<T> batch) {
+        if (batch.size() == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(target, batch.entities));
+            inserted(job, target, batch.entities);
+        } catch (DataAccessException e) {
+            // Isolate the offending rows, the rest of the batch still goes in
+            for (int i = 0; i < batch.size(); i++) {
+                List<T> single = List.of(batch.entities.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(target, single));
+                    inserted(job, target, single);
+                } catch (DataAccessException rowError) {
+                    job.reject(batch.lines.get(i), rootMessage(rowError));
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private <T> void insert(ImportTarget<T> target, List<T> entities) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(target.getInsertSql(), new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        new ArgumentPreparedStatementSetter(target.getInsertValues(entities.get(i)))
+                                .setValues(statement);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return entities.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < entities.size() && i < keys.size(); i++) {
+            // Drivers differ in the case of the key column name, it is the only one returned
+            Object id = keys.get(i).values().iterator().next();
+            target.setId(entities.get(i), ((Number) id).longValue());
+        }
+    }
+
+    private <T> void inserted(ImportJob job, ImportTarget<T> target, List<T> entities) {
+        job.rowsImported(entities.size());
+        entities.forEach(target::publishInserted);
+    }
+
+    // Ids and timestamps are always assigned by the import
+    private static <V> Map<String, V> withoutServerFields(Map<String, V> values) {
+        values.keySet().removeAll(List.of("id", "createdAt", "updatedAt"));
+        return values;
+    }
+
+    // Accepts both the JSON property names and snake_case column names in the CSV header
+    private static String toPropertyName(String column) {
+        String trimmed = column.trim();
+        StringBuilder name = new StringBuilder(trimmed.length());
+        boolean upperNext = false;
+        for (char c : trimmed.toCharArray()) {
+            if (c == '_' || c == ' ' || c == '-') {
+                upperNext = name.length() > 0;
+            } else {
+                name.append(upperNext ? Character.toUpperCase(c) : c);
+                upperNext = false;
+            }
+        }
+        return name.toString();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String message = root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+        // Jackson appends the source location and reference chain, keep the first line only
+        int newline = message.indexOf('\n');
+        return newline > 0 ? message.substring(0, newline) : message;
+    }
+
+    private static class Batch<T> {
+        private final List<Long> lines = new ArrayList<>();
+        private final List<T> entities = new ArrayList<>();
+
+        void add(long line, T entity) {
+            lines.add(line);
+            entities.add(entity);
+        }
+
+        int size() {
+            return entities.size();
+        }
+
+        void clear() {
+            lines.clear();
+            entities.clear();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.rohitrana.propertymap.service;
+
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.heatmap.HeatmapMetric;
+import dev.rohitrana.propertymap.heatmap.HeatmapTile;
+import dev.rohitrana.propertymap.heatmap.HeatmapTileRenderer;
+import dev.rohitrana.propertymap.heatmap.TileCoordinates;
+import dev.rohitrana.propertymap.index.LocationScoreSpatialIndex;
+import dev.rohitrana.propertymap.model.LocationScore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders heatmap tiles on demand and keeps them in a bounded LRU cache.
+ * A changed location score only evicts the cached tiles within its influence radius,
+ * at its old and new position.
+ */
+@Service
+public class HeatmapTileService {
+    private final LocationScoreService locationScoreService;
+    private final LocationScoreSpatialIndex locationScoreSpatialIndex;
+    private final HeatmapTileRenderer renderer;
+    private final Map<TileKey, HeatmapTile> cache;
+
+    // Bumped on every invalidation so tiles rendered from older data are not cached
+    private long invalidations;
+    private long cachedGeneration = -1;
+
+    @Autowired
+    public HeatmapTileService(LocationScoreService locationScoreService,
+                              LocationScoreSpatialIndex locationScoreSpatialIndex,
+                              @Value("${propertymap.heatmap.resolution:64}") int resolution,
+                              @Value("${propertymap.heatmap.radius-km:1.5}") double radiusKm,
+                              @Value("${propertymap.heatmap.cache-size:4096}") int cacheSize) {
+        this.locationScoreService = locationScoreService;
+        this.locationScoreSpatialIndex = locationScoreSpatialIndex;
+        this.renderer = new HeatmapTileRenderer(resolution, radiusKm);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, HeatmapTile> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public HeatmapTile getTile(HeatmapMetric metric, TileCoordinates tile) {
+        TileKey key = new TileKey(metric, tile);
+        long seenInvalidations;
+        synchronized (cache) {
+            if (cachedGeneration != locationScoreSpatialIndex.generation()) {
+                // The index was reloaded wholesale, nothing cached can be trusted
+                cache.clear();
+                cachedGeneration = locationScoreSpatialIndex.generation();
+            }
+            HeatmapTile cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            seenInvalidations = invalidations;
+        }
+
+        double[] bounds = renderer.influenceBounds(tile);
+        List<LocationScore> scores = locationScoreService.getLocationScoresInBounds(
+                bounds[0], bounds[1], bounds[2], bounds[3]);
+        byte[] png = renderer.render(tile, metric, scores);
+        HeatmapTile rendered = new HeatmapTile(png, "\"" + DigestUtils.md5DigestAsHex(png) + "\"");
+
+        synchronized (cache) {
+            // Only cache tiles rendered from the warmed-up index with no change in between
+            if (locationScoreSpatialIndex.isLoaded() && invalidations == seenInvalidations) {
+                cache.put(key, rendered);
+            }
+        }
+        return rendered;
+    }
+
+    @EventListener
+    public void onLocationScoreChanged(LocationScoreChangedEvent event) {
+        synchronized (cache) {
+            invalidations++;
+            evictAround(event.getPrevious());
+            evictAround(event.getCurrent());
+        }
+    }
+
+    private void evictAround(LocationScore score) {
+        if (score == null || score.getLatitude() == null || score.getLongitude() == null) {
+            return;
+        }
+        cache.keySet().removeIf(key -> renderer.isInfluencedBy(key.tile(), score.getLatitude(), score.getLongitude()));
+    }
+
+    private record TileKey(HeatmapMetric metric, TileCoordinates tile) {
+    }
+}
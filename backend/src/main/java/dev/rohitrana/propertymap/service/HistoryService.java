@@ -0,0 +1,214 @@
+package dev.rohitrana.propertymap.service;
+
+import dev.rohitrana.propertymap.dto.EntityHistory;
+import dev.rohitrana.propertymap.dto.HistoryPeriod;
+import dev.rohitrana.propertymap.dto.HistorySeries;
+import dev.rohitrana.propertymap.dto.HistoryStats;
+import dev.rohitrana.propertymap.dto.HistoryValue;
+import dev.rohitrana.propertymap.feed.EntityChange;
+import dev.rohitrana.propertymap.history.HistoryChange;
+import dev.rohitrana.propertymap.history.HistoryField;
+import dev.rohitrana.propertymap.history.HistoryRecorder;
+import dev.rohitrana.propertymap.history.QuantileSketch;
+import dev.rohitrana.propertymap.history.SegmentCodec;
+import dev.rohitrana.propertymap.model.HistorySegment;
+import dev.rohitrana.propertymap.model.HistorySummary;
+import dev.rohitrana.propertymap.repository.HistoryStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Queries of the change history recorded by {@link HistoryRecorder}. Values recorded since the
+ * last flush are not included yet.
+ */
+@Service
+public class HistoryService {
+    public static final int DEFAULT_YEARS = 5;
+
+    public enum Interval {
+        MONTH(1), QUARTER(3), YEAR(12);
+
+        private final int months;
+
+        Interval(int months) {
+            this.months = months;
+        }
+
+        // The first month of the period containing month
+        YearMonth periodOf(YearMonth month) {
+            int index = month.getYear() * 12 + month.getMonthValue() - 1;
+            int start = Math.floorDiv(index, months) * months;
+            return YearMonth.of(Math.floorDiv(start, 12), start % 12 + 1);
+        }
+
+        public static Interval parse(String value) {
+            for (Interval interval : values()) {
+                if (interval.name().equalsIgnoreCase(value)) {
+                    return interval;
+                }
+            }
+            throw new IllegalArgumentException("Unknown history interval: " + value);
+        }
+    }
+
+    private final HistoryStore historyStore;
+
+    @Autowired
+    public HistoryService(HistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
+    /**
+     * Statistics of a field per period and group, e.g. the monthly median list price by zip code,
+     * merged from the monthly summaries without reading any values.
+     * With the values basis they describe the value every entity had at the end of the period
+     * (the latest month summarized so far for the current one); with the changes basis, the values
+     * the field was set to during the period.
+     *
+     * @param basis   values or changes
+     * @param groupBy all, or zipCode or city for properties
+     * @param keys    the zip codes or cities to include, or empty for all of them
+     * @param from    first month (yyyy-MM), by default five years before to
+     * @param to      last month (yyyy-MM), by default the current month
+     */
+    public HistoryStats getStats(String entity, String field, String basis, String groupBy, Collection<String> keys,
+                                 String from, String to, String interval, List<Double> percentiles) {
+        HistoryField historyField = HistoryField.parse(entity, field);
+        if (!HistoryRecorder.BASIS_VALUES.equals(basis) && !HistoryRecorder.BASIS_CHANGES.equals(basis)) {
+            throw new IllegalArgumentException("Unknown history basis: " + basis);
+        }
+        boolean endOfPeriod = HistoryRecorder.BASIS_VALUES.equals(basis);
+        if (!HistoryRecorder.GROUP_ALL.equals(groupBy) && !(EntityChange.PROPERTY.equals(entity)
+                && (HistoryRecorder.GROUP_ZIP_CODE.equals(groupBy) || HistoryRecorder.GROUP_CITY.equals(groupBy)))) {
+            throw new IllegalArgumentException("Cannot group " + entity + " history by " + groupBy);
+        }
+        for (Double percentile : percentiles) {
+            if (percentile == null || percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("Percentiles must be between 0 and 1");
+            }
+        }
+        Interval step = Interval.parse(interval);
+        YearMonth last = to == null ? YearMonth.now() : parseMonth(to);
+        YearMonth first = from == null ? last.minusYears(DEFAULT_YEARS) : parseMonth(from);
+
+        // Group key -> period -> merged summaries of its months, or of its last month for the values
+        Map<String, TreeMap<YearMonth, Period>> groups = new TreeMap<>();
+        for (HistorySummary summary : historyStore.findSummaries(entity, historyField.getKey(), basis, groupBy, keys,
+                first.atDay(1), last.atDay(1))) {
+            YearMonth month = YearMonth.from(summary.getPeriodStart());
+            TreeMap<YearMonth, Period> periods = groups.computeIfAbsent(summary.getGroupKey(), key -> new TreeMap<>());
+            Period period = periods.get(step.periodOf(month));
+            if (period == null || (endOfPeriod && month.isAfter(period.month))) {
+                period = new Period(month);
+                periods.put(step.periodOf(month), period);
+            } else if (endOfPeriod && month.isBefore(period.month)) {
+                continue;
+            }
+            period.add(summary);
+        }
+
+        List<HistorySeries> series = new ArrayList<>(groups.size());
+        groups.forEach((key, periods) -> {
+            List<HistoryPeriod> points = new ArrayList<>(periods.size());
+            periods.forEach((period, merged) -> points.add(merged.toPeriod(period, historyField, percentiles)));
+            series.add(new HistorySeries(HistoryRecorder.GROUP_ALL.equals(groupBy) ? null : key, points));
+        });
+        return new HistoryStats(entity, historyField.getKey(), basis, groupBy, step.name().toLowerCase(), series);
+    }
+
+    /**
+     * The values one property or location score was set to, decoding only the segments that may
+     * hold it and skipping the other entities in them.
+     *
+     * @param fields the fields to return, or empty for all
+     */
+    public EntityHistory getEntityHistory(String entity, Long id, Collection<String> fields, String from, String to) {
+        List<HistoryField> historyFields = new ArrayList<>();
+        if (fields.isEmpty()) {
+            historyFields.addAll(HistoryField.of(entity));
+        } else {
+            for (String field : fields) {
+                historyFields.add(HistoryField.parse(entity, field));
+            }
+        }
+        YearMonth last = to == null ? YearMonth.now() : parseMonth(to);
+        YearMonth first = from == null ? last.minusYears(DEFAULT_YEARS) : parseMonth(from);
+
+        Map<String, List<HistoryValue>> values = new LinkedHashMap<>();
+        historyFields.forEach(field -> values.put(field.getKey(), new ArrayList<>()));
+        List<String> keys = historyFields.stream().map(HistoryField::getKey).toList();
+        // Oldest month first, and within a month in the order the segments were written
+        for (HistorySegment segment : historyStore.findSegments(entity, keys, first.atDay(1), last.atDay(1), id)) {
+            HistoryField field = HistoryField.parse(entity, segment.getField());
+            for (HistoryChange change : SegmentCodec.decode(field, segment.getPeriodStart(), segment.getData(), id)) {
+                values.get(field.getKey()).add(new HistoryValue(change.recordedAt(), change.value()));
+            }
+        }
+        return new EntityHistory(entity, id, values);
+    }
+
+    private static YearMonth parseMonth(String value) {
+        try {
+            return YearMonth.parse(value);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid month, expected yyyy-MM: " + value);
+        }
+    }
+
+    private static String percentileKey(double percentile) {
+        return "p" + BigDecimal.valueOf(percentile * 100).stripTrailingZeros().toPlainString();
+    }
+
+    // Monthly summaries of one group merged into one period
+    private static class Period {
+        // The latest month merged
+        private final YearMonth month;
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private QuantileSketch sketch;
+        private final Map<String, Long> categories = new TreeMap<>();
+
+        Period(YearMonth month) {
+            this.month = month;
+        }
+
+        void add(HistorySummary summary) {
+            if (summary.getSketch() == null) {
+                categories.merge(summary.getCategory(), summary.getValueCount(), Long::sum);
+                count += summary.getValueCount();
+                return;
+            }
+            count += summary.getValueCount();
+            sum += summary.getValueSum();
+            min = Math.min(min, summary.getMinValue());
+            max = Math.max(max, summary.getMaxValue());
+            QuantileSketch monthly = QuantileSketch.fromBytes(summary.getSketch());
+            sketch = sketch == null ? monthly : sketch.merge(monthly);
+        }
+
+        HistoryPeriod toPeriod(YearMonth period, HistoryField field, List<Double> percentiles) {
+            if (field.isCategory()) {
+                return new HistoryPeriod(period.toString(), count, null, null, null, null, categories);
+            }
+            Map<String, Double> quantiles = new LinkedHashMap<>();
+            for (double percentile : percentiles) {
+                // The sketch is 1% off at most; the exact extremes keep it within the observed range
+                double estimate = field.round(sketch.quantile(percentile));
+                quantiles.put(percentileKey(percentile), Math.max(min, Math.min(max, estimate)));
+            }
+            return new HistoryPeriod(period.toString(), count, sum / count, min, max, quantiles, null);
+        }
+    }
+}
@@ -1,19 +1,71 @@
 package dev.rohitrana.propertymap.service;
 
+import dev.rohitrana.propertymap.cache.LocationScoreQueryCache;
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.filter.EntityFilter;
+import dev.rohitrana.propertymap.filter.LocationScoreFilter;
+import dev.rohitrana.propertymap.index.LocationScoreSpatialIndex;
 import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.projection.FieldSelection;
+import dev.rohitrana.propertymap.repository.ConditionalUpdateExecutor;
 import dev.rohitrana.propertymap.repository.LocationScoreRepository;
+import dev.rohitrana.propertymap.repository.ProjectionQueryExecutor;
+import dev.rohitrana.propertymap.repository.StreamingQueryExecutor;
+import dev.rohitrana.propertymap.scoring.ScoringProfiles;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class LocationScoreService {
+    // The overall score is derived from these
+    private static final Set<String> SCORE_COMPONENTS = Set.of("performanceScore", "riskScore", "demandScore",
+            "supplyScore");
+
     private final LocationScoreRepository locationScoreRepository;
+    private final LocationScoreSpatialIndex locationScoreSpatialIndex;
+    private final StreamingQueryExecutor streamingQueryExecutor;
+    private final ProjectionQueryExecutor projectionQueryExecutor;
+    private final LocationScoreQueryCache locationScoreQueryCache;
+    private final ScoringProfiles scoringProfiles;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AsyncTaskExecutor taskExecutor;
+    private final PartialUpdater<LocationScore> locationScoreUpdater;
 
     @Autowired
-    public LocationScoreService(LocationScoreRepository locationScoreRepository) {
+    public LocationScoreService(LocationScoreRepository locationScoreRepository,
+                                LocationScoreSpatialIndex locationScoreSpatialIndex,
+                                StreamingQueryExecutor streamingQueryExecutor,
+                                ProjectionQueryExecutor projectionQueryExecutor,
+                                ConditionalUpdateExecutor conditionalUpdateExecutor,
+                                LocationScoreQueryCache locationScoreQueryCache,
+                                ScoringProfiles scoringProfiles,
+                                ApplicationEventPublisher eventPublisher,
+                                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                AsyncTaskExecutor taskExecutor) {
         this.locationScoreRepository = locationScoreRepository;
+        this.locationScoreSpatialIndex = locationScoreSpatialIndex;
+        this.streamingQueryExecutor = streamingQueryExecutor;
+        this.projectionQueryExecutor = projectionQueryExecutor;
+        this.locationScoreQueryCache = locationScoreQueryCache;
+        this.scoringProfiles = scoringProfiles;
+        this.eventPublisher = eventPublisher;
+        this.taskExecutor = taskExecutor;
+        this.locationScoreUpdater = new PartialUpdater<>(LocationScore.class, conditionalUpdateExecutor,
+                id -> locationScoreSpatialIndex.get(id), id -> locationScoreRepository.findById(id));
     }
 
     public List<LocationScore> getAllLocationScores() {
@@ -21,64 +73,193 @@ public class LocationScoreService {
     }
 
     public Optional<LocationScore> getLocationScoreById(Long id) {
-        return locationScoreRepository.findById(id);
+        return locationScoreQueryCache.byId().get(id, locationScoreRepository::findById);
     }
 
     public LocationScore saveLocationScore(LocationScore locationScore) {
-        return locationScoreRepository.save(locationScore);
+        LocationScore previous = locationScore.getId() != null
+                ? locationScoreSpatialIndex.get(locationScore.getId()).orElse(null) : null;
+        LocationScore savedLocationScore = locationScoreRepository.save(locationScore);
+        eventPublisher.publishEvent(LocationScoreChangedEvent.saved(previous, savedLocationScore));
+        return savedLocationScore;
+    }
+
+    /**
+     * Replaces every field of an existing location score, recalculating the overall score.
+     * Empty if it does not exist.
+     * @param expectedVersion version the score must still have (If-Match), or null for last writer wins
+     */
+    public Optional<LocationScore> replaceLocationScore(Long id, LocationScore locationScore, Long expectedVersion) {
+        return updateLocationScore(id, locationScoreUpdater.allFields(locationScore), expectedVersion);
+    }
+
+    // Checks the field names of a partial update and converts the values to the field types
+    public Map<String, Object> toLocationScoreChanges(Map<String, ?> fields) {
+        return locationScoreUpdater.toChanges(fields);
+    }
+
+    /**
+     * Writes only the changed fields, in one conditional UPDATE; the overall score is recalculated
+     * when a component changes. Empty if the location score does not exist.
+     * @param expectedVersion version the score must still have (If-Match), or null for last writer wins
+     */
+    public Optional<LocationScore> updateLocationScore(Long id, Map<String, Object> changes, Long expectedVersion) {
+        boolean rescore = changes.keySet().stream().anyMatch(SCORE_COMPONENTS::contains);
+        return locationScoreUpdater.update(id, changes, expectedVersion,
+                        score -> rescore ? Map.of("overallScore", calculateOverallScore(score)) : Map.of())
+                .map(written -> {
+                    eventPublisher.publishEvent(LocationScoreChangedEvent.saved(written.previous(), written.current()));
+                    return written.current();
+                });
     }
 
     public void deleteLocationScore(Long id) {
+        LocationScore previous = locationScoreSpatialIndex.get(id).orElse(null);
         locationScoreRepository.deleteById(id);
+        eventPublisher.publishEvent(LocationScoreChangedEvent.deleted(id, previous));
+    }
+
+    // Applies every provided criterion in a single query, cached per filter
+    public List<LocationScore> filterLocationScores(LocationScoreFilter filter) {
+        return locationScoreQueryCache.byFilter().get(filter, key -> {
+            EntityFilter<LocationScore> entityFilter = key.toEntityFilter();
+            List<LocationScore> locationScores = entityFilter.isEmpty()
+                    ? locationScoreRepository.findAll()
+                    : locationScoreRepository.findAll(entityFilter.toSpecification());
+            return Collections.unmodifiableList(locationScores);
+        });
+    }
+
+    // Keyset page: up to limit matching scores with an id greater than afterId, in id order
+    public List<LocationScore> getLocationScoresPage(LocationScoreFilter filter, Long afterId, int limit) {
+        EntityFilter<LocationScore> entityFilter = filter.toEntityFilter()
+                .greaterThan("id", LocationScore::getId, afterId, 1.0);
+        return locationScoreRepository.findBy(entityFilter.toSpecification(),
+                query -> query.sortBy(Sort.by("id")).limit(limit).all());
+    }
+
+    // Same rows as filterLocationScores with only the selected columns, from the cache if it holds the filter
+    public List<Map<String, Object>> filterLocationScoreFields(LocationScoreFilter filter,
+                                                               FieldSelection<LocationScore> fields) {
+        List<LocationScore> cached = locationScoreQueryCache.byFilter().getIfPresent(filter);
+        if (cached != null) {
+            return fields.project(cached);
+        }
+        return projectionQueryExecutor.select(LocationScore.class, filter.toEntityFilter().toSpecification(),
+                fields.getFields(), null);
     }
 
+    public List<Map<String, Object>> getLocationScoreFieldsPage(LocationScoreFilter filter, Long afterId, int limit,
+                                                                FieldSelection<LocationScore> fields) {
+        EntityFilter<LocationScore> entityFilter = filter.toEntityFilter()
+                .greaterThan("id", LocationScore::getId, afterId, 1.0);
+        return projectionQueryExecutor.select(LocationScore.class, entityFilter.toSpecification(),
+                fields.getFields(), limit);
+    }
+
+    // Streams every matching score in id order without holding the result set in memory
+    public long streamLocationScores(LocationScoreFilter filter, Consumer<LocationScore> consumer) {
+        return streamingQueryExecutor.stream(LocationScore.class, filter.toEntityFilter().toSpecification(), consumer);
+    }
+
+    // Single-criterion lookups go through filterLocationScores so they share its cache
     public List<LocationScore> getLocationScoresByMinOverallScore(Integer minScore) {
-        return locationScoreRepository.findByOverallScoreGreaterThanEqual(minScore);
+        LocationScoreFilter filter = new LocationScoreFilter();
+        filter.setMinOverallScore(minScore);
+        return filterLocationScores(filter);
     }
 
     public List<LocationScore> getLocationScoresByMinPerformanceScore(Integer minScore) {
-        return locationScoreRepository.findByPerformanceScoreGreaterThanEqual(minScore);
+        LocationScoreFilter filter = new LocationScoreFilter();
+        filter.setMinPerformanceScore(minScore);
+        return filterLocationScores(filter);
     }
 
     public List<LocationScore> getLocationScoresByMinRiskScore(Integer minScore) {
-        return locationScoreRepository.findByRiskScoreGreaterThanEqual(minScore);
+        LocationScoreFilter filter = new LocationScoreFilter();
+        filter.setMinRiskScore(minScore);
+        return filterLocationScores(filter);
     }
 
     public List<LocationScore> getLocationScoresByMinDemandScore(Integer minScore) {
-        return locationScoreRepository.findByDemandScoreGreaterThanEqual(minScore);
+        LocationScoreFilter filter = new LocationScoreFilter();
+        filter.setMinDemandScore(minScore);
+        return filterLocationScores(filter);
     }
 
     public List<LocationScore> getLocationScoresByMinSupplyScore(Integer minScore) {
-        return locationScoreRepository.findBySupplyScoreGreaterThanEqual(minScore);
+        LocationScoreFilter filter = new LocationScoreFilter();
+        filter.setMinSupplyScore(minScore);
+        return filterLocationScores(filter);
     }
 
     public List<LocationScore> getLocationScoresInBounds(Double southLat, Double northLat, Double westLng, Double eastLng) {
+        // Answer from memory once the index has been warmed up
+        if (locationScoreSpatialIndex.isLoaded()) {
+            return locationScoreSpatialIndex.findInBounds(southLat, northLat, westLng, eastLng);
+        }
         return locationScoreRepository.findLocationScoresInBounds(southLat, northLat, westLng, eastLng);
     }
 
-    public List<LocationScore> getLocationScoresByMinCapRate(Double minCapRate) {
-        return locationScoreRepository.findByMinimumCapRate(minCapRate);
+    public CompletableFuture<List<LocationScore>> getLocationScoresInBoundsAsync(Double southLat, Double northLat,
+                                                                                 Double westLng, Double eastLng) {
+        return getLocationScoresInBoundsAsync(southLat, northLat, westLng, eastLng, new LocationScoreFilter());
     }
 
-    public List<LocationScore> getLocationScoresByMinAppreciation(Double minAppreciation) {
-        return locationScoreRepository.findByMinimumAppreciation(minAppreciation);
+    // Queries on the task executor (virtual threads when enabled), an index hit completes right away
+    public CompletableFuture<List<LocationScore>> getLocationScoresInBoundsAsync(Double southLat, Double northLat,
+                                                                                 Double westLng, Double eastLng,
+                                                                                 LocationScoreFilter filter) {
+        EntityFilter<LocationScore> entityFilter = filter.toEntityFilter();
+        if (locationScoreSpatialIndex.isLoaded()) {
+            List<LocationScore> inBounds = locationScoreSpatialIndex.findInBounds(southLat, northLat, westLng, eastLng);
+            return CompletableFuture.completedFuture(entityFilter.isEmpty()
+                    ? inBounds : inBounds.stream().filter(entityFilter.toPredicate()).collect(Collectors.toList()));
+        }
+        if (entityFilter.isEmpty()) {
+            return CompletableFuture.supplyAsync(
+                    () -> locationScoreRepository.findLocationScoresInBounds(southLat, northLat, westLng, eastLng), taskExecutor);
+        }
+        Specification<LocationScore> bounded = entityFilter
+                .atLeast("latitude", LocationScore::getLatitude, southLat, 0.5)
+                .atMost("latitude", LocationScore::getLatitude, northLat, 0.5)
+                .atLeast("longitude", LocationScore::getLongitude, westLng, 0.5)
+                .atMost("longitude", LocationScore::getLongitude, eastLng, 0.5)
+                .toSpecification();
+        return CompletableFuture.supplyAsync(() -> locationScoreRepository.findAll(bounded), taskExecutor);
     }
 
-    // Calculate overall score based on individual scores
-    public int calculateOverallScore(LocationScore locationScore) {
-        int performanceWeight = 3;
-        int riskWeight = 2;
-        int demandWeight = 2;
-        int supplyWeight = 1;
+    public List<Map<String, Object>> getLocationScoreFieldsInBounds(Double southLat, Double northLat, Double westLng,
+                                                                    Double eastLng, FieldSelection<LocationScore> fields) {
+        if (locationScoreSpatialIndex.isLoaded()) {
+            return fields.project(locationScoreSpatialIndex.findInBounds(southLat, northLat, westLng, eastLng));
+        }
+        EntityFilter<LocationScore> bounds = new EntityFilter<LocationScore>()
+                .atLeast("latitude", LocationScore::getLatitude, southLat, 0.5)
+                .atMost("latitude", LocationScore::getLatitude, northLat, 0.5)
+                .atLeast("longitude", LocationScore::getLongitude, westLng, 0.5)
+                .atMost("longitude", LocationScore::getLongitude, eastLng, 0.5);
+        return projectionQueryExecutor.select(LocationScore.class, bounds.toSpecification(), fields.getFields(), null);
+    }
 
-        int weightedSum =
-                (locationScore.getPerformanceScore() * performanceWeight) +
-                        (locationScore.getRiskScore() * riskWeight) +
-                        (locationScore.getDemandScore() * demandWeight) +
-                        (locationScore.getSupplyScore() * supplyWeight);
+    public List<LocationScore> getLocationScoresByMinCapRate(Double minCapRate) {
+        LocationScoreFilter filter = new LocationScoreFilter();
+        filter.setMinCapRate(minCapRate);
+        return filterLocationScores(filter);
+    }
 
-        int totalWeight = performanceWeight + riskWeight + demandWeight + supplyWeight;
+    public List<LocationScore> getLocationScoresByMinAppreciation(Double minAppreciation) {
+        LocationScoreFilter filter = new LocationScoreFilter();
+        filter.setMinAppreciation(minAppreciation);
+        return filterLocationScores(filter);
+    }
 
-        return weightedSum / totalWeight;
+    // Calculate overall score based on individual scores, weighted by the active scoring profile
+    public int calculateOverallScore(LocationScore locationScore) {
+        return scoringProfiles.getActiveWeights().score(
+                locationScore.getPerformanceScore(),
+                locationScore.getRiskScore(),
+                locationScore.getDemandScore(),
+                locationScore.getSupplyScore());
     }
 }
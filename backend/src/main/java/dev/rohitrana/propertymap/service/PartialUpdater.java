@@ -0,0 +1,134 @@
+package dev.rohitrana.propertymap.service;
+
+import dev.rohitrana.propertymap.repository.ConditionalUpdateExecutor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.beans.PropertyDescriptor;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Updates of a versioned entity as one conditional UPDATE of only the changed columns.
+ * The state the update is based on comes from memory when available, so the usual update is a
+ * single round trip; if that copy turns out to be stale the UPDATE misses, and the row is read
+ * from the database and the update tried again.
+ */
+class PartialUpdater<T> {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Set<String> READ_ONLY = Set.of("class", "id", "version", "createdAt", "updatedAt");
+
+    // The state before and after a successful update
+    record Written<T>(T previous, T current) {
+    }
+
+    private final Class<T> type;
+    private final ConditionalUpdateExecutor conditionalUpdateExecutor;
+    private final Function<Long, Optional<T>> cached;
+    private final Function<Long, Optional<T>> stored;
+
+    PartialUpdater(Class<T> type, ConditionalUpdateExecutor conditionalUpdateExecutor,
+                   Function<Long, Optional<T>> cached, Function<Long, Optional<T>> stored) {
+        this.type = type;
+        this.conditionalUpdateExecutor = conditionalUpdateExecutor;
+        this.cached = cached;
+        this.stored = stored;
+    }
+
+    /**
+     * Checks the field names and converts the values to the field types, e.g. a JSON number to BigDecimal.
+     */
+    Map<String, Object> toChanges(Map<String, ?> fields) {
+        BeanWrapper target = PropertyAccessorFactory.forBeanPropertyAccess(BeanUtils.instantiateClass(type));
+        Map<String, Object> changes = new LinkedHashMap<>();
+        fields.forEach((name, value) -> {
+            if (READ_ONLY.contains(name) || !target.isWritableProperty(name)) {
+                throw new IllegalArgumentException("Unknown or read-only field: " + name);
+            }
+            try {
+                target.setPropertyValue(name, value);
+            } catch (BeansException e) {
+                throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+            }
+            changes.put(name, target.getPropertyValue(name));
+        });
+        return changes;
+    }
+
+    // Every writable field, for replacing the whole entity
+    Map<String, Object> allFields(T entity) {
+        BeanWrapper source = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (PropertyDescriptor descriptor : source.getPropertyDescriptors()) {
+            String name = descriptor.getName();
+            if (!READ_ONLY.contains(name) && source.isWritableProperty(name)) {
+                changes.put(name, source.getPropertyValue(name));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @param expectedVersion version the entity must still have, or null to update whatever is current
+     * @param derive changes following from the updated state, e.g. a recalculated score; may be empty
+     * @return empty if the entity does not exist
+     * @throws OptimisticLockingFailureException if the entity has another version than expected
+     */
+    Optional<Written<T>> update(Long id, Map<String, Object> changes, Long expectedVersion,
+                                Function<T, Map<String, Object>> derive) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            boolean fromMemory = attempt == 0;
+            Optional<T> found = fromMemory ? cached.apply(id) : Optional.empty();
+            if (found.isEmpty()) {
+                fromMemory = false;
+                found = stored.apply(id);
+                if (found.isEmpty()) {
+                    return Optional.empty();
+                }
+            }
+            T previous = found.get();
+            long version = versionOf(previous);
+            if (expectedVersion != null && expectedVersion != version) {
+                if (fromMemory) {
+                    // The copy in memory may lag behind; only the database can tell
+                    continue;
+                }
+                throw new OptimisticLockingFailureException(
+                        type.getSimpleName() + " " + id + " has version " + version + ", not " + expectedVersion);
+            }
+
+            T current = BeanUtils.instantiateClass(type);
+            BeanUtils.copyProperties(previous, current);
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(current);
+            Map<String, Object> values = new LinkedHashMap<>(changes);
+            values.forEach(wrapper::setPropertyValue);
+            Map<String, Object> derived = derive.apply(current);
+            derived.forEach(wrapper::setPropertyValue);
+            values.putAll(derived);
+            // Same precision as the database column, so the in-memory copy matches the stored row
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            values.put("updatedAt", now);
+
+            if (conditionalUpdateExecutor.update(type, id, version, values)) {
+                wrapper.setPropertyValue("updatedAt", now);
+                wrapper.setPropertyValue("version", version + 1);
+                return Optional.of(new Written<>(previous, current));
+            }
+        }
+        throw new OptimisticLockingFailureException(
+                type.getSimpleName() + " " + id + " kept changing, update abandoned");
+    }
+
+    private static long versionOf(Object entity) {
+        Object version = PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue("version");
+        return version == null ? 0 : (Long) version;
+    }
+}
@@ -0,0 +1,96 @@
+package dev.rohitrana.propertymap.service;
+
+import dev.rohitrana.propertymap.dto.GeoBounds;
+import dev.rohitrana.propertymap.dto.PropertyWithScore;
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.index.GeoDistance;
+import dev.rohitrana.propertymap.index.PropertyScoreJoin;
+import dev.rohitrana.propertymap.index.SpatialGridIndex;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Property queries with the location score metrics around each property attached.
+ * Once the indexes are warm the join runs against them; before that, the location scores around
+ * the result are read in one bounds query and joined through a temporary grid.
+ */
+@Service
+public class PropertyScoreService {
+    private final PropertyService propertyService;
+    private final LocationScoreService locationScoreService;
+    private final PropertyScoreJoin propertyScoreJoin;
+    private final double cellSize;
+
+    @Autowired
+    public PropertyScoreService(PropertyService propertyService, LocationScoreService locationScoreService,
+                                PropertyScoreJoin propertyScoreJoin,
+                                @Value("${propertymap.index.cell-size-degrees:0.01}") double cellSize) {
+        this.propertyService = propertyService;
+        this.locationScoreService = locationScoreService;
+        this.propertyScoreJoin = propertyScoreJoin;
+        this.cellSize = cellSize;
+    }
+
+    public Optional<PropertyWithScore> getPropertyById(Long id, PropertyScoreJoin.Mode mode) {
+        return propertyService.getPropertyById(id).map(property -> withScores(List.of(property), mode).get(0));
+    }
+
+    public List<PropertyWithScore> filterProperties(PropertyFilter filter, PropertyScoreJoin.Mode mode) {
+        return withScores(propertyService.filterProperties(filter), mode);
+    }
+
+    public CompletableFuture<List<PropertyWithScore>> getPropertiesInBoundsAsync(Double southLat, Double northLat,
+                                                                               Double westLng, Double eastLng,
+                                                                               PropertyScoreJoin.Mode mode) {
+        return propertyService.getPropertiesInBoundsAsync(southLat, northLat, westLng, eastLng)
+                .thenApply(properties -> withScores(properties, mode));
+    }
+
+    public List<PropertyWithScore> withScores(List<Property> properties, PropertyScoreJoin.Mode mode) {
+        if (propertyScoreJoin.isAvailable()) {
+            return propertyScoreJoin.join(properties, mode);
+        }
+        SpatialGridIndex<LocationScore> scores = new SpatialGridIndex<>(cellSize, LocationScore::getId,
+                LocationScore::getLatitude, LocationScore::getLongitude);
+        GeoBounds around = boundsAround(properties);
+        if (around != null) {
+            scores.replaceAll(locationScoreService.getLocationScoresInBounds(around.southLat(), around.northLat(),
+                    around.westLng(), around.eastLng()), scores.modCount());
+        }
+        return propertyScoreJoin.join(properties, mode,
+                (lat, lng, limit, maxDistanceKm) -> scores.findNearest(lat, lng, limit, maxDistanceKm, score -> true));
+    }
+
+    // Bounds of the properties, widened by the join distance; null if none has coordinates
+    private GeoBounds boundsAround(List<Property> properties) {
+        double south = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY;
+        double east = Double.NEGATIVE_INFINITY;
+        for (Property property : properties) {
+            if (property.getLatitude() != null && property.getLongitude() != null) {
+                south = Math.min(south, property.getLatitude());
+                north = Math.max(north, property.getLatitude());
+                west = Math.min(west, property.getLongitude());
+                east = Math.max(east, property.getLongitude());
+            }
+        }
+        if (south > north) {
+            return null;
+        }
+        double radiusKm = propertyScoreJoin.getMaxDistanceKm();
+        // Longitude margins are widest on the edge closest to a pole
+        double poleward = Math.abs(south) > Math.abs(north) ? south : north;
+        return new GeoBounds(GeoDistance.boundsAround(south, west, radiusKm).southLat(),
+                GeoDistance.boundsAround(north, east, radiusKm).northLat(),
+                GeoDistance.boundsAround(poleward, west, radiusKm).westLng(),
+                GeoDistance.boundsAround(poleward, east, radiusKm).eastLng());
+    }
+}
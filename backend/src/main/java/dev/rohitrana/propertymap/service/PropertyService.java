@@ -1,20 +1,77 @@
 package dev.rohitrana.propertymap.service;
 
+import dev.rohitrana.propertymap.analytics.PropertySimilarity;
+import dev.rohitrana.propertymap.cache.PropertyQueryCache;
+import dev.rohitrana.propertymap.dto.GeoBounds;
+import dev.rohitrana.propertymap.dto.NearbyProperty;
+import dev.rohitrana.propertymap.dto.PropertyCluster;
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.filter.EntityFilter;
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.index.GeoDistance;
+import dev.rohitrana.propertymap.index.Neighbour;
+import dev.rohitrana.propertymap.index.PropertyClusterGrid;
+import dev.rohitrana.propertymap.index.PropertySpatialIndex;
 import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.projection.FieldSelection;
+import dev.rohitrana.propertymap.repository.ConditionalUpdateExecutor;
+import dev.rohitrana.propertymap.repository.ProjectionQueryExecutor;
 import dev.rohitrana.propertymap.repository.PropertyRepository;
+import dev.rohitrana.propertymap.repository.StreamingQueryExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 public class PropertyService {
+    public static final double MAX_SEARCH_RADIUS_KM = 100;
+    public static final int MAX_SEARCH_RESULTS = 1000;
+
     private final PropertyRepository propertyRepository;
+    private final PropertySpatialIndex propertySpatialIndex;
+    private final PropertyClusterGrid propertyClusterGrid;
+    private final StreamingQueryExecutor streamingQueryExecutor;
+    private final ProjectionQueryExecutor projectionQueryExecutor;
+    private final PropertyQueryCache propertyQueryCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AsyncTaskExecutor taskExecutor;
+    private final PartialUpdater<Property> propertyUpdater;
 
     @Autowired
-    public PropertyService(PropertyRepository propertyRepository) {
+    public PropertyService(PropertyRepository propertyRepository, PropertySpatialIndex propertySpatialIndex,
+                           PropertyClusterGrid propertyClusterGrid, StreamingQueryExecutor streamingQueryExecutor,
+                           ProjectionQueryExecutor projectionQueryExecutor,
+                           ConditionalUpdateExecutor conditionalUpdateExecutor,
+                           PropertyQueryCache propertyQueryCache, ApplicationEventPublisher eventPublisher,
+                           @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                           AsyncTaskExecutor taskExecutor) {
         this.propertyRepository = propertyRepository;
+        this.propertySpatialIndex = propertySpatialIndex;
+        this.propertyClusterGrid = propertyClusterGrid;
+        this.streamingQueryExecutor = streamingQueryExecutor;
+        this.projectionQueryExecutor = projectionQueryExecutor;
+        this.propertyQueryCache = propertyQueryCache;
+        this.eventPublisher = eventPublisher;
+        this.taskExecutor = taskExecutor;
+        this.propertyUpdater = new PartialUpdater<>(Property.class, conditionalUpdateExecutor,
+                id -> propertySpatialIndex.get(id), id -> propertyRepository.findById(id));
     }
 
     public List<Property> getAllProperties() {
@@ -22,55 +79,304 @@ public class PropertyService {
     }
 
     public Optional<Property> getPropertyById(Long id) {
-        return propertyRepository.findById(id);
+        return propertyQueryCache.byId().get(id, propertyRepository::findById);
+    }
+
+    // Properties with the given ids, in id order; unknown ids are skipped
+    public List<Property> getPropertiesByIds(Collection<Long> ids) {
+        if (propertySpatialIndex.isLoaded()) {
+            return ids.stream().distinct().sorted()
+                    .map(propertySpatialIndex::get)
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toList());
+        }
+        return propertyRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Property::getId))
+                .collect(Collectors.toList());
     }
 
     public Property saveProperty(Property property) {
-        return propertyRepository.save(property);
+        Property previous = property.getId() != null ? propertySpatialIndex.get(property.getId()).orElse(null) : null;
+        Property savedProperty = propertyRepository.save(property);
+        eventPublisher.publishEvent(PropertyChangedEvent.saved(previous, savedProperty));
+        return savedProperty;
+    }
+
+    /**
+     * Replaces every field of an existing property. Empty if it does not exist.
+     * @param expectedVersion version the property must still have (If-Match), or null for last writer wins
+     */
+    public Optional<Property> replaceProperty(Long id, Property property, Long expectedVersion) {
+        return updateProperty(id, propertyUpdater.allFields(property), expectedVersion);
+    }
+
+    // Checks the field names of a partial update and converts the values to the field types
+    public Map<String, Object> toPropertyChanges(Map<String, ?> fields) {
+        return propertyUpdater.toChanges(fields);
+    }
+
+    /**
+     * Writes only the changed fields, in one conditional UPDATE. Empty if the property does not exist.
+     * @param expectedVersion version the property must still have (If-Match), or null for last writer wins
+     */
+    public Optional<Property> updateProperty(Long id, Map<String, Object> changes, Long expectedVersion) {
+        return propertyUpdater.update(id, changes, expectedVersion, property -> Map.of()).map(written -> {
+            eventPublisher.publishEvent(PropertyChangedEvent.saved(written.previous(), written.current()));
+            return written.current();
+        });
     }
 
     public void deleteProperty(Long id) {
+        Property previous = propertySpatialIndex.get(id).orElse(null);
         propertyRepository.deleteById(id);
+        eventPublisher.publishEvent(PropertyChangedEvent.deleted(id, previous));
+    }
+
+    // Applies every provided criterion in a single query, cached per filter
+    public List<Property> filterProperties(PropertyFilter filter) {
+        return propertyQueryCache.byFilter().get(filter, key -> {
+            EntityFilter<Property> entityFilter = key.toEntityFilter();
+            List<Property> properties = entityFilter.isEmpty()
+                    ? propertyRepository.findAll()
+                    : propertyRepository.findAll(entityFilter.toSpecification());
+            return Collections.unmodifiableList(properties);
+        });
+    }
+
+    // Keyset page: up to limit matching properties with an id greater than afterId, in id order
+    public List<Property> getPropertiesPage(PropertyFilter filter, Long afterId, int limit) {
+        EntityFilter<Property> entityFilter = filter.toEntityFilter().greaterThan("id", Property::getId, afterId, 1.0);
+        return propertyRepository.findBy(entityFilter.toSpecification(),
+                query -> query.sortBy(Sort.by("id")).limit(limit).all());
     }
 
+    // Same rows as filterProperties with only the selected columns, from the cache if it holds the filter
+    public List<Map<String, Object>> filterPropertyFields(PropertyFilter filter, FieldSelection<Property> fields) {
+        List<Property> cached = propertyQueryCache.byFilter().getIfPresent(filter);
+        if (cached != null) {
+            return fields.project(cached);
+        }
+        return projectionQueryExecutor.select(Property.class, filter.toEntityFilter().toSpecification(),
+                fields.getFields(), null);
+    }
+
+    public List<Map<String, Object>> getPropertyFieldsPage(PropertyFilter filter, Long afterId, int limit,
+                                                           FieldSelection<Property> fields) {
+        EntityFilter<Property> entityFilter = filter.toEntityFilter().greaterThan("id", Property::getId, afterId, 1.0);
+        return projectionQueryExecutor.select(Property.class, entityFilter.toSpecification(), fields.getFields(), limit);
+    }
+
+    // Streams every matching property in id order without holding the result set in memory
+    public long streamProperties(PropertyFilter filter, Consumer<Property> consumer) {
+        return streamingQueryExecutor.stream(Property.class, filter.toEntityFilter().toSpecification(), consumer);
+    }
+
+    // Single-criterion lookups go through filterProperties so they share its cache
     public List<Property> getPropertiesByCity(String city) {
-        return propertyRepository.findByCity(city);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setCity(city);
+        return filterProperties(filter);
     }
 
     public List<Property> getPropertiesByStatus(String status) {
-        return propertyRepository.findByStatus(status);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setStatus(status);
+        return filterProperties(filter);
     }
 
     public List<Property> getPropertiesByMinBedrooms(Integer minBedrooms) {
-        return propertyRepository.findByBedroomsGreaterThanEqual(minBedrooms);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setMinBedrooms(minBedrooms);
+        return filterProperties(filter);
     }
 
     public List<Property> getPropertiesByMinBathrooms(Integer minBathrooms) {
-        return propertyRepository.findByBathroomsGreaterThanEqual(minBathrooms);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setMinBathrooms(minBathrooms);
+        return filterProperties(filter);
     }
 
     public List<Property> getPropertiesBySquareFeetRange(Integer minSqFt, Integer maxSqFt) {
-        return propertyRepository.findBySquareFeetBetween(minSqFt, maxSqFt);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setMinSqFt(minSqFt);
+        filter.setMaxSqFt(maxSqFt);
+        return filterProperties(filter);
     }
 
     public List<Property> getPropertiesByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return propertyRepository.findByListPriceBetween(minPrice, maxPrice);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+        return filterProperties(filter);
     }
 
     public List<Property> getPropertiesByZipCode(String zipCode) {
-        return propertyRepository.findByZipCode(zipCode);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setZipCode(zipCode);
+        return filterProperties(filter);
     }
 
     public List<Property> getPropertiesByMinYearBuilt(Integer yearBuilt) {
-        return propertyRepository.findByYearBuiltGreaterThanEqual(yearBuilt);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setMinYearBuilt(yearBuilt);
+        return filterProperties(filter);
     }
 
     public List<Property> getPropertiesInBounds(Double southLat, Double northLat, Double westLng, Double eastLng) {
+        // Answer from memory once the index has been warmed up
+        if (propertySpatialIndex.isLoaded()) {
+            return propertySpatialIndex.findInBounds(southLat, northLat, westLng, eastLng);
+        }
         return propertyRepository.findPropertiesInBounds(southLat, northLat, westLng, eastLng);
     }
 
+    public CompletableFuture<List<Property>> getPropertiesInBoundsAsync(Double southLat, Double northLat,
+                                                                        Double westLng, Double eastLng) {
+        return getPropertiesInBoundsAsync(southLat, northLat, westLng, eastLng, new PropertyFilter());
+    }
+
+    // Queries on the task executor (virtual threads when enabled), an index hit completes right away
+    public CompletableFuture<List<Property>> getPropertiesInBoundsAsync(Double southLat, Double northLat,
+                                                                        Double westLng, Double eastLng,
+                                                                        PropertyFilter filter) {
+        EntityFilter<Property> entityFilter = filter.toEntityFilter();
+        if (propertySpatialIndex.isLoaded()) {
+            List<Property> inBounds = propertySpatialIndex.findInBounds(southLat, northLat, westLng, eastLng);
+            return CompletableFuture.completedFuture(entityFilter.isEmpty()
+                    ? inBounds : inBounds.stream().filter(entityFilter.toPredicate()).collect(Collectors.toList()));
+        }
+        if (entityFilter.isEmpty()) {
+            return CompletableFuture.supplyAsync(
+                    () -> propertyRepository.findPropertiesInBounds(southLat, northLat, westLng, eastLng), taskExecutor);
+        }
+        Specification<Property> bounded = entityFilter
+                .atLeast("latitude", Property::getLatitude, southLat, 0.5)
+                .atMost("latitude", Property::getLatitude, northLat, 0.5)
+                .atLeast("longitude", Property::getLongitude, westLng, 0.5)
+                .atMost("longitude", Property::getLongitude, eastLng, 0.5)
+                .toSpecification();
+        return CompletableFuture.supplyAsync(() -> propertyRepository.findAll(bounded), taskExecutor);
+    }
+
+    public List<Map<String, Object>> getPropertyFieldsInBounds(Double southLat, Double northLat, Double westLng,
+                                                               Double eastLng, FieldSelection<Property> fields) {
+        if (propertySpatialIndex.isLoaded()) {
+            return fields.project(propertySpatialIndex.findInBounds(southLat, northLat, westLng, eastLng));
+        }
+        EntityFilter<Property> bounds = new EntityFilter<Property>()
+                .atLeast("latitude", Property::getLatitude, southLat, 0.5)
+                .atMost("latitude", Property::getLatitude, northLat, 0.5)
+                .atLeast("longitude", Property::getLongitude, westLng, 0.5)
+                .atMost("longitude", Property::getLongitude, eastLng, 0.5);
+        return projectionQueryExecutor.select(Property.class, bounds.toSpecification(), fields.getFields(), null);
+    }
+
+    /**
+     * The properties matching the filter closest to the point, at most maxDistanceKm away (or
+     * {@link #MAX_SEARCH_RADIUS_KM} when not given), closest first.
+     */
+    public List<NearbyProperty> findNearestProperties(double lat, double lng, int limit, Double maxDistanceKm,
+                                                      PropertyFilter filter) {
+        double radiusKm = maxDistanceKm != null ? maxDistanceKm : MAX_SEARCH_RADIUS_KM;
+        checkSearch(lat, lng, radiusKm, limit);
+        return findNearby(lat, lng, limit, radiusKm, filter.toEntityFilter()).stream()
+                .map(neighbour -> new NearbyProperty(neighbour.entity(), neighbour.distanceKm(), null))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Every property matching the filter within the radius. Closest first, or most similar first
+     * when the subject has any of bedrooms, bathrooms, square feet or year built set.
+     */
+    public List<NearbyProperty> findPropertiesWithinRadius(double lat, double lng, double radiusKm, int limit,
+                                                           Property subject, PropertyFilter filter) {
+        checkSearch(lat, lng, radiusKm, limit);
+        if (!PropertySimilarity.hasAttributes(subject)) {
+            return findNearestProperties(lat, lng, limit, radiusKm, filter);
+        }
+        return rankBySimilarity(findNearby(lat, lng, Integer.MAX_VALUE, radiusKm, filter.toEntityFilter()),
+                subject, limit);
+    }
+
+    /**
+     * Comparables of a property: the properties matching the filter within the radius of it,
+     * most similar first. Empty if the property does not exist or has no coordinates.
+     */
+    public Optional<List<NearbyProperty>> findComparableProperties(Long id, double radiusKm, int limit,
+                                                                   PropertyFilter filter) {
+        Optional<Property> found = getPropertyById(id);
+        if (found.isEmpty() || found.get().getLatitude() == null || found.get().getLongitude() == null) {
+            return Optional.empty();
+        }
+        Property subject = found.get();
+        checkSearch(subject.getLatitude(), subject.getLongitude(), radiusKm, limit);
+        EntityFilter<Property> others = filter.toEntityFilter();
+        List<Neighbour<Property>> nearby = findNearby(subject.getLatitude(), subject.getLongitude(), Integer.MAX_VALUE,
+                radiusKm, others);
+        nearby.removeIf(neighbour -> id.equals(neighbour.entity().getId()));
+        return Optional.of(rankBySimilarity(nearby, subject, limit));
+    }
+
+    private List<Neighbour<Property>> findNearby(double lat, double lng, int limit, double radiusKm,
+                                                 EntityFilter<Property> filter) {
+        Predicate<Property> predicate = filter.toPredicate();
+        if (propertySpatialIndex.isLoaded()) {
+            return propertySpatialIndex.findNearest(lat, lng, limit, radiusKm, predicate);
+        }
+        // Cold index: the database narrows down to the enclosing rectangle, distances are computed here
+        GeoBounds bounds = GeoDistance.boundsAround(lat, lng, radiusKm);
+        Specification<Property> bounded = filter
+                .atLeast("latitude", Property::getLatitude, bounds.southLat(), 0.5)
+                .atMost("latitude", Property::getLatitude, bounds.northLat(), 0.5)
+                .atLeast("longitude", Property::getLongitude, bounds.westLng(), 0.5)
+                .atMost("longitude", Property::getLongitude, bounds.eastLng(), 0.5)
+                .toSpecification();
+        List<Neighbour<Property>> nearby = new ArrayList<>();
+        for (Property property : propertyRepository.findAll(bounded)) {
+            double distance = GeoDistance.haversineKm(lat, lng, property.getLatitude(), property.getLongitude());
+            if (distance <= radiusKm) {
+                nearby.add(new Neighbour<>(property, distance));
+            }
+        }
+        nearby.sort(Comparator.comparingDouble(Neighbour::distanceKm));
+        return nearby.size() > limit ? new ArrayList<>(nearby.subList(0, limit)) : nearby;
+    }
+
+    private static List<NearbyProperty> rankBySimilarity(List<Neighbour<Property>> nearby, Property subject, int limit) {
+        return nearby.stream()
+                .map(neighbour -> new NearbyProperty(neighbour.entity(), neighbour.distanceKm(),
+                        PropertySimilarity.score(subject, neighbour.entity())))
+                .sorted(Comparator.comparing(NearbyProperty::getSimilarity).reversed()
+                        .thenComparingDouble(NearbyProperty::getDistanceKm))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static void checkSearch(double lat, double lng, double radiusKm, int limit) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+        if (!(radiusKm > 0) || radiusKm > MAX_SEARCH_RADIUS_KM) {
+            throw new IllegalArgumentException("Radius must be between 0 and " + MAX_SEARCH_RADIUS_KM + " km");
+        }
+        if (limit <= 0 || limit > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+    }
+
+    public List<PropertyCluster> getPropertyClusters(Double southLat, Double northLat, Double westLng, Double eastLng,
+                                                     Integer zoom) {
+        if (propertyClusterGrid.isAvailable()) {
+            return propertyClusterGrid.findClusters(southLat, northLat, westLng, eastLng, zoom);
+        }
+        return propertyClusterGrid.aggregate(
+                propertyRepository.findPropertiesInBounds(southLat, northLat, westLng, eastLng), zoom);
+    }
+
     public List<Property> getPropertiesByMinCapRate(BigDecimal minCapRate) {
-        return propertyRepository.findByMinimumCapRate(minCapRate);
+        PropertyFilter filter = new PropertyFilter();
+        filter.setMinCapRate(minCapRate);
+        return filterProperties(filter);
     }
 
     // Calculate investment metrics for a property
@@ -0,0 +1,70 @@
+package dev.rohitrana.propertymap.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind for frequent partial updates of the same properties, e.g. price feed ticks.
+ * Changes are merged in memory per property, a later value of a field replacing the earlier one,
+ * and each property with pending changes is written once per interval as one partial update.
+ * Changes still pending when the application stops are written on shutdown.
+ */
+@Service
+@Slf4j
+public class PropertyWriteBehind {
+    private final PropertyService propertyService;
+    private final Map<Long, Map<String, Object>> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PropertyWriteBehind(PropertyService propertyService) {
+        this.propertyService = propertyService;
+    }
+
+    /**
+     * Queues changes already checked by {@link PropertyService#toPropertyChanges}.
+     */
+    public void enqueue(Long id, Map<String, Object> changes) {
+        pending.merge(id, new LinkedHashMap<>(changes), (queued, latest) -> {
+            queued.putAll(latest);
+            return queued;
+        });
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${propertymap.write-behind.interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        for (Long id : pending.keySet()) {
+            // Removed before writing, so changes arriving meanwhile are queued for the next flush
+            Map<String, Object> changes = pending.remove(id);
+            if (changes == null) {
+                continue;
+            }
+            try {
+                if (propertyService.updateProperty(id, changes, null).isEmpty()) {
+                    log.debug("Dropped queued changes of deleted property {}", id);
+                }
+            } catch (TransientDataAccessException e) {
+                // Retried with the next flush, under any changes queued since
+                pending.merge(id, changes, (latest, failed) -> {
+                    failed.putAll(latest);
+                    return failed;
+                });
+                log.warn("Write-behind update of property {} failed, retrying: {}", id, e.getMessage());
+            } catch (RuntimeException e) {
+                log.warn("Write-behind update of property {} failed, changes dropped: {}", id, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package dev.rohitrana.propertymap.service;
+
+import dev.rohitrana.propertymap.dto.RescoreResult;
+import dev.rohitrana.propertymap.dto.ScoredLocation;
+import dev.rohitrana.propertymap.event.LocationScoreChangedEvent;
+import dev.rohitrana.propertymap.index.LocationScoreSpatialIndex;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.ScoringState;
+import dev.rohitrana.propertymap.repository.LocationScoreRepository;
+import dev.rohitrana.propertymap.repository.ScoringStateRepository;
+import dev.rohitrana.propertymap.scoring.ScoreSnapshot;
+import dev.rohitrana.propertymap.scoring.ScoreWeights;
+import dev.rohitrana.propertymap.scoring.ScoringProfiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Computes overall scores for whole tables at once.
+ * What-if scores for any weight profile are computed from a primitive-array snapshot of the
+ * in-memory index, without touching the database. A rescore reads the components from the
+ * database, scores them in parallel and writes back only the scores that changed, in JDBC batches.
+ * The profile of the last rescore is stored and made active again on startup, since the stored
+ * scores follow it rather than the configured one.
+ */
+@Service
+@Slf4j
+public class ScoringService implements ApplicationRunner {
+    private static final String SCORED_TABLE = "location_scores";
+    private static final String SELECT_COMPONENTS = "SELECT id, latitude, longitude, performance_score, " +
+            "risk_score, demand_score, supply_score, overall_score FROM location_scores";
+    // Matching on the components skips rows that were re-scored by a concurrent save
+    private static final String UPDATE_SCORE = "UPDATE location_scores SET overall_score = ?, updated_at = ?, " +
+            "version = version + 1 " +
+            "WHERE id = ? AND performance_score = ? AND risk_score = ? AND demand_score = ? AND supply_score = ?";
+
+    private final LocationScoreRepository locationScoreRepository;
+    private final LocationScoreSpatialIndex locationScoreSpatialIndex;
+    private final ScoringProfiles scoringProfiles;
+    private final ScoringStateRepository scoringStateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final ReentrantLock rescoreLock = new ReentrantLock();
+
+    private ScoreSnapshot snapshot;
+    private long snapshotModCount = -1;
+
+    @Autowired
+    public ScoringService(LocationScoreRepository locationScoreRepository,
+                          LocationScoreSpatialIndex locationScoreSpatialIndex,
+                          ScoringProfiles scoringProfiles,
+                          ScoringStateRepository scoringStateRepository,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${propertymap.scoring.batch-size:1000}") int batchSize) {
+        this.locationScoreRepository = locationScoreRepository;
+        this.locationScoreSpatialIndex = locationScoreSpatialIndex;
+        this.scoringProfiles = scoringProfiles;
+        this.scoringStateRepository = scoringStateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        scoringStateRepository.findById(SCORED_TABLE).ifPresent(state -> {
+            String stored = state.getActiveProfile();
+            if (stored.equals(scoringProfiles.getActiveProfile())) {
+                return;
+            }
+            if (!scoringProfiles.getAvailableProfiles().containsKey(stored)) {
+                log.warn("Stored scores were computed with profile {}, which is no longer configured; " +
+                        "keeping {} until the next rescore", stored, scoringProfiles.getActiveProfile());
+                return;
+            }
+            scoringProfiles.activate(stored);
+            log.info("Scoring with profile {}, the one of the last rescore", stored);
+        });
+    }
+
+    /**
+     * Scores every location with the given weights. Bounds are optional; locations without
+     * coordinates are only returned when no bounds are given.
+     */
+    public List<ScoredLocation> scoreLocations(ScoreWeights weights, Double southLat, Double northLat,
+                                               Double westLng, Double eastLng, Integer minScore) {
+        ScoreSnapshot current = currentSnapshot();
+        int[] scores = current.score(weights, ForkJoinPool.commonPool());
+        boolean bounded = southLat != null && northLat != null && westLng != null && eastLng != null;
+
+        List<ScoredLocation> result = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            if (scores[i] == ScoreSnapshot.UNSCORED || (minScore != null && scores[i] < minScore)) {
+                continue;
+            }
+            double lat = current.latitude(i);
+            double lng = current.longitude(i);
+            // NaN coordinates fail every comparison, so unplaced locations drop out of bounded queries
+            if (bounded && !(lat >= southLat && lat <= northLat && lng >= westLng && lng <= eastLng)) {
+                continue;
+            }
+            result.add(new ScoredLocation(current.id(i), Double.isNaN(lat) ? null : lat, Double.isNaN(lng) ? null : lng,
+                    current.overall(i) == ScoreSnapshot.UNSCORED ? null : current.overall(i), scores[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Makes the profile the active one and brings every stored overall score in line with it.
+     */
+    public RescoreResult rescore(String profile) {
+        if (!rescoreLock.tryLock()) {
+            throw new IllegalStateException("A rescore is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            // Activate first so saves racing with the rescore already use the new weights
+            ScoreWeights weights = scoringProfiles.activate(profile);
+            scoringStateRepository.save(new ScoringState(SCORED_TABLE, profile, LocalDateTime.now()));
+
+            ScoreSnapshot stored = new ScoreSnapshot((int) locationScoreRepository.count());
+            jdbcTemplate.query(SELECT_COMPONENTS, (ResultSet rs) -> {
+                stored.add(rs.getLong(1), getDouble(rs, 2), getDouble(rs, 3), getInt(rs, 4), getInt(rs, 5),
+                        getInt(rs, 6), getInt(rs, 7), getInt(rs, 8));
+            });
+            int[] scores = stored.score(weights, ForkJoinPool.commonPool());
+
+            List<Integer> changed = new ArrayList<>();
+            long skipped = 0;
+            for (int i = 0; i < stored.size(); i++) {
+                if (!stored.isScorable(i)) {
+                    skipped++;
+                } else if (scores[i] != stored.overall(i)) {
+                    changed.add(i);
+                }
+            }
+
+            long updated = 0;
+            for (int from = 0; from < changed.size(); from += batchSize) {
+                updated += writeBatch(stored, scores, changed.subList(from, Math.min(from + batchSize, changed.size())));
+            }
+
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            log.info("Rescored {} location scores with profile {}: {} updated, {} skipped in {} ms",
+                    stored.size(), profile, updated, skipped, elapsed);
+            return new RescoreResult(profile, stored.size(), updated, skipped, changed.size() - updated, elapsed);
+        } finally {
+            rescoreLock.unlock();
+        }
+    }
+
+    private int writeBatch(ScoreSnapshot stored, int[] scores, List<Integer> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> arguments = new ArrayList<>(rows.size());
+        for (int i : rows) {
+            arguments.add(new Object[] {scores[i], now, stored.id(i), stored.performance(i), stored.risk(i),
+                    stored.demand(i), stored.supply(i)});
+        }
+        int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_SCORE, arguments));
+
+        List<Long> updatedIds = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (counts == null || counts[i] != 0) {
+                updatedIds.add(stored.id(rows.get(i)));
+            }
+        }
+        // Reload the written rows so the index and caches get exactly what the database holds
+        for (LocationScore fresh : locationScoreRepository.findAllById(updatedIds)) {
+            LocationScore previous = locationScoreSpatialIndex.get(fresh.getId()).orElse(null);
+            eventPublisher.publishEvent(LocationScoreChangedEvent.saved(previous, fresh));
+        }
+        return updatedIds.size();
+    }
+
+    // Rebuilt when the index has changed since the last what-if query
+    private synchronized ScoreSnapshot currentSnapshot() {
+        if (!locationScoreSpatialIndex.isLoaded()) {
+            return ScoreSnapshot.of(locationScoreRepository.findAll());
+        }
+        long modCount = locationScoreSpatialIndex.modCount();
+        if (snapshot == null || snapshotModCount != modCount) {
+            snapshot = ScoreSnapshot.of(locationScoreSpatialIndex.values());
+            snapshotModCount = modCount;
+        }
+        return snapshot;
+    }
+
+    private static Integer getInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Double getDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,88 @@
+package dev.rohitrana.propertymap.service;
+
+import dev.rohitrana.propertymap.dto.SearchHit;
+import dev.rohitrana.propertymap.dto.SearchResults;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.search.AddressSearchIndex;
+import dev.rohitrana.propertymap.search.TextIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+public class SearchService {
+    public static final int MAX_LIMIT = 50;
+    // Deep pages of an autocomplete are never looked at, and each costs offset + limit hits
+    public static final int MAX_OFFSET = 1000;
+
+    public enum Scope {
+        ALL, PROPERTIES, LOCATION_SCORES;
+
+        public static Scope parse(String value) {
+            for (Scope scope : values()) {
+                if (scope.name().replace("_", "").equalsIgnoreCase(value.replace("_", ""))) {
+                    return scope;
+                }
+            }
+            throw new IllegalArgumentException("Unknown search type: " + value);
+        }
+    }
+
+    private final AddressSearchIndex addressSearchIndex;
+
+    @Autowired
+    public SearchService(AddressSearchIndex addressSearchIndex) {
+        this.addressSearchIndex = addressSearchIndex;
+    }
+
+    /**
+     * Properties and/or location scores whose address (and, for properties, city, zip code or
+     * description) matches every word of the query, the last word as a prefix, with typos tolerated.
+     * Throws IllegalStateException until the search index has been built.
+     */
+    public SearchResults search(String query, String type, int offset, int limit) {
+        if (query == null || TextIndex.tokenize(query).isEmpty()) {
+            throw new IllegalArgumentException("Search query is empty");
+        }
+        if (offset < 0 || offset > MAX_OFFSET || limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("offset must be 0-" + MAX_OFFSET + " and limit 1-" + MAX_LIMIT);
+        }
+        Scope scope = Scope.parse(type);
+
+        if (!addressSearchIndex.isAvailable()) {
+            // Indexing both tables on the spot for every keystroke would cost more than the warm-up itself
+            throw new IllegalStateException("The search index is still warming up");
+        }
+
+        // Both kinds are ranked by the same score, so the best of each page merge into the page of both
+        long total = 0;
+        List<SearchHit> hits = new ArrayList<>();
+        if (scope != Scope.LOCATION_SCORES) {
+            TextIndex.Page<Property> page = addressSearchIndex.searchProperties(query, 0, offset + limit);
+            total += page.total();
+            page.hits().forEach(hit -> hits.add(toHit(hit.entity(), hit.score())));
+        }
+        if (scope != Scope.PROPERTIES) {
+            TextIndex.Page<LocationScore> page = addressSearchIndex.searchLocationScores(query, 0, offset + limit);
+            total += page.total();
+            page.hits().forEach(hit -> hits.add(toHit(hit.entity(), hit.score())));
+        }
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed());
+        return new SearchResults(total, new ArrayList<>(hits.subList(Math.min(offset, hits.size()),
+                Math.min(offset + limit, hits.size()))));
+    }
+
+    private static SearchHit toHit(Property property, double score) {
+        return new SearchHit("property", property.getId(), score, property.getAddress(), property.getCity(),
+                property.getZipCode(), property.getLatitude(), property.getLongitude());
+    }
+
+    private static SearchHit toHit(LocationScore locationScore, double score) {
+        return new SearchHit("locationScore", locationScore.getId(), score, locationScore.getAddress(), null, null,
+                locationScore.getLatitude(), locationScore.getLongitude());
+    }
+}
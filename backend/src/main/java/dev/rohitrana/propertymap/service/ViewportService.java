@@ -0,0 +1,75 @@
+package dev.rohitrana.propertymap.service;
+
+import dev.rohitrana.propertymap.dto.GeoBounds;
+import dev.rohitrana.propertymap.dto.Viewport;
+import dev.rohitrana.propertymap.filter.LocationScoreFilter;
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Properties and location scores of a viewport, looked up concurrently.
+ * In delta mode only the area that was not visible in the previous bounds is queried.
+ */
+@Service
+public class ViewportService {
+    private final PropertyService propertyService;
+    private final LocationScoreService locationScoreService;
+
+    @Autowired
+    public ViewportService(PropertyService propertyService, LocationScoreService locationScoreService) {
+        this.propertyService = propertyService;
+        this.locationScoreService = locationScoreService;
+    }
+
+    public CompletableFuture<Viewport> getViewport(GeoBounds bounds, GeoBounds previous, PropertyFilter propertyFilter,
+                                                   LocationScoreFilter locationScoreFilter) {
+        List<GeoBounds> regions = previous == null ? List.of(bounds) : bounds.minus(previous);
+
+        CompletableFuture<List<Property>> properties = lookup(regions, previous,
+                region -> propertyService.getPropertiesInBoundsAsync(region.southLat(), region.northLat(),
+                        region.westLng(), region.eastLng(), propertyFilter),
+                Property::getId, Property::getLatitude, Property::getLongitude);
+        CompletableFuture<List<LocationScore>> locationScores = lookup(regions, previous,
+                region -> locationScoreService.getLocationScoresInBoundsAsync(region.southLat(), region.northLat(),
+                        region.westLng(), region.eastLng(), locationScoreFilter),
+                LocationScore::getId, LocationScore::getLatitude, LocationScore::getLongitude);
+
+        return properties.thenCombine(locationScores,
+                (propertyRows, locationScoreRows) -> new Viewport(propertyRows, locationScoreRows, previous != null));
+    }
+
+    private static <T> CompletableFuture<List<T>> lookup(List<GeoBounds> regions, GeoBounds previous,
+                                                         Function<GeoBounds, CompletableFuture<List<T>>> query,
+                                                         Function<T, Long> idOf, Function<T, Double> latitudeOf,
+                                                         Function<T, Double> longitudeOf) {
+        if (previous == null) {
+            return query.apply(regions.get(0));
+        }
+        List<CompletableFuture<List<T>>> parts = new ArrayList<>(regions.size());
+        for (GeoBounds region : regions) {
+            parts.add(query.apply(region));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            // Regions share edges, and rows on the previous edge were already visible
+            Map<Long, T> rows = new LinkedHashMap<>();
+            for (CompletableFuture<List<T>> part : parts) {
+                for (T row : part.join()) {
+                    if (!previous.contains(latitudeOf.apply(row), longitudeOf.apply(row))) {
+                        rows.putIfAbsent(idOf.apply(row), row);
+                    }
+                }
+            }
+            return new ArrayList<>(rows.values());
+        });
+    }
+}
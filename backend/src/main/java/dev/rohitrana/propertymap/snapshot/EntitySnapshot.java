@@ -0,0 +1,152 @@
+package dev.rohitrana.propertymap.snapshot;
+
+import dev.rohitrana.propertymap.columnar.ColumnarSchema;
+import dev.rohitrana.propertymap.index.EntitySpatialIndex;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The snapshot file of one index: its rows in the columnar format, sorted by id. A snapshot is
+ * written whole to a temporary file and moved over the previous one, so a reader sees either.
+ */
+@Slf4j
+class EntitySnapshot<T> {
+    // Rows fetched per query when bringing a snapshot up to date
+    private static final int FETCH_BATCH_SIZE = 1000;
+
+    private final EntitySpatialIndex<T> index;
+    private final ColumnarSchema<T> schema;
+    private final Supplier<T> factory;
+    private final Function<T, Long> idOf;
+    private final Function<T, Long> versionOf;
+    // Id and version of every row in the database
+    private final Supplier<List<Object[]>> versions;
+    private final Function<List<Long>, List<T>> findAllById;
+
+    private long writtenModCount = -1;
+
+    EntitySnapshot(EntitySpatialIndex<T> index, ColumnarSchema<T> schema, Supplier<T> factory,
+                   Function<T, Long> idOf, Function<T, Long> versionOf, Supplier<List<Object[]>> versions,
+                   Function<List<Long>, List<T>> findAllById) {
+        this.index = index;
+        this.schema = schema;
+        this.factory = factory;
+        this.idOf = idOf;
+        this.versionOf = versionOf;
+        this.versions = versions;
+        this.findAllById = findAllById;
+    }
+
+    String getName() {
+        return index.getName();
+    }
+
+    /**
+     * Loads the index from the snapshot in the directory, memory-mapped, then re-reads the rows
+     * whose version changed since and drops the ones deleted since.
+     *
+     * @return false if there is no usable snapshot or the index was written to meanwhile,
+     * in which case the index is left to load from the database
+     */
+    boolean restore(Path directory) {
+        Path file = file(directory);
+        if (!Files.isRegularFile(file)) {
+            log.info("No {} snapshot in {}", getName(), directory);
+            return false;
+        }
+        long start = System.nanoTime();
+        long modCount = index.modCount();
+        List<T> rows;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                log.warn("The {} snapshot is too large to map ({} bytes)", getName(), channel.size());
+                return false;
+            }
+            rows = schema.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), factory);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot read the {} snapshot, loading from the database: {}", getName(), e.toString());
+            return false;
+        }
+        long read = System.nanoTime();
+
+        Map<Long, Long> current = new HashMap<>();
+        for (Object[] row : versions.get()) {
+            current.put((Long) row[0], (Long) row[1]);
+        }
+        List<T> restored = new ArrayList<>(current.size());
+        int removed = 0;
+        for (T row : rows) {
+            Long id = idOf.apply(row);
+            if (!current.containsKey(id)) {
+                removed++;
+            } else if (Objects.equals(current.get(id), versionOf.apply(row))) {
+                current.remove(id);
+                restored.add(row);
+            }
+        }
+        // Left are the rows changed or added since the snapshot
+        List<Long> changed = new ArrayList<>(current.keySet());
+        for (int from = 0; from < changed.size(); from += FETCH_BATCH_SIZE) {
+            restored.addAll(findAllById.apply(changed.subList(from, Math.min(changed.size(), from + FETCH_BATCH_SIZE))));
+        }
+
+        if (!index.load(restored, modCount)) {
+            log.info("The {} index changed while restoring its snapshot, loading from the database", getName());
+            return false;
+        }
+        // A snapshot that needed updating is rewritten on the next save
+        writtenModCount = changed.isEmpty() && removed == 0 ? modCount : -1;
+        log.info("Restored {} rows into the {} index in {} ms ({} ms reading the snapshot, {} rows re-read, {} removed)",
+                restored.size(), getName(), (System.nanoTime() - start) / 1_000_000, (read - start) / 1_000_000,
+                changed.size(), removed);
+        return true;
+    }
+
+    /**
+     * Writes the index to the directory if it changed since the last snapshot.
+     *
+     * @return whether a snapshot was written
+     */
+    boolean save(Path directory) throws IOException {
+        long modCount = index.modCount();
+        if (!index.isLoaded() || modCount == writtenModCount) {
+            return false;
+        }
+        long start = System.nanoTime();
+        List<T> rows = new ArrayList<>(index.values());
+        rows.sort(Comparator.comparing(idOf));
+
+        Files.createDirectories(directory);
+        Path file = file(directory);
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            schema.write(rows, out);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Writes after modCount was read may or may not be in it, the next save tells
+        writtenModCount = modCount;
+        log.debug("Wrote {} rows of the {} index to {} in {} ms ({} bytes)", rows.size(), getName(), file,
+                (System.nanoTime() - start) / 1_000_000, Files.size(file));
+        return true;
+    }
+
+    private Path file(Path directory) {
+        return directory.resolve(getName() + ".pmc");
+    }
+}
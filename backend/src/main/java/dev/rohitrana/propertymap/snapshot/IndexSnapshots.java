@@ -0,0 +1,92 @@
+package dev.rohitrana.propertymap.snapshot;
+
+import dev.rohitrana.propertymap.index.LocationScoreSpatialIndex;
+import dev.rohitrana.propertymap.index.PropertySpatialIndex;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.repository.LocationScoreRepository;
+import dev.rohitrana.propertymap.repository.PropertyRepository;
+import dev.rohitrana.propertymap.startup.StartupPhases;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Snapshots of the in-memory indexes on local disk, so a restarted node restores its working set
+ * from a file and the database only sends what changed since, instead of both whole tables.
+ * Restored before the indexes' own warm load, which then only runs for an index without a usable
+ * snapshot. Saved periodically when an index changed, and on shutdown.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class IndexSnapshots implements ApplicationRunner {
+    private final boolean enabled;
+    private final Path directory;
+    private final StartupPhases startupPhases;
+    private final List<EntitySnapshot<?>> snapshots;
+
+    @Autowired
+    public IndexSnapshots(PropertySpatialIndex propertySpatialIndex,
+                          LocationScoreSpatialIndex locationScoreSpatialIndex,
+                          PropertyRepository propertyRepository,
+                          LocationScoreRepository locationScoreRepository,
+                          StartupPhases startupPhases,
+                          @Value("${propertymap.snapshot.enabled:false}") boolean enabled,
+                          @Value("${propertymap.snapshot.directory:snapshot}") String directory) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.startupPhases = startupPhases;
+        this.snapshots = List.of(
+                new EntitySnapshot<>(propertySpatialIndex, SnapshotSchemas.PROPERTIES, Property::new,
+                        Property::getId, Property::getVersion, propertyRepository::findAllVersions,
+                        propertyRepository::findAllById),
+                new EntitySnapshot<>(locationScoreSpatialIndex, SnapshotSchemas.LOCATION_SCORES, LocationScore::new,
+                        LocationScore::getId, LocationScore::getVersion, locationScoreRepository::findAllVersions,
+                        locationScoreRepository::findAllById));
+    }
+
+    @Override
+    public synchronized void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        for (EntitySnapshot<?> snapshot : snapshots) {
+            long start = System.nanoTime();
+            try {
+                snapshot.restore(directory);
+            } catch (RuntimeException e) {
+                log.warn("Restoring the {} snapshot failed, loading from the database: {}", snapshot.getName(),
+                        e.getMessage());
+            }
+            startupPhases.record("snapshot." + snapshot.getName(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${propertymap.snapshot.interval-ms:600000}",
+            fixedDelayString = "${propertymap.snapshot.interval-ms:600000}")
+    @PreDestroy
+    public synchronized void save() {
+        if (!enabled) {
+            return;
+        }
+        for (EntitySnapshot<?> snapshot : snapshots) {
+            try {
+                snapshot.save(directory);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Writing the {} snapshot failed: {}", snapshot.getName(), e.getMessage());
+            }
+        }
+    }
+}
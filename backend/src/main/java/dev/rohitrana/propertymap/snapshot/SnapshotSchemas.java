@@ -0,0 +1,62 @@
+package dev.rohitrana.propertymap.snapshot;
+
+import dev.rohitrana.propertymap.columnar.ColumnarSchema;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+
+/**
+ * Columnar encodings of the indexed entities for snapshots. Unlike the client encodings they are
+ * read back, so they hold every persistent field, coordinates as exact doubles, and the version
+ * the snapshot is checked against.
+ */
+final class SnapshotSchemas {
+    static final ColumnarSchema<Property> PROPERTIES = new ColumnarSchema<Property>()
+            .id("id", Property::getId, Property::setId)
+            .text("address", Property::getAddress, Property::setAddress)
+            .text("city", Property::getCity, Property::setCity)
+            .text("state", Property::getState, Property::setState)
+            .text("zipCode", Property::getZipCode, Property::setZipCode)
+            .integer("bedrooms", Property::getBedrooms, Property::setBedrooms)
+            .integer("bathrooms", Property::getBathrooms, Property::setBathrooms)
+            .integer("squareFeet", Property::getSquareFeet, Property::setSquareFeet)
+            .integer("yearBuilt", Property::getYearBuilt, Property::setYearBuilt)
+            .decimal("listPrice", Property::getListPrice, Property::setListPrice)
+            .text("status", Property::getStatus, Property::setStatus)
+            .real("latitude", Property::getLatitude, Property::setLatitude)
+            .real("longitude", Property::getLongitude, Property::setLongitude)
+            .decimal("capRate", Property::getCapRate, Property::setCapRate)
+            .decimal("appreciationRate", Property::getAppreciationRate, Property::setAppreciationRate)
+            .decimal("cashOnCashReturn", Property::getCashOnCashReturn, Property::setCashOnCashReturn)
+            .decimal("monthlyRent", Property::getMonthlyRent, Property::setMonthlyRent)
+            .decimal("yearlyExpenses", Property::getYearlyExpenses, Property::setYearlyExpenses)
+            .text("imageUrl", Property::getImageUrl, Property::setImageUrl)
+            .text("description", Property::getDescription, Property::setDescription)
+            .longInteger("version", Property::getVersion, Property::setVersion)
+            .timestamp("createdAt", Property::getCreatedAt, Property::setCreatedAt)
+            .timestamp("updatedAt", Property::getUpdatedAt, Property::setUpdatedAt);
+
+    static final ColumnarSchema<LocationScore> LOCATION_SCORES = new ColumnarSchema<LocationScore>()
+            .id("id", LocationScore::getId, LocationScore::setId)
+            .real("latitude", LocationScore::getLatitude, LocationScore::setLatitude)
+            .real("longitude", LocationScore::getLongitude, LocationScore::setLongitude)
+            .text("address", LocationScore::getAddress, LocationScore::setAddress)
+            .integer("overallScore", LocationScore::getOverallScore, LocationScore::setOverallScore)
+            .integer("performanceScore", LocationScore::getPerformanceScore, LocationScore::setPerformanceScore)
+            .integer("riskScore", LocationScore::getRiskScore, LocationScore::setRiskScore)
+            .integer("demandScore", LocationScore::getDemandScore, LocationScore::setDemandScore)
+            .integer("supplyScore", LocationScore::getSupplyScore, LocationScore::setSupplyScore)
+            .real("capRate", LocationScore::getCapRate, LocationScore::setCapRate)
+            .real("appreciation", LocationScore::getAppreciation, LocationScore::setAppreciation)
+            .real("irr", LocationScore::getIrr, LocationScore::setIrr)
+            .real("fiveYearTotalReturn", LocationScore::getFiveYearTotalReturn,
+                    LocationScore::setFiveYearTotalReturn)
+            .real("averageHousePrice", LocationScore::getAverageHousePrice, LocationScore::setAverageHousePrice)
+            .real("propertyTax", LocationScore::getPropertyTax, LocationScore::setPropertyTax)
+            .real("neighborhoodChange", LocationScore::getNeighborhoodChange, LocationScore::setNeighborhoodChange)
+            .longInteger("version", LocationScore::getVersion, LocationScore::setVersion)
+            .timestamp("createdAt", LocationScore::getCreatedAt, LocationScore::setCreatedAt)
+            .timestamp("updatedAt", LocationScore::getUpdatedAt, LocationScore::setUpdatedAt);
+
+    private SnapshotSchemas() {
+    }
+}
@@ -0,0 +1,79 @@
+package dev.rohitrana.propertymap.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the startup time went, logged once the node is ready and kept as the
+ * {@code propertymap.startup} gauge tagged by phase:
+ * <ul>
+ *     <li>jvm: from the JVM start to the application starting</li>
+ *     <li>context: creating the beans, Hibernate and the web server</li>
+ *     <li>snapshot.*: restoring an index from its snapshot, part of runners</li>
+ *     <li>runners: the startup runners, i.e. loading the indexes</li>
+ *     <li>warmup: the warm-up requests, before the node reports ready</li>
+ *     <li>total: from the JVM start to ready</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class StartupPhases {
+    private final MeterRegistry registry;
+    // In the order recorded, with the milliseconds taken
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> gauges = new ConcurrentHashMap<>();
+    private long startedMillis;
+
+    @Autowired
+    public StartupPhases(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public synchronized void record(String phase, long millis) {
+        phases.put(phase, millis);
+        if (gauges.put(phase, millis) == null) {
+            TimeGauge.builder("propertymap.startup", gauges, TimeUnit.MILLISECONDS, values -> values.get(phase))
+                    .tag("phase", phase)
+                    .description("Time taken by a startup phase")
+                    .register(registry);
+        }
+    }
+
+    public synchronized Map<String, Long> getPhases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    @EventListener
+    public void onStarted(ApplicationStartedEvent event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        startedMillis = event.getTimeTaken().toMillis();
+        record("jvm", Math.max(0, uptime - startedMillis));
+        record("context", startedMillis);
+    }
+
+    // After every other listener, the warm-up included
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onReady(ApplicationReadyEvent event) {
+        record("runners", event.getTimeTaken().toMillis() - startedMillis);
+        record("total", ManagementFactory.getRuntimeMXBean().getUptime());
+        StringJoiner summary = new StringJoiner(", ");
+        getPhases().forEach((phase, millis) -> summary.add(phase + " " + millis + " ms"));
+        log.info("Ready to accept traffic: {}", summary);
+    }
+}
@@ -0,0 +1,153 @@
+package dev.rohitrana.propertymap.startup;
+
+import dev.rohitrana.propertymap.columnar.ColumnarFormat;
+import dev.rohitrana.propertymap.index.PropertySpatialIndex;
+import dev.rohitrana.propertymap.model.Property;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sends the node's own hot requests to it before it reports ready, so the first real requests do
+ * not pay for loading classes, compiling query plans, building serializers, opening pooled
+ * connections and interpreted code. Readiness only flips to accepting traffic once the ready event
+ * listeners return, and this one returns when the requests are done or the time is up.
+ * <p>
+ * The requests go through HTTP to cover filters, conversion and serialization, and look at the
+ * area of an indexed property so they find data.
+ */
+@Component
+@Slf4j
+public class WarmUp {
+    // Half the side of the box the bounds requests ask for, in degrees
+    private static final double BOX_SIZE = 0.05;
+
+    private record Request(String path, String accept) {
+    }
+
+    private final PropertySpatialIndex propertySpatialIndex;
+    private final StartupPhases startupPhases;
+    private final boolean enabled;
+    private final int iterations;
+    private final long maxDurationMillis;
+    private final List<String> extraPaths;
+
+    @Autowired
+    public WarmUp(PropertySpatialIndex propertySpatialIndex,
+                  StartupPhases startupPhases,
+                  @Value("${propertymap.warmup.enabled:false}") boolean enabled,
+                  @Value("${propertymap.warmup.iterations:100}") int iterations,
+                  @Value("${propertymap.warmup.max-duration-ms:20000}") long maxDurationMillis,
+                  @Value("${propertymap.warmup.paths:}") List<String> extraPaths) {
+        this.propertySpatialIndex = propertySpatialIndex;
+        this.startupPhases = startupPhases;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxDurationMillis = maxDurationMillis;
+        this.extraPaths = extraPaths;
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onReady(ApplicationReadyEvent event) {
+        if (!enabled || !(event.getApplicationContext() instanceof WebServerApplicationContext context)
+                || context.getWebServer() == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDurationMillis * 1_000_000;
+        String base = "http://127.0.0.1:" + context.getWebServer().getPort();
+        List<Request> requests = requests();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+        int sent = 0;
+        Set<String> failed = new TreeSet<>();
+        warmUp:
+        for (int i = 0; i < iterations; i++) {
+            for (Request request : requests) {
+                if (System.nanoTime() > deadline) {
+                    break warmUp;
+                }
+                HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(base + request.path()))
+                        .header("Accept", request.accept())
+                        .timeout(Duration.ofMillis(maxDurationMillis))
+                        .GET()
+                        .build();
+                try {
+                    int status = client.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status >= 400) {
+                        failed.add(request.path() + " (" + status + ")");
+                    }
+                } catch (IOException e) {
+                    failed.add(request.path() + " (" + e.getClass().getSimpleName() + ")");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break warmUp;
+                }
+                sent++;
+            }
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        startupPhases.record("warmup", millis);
+        log.info("Warmed up with {} requests to {} endpoints in {} ms", sent, requests.size(), millis);
+        if (!failed.isEmpty()) {
+            log.warn("Warm-up requests failed: {}", String.join(", ", failed));
+        }
+    }
+
+    // The map's usual requests, around the first indexed property
+    private List<Request> requests() {
+        String json = MediaType.APPLICATION_JSON_VALUE;
+        List<Request> requests = new ArrayList<>();
+        requests.add(new Request("/api/properties?afterId=0&limit=100", json));
+        requests.add(new Request("/api/properties/filter?minBedrooms=1&limit=100", json));
+        requests.add(new Request("/api/location-scores?afterId=0&limit=100", json));
+        requests.add(new Request("/api/analytics/stats", json));
+
+        List<Property> sample = propertySpatialIndex.values().stream().limit(1).toList();
+        if (!sample.isEmpty() && sample.get(0).getLatitude() != null && sample.get(0).getLongitude() != null) {
+            Property property = sample.get(0);
+            String box = String.format(Locale.ROOT, "southLat=%f&northLat=%f&westLng=%f&eastLng=%f",
+                    property.getLatitude() - BOX_SIZE, property.getLatitude() + BOX_SIZE,
+                    property.getLongitude() - BOX_SIZE, property.getLongitude() + BOX_SIZE);
+            requests.add(new Request("/api/properties/" + property.getId(), json));
+            requests.add(new Request("/api/properties/bounds?" + box, json));
+            requests.add(new Request("/api/properties/bounds?" + box, ColumnarFormat.MEDIA_TYPE_VALUE));
+            requests.add(new Request("/api/properties/clusters?" + box + "&zoom=12", json));
+            requests.add(new Request("/api/location-scores/bounds?" + box, json));
+            requests.add(new Request("/api/viewport?" + box, json));
+            if (property.getCity() != null) {
+                requests.add(new Request("/api/search?q=" + URLEncoder.encode(property.getCity(), StandardCharsets.UTF_8),
+                        json));
+            }
+        }
+        for (String path : extraPaths) {
+            if (!path.isBlank()) {
+                requests.add(new Request(path.trim(), json));
+            }
+        }
+        return requests;
+    }
+}
@@ -8,6 +8,9 @@ CREATE DATABASE propertymap;
 -- Drop tables if they exist
 DROP TABLE IF EXISTS properties;
 DROP TABLE IF EXISTS location_scores;
+DROP TABLE IF EXISTS history_segments;
+DROP TABLE IF EXISTS history_summaries;
+DROP TABLE IF EXISTS scoring_state;
 
 -- Create properties table
 CREATE TABLE properties (
@@ -31,6 +34,7 @@ CREATE TABLE properties (
     yearly_expenses DECIMAL(10, 2),
     image_url VARCHAR(500),
     description TEXT,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP,
     updated_at TIMESTAMP
 );
@@ -53,10 +57,53 @@ CREATE TABLE location_scores (
     average_house_price DOUBLE PRECISION,
     property_tax DOUBLE PRECISION,
     neighborhood_change DOUBLE PRECISION,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP,
     updated_at TIMESTAMP
 );
 
+-- Change history: encoded values per field and month, appended on every flush and compacted
+CREATE TABLE history_segments (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(255) NOT NULL,
+    field VARCHAR(255) NOT NULL,
+    period_start DATE NOT NULL,
+    point_count INTEGER NOT NULL,
+    min_entity_id BIGINT NOT NULL,
+    max_entity_id BIGINT NOT NULL,
+    data BYTEA NOT NULL,
+    created_at TIMESTAMP
+);
+
+CREATE INDEX idx_history_segments_partition ON history_segments (entity_type, field, period_start);
+
+-- Change history summaries per field, month and zip code, city or all: of the values set by the changes
+-- in a month, and of the values every entity had at its end
+CREATE TABLE history_summaries (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(255) NOT NULL,
+    field VARCHAR(255) NOT NULL,
+    period_start DATE NOT NULL,
+    basis VARCHAR(255) NOT NULL,
+    group_by VARCHAR(255) NOT NULL,
+    group_key VARCHAR(255) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    value_count BIGINT NOT NULL,
+    value_sum DOUBLE PRECISION,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    sketch BYTEA,
+    version BIGINT,
+    CONSTRAINT uk_history_summaries_group UNIQUE (entity_type, field, period_start, basis, group_by, group_key, category)
+);
+
+-- Weight profile the stored overall scores were last computed with
+CREATE TABLE scoring_state (
+    name VARCHAR(255) PRIMARY KEY,
+    active_profile VARCHAR(255) NOT NULL,
+    updated_at TIMESTAMP
+);
+
 -- Insert GTA (Greater Toronto Area) properties data
 INSERT INTO properties (
     address, city, state, zip_code, bedrooms, bathrooms, square_feet, year_built,
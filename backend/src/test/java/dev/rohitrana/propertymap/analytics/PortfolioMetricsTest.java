@@ -0,0 +1,25 @@
+package dev.rohitrana.propertymap.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PortfolioMetricsTest {
+
+    @Test
+    void findsTheRateThatZeroesTheNetPresentValue() {
+        assertEquals(0.10, PortfolioMetrics.internalRateOfReturn(new double[]{-100, 10, 110}), 1e-6);
+        assertEquals(-0.5, PortfolioMetrics.internalRateOfReturn(new double[]{-100, 50}), 1e-6);
+    }
+
+    @Test
+    void clampsALossBeyondTheEquityToMinusOneHundredPercent() {
+        // Underwater sale: the equity is lost and the loan balance has to be topped up
+        assertEquals(-1, PortfolioMetrics.internalRateOfReturn(new double[]{-100, 5, 5, -80}));
+    }
+
+    @Test
+    void clampsAReturnBeyondTheBracketToItsUpperBound() {
+        assertEquals(10, PortfolioMetrics.internalRateOfReturn(new double[]{-1, 1000}));
+    }
+}
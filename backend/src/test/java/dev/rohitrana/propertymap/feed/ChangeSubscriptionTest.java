@@ -0,0 +1,97 @@
+package dev.rohitrana.propertymap.feed;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeSubscriptionTest {
+    private static final Set<String> ALL = Set.of(EntityChange.PROPERTY, EntityChange.LOCATION_SCORE);
+
+    // Records the name of every event, and blocks the first send until released like a client with a full window
+    private static class StalledEmitter extends SseEmitter {
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            String text = builder.build().stream().map(data -> String.valueOf(data.getData()))
+                    .collect(Collectors.joining());
+            int name = text.indexOf("event:") + "event:".length();
+            events.add(text.startsWith(":") ? "keep-alive" : text.substring(name, text.indexOf('\n', name)));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    void replacesTheQueueOfAStalledClientWithAResetAndCompletesIt() throws Exception {
+        StalledEmitter emitter = new StalledEmitter();
+        ChangeSubscription subscription = new ChangeSubscription(emitter, null, ALL, 0, 3);
+
+        assertTrue(subscription.offer(change(1)));
+        Thread sender = new Thread(() -> {
+            try {
+                subscription.sendPending();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        sender.start();
+        assertTrue(emitter.sending.await(5, TimeUnit.SECONDS));
+
+        // Queued without waiting for the stalled send, and without starting a second sender
+        for (long version = 2; version <= 10; version++) {
+            assertFalse(subscription.offer(change(version)));
+        }
+        assertFalse(subscription.offerKeepAlive());
+
+        emitter.released.countDown();
+        sender.join(5000);
+        assertEquals(List.of("change", "reset"), emitter.events);
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void sendsQueuedChangesOnceAndKeepsAliveWhenIdle() throws Exception {
+        StalledEmitter emitter = new StalledEmitter();
+        emitter.released.countDown();
+        ChangeSubscription subscription = new ChangeSubscription(emitter, null, ALL, 1, 3);
+
+        assertTrue(subscription.offer(change(1)));
+        assertFalse(subscription.offer(change(2)));
+        subscription.sendPending();
+        assertTrue(subscription.offerKeepAlive());
+        subscription.sendPending();
+
+        // Version 1 was replayed before the cursor
+        assertEquals(List.of("change", "keep-alive"), emitter.events);
+        assertFalse(emitter.completed);
+    }
+
+    private static EntityChange change(long version) {
+        return new EntityChange(version, EntityChange.PROPERTY, "SAVED", version, null, null, null, 40.0, -74.0,
+                false);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.rohitrana.propertymap.heatmap;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeatmapTileRendererTest {
+    // About 3.7 km wide, so a 1.5 km radius covers part of it
+    private static final TileCoordinates TILE = new TileCoordinates(13, 2412, 3078);
+
+    private final HeatmapTileRenderer renderer = new HeatmapTileRenderer(64, 1.5);
+
+    @Test
+    void colorsOnlyTheSamplesWithinTheRadius() throws IOException {
+        double lat = TILE.latitudeAt(TILE.getY() + 0.5);
+        double lng = TILE.longitudeAt(TILE.getX() + 0.5);
+        BufferedImage image = render(List.of(score(lat, lng)));
+
+        assertEquals(190, alphaAt(image, 128, 128), 10);
+        assertEquals(0, alphaAt(image, 0, 0));
+        assertEquals(0, alphaAt(image, 255, 255));
+    }
+
+    @Test
+    void colorsTheEdgeFromAScoreJustOutsideTheTile() throws IOException {
+        // 1 km west of the tile, within the radius of the western samples only
+        double lat = TILE.latitudeAt(TILE.getY() + 0.5);
+        double lng = TILE.west() - 1 / (111.320 * Math.cos(Math.toRadians(lat)));
+        BufferedImage image = render(List.of(score(lat, lng)));
+
+        assertTrue(alphaAt(image, 0, 128) > 0);
+        assertEquals(0, alphaAt(image, 255, 128));
+    }
+
+    @Test
+    void leavesATileWithoutNearbyScoresTransparent() throws IOException {
+        BufferedImage image = render(List.of(score(0, 0), score(TILE.north() + 1, TILE.west())));
+
+        for (int y = 0; y < 256; y += 15) {
+            for (int x = 0; x < 256; x += 15) {
+                assertEquals(0, alphaAt(image, x, y));
+            }
+        }
+    }
+
+    private BufferedImage render(List<LocationScore> scores) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(renderer.render(TILE, HeatmapMetric.OVERALL_SCORE, scores)));
+    }
+
+    private static int alphaAt(BufferedImage image, int x, int y) {
+        return image.getRGB(x, y) >>> 24;
+    }
+
+    private static LocationScore score(double latitude, double longitude) {
+        LocationScore score = new LocationScore();
+        score.setLatitude(latitude);
+        score.setLongitude(longitude);
+        score.setOverallScore(8);
+        return score;
+    }
+}
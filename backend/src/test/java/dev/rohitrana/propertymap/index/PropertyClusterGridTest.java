@@ -0,0 +1,89 @@
+package dev.rohitrana.propertymap.index;
+
+import dev.rohitrana.propertymap.dto.PropertyCluster;
+import dev.rohitrana.propertymap.event.PropertyChangedEvent;
+import dev.rohitrana.propertymap.model.Property;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PropertyClusterGridTest {
+    private static final int ZOOM = 10;
+
+    private PropertySpatialIndex index;
+    private PropertyClusterGrid grid;
+
+    @BeforeEach
+    void setUp() {
+        index = new PropertySpatialIndex(null, 0.01, false);
+        index.load(List.of(property(1, 100_000), property(2, 200_000), property(3, 300_000)), index.modCount());
+        grid = new PropertyClusterGrid(index, 14);
+        // Built from the index, and the maximum removed so the cell has had a removal already
+        clusters();
+        publish(PropertyChangedEvent.deleted(3L, property(3, 300_000)));
+    }
+
+    @Test
+    void keepsTheCellExactWhenQueriedBetweenTheIndexAndTheGridApplyingAnUpdate() {
+        PropertyChangedEvent event = PropertyChangedEvent.saved(property(2, 200_000), property(2, 250_000));
+        index.onPropertyChanged(event);
+        assertEquals(2, cluster().getCount());
+        grid.onPropertyChanged(event);
+
+        PropertyCluster cluster = cluster();
+        assertEquals(2, cluster.getCount());
+        assertEquals(100_000, cluster.getMinListPrice());
+        assertEquals(250_000, cluster.getMaxListPrice());
+        assertEquals(175_000, cluster.getAvgListPrice());
+    }
+
+    @Test
+    void keepsTheCellExactWhenQueriedBetweenTheIndexAndTheGridApplyingADelete() {
+        PropertyChangedEvent event = PropertyChangedEvent.deleted(2L, property(2, 200_000));
+        index.onPropertyChanged(event);
+        assertEquals(2, cluster().getCount());
+        grid.onPropertyChanged(event);
+
+        PropertyCluster cluster = cluster();
+        assertEquals(1, cluster.getCount());
+        assertEquals(100_000, cluster.getMaxListPrice());
+        assertEquals(1L, cluster.getPropertyId());
+
+        PropertyChangedEvent last = PropertyChangedEvent.deleted(1L, property(1, 100_000));
+        index.onPropertyChanged(last);
+        clusters();
+        grid.onPropertyChanged(last);
+        assertEquals(List.of(), clusters());
+    }
+
+    // As the application publishes it: the index listener first, then the grid
+    private void publish(PropertyChangedEvent event) {
+        index.onPropertyChanged(event);
+        grid.onPropertyChanged(event);
+    }
+
+    private List<PropertyCluster> clusters() {
+        return grid.findClusters(40, 41, -75, -74, ZOOM);
+    }
+
+    private PropertyCluster cluster() {
+        List<PropertyCluster> clusters = clusters();
+        assertEquals(1, clusters.size());
+        return clusters.get(0);
+    }
+
+    private static Property property(long id, long listPrice) {
+        Property property = new Property();
+        property.setId(id);
+        property.setLatitude(40.5 + id * 0.0001);
+        property.setLongitude(-74.5);
+        property.setListPrice(BigDecimal.valueOf(listPrice));
+        property.setCapRate(BigDecimal.valueOf(5));
+        property.setVersion(0L);
+        return property;
+    }
+}
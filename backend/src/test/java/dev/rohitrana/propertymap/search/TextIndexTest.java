@@ -0,0 +1,94 @@
+package dev.rohitrana.propertymap.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextIndexTest {
+    private record Address(Long id, String text) {
+    }
+
+    private TextIndex<Address> index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TextIndex<>(Address::id, List.of(new TextIndex.Field<>(Address::text, 1)));
+        index.replaceAll(List.of(
+                new Address(1L, "12 House Lane"),
+                new Address(2L, "40 Harbour Street"),
+                new Address(3L, "7 Esplanade West")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"house", "hpuse", "hosue", "huose lane", "12 lnae", "12 hosue lane", "ohuse"})
+    void findsWordsWithOneTypoIncludingSwappedLetters(String query) {
+        TextIndex.Page<Address> page = index.search(query, 0, 10);
+
+        assertEquals(1, page.total(), query);
+        assertEquals(1L, page.hits().get(0).entity().id());
+    }
+
+    @Test
+    void findsLongWordsWithASwapAndAnotherTypo() {
+        TextIndex.Page<Address> page = index.search("eslpanaed", 0, 10);
+
+        assertEquals(1, page.total());
+        assertEquals(3L, page.hits().get(0).entity().id());
+    }
+
+    @Test
+    void ranksExactMatchesAboveTypos() {
+        index.put(new Address(4L, "1 Hosue Road"));
+
+        TextIndex.Page<Address> page = index.search("hosue", 0, 10);
+
+        assertEquals(2, page.total());
+        assertEquals(4L, page.hits().get(0).entity().id());
+        assertTrue(page.hits().get(0).score() > page.hits().get(1).score());
+    }
+
+    @Test
+    void doesNotCorrectNumbersOrShortWords() {
+        assertEquals(0, index.search("21 house", 0, 10).total());
+        assertEquals(0, index.search("hse lane", 0, 10).total());
+    }
+
+    @Test
+    void distanceCountsASwapAsOneEdit() {
+        assertEquals(1, TextIndex.distance("hosue", "house", 2));
+        assertEquals(2, TextIndex.distance("eslpanaed", "esplanade", 2));
+    }
+
+    @Test
+    void skipsStopWordsOfProseFieldsAndQueries() {
+        TextIndex<Address> described = new TextIndex<>(Address::id,
+                List.of(new TextIndex.Field<>(Address::text, 1, true)));
+        described.put(new Address(1L, "House on the lake with a dock"));
+
+        assertEquals(0, described.search("the", 0, 10).total());
+        assertEquals(1, described.search("house on the lake", 0, 10).total());
+        assertEquals(1, described.search("lake with", 0, 10).total());
+    }
+
+    @Test
+    void capsTheCandidatesOfCommonWords() {
+        List<Address> many = new ArrayList<>();
+        for (long id = 1; id <= TextIndex.MAX_CANDIDATES + 500; id++) {
+            many.add(new Address(id, id + " Main Street"));
+        }
+        index.replaceAll(many);
+
+        TextIndex.Page<Address> page = index.search("m", 0, 5);
+
+        assertEquals(TextIndex.MAX_CANDIDATES, page.total());
+        assertEquals(5, page.hits().size());
+        assertEquals(1, index.search("777 main", 0, 5).total());
+    }
+}
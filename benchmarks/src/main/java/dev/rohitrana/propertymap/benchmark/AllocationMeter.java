@@ -0,0 +1,66 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bytes allocated by the backend's threads of this JVM between start and stop, i.e. by every
+ * thread but the load generator's own (named with {@link #GENERATOR_THREAD_PREFIX}) and the
+ * HTTP client's, plus the garbage collections meanwhile. Threads that end before stop are not
+ * counted, the request and task executors keep theirs.
+ */
+public class AllocationMeter {
+    static final String GENERATOR_THREAD_PREFIX = "load-";
+    private static final String CLIENT_THREAD_PREFIX = "HttpClient-";
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private Map<Long, Long> startBytes;
+    private long startCollections;
+    private long startCollectionMillis;
+
+    record Result(long bytes, long collections, long collectionMillis) {
+    }
+
+    public void start() {
+        threads.setThreadAllocatedMemoryEnabled(true);
+        startBytes = backendThreadBytes();
+        startCollections = collections();
+        startCollectionMillis = collectionMillis();
+    }
+
+    public Result stop() {
+        long bytes = 0;
+        for (Map.Entry<Long, Long> thread : backendThreadBytes().entrySet()) {
+            bytes += thread.getValue() - startBytes.getOrDefault(thread.getKey(), 0L);
+        }
+        return new Result(bytes, collections() - startCollections, collectionMillis() - startCollectionMillis);
+    }
+
+    private Map<Long, Long> backendThreadBytes() {
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        ThreadInfo[] infos = threads.getThreadInfo(ids);
+        Map<Long, Long> bytes = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] != null && allocated[i] >= 0 && !infos[i].getThreadName().startsWith(GENERATOR_THREAD_PREFIX)
+                    && !infos[i].getThreadName().startsWith(CLIENT_THREAD_PREFIX)) {
+                bytes.put(ids[i], allocated[i]);
+            }
+        }
+        return bytes;
+    }
+
+    private static long collections() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(count -> count > 0).sum();
+    }
+
+    private static long collectionMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(time -> time > 0).sum();
+    }
+}
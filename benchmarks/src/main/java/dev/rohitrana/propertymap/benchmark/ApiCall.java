@@ -0,0 +1,36 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import dev.rohitrana.propertymap.columnar.ColumnarFormat;
+
+import java.util.regex.Pattern;
+
+/**
+ * One GET request of a session, sent after the user thought for the given time.
+ *
+ * @param path   path and query, e.g. /api/properties/bounds?southLat=...
+ * @param accept the media type asked for, JSON or the columnar format for entity lists
+ */
+public record ApiCall(String path, String accept, long thinkMillis) {
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    /**
+     * The endpoint the call is reported under: the path with ids replaced, plus the parameters
+     * that select another handler on the same path, and the format when it is not JSON.
+     */
+    public String endpoint() {
+        int query = path.indexOf('?');
+        String endpoint = ID_SEGMENT.matcher(query < 0 ? path : path.substring(0, query)).replaceAll("/{id}");
+        if (query >= 0) {
+            String parameters = "&" + path.substring(query + 1);
+            for (String selector : new String[] {"fields", "scores"}) {
+                if (parameters.contains("&" + selector + "=")) {
+                    endpoint += "?" + selector;
+                }
+            }
+        }
+        if (accept.startsWith(ColumnarFormat.MEDIA_TYPE_VALUE)) {
+            endpoint += " (columnar)";
+        }
+        return endpoint;
+    }
+}
@@ -0,0 +1,86 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import dev.rohitrana.propertymap.PropertyMapApplication;
+import dev.rohitrana.propertymap.importer.ImportTarget;
+import dev.rohitrana.propertymap.importer.LocationScoreImportTarget;
+import dev.rohitrana.propertymap.importer.PropertyImportTarget;
+import dev.rohitrana.propertymap.index.LocationScoreSpatialIndex;
+import dev.rohitrana.propertymap.index.PropertySpatialIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The backend application running against an in-memory H2 database seeded with synthetic rows.
+ */
+public class BackendContext implements AutoCloseable {
+    private static final int INSERT_BATCH_SIZE = 5000;
+
+    private final ConfigurableApplicationContext context;
+
+    public BackendContext(int properties, int locationScores) {
+        // Passed as arguments so they take precedence over application.properties
+        context = new SpringApplicationBuilder(PropertyMapApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--server.port=0",
+                "--management.server.port=0",
+                // Loaded explicitly once the rows are in
+                "--propertymap.index.warm-load=false",
+                "--propertymap.index.consistency-check-interval-ms=86400000");
+
+        try {
+            SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+            insert(context.getBean(PropertyImportTarget.class), data.properties(properties));
+            insert(context.getBean(LocationScoreImportTarget.class), data.locationScores(locationScores));
+            context.getBean(PropertySpatialIndex.class).load();
+            context.getBean(LocationScoreSpatialIndex.class).load();
+        } catch (RuntimeException e) {
+            // The web server would keep the JVM running
+            context.close();
+            throw e;
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // The HTTP port, chosen at random
+    public int getPort() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    // Same statements as the bulk import, without its validation and change events
+    private <T> void insert(ImportTarget<T> target, List<T> rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (T row : rows) {
+            batch.add(target.getInsertValues(row));
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(target.getInsertSql(), batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(target.getInsertSql(), batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
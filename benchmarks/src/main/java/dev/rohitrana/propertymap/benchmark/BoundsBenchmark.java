@@ -0,0 +1,73 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.repository.PropertyRepository;
+import dev.rohitrana.propertymap.service.PropertyService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Viewport queries: the in-memory index behind PropertyService.getPropertiesInBounds
+ * against the JPQL query it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx6g"})
+public class BoundsBenchmark {
+    // Roughly a zoom 14 viewport on a laptop screen
+    private static final double VIEWPORT_LAT = 0.03;
+    private static final double VIEWPORT_LNG = 0.06;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private BackendContext backend;
+    private PropertyService propertyService;
+    private PropertyRepository propertyRepository;
+    private double[][] viewports;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        backend = new BackendContext(rows, 0);
+        propertyService = backend.getBean(PropertyService.class);
+        propertyRepository = backend.getBean(PropertyRepository.class);
+
+        double[] coverage = SyntheticData.coverage();
+        SplittableRandom random = new SplittableRandom(SyntheticData.DEFAULT_SEED);
+        viewports = new double[256][];
+        for (int i = 0; i < viewports.length; i++) {
+            double south = coverage[0] + random.nextDouble() * (coverage[1] - coverage[0] - VIEWPORT_LAT);
+            double west = coverage[2] + random.nextDouble() * (coverage[3] - coverage[2] - VIEWPORT_LNG);
+            viewports[i] = new double[] {south, south + VIEWPORT_LAT, west, west + VIEWPORT_LNG};
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public List<Property> index() {
+        double[] v = nextViewport();
+        return propertyService.getPropertiesInBounds(v[0], v[1], v[2], v[3]);
+    }
+
+    @Benchmark
+    public List<Property> database() {
+        double[] v = nextViewport();
+        return propertyRepository.findPropertiesInBounds(v[0], v[1], v[2], v[3]);
+    }
+
+    private double[] nextViewport() {
+        next = (next + 1) & (viewports.length - 1);
+        return viewports[next];
+    }
+}
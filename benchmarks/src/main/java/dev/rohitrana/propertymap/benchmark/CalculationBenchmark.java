@@ -0,0 +1,86 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import dev.rohitrana.propertymap.analytics.FinancingAssumptions;
+import dev.rohitrana.propertymap.analytics.PortfolioMetrics;
+import dev.rohitrana.propertymap.analytics.PropertyColumns;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.scoring.ScoreSnapshot;
+import dev.rohitrana.propertymap.scoring.ScoringProfiles;
+import dev.rohitrana.propertymap.service.LocationScoreService;
+import dev.rohitrana.propertymap.service.PropertyService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cap rate and overall score calculations against their bulk, column-based counterparts.
+ * No database involved: the calculations only read the entity fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx6g"})
+public class CalculationBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private List<Property> properties;
+    private List<LocationScore> locationScores;
+    private PropertyService propertyService;
+    private LocationScoreService locationScoreService;
+    private ScoringProfiles scoringProfiles;
+    private FinancingAssumptions assumptions;
+    private PropertyColumns propertyColumns;
+    private ScoreSnapshot scoreSnapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+        properties = data.properties(rows);
+        locationScores = data.locationScores(rows);
+
+        // The calculations do not touch the collaborators
+        propertyService = new PropertyService(null, null, null, null, null, null, null, null, null);
+        scoringProfiles = new ScoringProfiles();
+        locationScoreService = new LocationScoreService(null, null, null, null, null, null, scoringProfiles, null, null);
+        assumptions = new FinancingAssumptions();
+        propertyColumns = new PropertyColumns(properties);
+        scoreSnapshot = ScoreSnapshot.of(locationScores);
+    }
+
+    @Benchmark
+    public void capRatePerProperty(Blackhole blackhole) {
+        for (Property property : properties) {
+            blackhole.consume(propertyService.calculateCapRate(property));
+        }
+    }
+
+    @Benchmark
+    public PortfolioMetrics portfolioMetrics() {
+        return PortfolioMetrics.compute(propertyColumns, assumptions);
+    }
+
+    // Includes loading the entities into columns
+    @Benchmark
+    public PortfolioMetrics portfolioMetricsFromEntities() {
+        return PortfolioMetrics.compute(new PropertyColumns(properties), assumptions);
+    }
+
+    @Benchmark
+    public void overallScorePerLocation(Blackhole blackhole) {
+        for (LocationScore locationScore : locationScores) {
+            blackhole.consume(locationScoreService.calculateOverallScore(locationScore));
+        }
+    }
+
+    @Benchmark
+    public int[] overallScoreSnapshot() {
+        return scoreSnapshot.score(scoringProfiles.getActiveWeights(), ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,59 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies and outcomes of the requests to one endpoint, recorded by one virtual user and merged
+ * afterwards, so recording takes no lock.
+ */
+public class EndpointStats {
+    // Microseconds, up to a minute at three significant digits
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Histogram latencies = new Histogram(MAX_LATENCY_MICROS, 3);
+    private long errors;
+    private long bytes;
+
+    /**
+     * @param status the HTTP status, or 0 if there was no response
+     */
+    void record(long latencyMicros, int status, long responseBytes) {
+        latencies.recordValue(Math.min(Math.max(1, latencyMicros), MAX_LATENCY_MICROS));
+        if (status == 0 || status >= 400) {
+            errors++;
+        }
+        bytes += responseBytes;
+    }
+
+    void add(EndpointStats other) {
+        latencies.add(other.latencies);
+        errors += other.errors;
+        bytes += other.bytes;
+    }
+
+    long count() {
+        return latencies.getTotalCount();
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    double maxMillis() {
+        return latencies.getMaxValue() / 1000.0;
+    }
+
+    double meanMillis() {
+        return latencies.getMean() / 1000.0;
+    }
+}
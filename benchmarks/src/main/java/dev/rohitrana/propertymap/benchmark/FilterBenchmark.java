@@ -0,0 +1,76 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import dev.rohitrana.propertymap.filter.PropertyFilter;
+import dev.rohitrana.propertymap.index.PropertySpatialIndex;
+import dev.rohitrana.propertymap.model.Property;
+import dev.rohitrana.propertymap.repository.PropertyRepository;
+import dev.rohitrana.propertymap.service.PropertyService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * The combined property filter: served from the query cache, as a single database query,
+ * and as an in-memory predicate over the indexed rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx6g"})
+public class FilterBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private BackendContext backend;
+    private PropertyService propertyService;
+    private PropertyRepository propertyRepository;
+    private PropertySpatialIndex propertySpatialIndex;
+    private PropertyFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        backend = new BackendContext(rows, 0);
+        propertyService = backend.getBean(PropertyService.class);
+        propertyRepository = backend.getBean(PropertyRepository.class);
+        propertySpatialIndex = backend.getBean(PropertySpatialIndex.class);
+
+        // A typical search from the filter dialog
+        filter = new PropertyFilter();
+        filter.setCity("Toronto");
+        filter.setStatus("Active");
+        filter.setMinBedrooms(2);
+        filter.setMinPrice(new BigDecimal("500000"));
+        filter.setMaxPrice(new BigDecimal("1500000"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public List<Property> cached() {
+        return propertyService.filterProperties(filter);
+    }
+
+    @Benchmark
+    public List<Property> database() {
+        return propertyRepository.findAll(filter.toEntityFilter().toSpecification());
+    }
+
+    @Benchmark
+    public void inMemory(Blackhole blackhole) {
+        Predicate<Property> predicate = filter.toEntityFilter().toPredicate();
+        for (Property property : propertySpatialIndex.values()) {
+            if (predicate.test(property)) {
+                blackhole.consume(property);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import java.nio.file.Path;
+
+/**
+ * Options of a load test run, given as --name=value arguments.
+ */
+public class LoadTestOptions {
+    // Backend to load, by default one started in this JVM on an in-memory H2 database
+    String url;
+    int properties = 100_000;
+    int locationScores = 5_000;
+
+    int users = 32;
+    int warmupSeconds = 15;
+    int durationSeconds = 60;
+    // Mean think time between a user's actions in synthetic sessions
+    long thinkTimeMillis = 250;
+    // Recorded think times are multiplied by this, 0 replays without pauses
+    double thinkTimeScale = 1;
+    // HAR files (or directories of them) recorded in the browser, synthetic sessions when not given
+    Path sessions;
+    // Entity lists of synthetic sessions in the columnar format, like REACT_APP_BINARY_TRANSFER=true
+    boolean binary;
+    long seed = SyntheticData.DEFAULT_SEED;
+    Path output = Path.of("target/load-results");
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, equals < 0 ? arg.length() : equals);
+            String value = equals < 0 ? "true" : arg.substring(equals + 1);
+            switch (name) {
+                case "url" -> options.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "properties" -> options.properties = Integer.parseInt(value);
+                case "location-scores" -> options.locationScores = Integer.parseInt(value);
+                case "users" -> options.users = Integer.parseInt(value);
+                case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                case "think-time" -> options.thinkTimeMillis = Long.parseLong(value);
+                case "think-time-scale" -> options.thinkTimeScale = Double.parseDouble(value);
+                case "sessions" -> options.sessions = Path.of(value);
+                case "binary" -> options.binary = Boolean.parseBoolean(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "output" -> options.output = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.users < 1 || options.durationSeconds < 1 || options.warmupSeconds < 0) {
+            throw new IllegalArgumentException("users and duration must be positive, warmup not negative");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,84 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of a load test run: throughput and latency percentiles per endpoint and overall, and
+ * what the backend allocated meanwhile when it ran in this JVM.
+ *
+ * @param scheduled whether the latencies count from when each request was due (see
+ *                  {@link LoadTestRunner}), or only from when it was sent, as in runs without think time
+ */
+public record LoadTestReport(String url, String sessions, int users, double seconds, boolean scheduled,
+                             Endpoint total, List<Endpoint> endpoints, Allocation allocation) {
+
+    public record Endpoint(String endpoint, long requests, long errors, double requestsPerSecond, double meanMillis,
+                           double p50Millis, double p99Millis, double p999Millis, double maxMillis,
+                           long meanResponseBytes) {
+
+        static Endpoint of(String endpoint, EndpointStats stats, double seconds) {
+            long count = stats.count();
+            return new Endpoint(endpoint, count, stats.errors(), count / seconds, stats.meanMillis(),
+                    stats.percentileMillis(50), stats.percentileMillis(99), stats.percentileMillis(99.9),
+                    stats.maxMillis(), count == 0 ? 0 : stats.bytes() / count);
+        }
+    }
+
+    public record Allocation(double bytesPerSecond, long bytesPerRequest, long collections, long collectionMillis) {
+    }
+
+    static LoadTestReport of(String url, String sessions, int users, double seconds, boolean scheduled,
+                             Map<String, EndpointStats> byEndpoint, AllocationMeter.Result allocated) {
+        EndpointStats all = new EndpointStats();
+        List<Endpoint> endpoints = new ArrayList<>();
+        byEndpoint.forEach((endpoint, stats) -> {
+            all.add(stats);
+            endpoints.add(Endpoint.of(endpoint, stats, seconds));
+        });
+        Allocation allocation = allocated == null ? null : new Allocation(allocated.bytes() / seconds,
+                all.count() == 0 ? 0 : allocated.bytes() / all.count(), allocated.collections(),
+                allocated.collectionMillis());
+        return new LoadTestReport(url, sessions, users, seconds, scheduled, Endpoint.of("total", all, seconds),
+                endpoints, allocation);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n%d users against %s (%s sessions) for %.0f s, latencies from %s%n%n", users, url, sessions,
+                seconds, scheduled ? "when each request was due" : "the send (closed loop, no think time)");
+        String format = "%-52s %9s %7s %9s %9s %9s %9s %9s %9s%n";
+        out.printf(format, "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "Max ms",
+                "Avg KB");
+        for (Endpoint endpoint : endpoints) {
+            print(out, format, endpoint);
+        }
+        print(out, format, total);
+        if (allocation == null) {
+            out.printf("%nBackend allocation: not measured, the backend runs in another JVM%n");
+        } else {
+            out.printf("%nBackend allocation: %.1f MB/s, %.1f KB per request; %d collections taking %d ms%n",
+                    allocation.bytesPerSecond() / (1 << 20), allocation.bytesPerRequest() / 1024.0,
+                    allocation.collections(), allocation.collectionMillis());
+        }
+    }
+
+    private static void print(PrintStream out, String format, Endpoint e) {
+        out.printf(format, e.endpoint(), e.requests(), e.errors(), String.format("%.1f", e.requestsPerSecond()),
+                String.format("%.2f", e.p50Millis()), String.format("%.2f", e.p99Millis()),
+                String.format("%.2f", e.p999Millis()), String.format("%.2f", e.maxMillis()),
+                String.format("%.1f", e.meanResponseBytes() / 1024.0));
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+}
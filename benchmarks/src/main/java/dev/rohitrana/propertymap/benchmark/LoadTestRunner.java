@@ -0,0 +1,249 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the HTTP API: virtual users replay map sessions, synthetic or recorded (see
+ * {@link SessionSource}), against the backend over real connections, each waiting for a response
+ * and thinking before its next request, as the frontend does. After the warm-up, the latencies are
+ * recorded per endpoint for the duration and reported with the throughput and, when the backend
+ * runs in this JVM, its allocation rate. The report is also written as JSON to
+ * target/load-results/ (one file per run).
+ * <p>
+ * Each user follows a schedule: a request is due its think time after the previous one was due,
+ * and its latency counts from then. A response that overruns delays the requests after it, and
+ * that wait is part of their latency instead of going unmeasured (coordinated omission). Calls
+ * without think time, such as the second request of a viewport, are due with the call before them.
+ * Runs without any think time have no schedule to keep; they time each request from its send.
+ * <p>
+ * By default the backend is started here on an in-memory H2 database seeded with synthetic rows;
+ * with --url it is any running backend, which keeps the load generator off its CPU. Options:
+ * <pre>
+ * --url=http://localhost:8080  --properties=100000  --location-scores=5000
+ * --users=32  --warmup=15  --duration=60  (seconds)
+ * --think-time=250  (mean ms between actions of synthetic sessions, 0 for none)
+ * --sessions=recordings/  (HAR files)  --think-time-scale=1  (recorded pauses multiplied by this)
+ * --binary  (entity lists in the columnar format)  --seed=42  --output=target/load-results
+ * </pre>
+ */
+public class LoadTestRunner {
+    private enum Phase { WARMUP, MEASURE, STOP }
+
+    private final LoadTestOptions options;
+    private final String url;
+    private final HttpClient client;
+    private final boolean scheduled;
+    private volatile Phase phase = Phase.WARMUP;
+
+    LoadTestRunner(LoadTestOptions options, String url) {
+        this.options = options;
+        this.url = url;
+        this.scheduled = options.sessions != null ? options.thinkTimeScale > 0 : options.thinkTimeMillis > 0;
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, AllocationMeter.GENERATOR_THREAD_PREFIX + "client-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if (options.url != null) {
+            new LoadTestRunner(options, options.url).run(null);
+            return;
+        }
+        System.out.printf("Starting the backend with %d properties and %d location scores%n", options.properties,
+                options.locationScores);
+        try (BackendContext backend = new BackendContext(options.properties, options.locationScores)) {
+            new LoadTestRunner(options, "http://127.0.0.1:" + backend.getPort()).run(new AllocationMeter());
+        }
+    }
+
+    /**
+     * @param allocation measures the backend's allocations, null when it runs elsewhere
+     */
+    LoadTestReport run(AllocationMeter allocation) throws IOException, InterruptedException {
+        SessionSource sessions = options.sessions != null
+                ? new RecordedSessions(options.sessions, options.thinkTimeScale)
+                : syntheticSessions();
+
+        SplittableRandom root = new SplittableRandom(options.seed);
+        List<VirtualUser> users = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < options.users; i++) {
+            VirtualUser user = new VirtualUser(sessions, root.split());
+            users.add(user);
+            threads.add(new Thread(user, AllocationMeter.GENERATOR_THREAD_PREFIX + "user-" + (i + 1)));
+        }
+        System.out.printf("%d users warming up for %d s%n", options.users, options.warmupSeconds);
+        threads.forEach(Thread::start);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.warmupSeconds));
+
+        System.out.printf("Measuring for %d s%n", options.durationSeconds);
+        if (allocation != null) {
+            allocation.start();
+        }
+        long start = System.nanoTime();
+        phase = Phase.MEASURE;
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.durationSeconds));
+        phase = Phase.STOP;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        AllocationMeter.Result allocated = allocation == null ? null : allocation.stop();
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join();
+        }
+
+        Map<String, EndpointStats> byEndpoint = new TreeMap<>();
+        for (VirtualUser user : users) {
+            user.stats.forEach((endpoint, stats) -> byEndpoint.computeIfAbsent(endpoint, key -> new EndpointStats())
+                    .add(stats));
+        }
+        LoadTestReport report = LoadTestReport.of(url, options.sessions != null ? options.sessions.toString()
+                : "synthetic", options.users, seconds, scheduled, byEndpoint, allocated);
+        report.print(System.out);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = options.output.resolve("load-" + timestamp + ".json");
+        report.write(file);
+        System.out.printf("%nWritten to %s%n", file);
+        return report;
+    }
+
+    // Sessions around the backend's own data: where its properties are, and which ids exist
+    private SessionSource syntheticSessions() throws IOException, InterruptedException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode properties = mapper.readTree(get("/api/properties?fields=id,latitude,longitude,city"));
+        JsonNode locationScores = mapper.readTree(get("/api/location-scores?fields=id"));
+
+        List<JsonNode> located = new ArrayList<>();
+        properties.forEach(property -> {
+            if (property.path("latitude").isNumber() && property.path("longitude").isNumber()) {
+                located.add(property);
+            }
+        });
+        long[] propertyIds = new long[located.size()];
+        double[] latitudes = new double[located.size()];
+        double[] longitudes = new double[located.size()];
+        TreeSet<String> cities = new TreeSet<>();
+        for (int i = 0; i < located.size(); i++) {
+            JsonNode property = located.get(i);
+            propertyIds[i] = property.path("id").asLong();
+            latitudes[i] = property.path("latitude").asDouble();
+            longitudes[i] = property.path("longitude").asDouble();
+            if (property.path("city").isTextual()) {
+                cities.add(property.path("city").asText());
+            }
+        }
+        long[] locationScoreIds = new long[locationScores.size()];
+        for (int i = 0; i < locationScoreIds.length; i++) {
+            locationScoreIds[i] = locationScores.get(i).path("id").asLong();
+        }
+        return new SyntheticSessions(propertyIds, latitudes, longitudes, locationScoreIds, new ArrayList<>(cities),
+                options.thinkTimeMillis, options.binary);
+    }
+
+    private byte[] get(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(url + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + path + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private class VirtualUser implements Runnable {
+        private final SessionSource sessions;
+        private final SplittableRandom random;
+        private final Map<String, EndpointStats> stats = new HashMap<>();
+        private final byte[] buffer = new byte[64 * 1024];
+        // When the next request is due, in System.nanoTime()
+        private long due;
+
+        VirtualUser(SessionSource sessions, SplittableRandom random) {
+            this.sessions = sessions;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            try {
+                due = System.nanoTime();
+                while (phase != Phase.STOP) {
+                    for (ApiCall call : sessions.next(random)) {
+                        if (phase == Phase.STOP) {
+                            return;
+                        }
+                        if (scheduled) {
+                            due += TimeUnit.MILLISECONDS.toNanos(call.thinkMillis());
+                            long wait = due - System.nanoTime();
+                            if (wait > 0) {
+                                TimeUnit.NANOSECONDS.sleep(wait);
+                            }
+                        } else {
+                            due = System.nanoTime();
+                        }
+                        send(call);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void send(ApiCall call) throws InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url + call.path()))
+                    .header("Accept", call.accept())
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            boolean measured = phase == Phase.MEASURE;
+            int status = 0;
+            long bytes = 0;
+            try {
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                // The response is complete once its body is read
+                try (InputStream body = response.body()) {
+                    for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+                        bytes += read;
+                    }
+                }
+                status = response.statusCode();
+            } catch (IOException e) {
+                // Counted as an error, with the time it took to fail
+            }
+            if (measured) {
+                stats.computeIfAbsent(call.endpoint(), endpoint -> new EndpointStats())
+                        .record((System.nanoTime() - due) / 1000, status, bytes);
+            }
+        }
+    }
+}
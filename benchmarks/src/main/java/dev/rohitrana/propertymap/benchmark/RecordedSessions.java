@@ -0,0 +1,83 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Sessions recorded in the browser: HAR files saved from the network tab of the developer tools
+ * while using the map, one session per file. The GET requests to /api/ are replayed in order,
+ * with the Accept header they were sent with, each after the time that passed since the previous
+ * one started, scaled. Writes are not replayed, nor the change feed stream.
+ */
+public class RecordedSessions implements SessionSource {
+    private static final String API_PREFIX = "/api/";
+
+    private final List<List<ApiCall>> sessions = new ArrayList<>();
+
+    public RecordedSessions(Path path, double thinkTimeScale) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> listing = Files.list(path)) {
+                files = listing.filter(file -> file.toString().endsWith(".har")).sorted().toList();
+            }
+        } else {
+            files = List.of(path);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        for (Path file : files) {
+            List<ApiCall> session = read(mapper.readTree(file.toFile()), thinkTimeScale);
+            if (!session.isEmpty()) {
+                sessions.add(session);
+            }
+        }
+        if (sessions.isEmpty()) {
+            throw new IllegalArgumentException("No GET requests to " + API_PREFIX + " recorded in " + path);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public List<ApiCall> next(SplittableRandom random) {
+        return sessions.get(random.nextInt(sessions.size()));
+    }
+
+    private static List<ApiCall> read(JsonNode har, double thinkTimeScale) {
+        List<ApiCall> calls = new ArrayList<>();
+        OffsetDateTime previous = null;
+        for (JsonNode entry : har.path("log").path("entries")) {
+            JsonNode request = entry.path("request");
+            URI uri = URI.create(request.path("url").asText());
+            String accept = "";
+            for (JsonNode header : request.path("headers")) {
+                if ("accept".equalsIgnoreCase(header.path("name").asText())) {
+                    accept = header.path("value").asText();
+                }
+            }
+            if (!"GET".equals(request.path("method").asText()) || uri.getRawPath() == null
+                    || !uri.getRawPath().startsWith(API_PREFIX) || accept.contains("text/event-stream")) {
+                continue;
+            }
+            OffsetDateTime started = OffsetDateTime.parse(entry.path("startedDateTime").asText());
+            long think = previous == null ? 0
+                    : Math.max(0, (long) (Duration.between(previous, started).toMillis() * thinkTimeScale));
+            previous = started;
+            String path = uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+            calls.add(new ApiCall(path, accept.isEmpty() ? "*/*" : accept, think));
+        }
+        return calls;
+    }
+}
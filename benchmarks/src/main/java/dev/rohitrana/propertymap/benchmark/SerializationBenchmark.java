@@ -0,0 +1,153 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dev.rohitrana.propertymap.columnar.ColumnarSchemas;
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of the list responses as JSON, with the same ObjectMapper configuration as the
+ * MVC message converter, and in the columnar binary format. Output goes to a counting stream so
+ * only encoding is measured; the gzip variants include compressing at the default level, as a
+ * compressing proxy would. Payload sizes and gzip ratios are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx6g"})
+public class SerializationBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private List<Property> properties;
+    private List<LocationScore> locationScores;
+    private ObjectWriter propertyWriter;
+    private ObjectWriter locationScoreWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+        properties = data.properties(rows);
+        locationScores = data.locationScores(rows);
+
+        var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        propertyWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, Property.class));
+        locationScoreWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, LocationScore.class));
+
+        try {
+            printSizes();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public long properties() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        propertyWriter.writeValue(out, properties);
+        return out.count;
+    }
+
+    @Benchmark
+    public long locationScores() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        locationScoreWriter.writeValue(out, locationScores);
+        return out.count;
+    }
+
+    @Benchmark
+    public long propertiesColumnar() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        ColumnarSchemas.PROPERTIES.write(properties, out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long locationScoresColumnar() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        ColumnarSchemas.LOCATION_SCORES.write(locationScores, out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long propertiesGzip() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            propertyWriter.writeValue(gzip, properties);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long propertiesColumnarGzip() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            ColumnarSchemas.PROPERTIES.write(properties, gzip);
+        }
+        return out.count;
+    }
+
+    private void printSizes() throws IOException {
+        long[] json = {propertiesSize(false, false), locationScoresSize(false, false)};
+        long[] jsonGzip = {propertiesSize(false, true), locationScoresSize(false, true)};
+        long[] columnar = {propertiesSize(true, false), locationScoresSize(true, false)};
+        long[] columnarGzip = {propertiesSize(true, true), locationScoresSize(true, true)};
+        String[] names = {"properties", "locationScores"};
+        for (int i = 0; i < names.length; i++) {
+            System.out.printf("%n%s x %d: json %d B (gzip %d B, %.1fx), columnar %d B (gzip %d B, %.1fx), "
+                            + "columnar/json %.3f%n", names[i], rows, json[i], jsonGzip[i],
+                    (double) json[i] / jsonGzip[i], columnar[i], columnarGzip[i],
+                    (double) columnar[i] / columnarGzip[i], (double) columnar[i] / json[i]);
+        }
+    }
+
+    private long propertiesSize(boolean binary, boolean gzip) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(counter, 8192) : counter) {
+            if (binary) {
+                ColumnarSchemas.PROPERTIES.write(properties, out);
+            } else {
+                propertyWriter.writeValue(out, properties);
+            }
+        }
+        return counter.count;
+    }
+
+    private long locationScoresSize(boolean binary, boolean gzip) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(counter, 8192) : counter) {
+            if (binary) {
+                ColumnarSchemas.LOCATION_SCORES.write(locationScores, out);
+            } else {
+                locationScoreWriter.writeValue(out, locationScores);
+            }
+        }
+        return counter.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
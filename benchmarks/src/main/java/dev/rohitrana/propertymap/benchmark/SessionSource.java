@@ -0,0 +1,12 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Where a virtual user's sessions come from: one visit to the map, as the requests its
+ * frontend sends in order.
+ */
+public interface SessionSource {
+    List<ApiCall> next(SplittableRandom random);
+}
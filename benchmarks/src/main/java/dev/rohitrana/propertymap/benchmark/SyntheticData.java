@@ -0,0 +1,135 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import dev.rohitrana.propertymap.model.LocationScore;
+import dev.rohitrana.propertymap.model.Property;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of GTA-like properties and location scores.
+ * Rows are spread over the same ten areas as the generated part of db/data.sql,
+ * with prices, rents and scores in the same ranges. The same seed always yields the same rows.
+ */
+public final class SyntheticData {
+    public static final long DEFAULT_SEED = 42;
+
+    // name, south, north, west, east, typical price
+    private static final Object[][] AREAS = {
+            {"Toronto", 43.630, 43.700, -79.420, -79.350, 950_000},
+            {"Toronto", 43.680, 43.730, -79.430, -79.380, 1_150_000},
+            {"Toronto", 43.630, 43.680, -79.490, -79.420, 900_000},
+            {"Toronto", 43.660, 43.720, -79.360, -79.290, 850_000},
+            {"Mississauga", 43.560, 43.620, -79.650, -79.580, 780_000},
+            {"Brampton", 43.680, 43.760, -79.820, -79.700, 720_000},
+            {"Vaughan", 43.770, 43.850, -79.570, -79.480, 1_050_000},
+            {"Markham", 43.820, 43.880, -79.370, -79.290, 1_000_000},
+            {"Richmond Hill", 43.840, 43.910, -79.460, -79.380, 1_100_000},
+            {"Oakville", 43.390, 43.480, -79.730, -79.650, 1_250_000},
+    };
+    private static final String[] STATUSES = {"Active", "Active", "Active", "Pending", "Sold"};
+    private static final String[] STREETS = {"Yonge", "Bloor", "Queen", "King", "Dundas", "Bathurst", "Spadina",
+            "Lakeshore", "Eglinton", "Finch"};
+
+    private final Random random;
+    private final LocalDateTime now = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    // South, north, west and east bounds covering every generated row
+    public static double[] coverage() {
+        return new double[] {43.390, 43.910, -79.820, -79.290};
+    }
+
+    public List<Property> properties(int count) {
+        List<Property> properties = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            properties.add(property(i));
+        }
+        return properties;
+    }
+
+    public List<LocationScore> locationScores(int count) {
+        List<LocationScore> scores = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            scores.add(locationScore(i));
+        }
+        return scores;
+    }
+
+    private Property property(int i) {
+        Object[] area = AREAS[i % AREAS.length];
+        int bedrooms = 1 + random.nextInt(5);
+        int squareFeet = 450 + bedrooms * 350 + random.nextInt(600);
+        double price = ((Number) area[5]).doubleValue() * (0.5 + random.nextDouble()) * (0.6 + bedrooms * 0.2);
+        double monthlyRent = price * (0.0030 + random.nextDouble() * 0.0015);
+
+        Property property = new Property();
+        property.setId((long) i + 1);
+        property.setAddress((10 + random.nextInt(990)) + " " + STREETS[random.nextInt(STREETS.length)] + " Street");
+        property.setCity((String) area[0]);
+        property.setState("ON");
+        property.setZipCode(postalCode());
+        property.setBedrooms(bedrooms);
+        property.setBathrooms(1 + random.nextInt(Math.max(1, bedrooms)));
+        property.setSquareFeet(squareFeet);
+        property.setYearBuilt(1950 + random.nextInt(75));
+        property.setListPrice(money(price));
+        property.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        property.setLatitude(between((double) area[1], (double) area[2]));
+        property.setLongitude(between((double) area[3], (double) area[4]));
+        property.setMonthlyRent(money(monthlyRent));
+        property.setYearlyExpenses(money(price * (0.008 + random.nextDouble() * 0.01)));
+        property.setAppreciationRate(BigDecimal.valueOf(2 + random.nextDouble() * 4).setScale(2, RoundingMode.HALF_UP));
+        property.setCashOnCashReturn(BigDecimal.valueOf(1 + random.nextDouble() * 6).setScale(2, RoundingMode.HALF_UP));
+        property.setDescription("Generated listing " + (i + 1));
+        property.setVersion(0L);
+        property.setCreatedAt(now);
+        property.setUpdatedAt(now);
+        return property;
+    }
+
+    private LocationScore locationScore(int i) {
+        Object[] area = AREAS[i % AREAS.length];
+        LocationScore score = new LocationScore();
+        score.setId((long) i + 1);
+        score.setLatitude(between((double) area[1], (double) area[2]));
+        score.setLongitude(between((double) area[3], (double) area[4]));
+        score.setAddress(area[0] + " Area");
+        score.setPerformanceScore(4 + random.nextInt(6));
+        score.setRiskScore(4 + random.nextInt(6));
+        score.setDemandScore(5 + random.nextInt(6));
+        score.setSupplyScore(3 + random.nextInt(6));
+        score.setOverallScore(6 + random.nextInt(4));
+        score.setCapRate(2.0 + random.nextDouble() * 2.5);
+        score.setAppreciation(3.0 + random.nextDouble() * 3.0);
+        score.setIrr(6.0 + random.nextDouble() * 4.0);
+        score.setFiveYearTotalReturn(30.0 + random.nextDouble() * 20.0);
+        score.setAverageHousePrice(((Number) area[5]).doubleValue() * (0.8 + random.nextDouble() * 0.4));
+        score.setPropertyTax(0.6 + random.nextDouble() * 0.4);
+        score.setNeighborhoodChange(random.nextDouble() * 4.0);
+        score.setVersion(0L);
+        score.setCreatedAt(now);
+        score.setUpdatedAt(now);
+        return score;
+    }
+
+    private String postalCode() {
+        return "L" + random.nextInt(10) + (char) ('A' + random.nextInt(26)) + " "
+                + random.nextInt(10) + (char) ('A' + random.nextInt(26)) + random.nextInt(10);
+    }
+
+    private double between(double min, double max) {
+        return Math.round((min + random.nextDouble() * (max - min)) * 10_000) / 10_000.0;
+    }
+
+    private static BigDecimal money(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,149 @@
+package dev.rohitrana.propertymap.benchmark;
+
+import dev.rohitrana.propertymap.columnar.ColumnarFormat;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Sessions made up of the frontend's api.js calls: the map opens on a viewport around a
+ * listing and loads its properties and location scores, then the user pans and zooms, with
+ * clusters once zoomed out, applies filters, opens properties and location scores, and
+ * searches addresses. Think times between actions are exponentially distributed.
+ */
+public class SyntheticSessions implements SessionSource {
+    private static final String JSON = "application/json";
+    // Roughly a zoom 14 viewport on a laptop screen, as in BoundsBenchmark
+    private static final double VIEWPORT_LAT = 0.03;
+    private static final double VIEWPORT_LNG = 0.06;
+    // Wider than this the frontend asks for clusters instead of properties
+    private static final double CLUSTER_LNG = 0.25;
+    private static final int MIN_ACTIONS = 3;
+    private static final int MAX_ACTIONS = 15;
+
+    private final long[] propertyIds;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] locationScoreIds;
+    private final List<String> cities;
+    private final long thinkTimeMillis;
+    // Entity lists are asked for in this format, like getList in api.js
+    private final String listAccept;
+
+    /**
+     * @param latitudes and longitudes of the properties, where viewports open
+     * @param binary    whether entity lists are transferred in the columnar format
+     */
+    public SyntheticSessions(long[] propertyIds, double[] latitudes, double[] longitudes, long[] locationScoreIds,
+                             List<String> cities, long thinkTimeMillis, boolean binary) {
+        if (propertyIds.length == 0) {
+            throw new IllegalArgumentException("Synthetic sessions need properties to look at");
+        }
+        this.propertyIds = propertyIds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.locationScoreIds = locationScoreIds;
+        this.cities = cities;
+        this.thinkTimeMillis = thinkTimeMillis;
+        this.listAccept = binary ? ColumnarFormat.MEDIA_TYPE_VALUE : JSON;
+    }
+
+    @Override
+    public List<ApiCall> next(SplittableRandom random) {
+        List<ApiCall> calls = new ArrayList<>();
+        int anchor = random.nextInt(propertyIds.length);
+        double lat = latitudes[anchor];
+        double lng = longitudes[anchor];
+        double height = VIEWPORT_LAT;
+        double width = VIEWPORT_LNG;
+
+        double[] bounds = bounds(lat, lng, height, width);
+        viewport(calls, bounds, null, 0);
+        int actions = MIN_ACTIONS + random.nextInt(MAX_ACTIONS - MIN_ACTIONS + 1);
+        for (int i = 0; i < actions; i++) {
+            long think = think(random);
+            double action = random.nextDouble();
+            if (action < 0.55) {
+                // Pan by a fraction of the viewport, the frontend asks only for what came into view
+                lat += (random.nextDouble() - 0.5) * 1.2 * height;
+                lng += (random.nextDouble() - 0.5) * 1.2 * width;
+                double[] previous = bounds;
+                bounds = bounds(lat, lng, height, width);
+                viewport(calls, bounds, random.nextBoolean() ? previous : null, think);
+            } else if (action < 0.75) {
+                double zoom = action < 0.65 ? 2 : 0.5;
+                height = Math.max(VIEWPORT_LAT / 4, Math.min(VIEWPORT_LAT * 16, height * zoom));
+                width = Math.max(VIEWPORT_LNG / 4, Math.min(VIEWPORT_LNG * 16, width * zoom));
+                bounds = bounds(lat, lng, height, width);
+                viewport(calls, bounds, null, think);
+            } else if (action < 0.85) {
+                calls.add(new ApiCall("/api/properties/filter?" + filter(random), listAccept, think));
+            } else if (action < 0.95) {
+                calls.add(new ApiCall("/api/properties/" + propertyIds[random.nextInt(propertyIds.length)], JSON,
+                        think));
+                if (locationScoreIds.length > 0 && random.nextBoolean()) {
+                    calls.add(new ApiCall("/api/location-scores/"
+                            + locationScoreIds[random.nextInt(locationScoreIds.length)], JSON, think(random)));
+                }
+            } else if (!cities.isEmpty()) {
+                // Typed with a pause, the search box is debounced
+                String city = cities.get(random.nextInt(cities.size()));
+                int typed = Math.min(city.length(), 3 + random.nextInt(4));
+                calls.add(new ApiCall("/api/search?q=" + URLEncoder.encode(city.substring(0, typed),
+                        StandardCharsets.UTF_8), JSON, think));
+            }
+        }
+        return calls;
+    }
+
+    // Properties, or clusters when zoomed out, and location scores of the viewport
+    private void viewport(List<ApiCall> calls, double[] bounds, double[] previous, long think) {
+        String box = box("", bounds);
+        if (previous != null && bounds[3] - bounds[2] <= CLUSTER_LNG) {
+            calls.add(new ApiCall("/api/viewport?" + box + "&" + box("prev", previous), JSON, think));
+            return;
+        }
+        if (bounds[3] - bounds[2] > CLUSTER_LNG) {
+            int zoom = (int) Math.floor(Math.log(360 / (bounds[3] - bounds[2]) * 4) / Math.log(2));
+            calls.add(new ApiCall("/api/properties/clusters?" + box + "&zoom=" + zoom, JSON, think));
+        } else {
+            calls.add(new ApiCall("/api/properties/bounds?" + box, listAccept, think));
+        }
+        // Sent together with the properties
+        calls.add(new ApiCall("/api/location-scores/bounds?" + box, listAccept, 0));
+    }
+
+    private String filter(SplittableRandom random) {
+        StringBuilder filter = new StringBuilder("minBedrooms=" + (1 + random.nextInt(4)));
+        if (!cities.isEmpty() && random.nextBoolean()) {
+            filter.append("&city=").append(URLEncoder.encode(cities.get(random.nextInt(cities.size())),
+                    StandardCharsets.UTF_8));
+        }
+        if (random.nextBoolean()) {
+            filter.append("&maxPrice=").append(400_000 + 100_000 * random.nextInt(12));
+        }
+        // A page, as the filter panel shows
+        return filter.append("&limit=100").toString();
+    }
+
+    private long think(SplittableRandom random) {
+        return thinkTimeMillis == 0 ? 0 : (long) (-Math.log(1 - random.nextDouble()) * thinkTimeMillis);
+    }
+
+    private static double[] bounds(double lat, double lng, double height, double width) {
+        return new double[] {lat - height / 2, lat + height / 2, lng - width / 2, lng + width / 2};
+    }
+
+    private static String box(String prefix, double[] bounds) {
+        String south = prefix.isEmpty() ? "southLat" : prefix + "SouthLat";
+        String north = prefix.isEmpty() ? "northLat" : prefix + "NorthLat";
+        String west = prefix.isEmpty() ? "westLng" : prefix + "WestLng";
+        String east = prefix.isEmpty() ? "eastLng" : prefix + "EastLng";
+        return String.format(Locale.ROOT, "%s=%.5f&%s=%.5f&%s=%.5f&%s=%.5f", south, bounds[0], north, bounds[1],
+                west, bounds[2], east, bounds[3]);
+    }
+}
@@ -245,6 +245,7 @@ function App() {
         <FilterBar
           activeMetric={activeMetric}
           onFilterClick={toggleFilterDialog}
+          onPropertySelect={handlePropertySelect}
         />
 
         {showFilterDialog && (
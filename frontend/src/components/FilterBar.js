@@ -1,6 +1,44 @@
-import React from 'react';
+import React, { useEffect, useState } from 'react';
+import { fetchPropertyById, searchAddresses } from '../services/api';
+
+// Wait for a pause in typing before searching
+const SEARCH_DELAY_MS = 200;
+
+const FilterBar = ({ onFilterClick, onPropertySelect }) => {
+  const [query, setQuery] = useState('');
+  const [suggestions, setSuggestions] = useState([]);
+
+  useEffect(() => {
+    if (!query.trim()) {
+      setSuggestions([]);
+      return undefined;
+    }
+    let cancelled = false;
+    const timer = setTimeout(async () => {
+      const results = await searchAddresses(query, { type: 'properties', limit: 8 });
+      if (!cancelled) {
+        setSuggestions(results.hits);
+      }
+    }, SEARCH_DELAY_MS);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [query]);
+
+  const handleSuggestionClick = async (hit) => {
+    setQuery('');
+    setSuggestions([]);
+    try {
+      const property = await fetchPropertyById(hit.id);
+      if (onPropertySelect) {
+        onPropertySelect(property);
+      }
+    } catch (error) {
+      // Deleted since it was indexed; fetchPropertyById already logged it
+    }
+  };
 
-const FilterBar = ({ onFilterClick }) => {
   return (
     <div className="filters-container">
       <div className="filters-row">
@@ -8,6 +46,27 @@ const FilterBar = ({ onFilterClick }) => {
           <i className="filter-icon fas fa-filter"></i>
           Filters
         </button>
+        <div className="address-search">
+          <input
+            type="search"
+            className="address-search-input"
+            placeholder="Search address, city or zip"
+            value={query}
+            onChange={(e) => setQuery(e.target.value)}
+          />
+          {suggestions.length > 0 && (
+            <ul className="address-search-suggestions">
+              {suggestions.map((hit) => (
+                <li key={hit.id} onClick={() => handleSuggestionClick(hit)}>
+                  {hit.address}
+                  <span className="address-search-detail">
+                    {[hit.city, hit.zipCode].filter(Boolean).join(' ')}
+                  </span>
+                </li>
+              ))}
+            </ul>
+          )}
+        </div>
       </div>
     </div>
   );
@@ -1,6 +1,7 @@
 import axios from 'axios';
 import mockProperties from '../mock/mock_properties.json';
 import mockLocationScores from '../mock/mock_location_scores.json';
+import { COLUMNAR_MEDIA_TYPE, decodeColumnar } from './columnar';
 
 const API_BASE_URL = 'http://localhost:8080/api';
 
@@ -17,6 +18,25 @@ const isMockMode = () => {
   return process.env.REACT_APP_MOCK === 'true';
 };
 
+// Check if large lists should be transferred in the compact binary format
+const isBinaryTransfer = () => {
+  return process.env.REACT_APP_BINARY_TRANSFER === 'true';
+};
+
+// GET for the entity list endpoints, decoding the columnar format when it is enabled
+const getList = async (url, params) => {
+  if (!isBinaryTransfer()) {
+    const response = await apiClient.get(url, { params });
+    return response.data;
+  }
+  const response = await apiClient.get(url, {
+    params,
+    headers: { Accept: COLUMNAR_MEDIA_TYPE },
+    responseType: 'arraybuffer',
+  });
+  return decodeColumnar(response.data);
+};
+
 // Properties API calls
 export const fetchProperties = async (filters = {}) => {
   try {
@@ -35,8 +55,7 @@ export const fetchProperties = async (filters = {}) => {
       }
     });
 
-    const response = await apiClient.get('/properties', { params });
-    return response.data;
+    return await getList('/properties', params);
   } catch (error) {
     console.error('Error fetching properties:', error);
     // Fall back to mock data if request fails
@@ -75,10 +94,7 @@ export const fetchPropertiesInBounds = async (bounds) => {
     }
 
     const { southLat, northLat, westLng, eastLng } = bounds;
-    const response = await apiClient.get('/properties/bounds', {
-      params: { southLat, northLat, westLng, eastLng },
-    });
-    return response.data;
+    return await getList('/properties/bounds', { southLat, northLat, westLng, eastLng });
   } catch (error) {
     console.error('Error fetching properties in bounds:', error);
     // Fall back to mock data
@@ -87,6 +103,191 @@ export const fetchPropertiesInBounds = async (bounds) => {
   }
 };
 
+export const fetchPropertyClusters = async (bounds, zoom) => {
+  try {
+    // Clusters are computed server-side, there is no mock equivalent
+    if (isMockMode()) {
+      console.log('Clusters are not available in mock mode');
+      return [];
+    }
+
+    const { southLat, northLat, westLng, eastLng } = bounds;
+    const response = await apiClient.get('/properties/clusters', {
+      params: { southLat, northLat, westLng, eastLng, zoom },
+    });
+    return response.data;
+  } catch (error) {
+    console.error('Error fetching property clusters:', error);
+    return [];
+  }
+};
+
+// Properties matching the filters with the metrics of the location scores around them attached as
+// locationScore ({ overallScore, riskScore, irr, distanceKm, ... }); mode is 'nearest' or 'interpolated'
+export const fetchPropertiesWithScores = async (filters = {}, mode = 'nearest') => {
+  try {
+    // The join is computed server-side, there is no mock equivalent
+    if (isMockMode()) {
+      console.log('Using mock property data without location scores');
+      return mockProperties.map((property) => ({ ...property, locationScore: null }));
+    }
+
+    const params = { scores: mode };
+    Object.entries(filters).forEach(([key, value]) => {
+      if (value !== undefined && value !== null) {
+        params[key] = value;
+      }
+    });
+
+    const response = await apiClient.get('/properties/filter', { params });
+    return response.data;
+  } catch (error) {
+    console.error('Error fetching properties with location scores:', error);
+    return [];
+  }
+};
+
+// Comparable properties around a property, most similar first ({ property, distanceKm, similarity })
+export const fetchComparableProperties = async (id, radiusKm = 1, filters = {}) => {
+  try {
+    // Comps are ranked server-side, there is no mock equivalent
+    if (isMockMode()) {
+      console.log('Comparable properties are not available in mock mode');
+      return [];
+    }
+
+    const response = await apiClient.get(`/properties/${id}/comps`, {
+      params: { radiusKm, ...filters },
+    });
+    return response.data;
+  } catch (error) {
+    console.error(`Error fetching comparables of property ${id}:`, error);
+    return [];
+  }
+};
+
+// The properties closest to a point, nearest first
+export const fetchNearestProperties = async (latitude, longitude, limit = 20) => {
+  try {
+    if (isMockMode()) {
+      console.log('Nearest properties are not available in mock mode');
+      return [];
+    }
+
+    const response = await apiClient.get('/properties/nearest', {
+      params: { latitude, longitude, limit },
+    });
+    return response.data;
+  } catch (error) {
+    console.error('Error fetching nearest properties:', error);
+    return [];
+  }
+};
+
+// Pre-aggregated metrics of all properties grouped by 'city', 'zipCode', 'status' or 'cell'
+// ({ groupBy, overall, groups: [{ key, count, metrics: { listPrice: { count, sum, average, min, max, histogram } } }] })
+export const fetchPropertyStats = async (groupBy = 'city', histograms = false) => {
+  try {
+    // Rollups are maintained server-side, there is no mock equivalent
+    if (isMockMode()) {
+      console.log('Property stats are not available in mock mode');
+      return { groupBy, overall: null, groups: [] };
+    }
+
+    const response = await apiClient.get('/analytics/stats', { params: { groupBy, histograms } });
+    return response.data;
+  } catch (error) {
+    console.error('Error fetching property stats:', error);
+    return { groupBy, overall: null, groups: [] };
+  }
+};
+
+// Monte Carlo "what-if" of buying the given properties together: distributions of irr, cashOnCash and totalReturn
+// over random market scenarios. Options are financing and simulation parameters, e.g. { holdingYears: 5,
+// appreciationVolatility: 5, vacancyRate: 5, scenarios: 10000, seed }
+// ({ analyzedCount, seed, metrics: { irr: { mean, p10, median, p90, ... } }, probabilityOfLoss })
+export const simulateReturns = async (ids, options = {}) => {
+  try {
+    // Simulated server-side, there is no mock equivalent
+    if (isMockMode()) {
+      console.log('Return simulations are not available in mock mode');
+      return { analyzedCount: 0, metrics: {}, probabilityOfLoss: null };
+    }
+
+    const params = new URLSearchParams();
+    ids.forEach((id) => params.append('ids', id));
+    Object.entries(options).forEach(([key, value]) => {
+      if (value !== undefined && value !== null) params.append(key, value);
+    });
+    const response = await apiClient.get(`/analytics/simulation?${params}`);
+    return response.data;
+  } catch (error) {
+    console.error('Error simulating returns:', error);
+    return { analyzedCount: 0, metrics: {}, probabilityOfLoss: null };
+  }
+};
+
+// Ranked address search as you type; the last word matches as a prefix and typos are tolerated
+// ({ total, hits: [{ type: 'property' | 'locationScore', id, score, address, city, zipCode, latitude, longitude }] })
+export const searchAddresses = async (query, { type = 'all', offset = 0, limit = 10 } = {}) => {
+  try {
+    if (isMockMode()) {
+      console.log('Address search is not available in mock mode');
+      return { total: 0, hits: [] };
+    }
+
+    const response = await apiClient.get('/search', { params: { q: query, type, offset, limit } });
+    return response.data;
+  } catch (error) {
+    console.error('Error searching addresses:', error);
+    return { total: 0, hits: [] };
+  }
+};
+
+// Trend of a recorded field, e.g. fetchHistoryStats('properties', 'listPrice', { groupBy: 'zipCode' }) for the
+// monthly median list price by zip code over the last five years
+// ({ entity, field, groupBy, interval, series: [{ key, periods: [{ period, count, average, min, max, percentiles }] }] })
+export const fetchHistoryStats = async (entity, field, { groupBy = 'all', keys, from, to, interval = 'month', percentiles = [0.5] } = {}) => {
+  try {
+    // History is recorded server-side, there is no mock equivalent
+    if (isMockMode()) {
+      console.log('History is not available in mock mode');
+      return { entity, field, groupBy, interval, series: [] };
+    }
+
+    const params = new URLSearchParams({ field, interval });
+    if (entity === 'properties') {
+      params.append('groupBy', groupBy);
+      (keys || []).forEach((key) => params.append('keys', key));
+    }
+    if (from) params.append('from', from);
+    if (to) params.append('to', to);
+    percentiles.forEach((percentile) => params.append('percentiles', percentile));
+    const response = await apiClient.get(`/history/${entity}/stats?${params}`);
+    return response.data;
+  } catch (error) {
+    console.error('Error fetching history stats:', error);
+    return { entity, field, groupBy, interval, series: [] };
+  }
+};
+
+// Recorded values of one property, per field ({ entity, id, fields: { listPrice: [{ recordedAt, value }] } })
+export const fetchPropertyHistory = async (id, fields = []) => {
+  try {
+    if (isMockMode()) {
+      return { entity: 'property', id, fields: {} };
+    }
+
+    const params = new URLSearchParams();
+    fields.forEach((field) => params.append('fields', field));
+    const response = await apiClient.get(`/history/properties/${id}?${params}`);
+    return response.data;
+  } catch (error) {
+    console.error(`Error fetching history of property ${id}:`, error);
+    return { entity: 'property', id, fields: {} };
+  }
+};
+
 // Location Scores API calls
 export const fetchLocationScores = async (filters = {}) => {
   try {
@@ -105,8 +306,7 @@ export const fetchLocationScores = async (filters = {}) => {
       }
     });
 
-    const response = await apiClient.get('/location-scores', { params });
-    return response.data;
+    return await getList('/location-scores', params);
   } catch (error) {
     console.error('Error fetching location scores:', error);
     // Fall back to mock data
@@ -145,10 +345,7 @@ export const fetchLocationScoresInBounds = async (bounds) => {
     }
 
     const { southLat, northLat, westLng, eastLng } = bounds;
-    const response = await apiClient.get('/location-scores/bounds', {
-      params: { southLat, northLat, westLng, eastLng },
-    });
-    return response.data;
+    return await getList('/location-scores/bounds', { southLat, northLat, westLng, eastLng });
   } catch (error) {
     console.error('Error fetching location scores in bounds:', error);
     // Fall back to mock data
@@ -157,6 +354,65 @@ export const fetchLocationScoresInBounds = async (bounds) => {
   }
 };
 
+// Properties and location scores of a viewport in one request. With the previous bounds only
+// rows that just came into view are returned (delta: true); filters use the /filter parameter names.
+export const fetchViewport = async (bounds, previousBounds = null, filters = {}) => {
+  try {
+    if (isMockMode()) {
+      console.log('Using mock data for viewport');
+      return { properties: mockProperties, locationScores: mockLocationScores, delta: false };
+    }
+
+    const { southLat, northLat, westLng, eastLng } = bounds;
+    const params = { southLat, northLat, westLng, eastLng };
+    if (previousBounds) {
+      params.prevSouthLat = previousBounds.southLat;
+      params.prevNorthLat = previousBounds.northLat;
+      params.prevWestLng = previousBounds.westLng;
+      params.prevEastLng = previousBounds.eastLng;
+    }
+    Object.entries(filters).forEach(([key, value]) => {
+      if (value !== undefined && value !== null) {
+        params[key] = value;
+      }
+    });
+
+    const response = await apiClient.get('/viewport', { params });
+    return response.data;
+  } catch (error) {
+    console.error('Error fetching viewport:', error);
+    console.log('Falling back to mock data for viewport');
+    return { properties: mockProperties, locationScores: mockLocationScores, delta: false };
+  }
+};
+
+// Live changes (saves and deletes) within the bounds instead of re-polling the lists.
+// The browser reconnects on its own and resumes after the last change it received;
+// onReset means changes were missed and the lists should be reloaded. Returns a function that unsubscribes.
+export const subscribeToChanges = (bounds, { onChange, onReset, entities } = {}) => {
+  if (isMockMode()) {
+    return () => {};
+  }
+
+  const params = new URLSearchParams();
+  if (bounds) {
+    const { southLat, northLat, westLng, eastLng } = bounds;
+    Object.entries({ southLat, northLat, westLng, eastLng }).forEach(([key, value]) => params.append(key, value));
+  }
+  if (entities) {
+    params.append('entities', entities.join(','));
+  }
+
+  const source = new EventSource(`${API_BASE_URL}/changes?${params}`, { withCredentials: true });
+  source.addEventListener('change', (event) => onChange && onChange(JSON.parse(event.data)));
+  source.addEventListener('reset', () => onReset && onReset());
+  return () => source.close();
+};
+
+// URL template for a Leaflet tile layer rendering a location score metric server-side
+export const getHeatmapTileUrl = (metric) =>
+  `${API_BASE_URL}/location-scores/tiles/${metric}/{z}/{x}/{y}`;
+
 // Filter-based API calls
 export const fetchPropertiesByMetric = async (metric, minValue) => {
   try {
@@ -235,6 +491,27 @@ export const updateProperty = async (id, propertyData) => {
   }
 };
 
+// Updates only the given fields. With the version from a previous read the update is rejected
+// (HTTP 412) if the property changed in the meantime; deferred updates are queued and merged server-side.
+export const patchProperty = async (id, changes, { version, deferred = false } = {}) => {
+  try {
+    if (isMockMode()) {
+      console.log('Mocking patch property');
+      return { ...changes, id, updatedAt: new Date().toISOString() };
+    }
+
+    const headers = version !== undefined && version !== null ? { 'If-Match': `"${version}"` } : {};
+    const response = await apiClient.patch(`/properties/${id}`, changes, {
+      headers,
+      params: deferred ? { deferred: true } : {},
+    });
+    return response.data;
+  } catch (error) {
+    console.error(`Error patching property with id ${id}:`, error);
+    throw error;
+  }
+};
+
 export const deleteProperty = async (id) => {
   try {
     // If in mock mode, return success
@@ -255,11 +532,22 @@ export default {
   fetchProperties,
   fetchPropertyById,
   fetchPropertiesInBounds,
+  fetchPropertyClusters,
+  fetchPropertiesWithScores,
+  fetchComparableProperties,
+  fetchNearestProperties,
+  fetchPropertyStats,
+  simulateReturns,
+  searchAddresses,
+  fetchHistoryStats,
+  fetchPropertyHistory,
   fetchLocationScores,
   fetchLocationScoreById,
   fetchLocationScoresInBounds,
+  getHeatmapTileUrl,
   fetchPropertiesByMetric,
   addProperty,
   updateProperty,
+  patchProperty,
   deleteProperty,
 };
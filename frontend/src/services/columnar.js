@@ -0,0 +1,192 @@
+// Decoder for the backend's columnar binary format (application/vnd.propertymap.columnar).
+// The layout is documented on ColumnarFormat in the backend; rows decode to the same objects
+// as the JSON responses.
+export const COLUMNAR_MEDIA_TYPE = 'application/vnd.propertymap.columnar';
+
+const ID = 1;
+const INT = 2;
+const DECIMAL = 3;
+const DOUBLE = 4;
+const COORDINATE = 5;
+const DICTIONARY = 6;
+const STRING = 7;
+const TIMESTAMP = 8;
+
+const textDecoder = new TextDecoder();
+
+class Reader {
+  constructor(buffer) {
+    this.bytes = new Uint8Array(buffer);
+    this.view = new DataView(buffer);
+    this.position = 0;
+  }
+
+  byte() {
+    return this.bytes[this.position++];
+  }
+
+  // Values stay below 2^53, so plain arithmetic instead of 32-bit shifts
+  varint() {
+    let value = 0;
+    let factor = 1;
+    let b;
+    do {
+      b = this.byte();
+      value += (b & 0x7f) * factor;
+      factor *= 128;
+    } while (b & 0x80);
+    return value;
+  }
+
+  zigzag() {
+    const value = this.varint();
+    return value % 2 === 0 ? value / 2 : -(value + 1) / 2;
+  }
+
+  double() {
+    const value = this.view.getFloat64(this.position);
+    this.position += 8;
+    return value;
+  }
+
+  utf8(length) {
+    const value = textDecoder.decode(this.bytes.subarray(this.position, this.position + length));
+    this.position += length;
+    return value;
+  }
+
+  string() {
+    return this.utf8(this.varint());
+  }
+
+  presence(count) {
+    const bitmap = this.bytes.subarray(this.position, this.position + Math.ceil(count / 8));
+    this.position += bitmap.length;
+    return (i) => (bitmap[i >> 3] & (1 << (i & 7))) !== 0;
+  }
+}
+
+// Same shape as Jackson's LocalDateTime arrays: seconds and nanos only when non-zero
+const toDateTimeArray = (micros) => {
+  const millis = Math.floor(micros / 1000);
+  const date = new Date(millis);
+  const result = [
+    date.getUTCFullYear(),
+    date.getUTCMonth() + 1,
+    date.getUTCDate(),
+    date.getUTCHours(),
+    date.getUTCMinutes(),
+  ];
+  const seconds = date.getUTCSeconds();
+  const nanos = (micros - Math.floor(micros / 1e6) * 1e6) * 1000;
+  if (seconds > 0 || nanos > 0) {
+    result.push(seconds);
+  }
+  if (nanos > 0) {
+    result.push(nanos);
+  }
+  return result;
+};
+
+const readColumn = (reader, type, count) => {
+  const values = new Array(count);
+  let present;
+  let previous = 0;
+  switch (type) {
+    case ID:
+      for (let i = 0; i < count; i++) {
+        previous += reader.zigzag();
+        values[i] = previous;
+      }
+      return values;
+    case INT:
+      present = reader.presence(count);
+      for (let i = 0; i < count; i++) {
+        values[i] = present(i) ? reader.zigzag() : null;
+      }
+      return values;
+    case DECIMAL: {
+      const divisor = 10 ** reader.byte();
+      present = reader.presence(count);
+      for (let i = 0; i < count; i++) {
+        values[i] = present(i) ? reader.zigzag() / divisor : null;
+      }
+      return values;
+    }
+    case DOUBLE:
+      present = reader.presence(count);
+      for (let i = 0; i < count; i++) {
+        values[i] = present(i) ? reader.double() : null;
+      }
+      return values;
+    case COORDINATE: {
+      const divisor = 10 ** reader.byte();
+      present = reader.presence(count);
+      for (let i = 0; i < count; i++) {
+        if (present(i)) {
+          previous += reader.zigzag();
+          values[i] = previous / divisor;
+        } else {
+          values[i] = null;
+        }
+      }
+      return values;
+    }
+    case DICTIONARY: {
+      const entries = new Array(reader.varint());
+      for (let e = 0; e < entries.length; e++) {
+        entries[e] = reader.string();
+      }
+      for (let i = 0; i < count; i++) {
+        const code = reader.varint();
+        values[i] = code === 0 ? null : entries[code - 1];
+      }
+      return values;
+    }
+    case STRING:
+      for (let i = 0; i < count; i++) {
+        const length = reader.varint();
+        values[i] = length === 0 ? null : reader.utf8(length - 1);
+      }
+      return values;
+    case TIMESTAMP:
+      present = reader.presence(count);
+      for (let i = 0; i < count; i++) {
+        if (present(i)) {
+          previous += reader.zigzag();
+          values[i] = toDateTimeArray(previous);
+        } else {
+          values[i] = null;
+        }
+      }
+      return values;
+    default:
+      throw new Error(`Unknown columnar column type ${type}`);
+  }
+};
+
+export const decodeColumnar = (buffer) => {
+  const reader = new Reader(buffer);
+  if (reader.byte() !== 0x50 || reader.byte() !== 0x4d || reader.byte() !== 0x43) {
+    throw new Error('Not a columnar response');
+  }
+  const version = reader.byte();
+  if (version !== 1) {
+    throw new Error(`Unsupported columnar version ${version}`);
+  }
+
+  const count = reader.varint();
+  const columnCount = reader.varint();
+  const rows = new Array(count);
+  for (let i = 0; i < count; i++) {
+    rows[i] = {};
+  }
+  for (let c = 0; c < columnCount; c++) {
+    const name = reader.string();
+    const values = readColumn(reader, reader.byte(), count);
+    for (let i = 0; i < count; i++) {
+      rows[i][name] = values[i];
+    }
+  }
+  return rows;
+};